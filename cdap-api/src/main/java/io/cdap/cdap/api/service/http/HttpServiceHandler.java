@@ -76,6 +76,22 @@ import javax.ws.rs.Path;
  *        }
  * </p>
  *
+ * A handler method can also be asynchronous by returning a {@link java.util.concurrent.CompletionStage}. The
+ * response is sent when the returned stage completes, using the responses given to the {@link HttpServiceResponder}
+ * until then, or an error response if the stage completes exceptionally. The thread that called the handler method
+ * is free to serve other requests in the meantime, and the handler instance is reserved for the request until the
+ * stage completes. A transaction cannot span the completion of the stage, so asynchronous handler methods must be
+ * annotated with the explicit transaction policy, and perform data operations through
+ * {@link HttpServiceContext#execute(io.cdap.cdap.api.TxRunnable)}.
+ * <p>
+ *        {@literal @}GET
+ *        {@literal @}Path("/lookup")
+ *        {@literal @}TransactionPolicy(TransactionControl.EXPLICIT)
+ *        public CompletionStage&lt;Void&gt; lookup(HttpServiceRequest request, HttpServiceResponder responder) {
+ *          return remoteClient.lookupAsync(key).thenAccept(responder::sendString);
+ *        }
+ * </p>
+ *
  * @see HttpContentConsumer
  * @see HttpContentProducer
  * @param <T> type of service context
@@ -30,4 +30,14 @@ public interface DataTracerFactory {
    * @return the instance of the DataTracer
    */
   DataTracer getDataTracer(ApplicationId applicationId, String tracerName);
+
+  /**
+   * Makes sure that all data traced for the given application so far is stored. This is called when the
+   * preview run completes.
+   *
+   * @param applicationId the id of the preview application
+   */
+  default void flush(ApplicationId applicationId) {
+    // no-op by default
+  }
 }
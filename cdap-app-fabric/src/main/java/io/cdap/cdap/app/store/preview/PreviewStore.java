@@ -40,12 +40,32 @@ public interface PreviewStore {
    */
   void put(ApplicationId applicationId, String tracerName, String propertyName, Object value);
 
+  /**
+   * Encodes a traced value into the form it is stored in. Later changes to the value do not affect the encoded
+   * form, so it can be written after the caller has moved on and possibly reused the value.
+   *
+   * @param value the value to be encoded
+   * @return the encoded value, to be passed to {@link #putAll(ApplicationId, String, List)}
+   */
+  Object encode(Object value);
+
+  /**
+   * Add a batch of preview data in a single write.
+   *
+   * @param applicationId the id of the program which is logging the preview data
+   * @param tracerName the name of the logger used to put the preview data
+   * @param values the pairs of property name and value to be added, in the order they were traced. Values can
+   *               be either returned by {@link #encode(Object)} or not yet encoded
+   */
+  void putAll(ApplicationId applicationId, String tracerName, List<Map.Entry<String, Object>> values);
+
   /**
    * Get the preview data associated with the given application id.
    *
    * @param applicationId the id of the preview for which preview data to be fetched
    * @param tracerName the name of the tracer used to put the preview data
-   * @return the {@link Map} of property and associated values for the program
+   * @return the {@link Map} of property and associated values for the program. The values may be decoded
+   *         lazily when they are accessed
    */
   Map<String, List<JsonElement>> get(ApplicationId applicationId, String tracerName);
 
@@ -16,10 +16,13 @@
 
 package io.cdap.cdap.internal.app.deploy;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.name.Named;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.metrics.MetricsSystemClient;
 import io.cdap.cdap.app.deploy.Manager;
 import io.cdap.cdap.app.store.Store;
@@ -36,15 +39,19 @@ import io.cdap.cdap.internal.app.deploy.pipeline.DeleteAndCreateSchedulesStage;
 import io.cdap.cdap.internal.app.deploy.pipeline.DeletedProgramHandlerStage;
 import io.cdap.cdap.internal.app.deploy.pipeline.DeployDatasetModulesStage;
 import io.cdap.cdap.internal.app.deploy.pipeline.DeploymentCleanupStage;
+import io.cdap.cdap.internal.app.deploy.pipeline.DeploymentExecutor;
 import io.cdap.cdap.internal.app.deploy.pipeline.LocalArtifactLoaderStage;
+import io.cdap.cdap.internal.app.deploy.pipeline.ParallelStage;
 import io.cdap.cdap.internal.app.deploy.pipeline.ProgramGenerationStage;
 import io.cdap.cdap.internal.app.deploy.pipeline.SystemMetadataWriterStage;
+import io.cdap.cdap.internal.app.deploy.pipeline.TimedStage;
 import io.cdap.cdap.internal.app.runtime.artifact.ArtifactRepository;
 import io.cdap.cdap.internal.app.runtime.artifact.PluginFinder;
 import io.cdap.cdap.pipeline.Context;
 import io.cdap.cdap.pipeline.Pipeline;
 import io.cdap.cdap.pipeline.PipelineFactory;
 import io.cdap.cdap.pipeline.Stage;
+import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.scheduler.Scheduler;
 import io.cdap.cdap.security.impersonation.Impersonator;
 import io.cdap.cdap.security.impersonation.OwnerAdmin;
@@ -52,8 +59,11 @@ import io.cdap.cdap.security.spi.authentication.AuthenticationContext;
 import io.cdap.cdap.security.spi.authorization.AuthorizationEnforcer;
 import io.cdap.cdap.spi.data.StructuredTableAdmin;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This class is concrete implementation of {@link Manager} that deploys an Application.
+ * Stages that do not depend on each other run concurrently with the {@link DeploymentExecutor}.
  *
  * @param <I> Input type.
  * @param <O> Output type.
@@ -83,6 +93,8 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
   private final AuthorizationEnforcer authorizationEnforcer;
   private final StructuredTableAdmin structuredTableAdmin;
   private final PluginFinder pluginFinder;
+  private final DeploymentExecutor deploymentExecutor;
+  private final MetricsContext metricsContext;
 
   @Inject
   LocalApplicationManager(CConfiguration configuration, PipelineFactory pipelineFactory,
@@ -96,7 +108,8 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
                           Scheduler programScheduler,
                           AuthorizationEnforcer authorizationEnforcer,
                           StructuredTableAdmin structuredTableAdmin,
-                          PluginFinder pluginFinder) {
+                          PluginFinder pluginFinder, DeploymentExecutor deploymentExecutor,
+                          MetricsCollectionService metricsCollectionService) {
     this.configuration = configuration;
     this.pipelineFactory = pipelineFactory;
     this.store = store;
@@ -114,26 +127,49 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
     this.authorizationEnforcer = authorizationEnforcer;
     this.structuredTableAdmin = structuredTableAdmin;
     this.pluginFinder = pluginFinder;
+    this.deploymentExecutor = deploymentExecutor;
+    this.metricsContext = metricsCollectionService.getContext(
+      ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+                      Constants.Metrics.Tag.COMPONENT, Constants.Service.APP_FABRIC_HTTP));
   }
 
   @Override
   public ListenableFuture<O> deploy(I input) throws Exception {
     Pipeline<O> pipeline = pipelineFactory.getPipeline();
-    pipeline.addLast(new LocalArtifactLoaderStage(configuration, store, artifactRepository, impersonator,
-                                                  authorizationEnforcer, authenticationContext, pluginFinder));
-    pipeline.addLast(new ApplicationVerificationStage(store, datasetFramework, ownerAdmin, authenticationContext));
-    pipeline.addLast(new CreateSystemTablesStage(structuredTableAdmin));
-    pipeline.addLast(new DeployDatasetModulesStage(configuration, datasetFramework, inMemoryDatasetFramework,
-                                                   ownerAdmin, authenticationContext));
-    pipeline.addLast(new CreateDatasetInstancesStage(configuration, datasetFramework, ownerAdmin,
-                                                     authenticationContext));
-    pipeline.addLast(new DeletedProgramHandlerStage(store, programTerminator,
-                                                    metricsSystemClient, metadataServiceClient, programScheduler));
-    pipeline.addLast(new ProgramGenerationStage());
-    pipeline.addLast(new ApplicationRegistrationStage(store, usageRegistry, ownerAdmin));
-    pipeline.addLast(new DeleteAndCreateSchedulesStage(programScheduler));
-    pipeline.addLast(new SystemMetadataWriterStage(metadataServiceClient));
+    pipeline.addLast(timed(new LocalArtifactLoaderStage(configuration, store, artifactRepository, impersonator,
+                                                        authorizationEnforcer, authenticationContext, pluginFinder)));
+    pipeline.addLast(timed(new ApplicationVerificationStage(store, datasetFramework, ownerAdmin,
+                                                            authenticationContext)));
+    // System tables are independent of the datasets of the application
+    pipeline.addLast(new ParallelStage(
+      deploymentExecutor,
+      timed(new CreateSystemTablesStage(structuredTableAdmin, deploymentExecutor)),
+      timed(new DeployDatasetModulesStage(configuration, datasetFramework, inMemoryDatasetFramework,
+                                          ownerAdmin, authenticationContext))));
+    pipeline.addLast(timed(new CreateDatasetInstancesStage(configuration, datasetFramework, ownerAdmin,
+                                                           authenticationContext, deploymentExecutor)));
+    pipeline.addLast(timed(new DeletedProgramHandlerStage(store, programTerminator, metricsSystemClient,
+                                                          metadataServiceClient, programScheduler)));
+    pipeline.addLast(timed(new ProgramGenerationStage()));
+    pipeline.addLast(timed(new ApplicationRegistrationStage(store, usageRegistry, ownerAdmin)));
+    // Schedules and system metadata are both written after the application is registered
+    pipeline.addLast(new ParallelStage(
+      deploymentExecutor,
+      timed(new DeleteAndCreateSchedulesStage(programScheduler)),
+      timed(new SystemMetadataWriterStage(metadataServiceClient))));
     pipeline.setFinally(new DeploymentCleanupStage());
-    return pipeline.execute(input);
+
+    long startTime = System.nanoTime();
+    try {
+      return pipeline.execute(input);
+    } finally {
+      metricsContext.increment(Constants.Metrics.AppDeploy.DEPLOY_COUNT, 1);
+      metricsContext.increment(Constants.Metrics.AppDeploy.DEPLOY_MILLIS,
+                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+  }
+
+  private Stage timed(Stage stage) {
+    return new TimedStage(stage, metricsContext);
   }
 }
@@ -38,8 +38,14 @@ public class CreateDatasetInstancesStage extends AbstractStage<ApplicationDeploy
 
   public CreateDatasetInstancesStage(CConfiguration configuration, DatasetFramework datasetFramework,
                                      OwnerAdmin ownerAdmin, AuthenticationContext authenticationContext) {
+    this(configuration, datasetFramework, ownerAdmin, authenticationContext, DeploymentExecutor.sameThread());
+  }
+
+  public CreateDatasetInstancesStage(CConfiguration configuration, DatasetFramework datasetFramework,
+                                     OwnerAdmin ownerAdmin, AuthenticationContext authenticationContext,
+                                     DeploymentExecutor deploymentExecutor) {
     super(TypeToken.of(ApplicationDeployable.class));
-    this.datasetInstanceCreator = new DatasetInstanceCreator(configuration, datasetFramework);
+    this.datasetInstanceCreator = new DatasetInstanceCreator(configuration, datasetFramework, deploymentExecutor);
     this.ownerAdmin = ownerAdmin;
     this.authenticationContext = authenticationContext;
   }
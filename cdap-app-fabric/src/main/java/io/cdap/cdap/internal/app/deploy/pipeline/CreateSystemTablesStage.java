@@ -23,16 +23,21 @@ import io.cdap.cdap.spi.data.TableAlreadyExistsException;
 import io.cdap.cdap.spi.data.table.StructuredTableSpecification;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * This {@link io.cdap.cdap.pipeline.Stage} is responsible for creating system tables
  */
 public class CreateSystemTablesStage extends AbstractStage<ApplicationDeployable> {
   private final StructuredTableAdmin structuredTableAdmin;
+  private final DeploymentExecutor deploymentExecutor;
 
-  public CreateSystemTablesStage(StructuredTableAdmin structuredTableAdmin) {
+  public CreateSystemTablesStage(StructuredTableAdmin structuredTableAdmin, DeploymentExecutor deploymentExecutor) {
     super(TypeToken.of(ApplicationDeployable.class));
     this.structuredTableAdmin = structuredTableAdmin;
+    this.deploymentExecutor = deploymentExecutor;
   }
 
   /**
@@ -41,23 +46,32 @@ public class CreateSystemTablesStage extends AbstractStage<ApplicationDeployable
    * @param input An instance of {@link ApplicationDeployable}
    */
   @Override
-  public void process(ApplicationDeployable input) throws IOException, TableAlreadyExistsException {
+  public void process(ApplicationDeployable input) throws Exception {
+    List<Callable<Void>> tasks = new ArrayList<>();
     for (StructuredTableSpecification spec : input.getSystemTables()) {
-      StructuredTableSpecification existing = structuredTableAdmin.getSpecification(spec.getTableId());
-      if (existing == null) {
-        // it's possible this throws TableAlreadyExistsException if two apps are deployed at the same time and there
-        // is a race. In that case, fail deployment. On re-deployment, the existing spec will get checked with the
-        // desired spec here. If they are the same, things will continue. If they differ, deployment will fail again.
-        structuredTableAdmin.create(spec);
-      } else if (!existing.equals(spec)) {
-        // don't allow deploying the app if the app expects a specification different than the one that exists
-        throw new IllegalArgumentException(
-          String.format("System table '%s' already exists, but with a different specification.",
-                        spec.getTableId().getName()));
-      }
+      tasks.add(() -> {
+        createTable(spec);
+        return null;
+      });
     }
+    deploymentExecutor.invokeAll(tasks);
 
     // Emit the input to next stage.
     emit(input);
   }
+
+  private void createTable(StructuredTableSpecification spec) throws IOException, TableAlreadyExistsException {
+    StructuredTableSpecification existing = structuredTableAdmin.getSpecification(spec.getTableId());
+    if (existing == null) {
+      // it's possible this throws TableAlreadyExistsException if two apps are deployed at the same time and there
+      // is a race. In that case, fail deployment. On re-deployment, the existing spec will get checked with the
+      // desired spec here. If they are the same, things will continue. If they differ, deployment will fail again.
+      structuredTableAdmin.create(spec);
+    } else if (!existing.equals(spec)) {
+      // don't allow deploying the app if the app expects a specification different than the one that exists
+      throw new IllegalArgumentException(
+        String.format("System table '%s' already exists, but with a different specification.",
+                      spec.getTableId().getName()));
+    }
+  }
 }
@@ -29,20 +29,25 @@ import io.cdap.cdap.security.authorization.AuthorizationUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 
 /**
- * Creates dataset instances.
+ * Creates dataset instances. Instances are created concurrently with a {@link DeploymentExecutor}.
  */
 final class DatasetInstanceCreator {
   private static final Logger LOG = LoggerFactory.getLogger(DatasetInstanceCreator.class);
   private final DatasetFramework datasetFramework;
+  private final DeploymentExecutor deploymentExecutor;
   private final boolean allowDatasetUncheckedUpgrade;
 
-  DatasetInstanceCreator(CConfiguration configuration, DatasetFramework datasetFramework) {
+  DatasetInstanceCreator(CConfiguration configuration, DatasetFramework datasetFramework,
+                         DeploymentExecutor deploymentExecutor) {
     this.datasetFramework = datasetFramework;
+    this.deploymentExecutor = deploymentExecutor;
     this.allowDatasetUncheckedUpgrade = configuration.getBoolean(Constants.Dataset.DATASET_UNCHECKED_UPGRADE);
   }
 
@@ -59,43 +64,53 @@ final class DatasetInstanceCreator {
                        @Nullable final KerberosPrincipalId ownerPrincipal,
                        String authorizingUser) throws Exception {
     // create dataset instances
+    List<Callable<Void>> tasks = new ArrayList<>();
     for (Map.Entry<String, DatasetCreationSpec> instanceEntry : datasets.entrySet()) {
-      String instanceName = instanceEntry.getKey();
-      final DatasetId instanceId = namespaceId.dataset(instanceName);
-      final DatasetCreationSpec instanceSpec = instanceEntry.getValue();
-      DatasetSpecification existingSpec =
-        AuthorizationUtil.authorizeAs(authorizingUser, new Callable<DatasetSpecification>() {
-          @Override
-          public DatasetSpecification call() throws Exception {
-            return datasetFramework.getDatasetSpec(instanceId);
-          }
-        });
-      if (existingSpec == null) {
-        LOG.info("Adding dataset instance: {}", instanceName);
+      tasks.add(() -> {
+        createInstance(namespaceId.dataset(instanceEntry.getKey()), instanceEntry.getValue(),
+                       ownerPrincipal, authorizingUser);
+        return null;
+      });
+    }
+    deploymentExecutor.invokeAll(tasks);
+  }
+
+  private void createInstance(final DatasetId instanceId, final DatasetCreationSpec instanceSpec,
+                              @Nullable final KerberosPrincipalId ownerPrincipal,
+                              String authorizingUser) throws Exception {
+    String instanceName = instanceId.getDataset();
+    DatasetSpecification existingSpec =
+      AuthorizationUtil.authorizeAs(authorizingUser, new Callable<DatasetSpecification>() {
+        @Override
+        public DatasetSpecification call() throws Exception {
+          return datasetFramework.getDatasetSpec(instanceId);
+        }
+      });
+    if (existingSpec == null) {
+      LOG.info("Adding dataset instance: {}", instanceName);
+      AuthorizationUtil.authorizeAs(authorizingUser, new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          datasetFramework.addInstance(instanceSpec.getTypeName(), instanceId, instanceSpec.getProperties(),
+                                       ownerPrincipal);
+          return null;
+        }
+      });
+    } else {
+      if (!existingSpec.getType().equals(instanceSpec.getTypeName())) {
+        throw new IncompatibleUpdateException(
+          String.format("Existing dataset '%s' of type '%s' may not be updated to type '%s'",
+                        instanceName, existingSpec.getType(), instanceSpec.getTypeName()));
+      }
+      if (allowDatasetUncheckedUpgrade) {
+        LOG.info("Updating dataset instance: {}", instanceName);
         AuthorizationUtil.authorizeAs(authorizingUser, new Callable<Void>() {
           @Override
           public Void call() throws Exception {
-            datasetFramework.addInstance(instanceSpec.getTypeName(), instanceId, instanceSpec.getProperties(),
-                                         ownerPrincipal);
+            datasetFramework.updateInstance(instanceId, instanceSpec.getProperties());
             return null;
           }
         });
-      } else {
-        if (!existingSpec.getType().equals(instanceSpec.getTypeName())) {
-          throw new IncompatibleUpdateException(
-            String.format("Existing dataset '%s' of type '%s' may not be updated to type '%s'",
-                          instanceName, existingSpec.getType(), instanceSpec.getTypeName()));
-        }
-        if (allowDatasetUncheckedUpgrade) {
-          LOG.info("Updating dataset instance: {}", instanceName);
-          AuthorizationUtil.authorizeAs(authorizingUser, new Callable<Void>() {
-            @Override
-            public Void call() throws Exception {
-              datasetFramework.updateInstance(instanceId, instanceSpec.getProperties());
-              return null;
-            }
-          });
-        }
       }
     }
   }
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.deploy.pipeline;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
+import org.apache.twill.common.Threads;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
+/**
+ * Runs independent work of application deployments concurrently, using a thread pool shared by all deployments.
+ *
+ * The thread calling {@link #invokeAll(Collection)} also runs the tasks that no pool thread has picked up yet,
+ * so a deployment never waits for pool threads that are busy with other deployments, and tasks can call
+ * {@link #invokeAll(Collection)} themselves. Tasks run with the {@link SecurityRequestContext} and the context
+ * {@link ClassLoader} of the calling thread.
+ */
+@Singleton
+public class DeploymentExecutor {
+
+  private static final DeploymentExecutor SAME_THREAD = new DeploymentExecutor(1);
+
+  @Nullable
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Returns a {@link DeploymentExecutor} that runs all tasks sequentially in the calling thread.
+   */
+  public static DeploymentExecutor sameThread() {
+    return SAME_THREAD;
+  }
+
+  @Inject
+  DeploymentExecutor(CConfiguration cConf) {
+    this(cConf.getInt(Constants.AppFabric.DEPLOY_THREADS));
+  }
+
+  private DeploymentExecutor(int threads) {
+    if (threads <= 1) {
+      this.executor = null;
+    } else {
+      // The calling thread is one of the threads running the tasks
+      this.executor = new ThreadPoolExecutor(threads - 1, threads - 1, 60, TimeUnit.SECONDS,
+                                             new LinkedBlockingQueue<>(),
+                                             Threads.createDaemonThreadFactory("app-deploy-%d"));
+      this.executor.allowCoreThreadTimeOut(true);
+    }
+  }
+
+  /**
+   * Runs the given tasks concurrently and waits for all of them to complete. Once a task fails, the tasks that
+   * are not started yet are skipped.
+   *
+   * @param tasks the tasks to run
+   * @param <T> type of the task results
+   * @return the results of the tasks, in the same order as the tasks
+   * @throws Exception the failure of the first failed task in the task order, with failures of other tasks
+   *                   added as suppressed exceptions
+   */
+  public <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks) throws Exception {
+    String userId = SecurityRequestContext.getUserId();
+    String userIP = SecurityRequestContext.getUserIP();
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    AtomicBoolean failed = new AtomicBoolean();
+
+    List<FutureTask<T>> futures = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      futures.add(new FutureTask<>(() -> {
+        if (failed.get()) {
+          return null;
+        }
+        Thread thread = Thread.currentThread();
+        String oldUserId = SecurityRequestContext.getUserId();
+        String oldUserIP = SecurityRequestContext.getUserIP();
+        ClassLoader oldClassLoader = thread.getContextClassLoader();
+        SecurityRequestContext.setUserId(userId);
+        SecurityRequestContext.setUserIP(userIP);
+        thread.setContextClassLoader(classLoader);
+        try {
+          return task.call();
+        } catch (Throwable t) {
+          failed.set(true);
+          throw t;
+        } finally {
+          SecurityRequestContext.setUserId(oldUserId);
+          SecurityRequestContext.setUserIP(oldUserIP);
+          thread.setContextClassLoader(oldClassLoader);
+        }
+      }));
+    }
+
+    // The first task is always run by the calling thread
+    if (executor != null) {
+      for (FutureTask<T> future : futures.subList(Math.min(1, futures.size()), futures.size())) {
+        executor.execute(future);
+      }
+    }
+    // Running a task that is already run by a pool thread is a no-op
+    for (FutureTask<T> future : futures) {
+      future.run();
+    }
+
+    List<T> results = new ArrayList<>(futures.size());
+    Exception failure = null;
+    for (FutureTask<T> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.deploy.pipeline;
+
+import io.cdap.cdap.internal.pipeline.StageContext;
+import io.cdap.cdap.pipeline.Context;
+import io.cdap.cdap.pipeline.Stage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link Stage} that runs independent stages concurrently with a {@link DeploymentExecutor}.
+ *
+ * Each stage gets the same upstream object and a copy of the context properties. All stages must emit the upstream
+ * object unchanged, which is then emitted by this stage. Properties set by the stages are copied back to the
+ * context, in the order of the stages.
+ */
+public class ParallelStage implements Stage {
+
+  private final DeploymentExecutor executor;
+  private final List<Stage> stages;
+
+  public ParallelStage(DeploymentExecutor executor, Stage... stages) {
+    this.executor = executor;
+    this.stages = Arrays.asList(stages);
+  }
+
+  @Override
+  public void process(Context ctx) throws Exception {
+    Object upStream = ctx.getUpStream();
+    List<Callable<Context>> tasks = new ArrayList<>();
+    for (Stage stage : stages) {
+      StageContext stageContext = new StageContext(upStream);
+      for (String key : ctx.getPropertyKeys()) {
+        stageContext.setProperty(key, ctx.getProperty(key));
+      }
+      tasks.add(() -> {
+        stage.process(stageContext);
+        if (stageContext.getDownStream() != upStream) {
+          throw new IllegalStateException("Stage " + stage + " emitted an object other than its input, "
+                                            + "hence cannot run in parallel with other stages");
+        }
+        return stageContext;
+      });
+    }
+
+    for (Context stageContext : executor.invokeAll(tasks)) {
+      for (String key : stageContext.getPropertyKeys()) {
+        ctx.setProperty(key, stageContext.getProperty(key));
+      }
+    }
+    ctx.setDownStream(upStream);
+  }
+
+  @Override
+  public String toString() {
+    return "ParallelStage" + stages;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.deploy.pipeline;
+
+import com.google.common.base.CaseFormat;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.pipeline.Context;
+import io.cdap.cdap.pipeline.Stage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link Stage} that emits the time taken by another {@link Stage} as a metric. The metric name is the name of
+ * the stage class in lower hyphen case, without the {@code Stage} suffix, prefixed with
+ * {@link Constants.Metrics.AppDeploy#STAGE_METRICS_PREFIX}.
+ */
+public class TimedStage implements Stage {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TimedStage.class);
+
+  private final Stage stage;
+  private final String stageName;
+  private final MetricsContext metricsContext;
+
+  public TimedStage(Stage stage, MetricsContext metricsContext) {
+    String className = stage.getClass().getSimpleName();
+    if (className.endsWith("Stage")) {
+      className = className.substring(0, className.length() - "Stage".length());
+    }
+    this.stage = stage;
+    this.stageName = CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_HYPHEN, className);
+    this.metricsContext = metricsContext;
+  }
+
+  @Override
+  public void process(Context ctx) throws Exception {
+    long startTime = System.nanoTime();
+    try {
+      stage.process(ctx);
+    } finally {
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      LOG.trace("Deployment stage {} took {} ms", stageName, millis);
+      metricsContext.increment(Constants.Metrics.AppDeploy.STAGE_METRICS_PREFIX + stageName + ".ms", millis);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return stage.toString();
+  }
+}
@@ -16,27 +16,27 @@
 package io.cdap.cdap.internal.app.preview;
 
 import io.cdap.cdap.api.preview.DataTracer;
-import io.cdap.cdap.app.store.preview.PreviewStore;
 import io.cdap.cdap.proto.id.ApplicationId;
 
 /**
- * Default implementation of {@link DataTracer}, the data are preserved using {@link PreviewStore}
+ * Default implementation of {@link DataTracer}, the data are written to the preview store by a
+ * {@link PreviewDataWriter}.
  */
 class DefaultDataTracer implements DataTracer {
 
   private final String tracerName;
   private final ApplicationId applicationId;
-  private final PreviewStore previewStore;
+  private final PreviewDataWriter writer;
 
-  DefaultDataTracer(ApplicationId applicationId, String tracerName, PreviewStore previewStore) {
+  DefaultDataTracer(ApplicationId applicationId, String tracerName, PreviewDataWriter writer) {
     this.tracerName = tracerName;
     this.applicationId = applicationId;
-    this.previewStore = previewStore;
+    this.writer = writer;
   }
 
   @Override
   public void info(String propertyName, Object propertyValue) {
-    previewStore.put(applicationId, tracerName, propertyName, propertyValue);
+    writer.add(applicationId, tracerName, propertyName, propertyValue);
   }
 
   @Override
@@ -19,6 +19,8 @@ import com.google.inject.Inject;
 import io.cdap.cdap.api.preview.DataTracer;
 import io.cdap.cdap.app.preview.DataTracerFactory;
 import io.cdap.cdap.app.store.preview.PreviewStore;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.proto.id.ApplicationId;
 
 /**
@@ -26,15 +28,20 @@ import io.cdap.cdap.proto.id.ApplicationId;
  */
 public class DefaultDataTracerFactory implements DataTracerFactory {
 
-  private final PreviewStore previewStore;
+  private final PreviewDataWriter writer;
 
   @Inject
-  public DefaultDataTracerFactory(PreviewStore previewStore) {
-    this.previewStore = previewStore;
+  public DefaultDataTracerFactory(CConfiguration cConf, PreviewStore previewStore) {
+    this.writer = new PreviewDataWriter(previewStore, cConf.getInt(Constants.Preview.MAX_TRACED_VALUES));
   }
 
   @Override
   public DataTracer getDataTracer(ApplicationId applicationId, String tracerName) {
-    return new DefaultDataTracer(applicationId, tracerName, previewStore);
+    return new DefaultDataTracer(applicationId, tracerName, writer);
+  }
+
+  @Override
+  public void flush(ApplicationId applicationId) {
+    writer.flush(applicationId);
   }
 }
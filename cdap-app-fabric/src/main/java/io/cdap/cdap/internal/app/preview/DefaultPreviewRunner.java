@@ -230,6 +230,8 @@ public class DefaultPreviewRunner extends AbstractIdleService implements Preview
        * @param failureCause if the program was terminated due to error, this carries the failure cause
        */
       private void terminated(PreviewStatus.Status status, @Nullable Throwable failureCause) {
+        // make sure the traced data is available before the run is reported as terminated
+        dataTracerFactory.flush(programId.getParent());
         setStatus(programId, new PreviewStatus(status, failureCause == null ? null : new BasicThrowable(failureCause),
                                                startTimeMillis, System.currentTimeMillis()));
         if (failureCause == null) {
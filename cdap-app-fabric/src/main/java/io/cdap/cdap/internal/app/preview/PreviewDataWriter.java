@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.preview;
+
+import io.cdap.cdap.app.store.preview.PreviewStore;
+import io.cdap.cdap.common.logging.LogSamplers;
+import io.cdap.cdap.common.logging.Loggers;
+import io.cdap.cdap.proto.id.ApplicationId;
+import org.apache.twill.common.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes traced preview data to the {@link PreviewStore} asynchronously and in batches.
+ *
+ * Tracing a value only encodes and queues it. A background thread writes all values queued for the same tracer with
+ * one {@link PreviewStore#putAll(ApplicationId, String, List)} call, so that values traced while a write is in
+ * progress are batched together. Only up to a maximum number of values is kept for each tracer, later values are
+ * dropped.
+ */
+final class PreviewDataWriter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PreviewDataWriter.class);
+  private static final Logger WRITE_FAILURE_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(60000));
+
+  private final PreviewStore previewStore;
+  private final int maxValuesPerTracer;
+  private final Queue<TracedValue> queue;
+  private final ConcurrentMap<ApplicationId, ConcurrentMap<String, AtomicInteger>> counts;
+  private final AtomicBoolean writeScheduled;
+  private final ExecutorService executor;
+
+  PreviewDataWriter(PreviewStore previewStore, int maxValuesPerTracer) {
+    this.previewStore = previewStore;
+    this.maxValuesPerTracer = maxValuesPerTracer;
+    this.queue = new ConcurrentLinkedQueue<>();
+    this.counts = new ConcurrentHashMap<>();
+    this.writeScheduled = new AtomicBoolean();
+    // The writer thread terminates when there is nothing to write for a while
+    this.executor = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                           Threads.createDaemonThreadFactory("preview-data-writer"));
+  }
+
+  /**
+   * Queues a traced value to be written. This method never blocks. The value is encoded before it is queued, since
+   * the caller may change and reuse it as soon as this method returns.
+   */
+  void add(ApplicationId applicationId, String tracerName, String propertyName, Object value) {
+    AtomicInteger count = counts.computeIfAbsent(applicationId, k -> new ConcurrentHashMap<>())
+      .computeIfAbsent(tracerName, k -> new AtomicInteger());
+    if (count.incrementAndGet() > maxValuesPerTracer) {
+      if (count.get() == maxValuesPerTracer + 1) {
+        LOG.debug("Tracer {} of preview {} reached the maximum of {} values, further values are dropped",
+                  tracerName, applicationId, maxValuesPerTracer);
+      }
+      return;
+    }
+    Object encoded;
+    try {
+      encoded = previewStore.encode(value);
+    } catch (Exception e) {
+      WRITE_FAILURE_LOG.warn("Failed to encode a value of tracer {} for preview {}", tracerName, applicationId, e);
+      return;
+    }
+    queue.add(new TracedValue(applicationId, tracerName, propertyName, encoded));
+    if (writeScheduled.compareAndSet(false, true)) {
+      executor.execute(() -> {
+        // Reset the flag before writing, so that values added after the queue is drained schedule another write
+        writeScheduled.set(false);
+        write();
+      });
+    }
+  }
+
+  /**
+   * Writes all values that are queued for all tracers and blocks until they are written. Also releases the
+   * limits kept for the given application.
+   */
+  void flush(ApplicationId applicationId) {
+    write();
+    counts.remove(applicationId);
+  }
+
+  private synchronized void write() {
+    Map<ApplicationId, Map<String, List<Map.Entry<String, Object>>>> batches = new LinkedHashMap<>();
+    TracedValue tracedValue = queue.poll();
+    while (tracedValue != null) {
+      batches.computeIfAbsent(tracedValue.applicationId, k -> new LinkedHashMap<>())
+        .computeIfAbsent(tracedValue.tracerName, k -> new ArrayList<>())
+        .add(new AbstractMap.SimpleEntry<>(tracedValue.propertyName, tracedValue.value));
+      tracedValue = queue.poll();
+    }
+
+    for (Map.Entry<ApplicationId, Map<String, List<Map.Entry<String, Object>>>> appBatch : batches.entrySet()) {
+      for (Map.Entry<String, List<Map.Entry<String, Object>>> batch : appBatch.getValue().entrySet()) {
+        try {
+          previewStore.putAll(appBatch.getKey(), batch.getKey(), batch.getValue());
+        } catch (Exception e) {
+          WRITE_FAILURE_LOG.warn("Failed to write {} values of tracer {} for preview {}",
+                                 batch.getValue().size(), batch.getKey(), appBatch.getKey(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * A value traced by a {@link DefaultDataTracer} that is waiting to be written.
+   */
+  private static final class TracedValue {
+    private final ApplicationId applicationId;
+    private final String tracerName;
+    private final String propertyName;
+    private final Object value;
+
+    TracedValue(ApplicationId applicationId, String tracerName, String propertyName, Object value) {
+      this.applicationId = applicationId;
+      this.tracerName = tracerName;
+      this.propertyName = propertyName;
+      this.value = value;
+    }
+  }
+}
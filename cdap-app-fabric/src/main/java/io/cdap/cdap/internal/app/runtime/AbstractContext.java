@@ -68,6 +68,7 @@ import io.cdap.cdap.app.runtime.ProgramOptions;
 import io.cdap.cdap.app.services.AbstractServiceDiscoverer;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.ConfigurationSnapshot;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.lang.ClassLoaders;
 import io.cdap.cdap.common.lang.CombineClassLoader;
@@ -147,6 +148,8 @@ public abstract class AbstractContext extends AbstractServiceDiscoverer
     .create();
 
   private final CConfiguration cConf;
+  private final ConfigurationSnapshot cConfSnapshot;
+  private final TransactionControl defaultTxControl;
   private final ArtifactId artifactId;
   private final Program program;
   private final ProgramOptions programOptions;
@@ -194,6 +197,10 @@ public abstract class AbstractContext extends AbstractServiceDiscoverer
     this.program = program;
     this.programOptions = programOptions;
     this.cConf = cConf;
+    this.cConfSnapshot = cConf.snapshot();
+    // resolved once, since it is read on every transactional call made by the program
+    this.defaultTxControl = TransactionControl.valueOf(
+      cConfSnapshot.get(Constants.AppFabric.PROGRAM_TRANSACTION_CONTROL).toUpperCase());
     this.programRunId = program.getId().run(ProgramRunners.getRunId(programOptions));
     this.triggeringScheduleInfo = getTriggeringScheduleInfo(programOptions);
     this.discoveryServiceClient = discoveryServiceClient;
@@ -690,7 +697,7 @@ public abstract class AbstractContext extends AbstractServiceDiscoverer
   }
 
   public TransactionControl getDefaultTxControl() {
-    return TransactionControl.valueOf(cConf.get(Constants.AppFabric.PROGRAM_TRANSACTION_CONTROL).toUpperCase());
+    return defaultTxControl;
   }
 
   /**
@@ -817,7 +824,7 @@ public abstract class AbstractContext extends AbstractServiceDiscoverer
 
       @Override
       public void notifyNewPartitions(Collection<? extends PartitionKey> partitionKeys) throws IOException {
-        String topic = cConf.get(Constants.Dataset.DATA_EVENT_TOPIC);
+        String topic = cConfSnapshot.get(Constants.Dataset.DATA_EVENT_TOPIC);
         if (Strings.isNullOrEmpty(topic)) {
           // Don't publish if there is no data event topic
           return;
@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A content addressed cache of files on the cluster file system, used to avoid uploading the same jars for every
+ * program run.
+ *
+ * Each cached file is named after the hash of its content. For jars and zips, only the names and contents of the
+ * entries are hashed, so that archives that are rebuilt for every run with new timestamps are still reused.
+ * Every run that uses a cached file holds a reference to it, which is an empty file in the '[file].refs' directory
+ * next to it. References are removed when the cache is closed after the run terminates. Cached files that have
+ * not been referenced for longer than the configured TTL are deleted by {@link #cleanup(Location, long, Set, long)},
+ * which {@link LocalizationCacheCleanupService} runs periodically. It also releases the references of runs that are
+ * no longer active, since a run never releases them if CDAP master stops while the run is active.
+ *
+ * Runs add their reference before checking for the cached file, and cleanup renames a file before checking the
+ * references once more and deleting it. Hence a run either finds the file and keeps it from being deleted, or it
+ * does not find the file and uploads it again.
+ */
+public final class LocalizationCache implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalizationCache.class);
+  private static final String REFS_SUFFIX = ".refs";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final String DELETE_SUFFIX = ".delete";
+
+  private final Location cacheDir;
+  private final String owner;
+  private final Set<String> references;
+  private long bytesUploaded;
+  private long bytesReused;
+
+  @VisibleForTesting
+  LocalizationCache(Location cacheDir, String owner) {
+    this.cacheDir = cacheDir;
+    this.owner = owner;
+    this.references = new HashSet<>();
+  }
+
+  /**
+   * Creates a cache in the given base directory, or returns {@code null} if caching is disabled.
+   *
+   * @param cConf the configuration to read the cache settings from
+   * @param baseDir the directory to create the cache directory in, usually the namespace home
+   * @param owner the run id of the program run that uses the cache, which releases its references when it
+   *              is not active anymore
+   */
+  @Nullable
+  public static LocalizationCache create(CConfiguration cConf, Location baseDir, String owner) throws IOException {
+    if (!cConf.getBoolean(Constants.AppFabric.LOCALIZATION_CACHE_ENABLED)) {
+      return null;
+    }
+    return new LocalizationCache(getCacheDir(cConf, baseDir), owner);
+  }
+
+  /**
+   * Returns the cache directory in the given base directory.
+   */
+  static Location getCacheDir(CConfiguration cConf, Location baseDir) throws IOException {
+    return baseDir.append(cConf.get(Constants.AppFabric.LOCALIZATION_CACHE_DIR));
+  }
+
+  /**
+   * Returns a {@link Location} in the cache with the same content as the given local file, uploading the file
+   * if the cache does not have it yet.
+   */
+  public synchronized Location add(File file) throws IOException {
+    String name = hash(file) + getExtension(file.getName());
+    return add(name, file.length(), () -> new FileInputStream(file));
+  }
+
+  /**
+   * Returns a {@link Location} in the cache with the same content as the given location, copying it if the
+   * cache does not have it yet. The location is identified by its URI, size and modification time rather than
+   * its content, so that it does not need to be read if it is already cached.
+   */
+  public synchronized Location add(Location location) throws IOException {
+    long length = location.length();
+    String name = Hashing.sha256().newHasher()
+      .putString(location.toURI().toString(), StandardCharsets.UTF_8)
+      .putLong(length)
+      .putLong(location.lastModified())
+      .hash().toString() + getExtension(location.getName());
+    return add(name, length, location::getInputStream);
+  }
+
+  /**
+   * @return number of bytes that were written to the cache by this user
+   */
+  public synchronized long getBytesUploaded() {
+    return bytesUploaded;
+  }
+
+  /**
+   * @return number of bytes that were already in the cache when this user asked for them
+   */
+  public synchronized long getBytesReused() {
+    return bytesReused;
+  }
+
+  /**
+   * Releases all references held by this user.
+   */
+  @Override
+  public synchronized void close() {
+    for (String name : references) {
+      try {
+        cacheDir.append(name + REFS_SUFFIX).append(owner).delete();
+      } catch (IOException e) {
+        LOG.warn("Failed to release reference to cached file {} in {}", name, cacheDir, e);
+      }
+    }
+    references.clear();
+  }
+
+  /**
+   * Deletes cached files that have no references and were not referenced for longer than the given TTL.
+   * References of owners that are not active are released, unless they were added after the given time, in which
+   * case they may belong to a run that started after the active owners were listed.
+   *
+   * @param cacheDir the cache directory
+   * @param ttlMillis the time in milliseconds after which a file that is not referenced is deleted
+   * @param activeOwners the owners that are still using their references, usually the active program run ids
+   * @param activeOwnersTime the time in milliseconds at which the active owners were listed
+   */
+  static void cleanup(Location cacheDir, long ttlMillis,
+                      Set<String> activeOwners, long activeOwnersTime) throws IOException {
+    if (!cacheDir.exists()) {
+      return;
+    }
+    long expireTime = System.currentTimeMillis() - ttlMillis;
+    for (Location location : cacheDir.list()) {
+      String name = location.getName();
+      if (name.endsWith(REFS_SUFFIX)) {
+        continue;
+      }
+      // temp files are left behind by uploads that failed, and deleted files by cleanups that failed
+      if (name.endsWith(TEMP_SUFFIX) || name.endsWith(DELETE_SUFFIX)) {
+        if (location.lastModified() < expireTime) {
+          location.delete();
+        }
+        continue;
+      }
+      Location refs = cacheDir.append(name + REFS_SUFFIX);
+      if (hasReferences(refs, activeOwners, activeOwnersTime)) {
+        continue;
+      }
+      // adding or removing a reference updates the modification time of the refs directory
+      long lastUsed = refs.exists() ? refs.lastModified() : location.lastModified();
+      if (lastUsed >= expireTime) {
+        continue;
+      }
+
+      // Rename the file first, so that runs adding a reference from now on upload it again. A run that added
+      // its reference before the rename may have found the file, in which case the file is restored.
+      Location deleted = cacheDir.append(name + DELETE_SUFFIX);
+      if (location.renameTo(deleted) == null) {
+        continue;
+      }
+      if (hasReferences(refs, activeOwners, activeOwnersTime)) {
+        if (deleted.renameTo(location) == null) {
+          // the file was uploaded again in the meantime
+          deleted.delete();
+        }
+        continue;
+      }
+      LOG.debug("Deleting unused cached file {}", location);
+      deleted.delete();
+      try {
+        // only deletes the refs directory if no run added a reference to the file in the meantime
+        refs.delete();
+      } catch (IOException e) {
+        LOG.trace("Not deleting refs directory {} that is not empty", refs, e);
+      }
+    }
+  }
+
+  /**
+   * Returns whether the given refs directory has any reference that is in use. References of owners that are not
+   * active anymore are deleted.
+   */
+  private static boolean hasReferences(Location refs, Set<String> activeOwners,
+                                       long activeOwnersTime) throws IOException {
+    if (!refs.exists()) {
+      return false;
+    }
+    boolean result = false;
+    for (Location ref : refs.list()) {
+      if (activeOwners.contains(ref.getName()) || ref.lastModified() >= activeOwnersTime) {
+        result = true;
+      } else {
+        LOG.debug("Releasing reference {} of a run that is not active", ref);
+        ref.delete();
+      }
+    }
+    return result;
+  }
+
+  private Location add(String name, long length, InputStreamSupplier supplier) throws IOException {
+    // add the reference before checking for the file, so that cleanup won't delete it from under us
+    Location refs = cacheDir.append(name + REFS_SUFFIX);
+    Location ref = refs.append(owner);
+    refs.mkdirs();
+    try {
+      ref.createNew();
+    } catch (IOException e) {
+      // cleanup may have deleted the empty refs directory after it was created
+      refs.mkdirs();
+      ref.createNew();
+    }
+    references.add(name);
+
+    Location cached = cacheDir.append(name);
+    if (cached.exists()) {
+      LOG.debug("Reusing cached file {}", cached);
+      bytesReused += length;
+      return cached;
+    }
+
+    Location tempLocation = cacheDir.append(name).getTempFile(TEMP_SUFFIX);
+    try (InputStream is = supplier.get(); OutputStream os = tempLocation.getOutputStream()) {
+      ByteStreams.copy(is, os);
+    }
+    if (tempLocation.renameTo(cached) == null) {
+      // another run uploaded the same file concurrently
+      tempLocation.delete();
+      if (!cached.exists()) {
+        throw new IOException(String.format("Failed to add file %s to localization cache %s", name, cacheDir));
+      }
+    }
+    LOG.debug("Added file {} to the localization cache", cached);
+    bytesUploaded += length;
+    return cached;
+  }
+
+  private static String hash(File file) throws IOException {
+    String extension = Files.getFileExtension(file.getName()).toLowerCase();
+    if (!"jar".equals(extension) && !"zip".equals(extension)) {
+      return Files.hash(file, Hashing.sha256()).toString();
+    }
+    Hasher hasher = Hashing.sha256().newHasher();
+    byte[] buffer = new byte[64 * 1024];
+    try (ZipInputStream zis = new ZipInputStream(new FileInputStream(file))) {
+      ZipEntry entry = zis.getNextEntry();
+      while (entry != null) {
+        hasher.putString(entry.getName(), StandardCharsets.UTF_8);
+        int len = zis.read(buffer);
+        while (len >= 0) {
+          hasher.putBytes(buffer, 0, len);
+          len = zis.read(buffer);
+        }
+        entry = zis.getNextEntry();
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  private static String getExtension(String name) {
+    String extension = Files.getFileExtension(name);
+    return extension.isEmpty() ? "" : "." + extension;
+  }
+
+  /**
+   * Supplies the content to add to the cache.
+   */
+  private interface InputStreamSupplier {
+    InputStream get() throws IOException;
+  }
+}
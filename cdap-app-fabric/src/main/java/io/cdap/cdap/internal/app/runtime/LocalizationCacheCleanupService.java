@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime;
+
+import com.google.inject.Inject;
+import io.cdap.cdap.app.store.Store;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.namespace.NamespacePathLocator;
+import io.cdap.cdap.common.namespace.NamespaceQueryAdmin;
+import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
+import io.cdap.cdap.common.service.RetryStrategies;
+import io.cdap.cdap.proto.NamespaceMeta;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.security.impersonation.Impersonator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically cleans up the {@link LocalizationCache} of every namespace. It releases the references of runs that
+ * are no longer active and deletes the cached files that have not been used for longer than the configured TTL.
+ */
+public class LocalizationCacheCleanupService extends AbstractRetryableScheduledService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalizationCacheCleanupService.class);
+
+  private final CConfiguration cConf;
+  private final Store store;
+  private final NamespaceQueryAdmin namespaceQueryAdmin;
+  private final NamespacePathLocator namespacePathLocator;
+  private final Impersonator impersonator;
+  private final long intervalMillis;
+  private final long ttlMillis;
+
+  @Inject
+  LocalizationCacheCleanupService(CConfiguration cConf, Store store, NamespaceQueryAdmin namespaceQueryAdmin,
+                                  NamespacePathLocator namespacePathLocator, Impersonator impersonator) {
+    super(RetryStrategies.fixDelay(
+      cConf.getLong(Constants.AppFabric.LOCALIZATION_CACHE_CLEANUP_INTERVAL_SECONDS), TimeUnit.SECONDS));
+    this.cConf = cConf;
+    this.store = store;
+    this.namespaceQueryAdmin = namespaceQueryAdmin;
+    this.namespacePathLocator = namespacePathLocator;
+    this.impersonator = impersonator;
+    this.intervalMillis =
+      TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.AppFabric.LOCALIZATION_CACHE_CLEANUP_INTERVAL_SECONDS));
+    this.ttlMillis = TimeUnit.SECONDS.toMillis(cConf.getLong(Constants.AppFabric.LOCALIZATION_CACHE_TTL_SECONDS));
+  }
+
+  @Override
+  protected long runTask() throws Exception {
+    if (!cConf.getBoolean(Constants.AppFabric.LOCALIZATION_CACHE_ENABLED)) {
+      return intervalMillis;
+    }
+    for (NamespaceMeta namespace : namespaceQueryAdmin.list()) {
+      NamespaceId namespaceId = namespace.getNamespaceId();
+      try {
+        cleanup(namespaceId);
+      } catch (Exception e) {
+        LOG.warn("Failed to clean up the localization cache of namespace {}", namespaceId, e);
+      }
+    }
+    return intervalMillis;
+  }
+
+  private void cleanup(NamespaceId namespaceId) throws Exception {
+    // References added shortly before the active runs are listed are kept, since their run may not have a run
+    // record yet, and the file system clock may differ from the local one.
+    long activeRunsTime = System.currentTimeMillis() - intervalMillis;
+    Set<String> activeRuns = store.getActiveRuns(namespaceId).keySet().stream()
+      .map(ProgramRunId::getRun)
+      .collect(Collectors.toSet());
+    impersonator.doAs(namespaceId, () -> {
+      LocalizationCache.cleanup(LocalizationCache.getCacheDir(cConf, namespacePathLocator.get(namespaceId)),
+                                ttlMillis, activeRuns, activeRunsTime);
+      return null;
+    });
+  }
+}
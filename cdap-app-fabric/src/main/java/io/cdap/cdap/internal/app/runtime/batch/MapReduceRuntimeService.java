@@ -53,6 +53,7 @@ import io.cdap.cdap.data2.metadata.lineage.field.FieldLineageInfo;
 import io.cdap.cdap.data2.metadata.writer.FieldLineageWriter;
 import io.cdap.cdap.data2.transaction.Transactions;
 import io.cdap.cdap.data2.util.hbase.HBaseTableUtilFactory;
+import io.cdap.cdap.internal.app.runtime.LocalizationCache;
 import io.cdap.cdap.internal.app.runtime.LocalizationUtils;
 import io.cdap.cdap.internal.app.runtime.ProgramRunners;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
@@ -240,11 +241,17 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
       Location tempLocation = createTempLocationDirectory();
       cleanupTask = createCleanupTask(tempLocation, cleanupTask);
 
+      // Jars that are the same across runs are localized from a cache instead of being uploaded for every run
+      LocalizationCache localizationCache = MapReduceTaskContextProvider.isLocal(mapredConf) ? null :
+        LocalizationCache.create(cConf, locationFactory.get(mapReduceRunId.getNamespaceId()),
+                                 mapReduceRunId.getRun());
+      cleanupTask = createCleanupTask(localizationCache, cleanupTask);
+
       // For local mode, everything is in the configuration classloader already, hence no need to create new jar
       if (!MapReduceTaskContextProvider.isLocal(mapredConf)) {
         // After calling initialize, we know what plugins are needed for the program, hence construct the proper
         // ClassLoader from here and use it for setting up the job
-        Location pluginArchive = createPluginArchive(tempLocation);
+        Location pluginArchive = createPluginArchive(tempLocation, localizationCache);
         if (pluginArchive != null) {
           job.addCacheArchive(pluginArchive.toURI());
           mapredConf.set(Constants.Plugin.ARCHIVE, pluginArchive.getName());
@@ -271,11 +278,12 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
       String hbaseDDLExecutorDirectory = null;
       if (!MapReduceTaskContextProvider.isLocal(mapredConf)) {
         // Copy and localize the program jar in distributed mode
-        programJar = copyProgramJar(tempLocation);
+        programJar = localizationCache == null ? copyProgramJar(tempLocation)
+          : localizationCache.add(programJarLocation);
         job.addCacheFile(programJar.toURI());
 
         // Generate and localize the launcher jar to control the classloader of MapReduce containers processes
-        Location launcherJar = createLauncherJar(tempLocation);
+        Location launcherJar = createLauncherJar(tempDir, tempLocation, localizationCache);
         job.addCacheFile(launcherJar.toURI());
 
         // Launcher.jar should be the first one in the classpath
@@ -283,7 +291,12 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
         classpath.add(launcherJar.getName());
 
         // Localize logback.xml
-        Location logbackLocation = ProgramRunners.createLogbackJar(tempLocation.append("logback.xml.jar"));
+        Location logbackLocation = localizationCache == null
+          ? ProgramRunners.createLogbackJar(tempLocation.append("logback.xml.jar"))
+          : ProgramRunners.createLogbackJar(Locations.toLocation(new File(tempDir, "logback.xml.jar")));
+        if (logbackLocation != null && localizationCache != null) {
+          logbackLocation = localizationCache.add(new File(logbackLocation.toURI()));
+        }
         if (logbackLocation != null) {
           job.addCacheFile(logbackLocation.toURI());
           classpath.add(logbackLocation.getName());
@@ -322,7 +335,9 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
         // Add extra jars set in cConf
         for (URI jarURI : CConfigurationUtil.getExtraJars(cConf)) {
           if ("file".equals(jarURI.getScheme())) {
-            Location extraJarLocation = copyFileToLocation(new File(jarURI.getPath()), tempLocation);
+            File extraJar = new File(jarURI.getPath());
+            Location extraJarLocation = localizationCache == null ? copyFileToLocation(extraJar, tempLocation)
+              : localizationCache.add(extraJar);
             job.addCacheFile(extraJarLocation.toURI());
           } else {
             job.addCacheFile(jarURI);
@@ -348,6 +363,15 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
       }
       contextConfig.set(context, cConfCopy, programJar.toURI(), localizedUserResources);
 
+      if (localizationCache != null) {
+        LOG.info("Localized files for {}: {} bytes uploaded, {} bytes reused from the localization cache.",
+                 mapReduceRunId, localizationCache.getBytesUploaded(), localizationCache.getBytesReused());
+        context.getProgramMetrics().gauge(Constants.Metrics.Program.LOCALIZATION_BYTES_UPLOADED,
+                                          localizationCache.getBytesUploaded());
+        context.getProgramMetrics().gauge(Constants.Metrics.Program.LOCALIZATION_BYTES_REUSED,
+                                          localizationCache.getBytesReused());
+      }
+
       // submits job and returns immediately.
       // Set the context classloader to the program invocation one (which is a weak reference wrapped MRClassloader)
       ClassLoader oldClassLoader = ClassLoaders.setContextClassLoader(context.getProgramInvocationClassLoader());
@@ -983,12 +1007,14 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
    * @return {@link Location} to the plugin archive or {@code null} if no plugin archive is available from the context.
    */
   @Nullable
-  private Location createPluginArchive(Location targetDir) throws IOException {
+  private Location createPluginArchive(Location targetDir,
+                                       @Nullable LocalizationCache localizationCache) throws IOException {
     File pluginArchive = context.getPluginArchive();
     if (pluginArchive == null) {
       return null;
     }
-    return copyFileToLocation(pluginArchive, targetDir);
+    return localizationCache == null ? copyFileToLocation(pluginArchive, targetDir)
+      : localizationCache.add(pluginArchive);
   }
 
   /**
@@ -1023,15 +1049,19 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
    * @see MapReduceContainerLauncher
    * @see ContainerLauncherGenerator
    */
-  private Location createLauncherJar(Location targetDir) throws IOException {
-    Location launcherJar = targetDir.append("launcher.jar");
+  private Location createLauncherJar(File tempDir, Location targetDir,
+                                     @Nullable LocalizationCache localizationCache) throws IOException {
+    // when caching, the jar is generated locally and only uploaded if the cache doesn't have it
+    File localLauncherJar = new File(tempDir, "launcher.jar");
+    Location launcherJar = localizationCache == null ? targetDir.append("launcher.jar")
+      : Locations.toLocation(localLauncherJar);
 
     ContainerLauncherGenerator.generateLauncherJar(
       Arrays.asList(
         "org.apache.hadoop.mapreduce.v2.app.MRAppMaster",
         "org.apache.hadoop.mapred.YarnChild"
       ), MapReduceContainerLauncher.class, launcherJar);
-    return launcherJar;
+    return localizationCache == null ? launcherJar : localizationCache.add(localLauncherJar);
   }
 
   private Runnable createCleanupTask(final Object...resources) {
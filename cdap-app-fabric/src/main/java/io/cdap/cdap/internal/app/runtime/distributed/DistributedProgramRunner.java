@@ -24,6 +24,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.inject.Inject;
 import io.cdap.cdap.api.annotation.TransactionControl;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.app.guice.ClusterMode;
@@ -44,11 +45,13 @@ import io.cdap.cdap.common.lang.jar.BundleJarUtil;
 import io.cdap.cdap.common.logging.LoggerLogHandler;
 import io.cdap.cdap.common.logging.LoggingContext;
 import io.cdap.cdap.common.logging.LoggingContextAccessor;
+import io.cdap.cdap.common.namespace.NamespacePathLocator;
 import io.cdap.cdap.common.twill.TwillAppLifecycleEventHandler;
 import io.cdap.cdap.common.utils.DirUtils;
 import io.cdap.cdap.data2.util.hbase.HBaseTableUtilFactory;
 import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.runtime.BasicArguments;
+import io.cdap.cdap.internal.app.runtime.LocalizationCache;
 import io.cdap.cdap.internal.app.runtime.LocalizationUtils;
 import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.ProgramRunners;
@@ -97,6 +100,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipOutputStream;
@@ -125,6 +130,8 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
   protected final ClusterMode clusterMode;
   private final TwillRunner twillRunner;
   private final Impersonator impersonator;
+  private final ExecutorService localizationCacheExecutor;
+  private NamespacePathLocator namespacePathLocator;
 
   protected DistributedProgramRunner(CConfiguration cConf, Configuration hConf, Impersonator impersonator,
                                      ClusterMode clusterMode, TwillRunner twillRunner) {
@@ -133,6 +140,17 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
     this.cConf = cConf;
     this.impersonator = impersonator;
     this.clusterMode = clusterMode;
+    this.localizationCacheExecutor = Executors.newCachedThreadPool(
+      Threads.createDaemonThreadFactory("localization-cache-release-%d"));
+  }
+
+  /**
+   * Optional guice injection for the {@link NamespacePathLocator} used to locate the localization cache.
+   * It is optional because not every runtime has access to the cluster file system.
+   */
+  @Inject(optional = true)
+  void setNamespacePathLocator(NamespacePathLocator namespacePathLocator) {
+    this.namespacePathLocator = namespacePathLocator;
   }
 
   /**
@@ -253,6 +271,32 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
         @Override
         public ProgramController call() throws Exception {
           ProgramRunId programRunId = program.getId().run(ProgramRunners.getRunId(options));
+          LocalizationCache localizationCache = createLocalizationCache(programRunId);
+          try {
+            if (localizationCache != null) {
+              addToLocalizationCache(localizationCache, localizeResources);
+              LOG.info("Localized files for {}: {} bytes uploaded, {} bytes reused from the localization cache.",
+                       programRunId, localizationCache.getBytesUploaded(), localizationCache.getBytesReused());
+            }
+            TwillController twillController = launch(programRunId);
+            if (localizationCache != null) {
+              // release the references as the same user that added them, without blocking the Twill callbacks
+              twillController.onTerminated(() -> releaseLocalizationCache(programRunId, localizationCache),
+                                           localizationCacheExecutor);
+            }
+            return createProgramController(addCleanupListener(twillController, program, tempDir),
+                                           new ProgramDescriptor(program.getId(),
+                                                                 program.getApplicationSpecification()),
+                                           ProgramRunners.getRunId(options));
+          } catch (Exception e) {
+            if (localizationCache != null) {
+              localizationCache.close();
+            }
+            throw e;
+          }
+        }
+
+        private TwillController launch(ProgramRunId programRunId) throws Exception {
           ProgramTwillApplication twillApplication = new ProgramTwillApplication(
             programRunId, options, launchConfig.getRunnables(), launchConfig.getLaunchOrder(),
             localizeResources, createEventHandler(cConf, programRunId, options));
@@ -356,9 +400,7 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
           } finally {
             ClassLoaders.setContextClassLoader(oldClassLoader);
           }
-          return createProgramController(addCleanupListener(twillController, program, tempDir),
-                                         new ProgramDescriptor(program.getId(), program.getApplicationSpecification()),
-                                         ProgramRunners.getRunId(options));
+          return twillController;
         }
       };
 
@@ -371,6 +413,54 @@ public abstract class DistributedProgramRunner implements ProgramRunner, Program
     }
   }
 
+  /**
+   * Creates the {@link LocalizationCache} for the given run, or returns {@code null} if the cache is disabled or
+   * the program is not launched on the cluster that has the cache.
+   */
+  @Nullable
+  private LocalizationCache createLocalizationCache(ProgramRunId programRunId) throws IOException {
+    if (clusterMode != ClusterMode.ON_PREMISE || namespacePathLocator == null) {
+      return null;
+    }
+    return LocalizationCache.create(cConf, namespacePathLocator.get(programRunId.getNamespaceId()),
+                                    programRunId.getRun());
+  }
+
+  /**
+   * Releases the references held by the given {@link LocalizationCache} as the user of the given program run.
+   */
+  private void releaseLocalizationCache(ProgramRunId programRunId, LocalizationCache localizationCache) {
+    try {
+      impersonator.doAs(programRunId, () -> {
+        localizationCache.close();
+        return null;
+      });
+    } catch (Exception e) {
+      LOG.warn("Failed to release the localization cache references of {}", programRunId, e);
+    }
+  }
+
+  /**
+   * Replaces local jars and archives to be localized by their copies in the {@link LocalizationCache}, so that
+   * Twill localizes them from the cache instead of uploading them again.
+   */
+  private void addToLocalizationCache(LocalizationCache localizationCache,
+                                      Map<String, LocalizeResource> localizeResources) throws IOException {
+    for (Map.Entry<String, LocalizeResource> entry : localizeResources.entrySet()) {
+      LocalizeResource resource = entry.getValue();
+      URI uri = resource.getURI();
+      if (!"file".equals(uri.getScheme())) {
+        continue;
+      }
+      String extension = com.google.common.io.Files.getFileExtension(uri.getPath()).toLowerCase();
+      if (!"jar".equals(extension) && !"zip".equals(extension)) {
+        continue;
+      }
+      Location cached = localizationCache.add(new File(uri));
+      entry.setValue(new LocalizeResource(cached.toURI(), resource.isArchive()));
+    }
+  }
+
   /**
    * Adds a {@link LocalizeResource} if extra log appender is being configured.
    */
@@ -32,6 +32,9 @@ import io.cdap.http.HttpResponder;
 import io.netty.handler.codec.http.HttpRequest;
 import org.apache.twill.common.Cancellable;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 /**
  * An abstract base class for all {@link HttpHandler} generated through the {@link HttpHandlerGenerator}.
  *
@@ -131,4 +134,44 @@ public abstract class AbstractHttpHandlerDelegator<T> implements HttpHandler {
       new BodyProducerAdapter(contentProducer, txServiceContext, contextReleaser, defaultTxControl)
     ), consumer, taskExecutor, contextReleaser, defaultTxControl);
   }
+
+  /**
+   * Sends the response of an asynchronous handler method when the given {@link CompletionStage} completes.
+   *
+   * IMPORTANT: This method will also capture the context associated with the current thread, so that the
+   * user service handler instance is reserved for the request until the response is sent, while the current thread
+   * can serve other requests. After this method is called, no other methods on this class should be called from the
+   * current thread.
+   *
+   * This method is called from handler class generated by {@link HttpHandlerGenerator}.
+   */
+  @SuppressWarnings("unused")
+  protected final void wrapCompletionStage(CompletionStage<?> stage, DelayedHttpServiceResponder responder,
+                                           TransactionControl defaultTxControl) {
+    Cancellable contextReleaser = context.capture();
+
+    stage.whenComplete((result, failure) -> {
+      boolean releaseContext = true;
+      try {
+        if (failure != null) {
+          responder.setFailure(failure instanceof CompletionException && failure.getCause() != null
+                                 ? failure.getCause() : failure);
+        } else if (!responder.hasBufferedResponse()) {
+          responder.setFailure(new IllegalStateException("Handler method completed without sending a response"));
+        }
+        // Close the provided responder so that it can no longer be used by the user. The response is sent with
+        // a new one that transfers the captured context to the content producer, if there is one.
+        responder.close();
+        DelayedHttpServiceResponder completionResponder = new DelayedHttpServiceResponder(
+          responder, (contentProducer, taskExecutor) ->
+          new BodyProducerAdapter(contentProducer, taskExecutor, contextReleaser, defaultTxControl));
+        releaseContext = !completionResponder.hasContentProducer();
+        completionResponder.execute();
+      } finally {
+        if (releaseContext) {
+          contextReleaser.cancel();
+        }
+      }
+    });
+  }
 }
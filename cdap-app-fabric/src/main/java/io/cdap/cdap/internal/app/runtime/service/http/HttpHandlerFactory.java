@@ -107,7 +107,8 @@ public final class HttpHandlerFactory {
         TypeToken<T> type = (TypeToken<T>) TypeToken.of(handler.getClass());
         httpHandlers.add(createHttpHandler(type, new VerificationDelegateContext<>(handler), metricsContext));
       } catch (Exception e) {
-        throw new IllegalArgumentException("Invalid http handler class " + handler.getClass().getName());
+        throw new IllegalArgumentException("Invalid http handler class " + handler.getClass().getName() + ": "
+                                             + Throwables.getRootCause(e).getMessage(), e);
       }
     }
 
@@ -70,6 +70,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
@@ -107,6 +108,12 @@ import javax.ws.rs.Path;
  *     public HttpContentConsumer userUpload(HttpRequest request, HttpResponder responder) {
  *       // see generateDelegateBody() for generated method body.
  *     }
+ *
+ *     @literal @GET
+ *     @literal @Path("/async")
+ *     public void userAsync(HttpRequest request, HttpResponder responder) {
+ *       // see generateDelegateBody() for generated method body.
+ *     }
  *   }
  * }</pre>
  */
@@ -127,6 +134,7 @@ final class HttpHandlerGenerator {
   private static final Type EXCEPTION_TYPE = Type.getType(Exception.class);
   private static final Type DELAYED_HTTP_SERVICE_RESPONDER_TYPE = Type.getType(DelayedHttpServiceResponder.class);
   private static final Type HTTP_CONTENT_CONSUMER_TYPE = Type.getType(HttpContentConsumer.class);
+  private static final Type COMPLETION_STAGE_TYPE = Type.getType(CompletionStage.class);
 
   // Method descriptor of the LambdaMetafactory.metafactory method.
   private static final String LAMBDA_META_FACTORY_METHOD_DESC =
@@ -454,29 +462,48 @@ final class HttpHandlerGenerator {
 
       // If the return type is an instance of HttpContentConsumer, the generated method need to have
       // netty-http BodyConsumer as return type.
+      // If the return type is a CompletionStage, the generated method returns void and responds on completion.
       // Otherwise, the return type must be void
+      boolean async = false;
       if (returnType.getSort() == Type.OBJECT) {
         try {
           Class<?> returnClass = delegateType.getRawType().getClassLoader().loadClass(returnType.getClassName());
-          if (!HttpContentConsumer.class.isAssignableFrom(returnClass)) {
-            throw new IllegalArgumentException("Handler method must either return void or a "
-                                                 + HttpContentConsumer.class.getName());
+          if (HttpContentConsumer.class.isAssignableFrom(returnClass)) {
+            returnType = Type.getType(BodyConsumer.class);
+          } else if (CompletionStage.class.isAssignableFrom(returnClass)) {
+            returnType = Type.VOID_TYPE;
+            async = true;
+          } else {
+            throw new IllegalArgumentException("Handler method must either return void, a "
+                                                 + HttpContentConsumer.class.getName() + " or a "
+                                                 + CompletionStage.class.getName());
           }
-          returnType = Type.getType(BodyConsumer.class);
         } catch (ClassNotFoundException e) {
           // Shouldn't happen since the delegateType (user handler class) is already loaded and the method return
           // type should be loadable through the same classloader
           throw Throwables.propagate(e);
         }
       } else if (!returnType.equals(Type.VOID_TYPE)) {
-        throw new IllegalArgumentException("Handler method must either return void or a "
-                                             + HttpContentConsumer.class.getName());
+        throw new IllegalArgumentException("Handler method must either return void, a "
+                                             + HttpContentConsumer.class.getName() + " or a "
+                                             + CompletionStage.class.getName());
+      }
+
+      // The implicit transaction ends when the handler method returns, hence can't cover the completion stage
+      if (async && txCtrl == TransactionControl.IMPLICIT) {
+        throw new IllegalArgumentException(
+          String.format("Asynchronous handler method '%s' in '%s' must be annotated with @%s(%s.%s), since a "
+                          + "transaction cannot span the completion of the returned %s",
+                        name, delegateType.getRawType().getName(), TransactionPolicy.class.getSimpleName(),
+                        TransactionControl.class.getSimpleName(), TransactionControl.EXPLICIT,
+                        CompletionStage.class.getSimpleName()));
       }
 
       // Copy the method signature with the first two parameter types changed and return type changed
       String methodDesc = Type.getMethodDescriptor(returnType, argTypes);
       MethodVisitor methodVisitor = classWriter.visitMethod(access, name, methodDesc,
-                                                            rewriteMethodSignature(signature), exceptions);
+                                                            rewriteMethodSignature(signature, returnType),
+                                                            exceptions);
       GeneratorAdapter mg = new GeneratorAdapter(methodVisitor, access, name, methodDesc);
 
       // Replay all annotations before generating the body.
@@ -490,7 +517,7 @@ final class HttpHandlerGenerator {
       }
 
       // Generate the method body
-      generateDelegateBody(classWriter, mg, new Method(name, desc), txCtrl);
+      generateDelegateBody(classWriter, mg, new Method(name, desc), txCtrl, async);
 
       super.visitEnd();
     }
@@ -528,9 +555,9 @@ final class HttpHandlerGenerator {
     /**
      * Rewrite the handler method signature to have the first two parameters rewritten from
      * {@link HttpServiceRequest} and {@link HttpServiceResponder} into
-     * {@link HttpRequest} and {@link HttpResponder}.
+     * {@link HttpRequest} and {@link HttpResponder}, and the return type replaced by the given one.
      */
-    private String rewriteMethodSignature(String signature) {
+    private String rewriteMethodSignature(String signature, Type returnType) {
       if (signature == null) {
         return null;
       }
@@ -549,6 +576,19 @@ final class HttpHandlerGenerator {
           }
           super.visitClassType(name);
         }
+
+        @Override
+        public SignatureVisitor visitReturnType() {
+          // Write the non-generic return type of the generated method, and skip the one of the handler method
+          SignatureVisitor visitor = super.visitReturnType();
+          if (returnType.getSort() == Type.VOID) {
+            visitor.visitBaseType('V');
+          } else {
+            visitor.visitClassType(returnType.getInternalName());
+            visitor.visitEnd();
+          }
+          return new SignatureVisitor(Opcodes.ASM5) { };
+        }
       };
       reader.accept(writer);
 
@@ -593,13 +633,27 @@ final class HttpHandlerGenerator {
      *   }
      * }
      * </pre>
+     *
+     * For handler that returns {@link CompletionStage}, the result is captured the same way as the
+     * {@link HttpContentConsumer}, and the end of the method has the following form:
+     *
+     * <pre>
+     *   CompletionStage stage = (CompletionStage) resultRef.get();
+     *   if (stage == null) {
+     *     wrappedResponder.execute();
+     *   } else {
+     *     wrapCompletionStage(stage, wrappedResponder, defaultTxControl);
+     *   }
+     * </pre>
      */
     private void generateDelegateBody(ClassWriter classWriter, GeneratorAdapter mg,
-                                      Method method, TransactionControl txControl) {
-      boolean useBodyConsumer = method.getReturnType().getSort() == Type.OBJECT;
+                                      Method method, TransactionControl txControl, boolean async) {
+      // Handler methods that return a value have it captured in an AtomicReference
+      boolean useResultRef = method.getReturnType().getSort() == Type.OBJECT;
+      boolean useBodyConsumer = useResultRef && !async;
 
       // Generate the synthetic static method for lambda invoke first
-      Method lambdaMethod = generateRunnableLambda(classWriter, method, useBodyConsumer);
+      Method lambdaMethod = generateRunnableLambda(classWriter, method, useResultRef);
 
       Type handlerType = Type.getType(delegateType.getRawType());
 
@@ -628,7 +682,7 @@ final class HttpHandlerGenerator {
       mg.storeLocal(wrappedResponder, DELAYED_HTTP_SERVICE_RESPONDER_TYPE);
 
       int consumerRef = 0;
-      if (useBodyConsumer) {
+      if (useResultRef) {
         // AtomicReference<HttpContentConsumer> consumerRef = new AtomicReference<>();
         consumerRef = mg.newLocal(ATOMIC_REFERENCE_TYPE);
         mg.newInstance(ATOMIC_REFERENCE_TYPE);
@@ -653,7 +707,7 @@ final class HttpHandlerGenerator {
       mg.loadThis();
 
       // Populate the parameters needed for the lambda method. See generateRunnableLambda for the signature.
-      if (useBodyConsumer) {
+      if (useResultRef) {
         mg.loadLocal(consumerRef);
       }
       mg.loadLocal(handler);
@@ -708,7 +762,7 @@ final class HttpHandlerGenerator {
       mg.invokeVirtual(DELAYED_HTTP_SERVICE_RESPONDER_TYPE,
                        Methods.getMethod(void.class, "setFailure", Throwable.class));
 
-      if (useBodyConsumer) {
+      if (useResultRef) {
         // consumerRef.set(null);
         mg.loadLocal(consumerRef);
         mg.visitInsn(Opcodes.ACONST_NULL);
@@ -759,6 +813,40 @@ final class HttpHandlerGenerator {
                                                       DelayedHttpServiceResponder.class,
                                                       TransactionControl.class));
         mg.returnValue();
+      } else if (async) {
+        // CompletionStage stage = (CompletionStage) consumerRef.get();
+        // if (stage == null) {
+        //   wrappedResponder.execute();
+        // } else {
+        //   wrapCompletionStage(stage, wrappedResponder, defaultTxControl);
+        // }
+        Label hasStage = mg.newLabel();
+
+        int stage = mg.newLocal(COMPLETION_STAGE_TYPE);
+        mg.loadLocal(consumerRef);
+        mg.invokeVirtual(ATOMIC_REFERENCE_TYPE, Methods.getMethod(Object.class, "get"));
+        mg.checkCast(COMPLETION_STAGE_TYPE);
+        mg.storeLocal(stage);
+
+        mg.loadLocal(stage);
+        mg.ifNonNull(hasStage);
+
+        mg.loadLocal(wrappedResponder);
+        mg.invokeVirtual(DELAYED_HTTP_SERVICE_RESPONDER_TYPE, Methods.getMethod(void.class, "execute"));
+        mg.returnValue();
+
+        mg.mark(hasStage);
+
+        // Same as the body consumer, this must be the last thing to do since the current context will be captured
+        mg.loadThis();
+        mg.loadLocal(stage);
+        mg.loadLocal(wrappedResponder);
+        mg.getStatic(TX_CONTROL_TYPE, defaultTxControl.name(), TX_CONTROL_TYPE);
+        mg.invokeVirtual(classType, Methods.getMethod(void.class, "wrapCompletionStage",
+                                                      CompletionStage.class,
+                                                      DelayedHttpServiceResponder.class,
+                                                      TransactionControl.class));
+        mg.returnValue();
       } else {
         // wrappedResponder.execute();
         mg.loadLocal(wrappedResponder);
@@ -779,7 +867,8 @@ final class HttpHandlerGenerator {
      *   }
      * </pre>
      *
-     * For handler method that returns {@link HttpContentConsumer}, it has the following form:
+     * For handler method that returns {@link HttpContentConsumer} or {@link CompletionStage}, it has the following
+     * form:
      *
      * <pre>
      *   private static [synthetic] void methodName(AtomicReference consumerRef, T handler, HttpServiceRequest request,
@@ -789,12 +878,12 @@ final class HttpHandlerGenerator {
      * </pre>
      *
      */
-    private Method generateRunnableLambda(ClassWriter classWriter, Method handlerMethod, boolean useBodyConsumer) {
+    private Method generateRunnableLambda(ClassWriter classWriter, Method handlerMethod, boolean useResultRef) {
       Type handlerType = Type.getType(delegateType.getRawType());
 
       // Setup the method argument types
       List<Type> argumentTypes = new ArrayList<>();
-      if (useBodyConsumer) {
+      if (useResultRef) {
         argumentTypes.add(ATOMIC_REFERENCE_TYPE);
       }
       argumentTypes.add(handlerType);
@@ -812,7 +901,7 @@ final class HttpHandlerGenerator {
       mg.loadArgs();
       mg.invokeVirtual(handlerType, handlerMethod);
 
-      if (useBodyConsumer) {
+      if (useResultRef) {
         // consumerRef.set([top_of_stack])
         mg.invokeVirtual(ATOMIC_REFERENCE_TYPE, Methods.getMethod(void.class, "set", Object.class));
       }
@@ -33,6 +33,7 @@ import io.cdap.cdap.common.logging.LoggingContextAccessor;
 import io.cdap.cdap.common.logging.ServiceLoggingContext;
 import io.cdap.cdap.common.metrics.MetricsReporterHook;
 import io.cdap.cdap.common.security.HttpsEnabler;
+import io.cdap.cdap.internal.app.runtime.LocalizationCacheCleanupService;
 import io.cdap.cdap.internal.bootstrap.BootstrapService;
 import io.cdap.cdap.internal.provision.ProvisioningService;
 import io.cdap.cdap.internal.sysapp.SystemAppManagementService;
@@ -72,6 +73,7 @@ public class AppFabricServer extends AbstractIdleService {
   private final ProvisioningService provisioningService;
   private final BootstrapService bootstrapService;
   private final SystemAppManagementService systemAppManagementService;
+  private final LocalizationCacheCleanupService localizationCacheCleanupService;
   private final CConfiguration cConf;
   private final SConfiguration sConf;
   private final boolean sslEnabled;
@@ -98,7 +100,8 @@ public class AppFabricServer extends AbstractIdleService {
                          CoreSchedulerService coreSchedulerService,
                          ProvisioningService provisioningService,
                          BootstrapService bootstrapService,
-                         SystemAppManagementService systemAppManagementService) {
+                         SystemAppManagementService systemAppManagementService,
+                         LocalizationCacheCleanupService localizationCacheCleanupService) {
     this.hostname = hostname;
     this.discoveryService = discoveryService;
     this.handlers = handlers;
@@ -116,6 +119,7 @@ public class AppFabricServer extends AbstractIdleService {
     this.provisioningService = provisioningService;
     this.bootstrapService = bootstrapService;
     this.systemAppManagementService = systemAppManagementService;
+    this.localizationCacheCleanupService = localizationCacheCleanupService;
   }
 
   /**
@@ -134,7 +138,8 @@ public class AppFabricServer extends AbstractIdleService {
         programRuntimeService.start(),
         programNotificationSubscriberService.start(),
         runRecordCorrectorService.start(),
-        coreSchedulerService.start()
+        coreSchedulerService.start(),
+        localizationCacheCleanupService.start()
       )
     ).get();
 
@@ -176,6 +181,7 @@ public class AppFabricServer extends AbstractIdleService {
     programNotificationSubscriberService.stopAndWait();
     runRecordCorrectorService.stopAndWait();
     provisioningService.stopAndWait();
+    localizationCacheCleanupService.stopAndWait();
   }
 
   private Cancellable startHttpService(NettyHttpService httpService) throws Exception {
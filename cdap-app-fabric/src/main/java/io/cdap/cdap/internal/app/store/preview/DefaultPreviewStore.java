@@ -16,6 +16,7 @@
 package io.cdap.cdap.internal.app.store.preview;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
@@ -27,9 +28,13 @@ import io.cdap.cdap.api.dataset.table.Row;
 import io.cdap.cdap.api.dataset.table.Scanner;
 import io.cdap.cdap.app.preview.PreviewStatus;
 import io.cdap.cdap.app.store.preview.PreviewStore;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
 import io.cdap.cdap.data2.dataset2.lib.table.MDSKey;
 import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableCore;
 import io.cdap.cdap.data2.dataset2.lib.table.leveldb.LevelDBTableService;
+import io.cdap.cdap.format.io.StructuredRecordDatumReader;
+import io.cdap.cdap.format.io.StructuredRecordDatumWriter;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
 import io.cdap.cdap.proto.BasicThrowable;
 import io.cdap.cdap.proto.codec.BasicThrowableCodec;
@@ -40,12 +45,18 @@ import io.cdap.cdap.proto.id.EntityId;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 
 /**
  * Default implementation of the {@link PreviewStore} that stores data in a level db table.
@@ -57,6 +68,13 @@ public class DefaultPreviewStore implements PreviewStore {
   private static final byte[] VALUE = Bytes.toBytes("v");
   private static final byte[] RUN = Bytes.toBytes("r");
   private static final byte[] STATUS = Bytes.toBytes("s");
+  private static final byte[] RECORD = Bytes.toBytes("b");
+  private static final byte[] SCHEMA = Bytes.toBytes("h");
+
+  private static final Gson GSON = new GsonBuilder().registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
+    .registerTypeAdapter(StructuredRecord.class, new PreviewJsonSerializer()).create();
+  private static final StructuredRecordDatumWriter RECORD_WRITER = new StructuredRecordDatumWriter();
+  private static final StructuredRecordDatumReader RECORD_READER = new StructuredRecordDatumReader();
 
   private final AtomicLong counter = new AtomicLong(0L);
 
@@ -76,49 +94,124 @@ public class DefaultPreviewStore implements PreviewStore {
 
   @Override
   public void put(ApplicationId applicationId, String tracerName, String propertyName, Object value) {
-    // PreviewStore is a singleton and we have to create gson for each operation since gson is not thread safe.
-    Gson gson = new GsonBuilder().registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
-      .registerTypeAdapter(StructuredRecord.class, new PreviewJsonSerializer()).create();
-    MDSKey mdsKey = new MDSKey.Builder().add(applicationId.getNamespace())
-      .add(applicationId.getApplication()).add(tracerName).add(counter.getAndIncrement()).build();
+    putAll(applicationId, tracerName, Collections.singletonList(new AbstractMap.SimpleEntry<>(propertyName, value)));
+  }
 
+  @Override
+  public Object encode(Object value) {
+    if (value instanceof EncodedValue) {
+      return value;
+    }
+    if (!(value instanceof StructuredRecord)) {
+      return new EncodedValue(null, Bytes.toBytes(GSON.toJson(value)));
+    }
+    StructuredRecord record = (StructuredRecord) value;
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
     try {
-      table.put(mdsKey.getKey(), TRACER, Bytes.toBytes(tracerName), 1L);
-      table.put(mdsKey.getKey(), PROPERTY, Bytes.toBytes(propertyName), 1L);
-      table.put(mdsKey.getKey(), VALUE, Bytes.toBytes(gson.toJson(value)), 1L);
+      RECORD_WRITER.encode(record, new BinaryEncoder(os));
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to encode preview record", e);
+    }
+    return new EncodedValue(record.getSchema(), os.toByteArray());
+  }
+
+  @Override
+  public void putAll(ApplicationId applicationId, String tracerName, List<Map.Entry<String, Object>> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+    // Records are stored in binary, with the schema of each distinct record schema stored once per tracer
+    // in the row that has the tracer prefix as key.
+    MDSKey tracerKey = new MDSKey.Builder().add(applicationId.getNamespace())
+      .add(applicationId.getApplication()).add(tracerName).build();
+    Map<byte[], Map<byte[], byte[]>> changes = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    Map<byte[], byte[]> schemas = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    byte[] tracer = Bytes.toBytes(tracerName);
+
+    try {
+      for (Map.Entry<String, Object> entry : values) {
+        MDSKey mdsKey = new MDSKey.Builder(tracerKey).add(counter.getAndIncrement()).build();
+        Map<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        columns.put(TRACER, tracer);
+        columns.put(PROPERTY, Bytes.toBytes(entry.getKey()));
+
+        EncodedValue value = (EncodedValue) encode(entry.getValue());
+        Schema schema = value.schema;
+        if (schema != null) {
+          byte[] schemaHash = Bytes.toBytes(schema.getSchemaHash().toString());
+          schemas.computeIfAbsent(schemaHash, k -> Bytes.toBytes(schema.toString()));
+          columns.put(SCHEMA, schemaHash);
+          columns.put(RECORD, value.bytes);
+        } else {
+          columns.put(VALUE, value.bytes);
+        }
+        changes.put(mdsKey.getKey(), columns);
+      }
+      if (!schemas.isEmpty()) {
+        changes.put(tracerKey.getKey(), schemas);
+      }
+      table.persist(changes, 1L);
     } catch (IOException e) {
-      String message = String.format("Error while putting property '%s' for application '%s' and tracer '%s' in" +
-                                       " preview table.", propertyName, applicationId, tracerName);
+      String message = String.format("Error while putting %d values for application '%s' and tracer '%s' in" +
+                                       " preview table.", values.size(), applicationId, tracerName);
       throw new RuntimeException(message, e);
     }
   }
 
   @Override
   public Map<String, List<JsonElement>> get(ApplicationId applicationId, String tracerName) {
-    // PreviewStore is a singleton and we have to create gson for each operation since gson is not thread safe.
-    Gson gson = new GsonBuilder().registerTypeAdapter(Schema.class, new SchemaTypeAdapter()).create();
     byte[] startRowKey = new MDSKey.Builder().add(applicationId.getNamespace())
       .add(applicationId.getApplication()).add(tracerName).build().getKey();
     byte[] stopRowKey = new MDSKey(Bytes.stopKeyForPrefix(startRowKey)).getKey();
 
-    Map<String, List<JsonElement>> result = new HashMap<>();
+    Map<String, List<Map<byte[], byte[]>>> rows = new HashMap<>();
+    Map<String, Schema> schemas = new HashMap<>();
     try (Scanner scanner = table.scan(startRowKey, stopRowKey, null, null, null)) {
       Row indexRow;
       while ((indexRow = scanner.next()) != null) {
         Map<byte[], byte[]> columns = indexRow.getColumns();
+        if (Bytes.equals(indexRow.getRow(), startRowKey)) {
+          // The tracer row holds the record schemas
+          for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+            schemas.put(Bytes.toString(column.getKey()), Schema.parseJson(Bytes.toString(column.getValue())));
+          }
+          continue;
+        }
         String propertyName = Bytes.toString(columns.get(PROPERTY));
-        JsonElement value = gson.fromJson(Bytes.toString(columns.get(VALUE)), JsonElement.class);
-        List<JsonElement> values = result.computeIfAbsent(propertyName, k -> new ArrayList<>());
-        values.add(value);
+        rows.computeIfAbsent(propertyName, k -> new ArrayList<>()).add(columns);
       }
     } catch (IOException e) {
       String message = String.format("Error while reading preview data for application '%s' and tracer '%s'.",
                                      applicationId, tracerName);
       throw new RuntimeException(message, e);
     }
+
+    // Values are only decoded when they are accessed, which is usually when the response is serialized
+    Map<String, List<JsonElement>> result = new HashMap<>();
+    for (Map.Entry<String, List<Map<byte[], byte[]>>> entry : rows.entrySet()) {
+      result.put(entry.getKey(), Lists.transform(entry.getValue(), columns -> decode(columns, schemas)));
+    }
     return result;
   }
 
+  private JsonElement decode(Map<byte[], byte[]> columns, Map<String, Schema> schemas) {
+    byte[] record = columns.get(RECORD);
+    if (record == null) {
+      return GSON.fromJson(Bytes.toString(columns.get(VALUE)), JsonElement.class);
+    }
+    String schemaHash = Bytes.toString(columns.get(SCHEMA));
+    Schema schema = schemas.get(schemaHash);
+    if (schema == null) {
+      throw new IllegalStateException("Missing schema " + schemaHash + " for preview record");
+    }
+    try {
+      return GSON.toJsonTree(RECORD_READER.read(new BinaryDecoder(new ByteArrayInputStream(record)), schema),
+                             StructuredRecord.class);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to decode preview record", e);
+    }
+  }
+
   @Override
   public void remove(ApplicationId applicationId) {
     byte[] startRowKey = new MDSKey.Builder().add(applicationId.getNamespace())
@@ -200,4 +293,18 @@ public class DefaultPreviewStore implements PreviewStore {
     service.dropTable(PREVIEW_TABLE_ID.getDataset());
     service.ensureTableExists(PREVIEW_TABLE_ID.getDataset());
   }
+
+  /**
+   * A traced value in its stored form. Records are kept in binary together with their schema, other values as JSON.
+   */
+  private static final class EncodedValue {
+    @Nullable
+    private final Schema schema;
+    private final byte[] bytes;
+
+    EncodedValue(@Nullable Schema schema, byte[] bytes) {
+      this.schema = schema;
+      this.bytes = bytes;
+    }
+  }
 }
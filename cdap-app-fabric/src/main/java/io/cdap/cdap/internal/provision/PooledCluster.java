@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.provision;
+
+import io.cdap.cdap.runtime.spi.provisioner.Cluster;
+
+/**
+ * An idle cluster that is kept after the program run that used it is done, so that it can be reused by the next
+ * program run with the same profile and provisioner properties.
+ */
+public final class PooledCluster {
+
+  private final String poolKey;
+  private final ProvisioningTaskInfo taskInfo;
+  private final long expiryTime;
+  private final long provisionTimeMillis;
+
+  /**
+   * Creates a new instance.
+   *
+   * @param poolKey the key that program runs must have to reuse the cluster
+   * @param taskInfo the provision task information of the last program run that used the cluster
+   * @param expiryTime the time in milliseconds when the cluster is deleted if no program run reused it
+   * @param provisionTimeMillis how long it took to create the cluster, or {@code 0} if it is not known
+   */
+  public PooledCluster(String poolKey, ProvisioningTaskInfo taskInfo, long expiryTime, long provisionTimeMillis) {
+    this.poolKey = poolKey;
+    this.taskInfo = taskInfo;
+    this.expiryTime = expiryTime;
+    this.provisionTimeMillis = provisionTimeMillis;
+  }
+
+  public String getPoolKey() {
+    return poolKey;
+  }
+
+  public ProvisioningTaskInfo getTaskInfo() {
+    return taskInfo;
+  }
+
+  public Cluster getCluster() {
+    return taskInfo.getCluster();
+  }
+
+  public long getExpiryTime() {
+    return expiryTime;
+  }
+
+  public long getProvisionTimeMillis() {
+    return provisionTimeMillis;
+  }
+}
@@ -73,6 +73,12 @@ final class ProvisionerStore {
     }, IOException.class);
   }
 
+  List<PooledCluster> listPooledClusters() throws IOException {
+    return TransactionRunners.run(txRunner, context -> {
+      return getProvisionerTable(context).listPooledClusters();
+    }, IOException.class);
+  }
+
   @Nullable
   ProvisioningTaskInfo getExistingAndCancel(final ProvisioningTaskKey taskKey) throws IOException {
     return TransactionRunners.run(txRunner, context -> {
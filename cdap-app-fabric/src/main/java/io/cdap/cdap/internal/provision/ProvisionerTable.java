@@ -37,6 +37,7 @@ import io.cdap.cdap.store.StoreDefinition;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
@@ -46,12 +47,14 @@ import javax.annotation.Nullable;
  */
 public class ProvisionerTable {
   private final StructuredTable table;
+  private final StructuredTable poolTable;
   private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder())
     .registerTypeAdapter(ProgramOptions.class, new ProgramOptionsCodec())
     .registerTypeAdapter(Arguments.class, new ArgumentsCodec())
     .create();
   public ProvisionerTable(StructuredTableContext context) throws TableNotFoundException {
     this.table = context.getTable(StoreDefinition.ProvisionerStore.PROVISIONER_TABLE);
+    this.poolTable = context.getTable(StoreDefinition.ProvisionerStore.CLUSTER_POOL_TABLE);
   }
 
   /**
@@ -106,6 +109,88 @@ public class ProvisionerTable {
     table.deleteAll(Range.singleton(createPrimaryKey(runId, null)));
   }
 
+  /**
+   * Adds an idle cluster to the cluster pool, replacing any existing entry for the same cluster.
+   * @param pooledCluster {@link PooledCluster} to be persisted.
+   * @throws IOException if there is an issue writing to the underlying structured table.
+   */
+  public void putPooledCluster(PooledCluster pooledCluster) throws IOException {
+    List<Field<?>> fields = createPoolPrimaryKey(pooledCluster.getPoolKey(), pooledCluster.getCluster().getName());
+    fields.add(Fields.longField(StoreDefinition.ProvisionerStore.EXPIRY_TIME_FIELD, pooledCluster.getExpiryTime()));
+    fields.add(Fields.stringField(StoreDefinition.ProvisionerStore.POOLED_CLUSTER_FIELD,
+                                  GSON.toJson(pooledCluster, PooledCluster.class)));
+    poolTable.upsert(fields);
+  }
+
+  /**
+   * Removes an unexpired cluster with the given pool key from the cluster pool. If there are multiple such clusters,
+   * the one that was used most recently is returned.
+   * @param poolKey the pool key to match
+   * @param now the current time in milliseconds
+   * @return the removed {@link PooledCluster} or {@code null} if there is no matching cluster.
+   * @throws IOException if there is an issue reading or writing the underlying structured table.
+   */
+  @Nullable
+  public PooledCluster claimPooledCluster(String poolKey, long now) throws IOException {
+    PooledCluster claimed = null;
+    Range range = Range.singleton(Collections.singletonList(
+      Fields.stringField(StoreDefinition.ProvisionerStore.POOL_KEY_FIELD, poolKey)));
+    try (CloseableIterator<StructuredRow> iterator = poolTable.scan(range, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        long expiryTime = row.getLong(StoreDefinition.ProvisionerStore.EXPIRY_TIME_FIELD);
+        if (expiryTime > now && (claimed == null || expiryTime > claimed.getExpiryTime())) {
+          claimed = deserializePooledCluster(row);
+        }
+      }
+    }
+    if (claimed != null) {
+      poolTable.delete(createPoolPrimaryKey(poolKey, claimed.getCluster().getName()));
+    }
+    return claimed;
+  }
+
+  /**
+   * @return List of {@link PooledCluster} in the cluster pool.
+   * @throws IOException if there is an error reading from underlying structured table.
+   */
+  public List<PooledCluster> listPooledClusters() throws IOException {
+    List<PooledCluster> result = new ArrayList<>();
+    try (CloseableIterator<StructuredRow> iterator = poolTable.scan(Range.all(), Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        result.add(deserializePooledCluster(iterator.next()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Removes all clusters that expired from the cluster pool.
+   * @param now the current time in milliseconds
+   * @return List of removed {@link PooledCluster}.
+   * @throws IOException if there is an issue reading or writing the underlying structured table.
+   */
+  public List<PooledCluster> removeExpiredClusters(long now) throws IOException {
+    List<PooledCluster> expired = new ArrayList<>();
+    for (PooledCluster pooledCluster : listPooledClusters()) {
+      if (pooledCluster.getExpiryTime() <= now) {
+        poolTable.delete(createPoolPrimaryKey(pooledCluster.getPoolKey(), pooledCluster.getCluster().getName()));
+        expired.add(pooledCluster);
+      }
+    }
+    return expired;
+  }
+
+  private List<Field<?>> createPoolPrimaryKey(String poolKey, String clusterName) {
+    return Lists.newArrayList(
+      Fields.stringField(StoreDefinition.ProvisionerStore.POOL_KEY_FIELD, poolKey),
+      Fields.stringField(StoreDefinition.ProvisionerStore.CLUSTER_NAME_FIELD, clusterName));
+  }
+
+  private PooledCluster deserializePooledCluster(StructuredRow row) {
+    return GSON.fromJson(row.getString(StoreDefinition.ProvisionerStore.POOLED_CLUSTER_FIELD), PooledCluster.class);
+  }
+
   private List<Field<?>> createPrimaryKey(ProgramRunId runId, @Nullable ProvisioningOp.Type type) {
     List<Field<?>> fields = Lists.newArrayList(
       Fields.stringField(StoreDefinition.ProvisionerStore.NAMESPACE_FIELD, runId.getNamespace()),
@@ -57,6 +57,8 @@ public class ProvisioningOp {
    */
   public enum Type {
     PROVISION,
-    DEPROVISION
+    DEPROVISION,
+    // deletes an expired cluster of the cluster pool, which no program run is waiting for
+    DEPROVISION_POOLED
   }
 }
@@ -18,7 +18,11 @@ package io.cdap.cdap.internal.provision;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -26,6 +30,7 @@ import com.google.inject.Inject;
 import io.cdap.cdap.api.macro.InvalidMacroException;
 import io.cdap.cdap.api.macro.MacroEvaluator;
 import io.cdap.cdap.api.macro.MacroParserOptions;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
 import io.cdap.cdap.api.plugin.Requirements;
 import io.cdap.cdap.api.security.store.SecureStore;
 import io.cdap.cdap.app.runtime.ProgramOptions;
@@ -50,6 +55,8 @@ import io.cdap.cdap.internal.provision.task.DeprovisionTask;
 import io.cdap.cdap.internal.provision.task.ProvisionTask;
 import io.cdap.cdap.internal.provision.task.ProvisioningTask;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramRunId;
 import io.cdap.cdap.proto.provisioner.ProvisionerDetail;
 import io.cdap.cdap.runtime.spi.RuntimeMonitorType;
@@ -68,6 +75,7 @@ import io.cdap.cdap.runtime.spi.ssh.SSHKeyPair;
 import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
+import io.cdap.cdap.spi.data.transaction.TransactionRunners;
 import org.apache.twill.common.Cancellable;
 import org.apache.twill.common.Threads;
 import org.apache.twill.filesystem.Location;
@@ -79,7 +87,9 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.ConnectException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -88,9 +98,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -102,6 +114,12 @@ import javax.annotation.Nullable;
  */
 public class ProvisioningService extends AbstractIdleService {
 
+  /**
+   * Profile property for the number of seconds an idle cluster is kept for reuse after a program run completes.
+   * Clusters are not reused if it is not set or not positive.
+   */
+  public static final String CLUSTER_REUSE_TTL_SECS = "clusterReuseTTLSecs";
+
   private static final Logger LOG = LoggerFactory.getLogger(ProvisioningService.class);
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.onceEvery(20));
   private static final Gson GSON = new Gson();
@@ -120,13 +138,18 @@ public class ProvisioningService extends AbstractIdleService {
   private KeyedExecutor<ProvisioningTaskKey> taskExecutor;
   private final ProvisionerStore provisionerStore;
   private final TransactionRunner transactionRunner;
+  private final MetricsCollectionService metricsCollectionService;
+  // How long it took to get the cluster of each program run, for reporting the time saved by reusing the cluster
+  private final Cache<ProgramRunId, Long> provisionTimes;
+  private ScheduledExecutorService clusterPoolExecutor;
 
   @Inject
   ProvisioningService(CConfiguration cConf, ProvisionerProvider provisionerProvider,
                       ProvisionerConfigProvider provisionerConfigProvider,
                       ProvisionerNotifier provisionerNotifier, LocationFactory locationFactory,
                       SecureStore secureStore, ProgramStateWriter programStateWriter,
-                      ProvisionerStore provisionerStore, TransactionRunner transactionRunner) {
+                      ProvisionerStore provisionerStore, TransactionRunner transactionRunner,
+                      MetricsCollectionService metricsCollectionService) {
     this.cConf = cConf;
     this.provisionerProvider = provisionerProvider;
     this.provisionerConfigProvider = provisionerConfigProvider;
@@ -138,6 +161,8 @@ public class ProvisioningService extends AbstractIdleService {
     this.programStateWriter = programStateWriter;
     this.provisionerStore = provisionerStore;
     this.transactionRunner = transactionRunner;
+    this.metricsCollectionService = metricsCollectionService;
+    this.provisionTimes = CacheBuilder.newBuilder().maximumSize(10000).build();
     this.taskStateCleanup = programRunId -> {
       try {
         provisionerStore.deleteTaskInfo(programRunId);
@@ -155,6 +180,17 @@ public class ProvisioningService extends AbstractIdleService {
       cConf.getInt(Constants.Provisioner.EXECUTOR_THREADS),
       Threads.createDaemonThreadFactory("provisioning-service-%d")));
     resumeTasks(taskStateCleanup);
+
+    long checkIntervalSecs = cConf.getLong(Constants.Provisioner.CLUSTER_POOL_CHECK_INTERVAL_SECS);
+    clusterPoolExecutor = Executors.newSingleThreadScheduledExecutor(
+      Threads.createDaemonThreadFactory("provisioning-cluster-pool"));
+    clusterPoolExecutor.scheduleWithFixedDelay(() -> {
+      try {
+        deprovisionExpiredClusters();
+      } catch (Exception e) {
+        SAMPLING_LOG.warn("Failed to deprovision expired clusters in the cluster pool. Will be retried.", e);
+      }
+    }, checkIntervalSecs, checkIntervalSecs, TimeUnit.SECONDS);
   }
 
   @Override
@@ -164,6 +200,7 @@ public class ProvisioningService extends AbstractIdleService {
       // Shutdown the executor, which will issue an interrupt to the running thread.
       // Wait for a moment for threads to complete. Even if they don't, however, it also ok since we have
       // the state persisted and the threads are daemon threads.
+      clusterPoolExecutor.shutdownNow();
       taskExecutor.shutdownNow();
       taskExecutor.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException ie) {
@@ -249,7 +286,9 @@ public class ProvisioningService extends AbstractIdleService {
         // can happen if CDAP is shut down in the middle of a task, and a provisioner is removed
         LOG.error("Could not provision cluster for program run {} because provisioner {} no longer exists.",
                   programRunId, provisionerName);
-        provisionerNotifier.orphaned(programRunId);
+        if (provisioningOp.getType() != ProvisioningOp.Type.DEPROVISION_POOLED) {
+          provisionerNotifier.orphaned(programRunId);
+        }
         provisionerStore.deleteTaskInfo(provisioningTaskInfo.getProgramRunId());
         continue;
       }
@@ -260,6 +299,7 @@ public class ProvisioningService extends AbstractIdleService {
           task = createProvisionTask(provisioningTaskInfo, provisioner);
           break;
         case DEPROVISION:
+        case DEPROVISION_POOLED:
           task = createDeprovisionTask(provisioningTaskInfo, provisioner, taskCleanup);
           break;
         default:
@@ -353,15 +393,61 @@ public class ProvisioningService extends AbstractIdleService {
     }
 
     Map<String, String> properties = SystemArguments.getProfileProperties(args);
+    ProvisionerTable provisionerTable = new ProvisionerTable(context);
+    if (getClusterReuseTTLSecs(properties) > 0) {
+      String poolKey = getPoolKey(programRunId, args, provisionRequest.getUser());
+      PooledCluster pooledCluster = provisionerTable.claimPooledCluster(poolKey, System.currentTimeMillis());
+      if (pooledCluster != null) {
+        // Start the task by polling the pooled cluster instead of creating a new one. Once it is running, it gets
+        // initialized for this run as usual. If the cluster no longer exists, the task creates a new cluster.
+        ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.PROVISION,
+                                                           ProvisioningOp.Status.POLLING_CREATE);
+        ProvisioningTaskInfo provisioningTaskInfo =
+          new ProvisioningTaskInfo(programRunId, provisionRequest.getProgramDescriptor(), programOptions,
+                                   properties, name, provisionRequest.getUser(), provisioningOp,
+                                   pooledCluster.getTaskInfo().getSecureKeysDir(), pooledCluster.getCluster());
+        provisionerTable.putTaskInfo(provisioningTaskInfo);
+        Runnable task = createProvisionTask(provisioningTaskInfo, provisioner);
+        return () -> {
+          runWithProgramLogging(programRunId, args, () ->
+            LOG.info("Reusing cluster {} of program run {}.", pooledCluster.getCluster().getName(),
+                     pooledCluster.getTaskInfo().getProgramRunId()));
+          // Carry over the time it took to create the cluster, so that it is reported again if reused again
+          long provisionTime = pooledCluster.getProvisionTimeMillis();
+          provisionTimes.put(programRunId, provisionTime);
+          emitClusterPoolMetrics(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_POOL_HITS, 1L);
+          emitClusterPoolMetrics(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_POOL_SAVED_MILLIS,
+                                 provisionTime);
+          task.run();
+        };
+      }
+      Runnable task = createProvisionTask(putProvisionTaskInfo(provisionRequest, properties, provisionerTable),
+                                          provisioner);
+      return () -> {
+        emitClusterPoolMetrics(programRunId, args, Constants.Metrics.Provisioner.CLUSTER_POOL_MISSES, 1L);
+        task.run();
+      };
+    }
+
+    return createProvisionTask(putProvisionTaskInfo(provisionRequest, properties, provisionerTable), provisioner);
+  }
+
+  /**
+   * Writes the initial state of the task that provisions a new cluster for the given request.
+   */
+  private ProvisioningTaskInfo putProvisionTaskInfo(ProvisionRequest provisionRequest, Map<String, String> properties,
+                                                    ProvisionerTable provisionerTable) throws IOException {
+    ProgramRunId programRunId = provisionRequest.getProgramRunId();
+    ProgramOptions programOptions = provisionRequest.getProgramOptions();
     ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.PROVISION,
                                                        ProvisioningOp.Status.REQUESTING_CREATE);
     ProvisioningTaskInfo provisioningTaskInfo =
       new ProvisioningTaskInfo(programRunId, provisionRequest.getProgramDescriptor(), programOptions,
-                               properties, name, provisionRequest.getUser(), provisioningOp,
-                               createKeysDirectory(programRunId).toURI(), null);
-    ProvisionerTable provisionerTable = new ProvisionerTable(context);
+                               properties, SystemArguments.getProfileProvisioner(programOptions.getArguments().asMap()),
+                               provisionRequest.getUser(), provisioningOp, createKeysDirectory(programRunId).toURI(),
+                               null);
     provisionerTable.putTaskInfo(provisioningTaskInfo);
-    return createProvisionTask(provisioningTaskInfo, provisioner);
+    return provisioningTaskInfo;
   }
 
   /**
@@ -432,6 +518,26 @@ public class ProvisioningService extends AbstractIdleService {
       return () -> taskCleanup.accept(existing.getProgramRunId());
     }
 
+    long reuseTTLSecs = getClusterReuseTTLSecs(existing.getProvisionerProperties());
+    if (reuseTTLSecs > 0 && existing.getProvisioningOp().getStatus() == ProvisioningOp.Status.CREATED) {
+      // Keep the cluster in the pool instead of deleting it. This run is done with the cluster, hence it is
+      // deprovisioned from the run's point of view. The cluster gets deleted if no run reuses it before it expires.
+      Map<String, String> systemArgs = existing.getProgramOptions().getArguments().asMap();
+      Long provisionTime = provisionTimes.getIfPresent(programRunId);
+      PooledCluster pooledCluster =
+        new PooledCluster(getPoolKey(programRunId, systemArgs, existing.getUser()), existing,
+                          System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(reuseTTLSecs),
+                          provisionTime == null ? 0L : provisionTime);
+      new ProvisionerTable(context).putPooledCluster(pooledCluster);
+      provisionerNotifier.deprovisioned(programRunId);
+      return () -> {
+        runWithProgramLogging(programRunId, systemArgs, () ->
+          LOG.info("Keeping cluster {} for reuse for {} seconds.", existing.getCluster().getName(), reuseTTLSecs));
+        provisionTimes.invalidate(programRunId);
+        taskCleanup.accept(programRunId);
+      };
+    }
+
     ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.DEPROVISION,
                                                        ProvisioningOp.Status.REQUESTING_DELETE);
     ProvisioningTaskInfo provisioningTaskInfo = new ProvisioningTaskInfo(existing, provisioningOp,
@@ -439,9 +545,48 @@ public class ProvisioningService extends AbstractIdleService {
     ProvisionerTable provisionerTable = new ProvisionerTable(context);
     provisionerTable.putTaskInfo(provisioningTaskInfo);
 
+    provisionTimes.invalidate(programRunId);
     return createDeprovisionTask(provisioningTaskInfo, provisioner, taskCleanup);
   }
 
+  /**
+   * Removes the clusters whose reuse time has expired from the cluster pool and deprovisions them.
+   * The deprovision task of each cluster runs as the last program run that used the cluster, but with its own
+   * task key and without notifying the program run, which was already deprovisioned when the cluster was pooled.
+   */
+  @VisibleForTesting
+  void deprovisionExpiredClusters() throws IOException {
+    List<ProvisioningTaskInfo> taskInfos = TransactionRunners.run(transactionRunner, context -> {
+      ProvisionerTable provisionerTable = new ProvisionerTable(context);
+      List<ProvisioningTaskInfo> result = new ArrayList<>();
+      for (PooledCluster pooledCluster : provisionerTable.removeExpiredClusters(System.currentTimeMillis())) {
+        ProvisioningOp provisioningOp = new ProvisioningOp(ProvisioningOp.Type.DEPROVISION_POOLED,
+                                                           ProvisioningOp.Status.REQUESTING_DELETE);
+        ProvisioningTaskInfo taskInfo = new ProvisioningTaskInfo(pooledCluster.getTaskInfo(), provisioningOp,
+                                                                 pooledCluster.getCluster());
+        provisionerTable.putTaskInfo(taskInfo);
+        result.add(taskInfo);
+      }
+      return result;
+    }, IOException.class);
+
+    for (ProvisioningTaskInfo taskInfo : taskInfos) {
+      ProgramRunId programRunId = taskInfo.getProgramRunId();
+      Map<String, String> systemArgs = taskInfo.getProgramOptions().getArguments().asMap();
+      emitClusterPoolMetrics(programRunId, systemArgs, Constants.Metrics.Provisioner.CLUSTER_POOL_EXPIRED, 1L);
+
+      Provisioner provisioner = provisionerInfo.get().provisioners.get(taskInfo.getProvisionerName());
+      if (provisioner == null) {
+        LOG.error("Could not deprovision expired cluster {} because provisioner {} does not exist.",
+                  taskInfo.getCluster().getName(), taskInfo.getProvisionerName());
+        taskStateCleanup.accept(programRunId);
+        continue;
+      }
+      LOG.debug("Deprovisioning cluster {} since its reuse time has expired.", taskInfo.getCluster().getName());
+      createDeprovisionTask(taskInfo, provisioner, taskStateCleanup).run();
+    }
+  }
+
   /**
    * Checks if the given provisioner fulfills all the requirements of a program.
    *
@@ -589,17 +734,66 @@ public class ProvisioningService extends AbstractIdleService {
                                               provisionerNotifier, programStateWriter, 300);
 
     ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.PROVISION);
-    return () -> taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
-      try {
-        return task.executeOnce();
-      } catch (InterruptedException e) {
-        LOG.debug("Provision task for program run {} interrupted.", taskInfo.getProgramRunId());
-        throw e;
-      } catch (Exception e) {
-        LOG.info("Provision task for program run {} failed.", taskInfo.getProgramRunId(), e);
-        throw e;
-      }
-    }));
+    return () -> {
+      long startMillis = System.currentTimeMillis();
+      taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
+        try {
+          long delay = task.executeOnce();
+          if (delay < 0) {
+            provisionTimes.asMap().putIfAbsent(programRunId, System.currentTimeMillis() - startMillis);
+          }
+          return delay;
+        } catch (InterruptedException e) {
+          LOG.debug("Provision task for program run {} interrupted.", taskInfo.getProgramRunId());
+          throw e;
+        } catch (Exception e) {
+          LOG.info("Provision task for program run {} failed.", taskInfo.getProgramRunId(), e);
+          throw e;
+        }
+      }));
+    };
+  }
+
+  /**
+   * Returns the number of seconds an idle cluster is kept for reuse based on the given profile properties.
+   */
+  private long getClusterReuseTTLSecs(Map<String, String> properties) {
+    String ttl = properties.get(CLUSTER_REUSE_TTL_SECS);
+    if (ttl == null) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(ttl.trim());
+    } catch (NumberFormatException e) {
+      SAMPLING_LOG.warn("Ignoring invalid value '{}' of profile property {}.", ttl, CLUSTER_REUSE_TTL_SECS);
+      return 0L;
+    }
+  }
+
+  /**
+   * Returns the key for finding clusters that can be reused by a program run. Clusters are only reused by runs in
+   * the same namespace, with the same profile, provisioner properties and user.
+   */
+  private static String getPoolKey(ProgramRunId programRunId, Map<String, String> systemArgs, @Nullable String user) {
+    Map<String, String> properties = new TreeMap<>(SystemArguments.getProfileProperties(systemArgs));
+    String hash = Hashing.sha256().hashString(GSON.toJson(Arrays.asList(user, properties)), StandardCharsets.UTF_8)
+      .toString();
+    return String.format("%s:%s:%s:%s", programRunId.getNamespace(), systemArgs.get(SystemArguments.PROFILE_NAME),
+                         SystemArguments.getProfileProvisioner(systemArgs), hash);
+  }
+
+  private void emitClusterPoolMetrics(ProgramRunId programRunId, Map<String, String> systemArgs,
+                                      String metricName, long value) {
+    Optional<ProfileId> profileId =
+      SystemArguments.getProfileIdFromArgs(new NamespaceId(programRunId.getNamespace()), systemArgs);
+    if (!profileId.isPresent() || value <= 0) {
+      return;
+    }
+    Map<String, String> tags = ImmutableMap.of(
+      Constants.Metrics.Tag.PROFILE_SCOPE, profileId.get().getScope().name(),
+      Constants.Metrics.Tag.PROFILE, profileId.get().getProfile(),
+      Constants.Metrics.Tag.NAMESPACE, programRunId.getNamespace());
+    metricsCollectionService.getContext(tags).increment(metricName, value);
   }
 
   private Runnable createDeprovisionTask(ProvisioningTaskInfo taskInfo, Provisioner provisioner,
@@ -625,12 +819,14 @@ public class ProvisioningService extends AbstractIdleService {
       runWithProgramLogging(programRunId, systemArgs,
                             () -> LOG.error("Could not evaluate macros while deprovisoning. "
                                               + "The cluster will be marked as orphaned.", e));
-      provisionerNotifier.orphaned(programRunId);
+      if (taskInfo.getProvisioningOp().getType() != ProvisioningOp.Type.DEPROVISION_POOLED) {
+        provisionerNotifier.orphaned(programRunId);
+      }
       return () -> { };
     }
     DeprovisionTask task = new DeprovisionTask(taskInfo, transactionRunner, 300,
                                                provisioner, context, provisionerNotifier, locationFactory);
-    ProvisioningTaskKey taskKey = new ProvisioningTaskKey(programRunId, ProvisioningOp.Type.DEPROVISION);
+    ProvisioningTaskKey taskKey = taskInfo.getTaskKey();
 
     return () -> taskExecutor.submit(taskKey, () -> callWithProgramLogging(programRunId, systemArgs, () -> {
       try {
@@ -51,12 +51,15 @@ import java.util.Optional;
  *
  * PollingDelete -- (state == CREATING) --> Orphaned
  *
+ * The program run is notified about the result, unless the task deletes an expired cluster of the cluster pool,
+ * whose program run has already been notified when the cluster was put into the pool.
  */
 public class DeprovisionTask extends ProvisioningTask {
   private static final Logger LOG = LoggerFactory.getLogger(DeprovisionTask.class);
 
   private final ProvisionerNotifier provisionerNotifier;
   private final Location keysDir;
+  private final boolean notifyRun;
 
   public DeprovisionTask(ProvisioningTaskInfo initialTaskInfo, TransactionRunner transactionRunner,
                          int retryTimeLimitSecs, Provisioner provisioner,
@@ -65,6 +68,7 @@ public class DeprovisionTask extends ProvisioningTask {
     super(provisioner, provisionerContext, initialTaskInfo, transactionRunner, retryTimeLimitSecs);
     this.provisionerNotifier = provisionerNotifier;
     this.keysDir = locationFactory.create(initialTaskInfo.getSecureKeysDir());
+    this.notifyRun = initialTaskInfo.getProvisioningOp().getType() != ProvisioningOp.Type.DEPROVISION_POOLED;
   }
 
   @Override
@@ -86,7 +90,9 @@ public class DeprovisionTask extends ProvisioningTask {
           return Optional.of(ProvisioningOp.Status.POLLING_DELETE);
         case NOT_EXISTS:
           try {
-            provisionerNotifier.deprovisioned(programRunId);
+            if (notifyRun) {
+              provisionerNotifier.deprovisioned(programRunId);
+            }
           } finally {
             // Delete the keys. We only delete when the cluster is gone.
             Locations.deleteQuietly(keysDir, true);
@@ -99,7 +105,7 @@ public class DeprovisionTask extends ProvisioningTask {
         case ORPHANED:
           LOG.warn("Got unexpected cluster state {} while trying to delete the cluster. "
                      + "The cluster will be marked as orphaned.", cluster.getStatus());
-          provisionerNotifier.orphaned(programRunId);
+          orphaned();
           return Optional.of(ProvisioningOp.Status.ORPHANED);
       }
       // should never get here
@@ -118,11 +124,17 @@ public class DeprovisionTask extends ProvisioningTask {
 
   @Override
   protected void handleSubtaskFailure(ProvisioningTaskInfo taskInfo, Exception e) {
-    provisionerNotifier.orphaned(programRunId);
+    orphaned();
   }
 
   @Override
   protected void handleStateSaveFailure(ProvisioningTaskInfo taskInfo, Exception e) {
-    provisionerNotifier.orphaned(programRunId);
+    orphaned();
+  }
+
+  private void orphaned() {
+    if (notifyRun) {
+      provisionerNotifier.orphaned(programRunId);
+    }
   }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.deploy.pipeline;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.internal.pipeline.StageContext;
+import io.cdap.cdap.pipeline.Context;
+import io.cdap.cdap.security.spi.authentication.SecurityRequestContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link DeploymentExecutor} and {@link ParallelStage}.
+ */
+public class DeploymentExecutorTest {
+
+  @Test
+  public void testConcurrent() throws Exception {
+    DeploymentExecutor executor = createExecutor(3);
+    CountDownLatch latch = new CountDownLatch(3);
+    SecurityRequestContext.setUserId("alice");
+    try {
+      // All tasks wait for each other, which only completes if they run concurrently
+      List<Callable<String>> tasks = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        int id = i;
+        tasks.add(() -> {
+          latch.countDown();
+          Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+          return id + SecurityRequestContext.getUserId();
+        });
+      }
+      Assert.assertEquals(Arrays.asList("0alice", "1alice", "2alice"), executor.invokeAll(tasks));
+    } finally {
+      SecurityRequestContext.setUserId(null);
+    }
+  }
+
+  @Test
+  public void testNested() throws Exception {
+    // Nested calls with more tasks than pool threads complete, since the calling threads run tasks as well
+    DeploymentExecutor executor = createExecutor(2);
+    AtomicInteger count = new AtomicInteger();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      tasks.add(() -> {
+        List<Callable<Integer>> nested = new ArrayList<>();
+        for (int j = 0; j < 5; j++) {
+          nested.add(count::incrementAndGet);
+        }
+        executor.invokeAll(nested);
+        return null;
+      });
+    }
+    executor.invokeAll(tasks);
+    Assert.assertEquals(25, count.get());
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    DeploymentExecutor executor = DeploymentExecutor.sameThread();
+    AtomicInteger count = new AtomicInteger();
+    List<Callable<Integer>> tasks = Arrays.asList(
+      count::incrementAndGet,
+      () -> {
+        throw new IllegalArgumentException("failed");
+      },
+      count::incrementAndGet
+    );
+    try {
+      executor.invokeAll(tasks);
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals("failed", e.getMessage());
+    }
+    // The task after the failed one is skipped
+    Assert.assertEquals(1, count.get());
+  }
+
+  @Test
+  public void testParallelStage() throws Exception {
+    Object input = new Object();
+    StageContext context = new StageContext(input);
+    context.setProperty("key", "value");
+
+    ParallelStage stage = new ParallelStage(createExecutor(2), ctx -> {
+      Assert.assertEquals("value", ctx.getProperty("key"));
+      ctx.setProperty("first", 1);
+      ctx.setDownStream(ctx.getUpStream());
+    }, ctx -> {
+      ctx.setProperty("second", 2);
+      ctx.setDownStream(ctx.getUpStream());
+    });
+    stage.process(context);
+
+    Assert.assertSame(input, context.getDownStream());
+    Assert.assertEquals(1, (int) context.getProperty("first"));
+    Assert.assertEquals(2, (int) context.getProperty("second"));
+
+    // Stages that transform the input cannot run in parallel
+    stage = new ParallelStage(createExecutor(2), (Context ctx) -> ctx.setDownStream(new Object()));
+    try {
+      stage.process(new StageContext(input));
+      Assert.fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  private DeploymentExecutor createExecutor(int threads) {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setInt(Constants.AppFabric.DEPLOY_THREADS, threads);
+    return new DeploymentExecutor(cConf);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.preview;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.inject.Injector;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.app.store.preview.PreviewStore;
+import io.cdap.cdap.common.app.RunIds;
+import io.cdap.cdap.internal.AppFabricTestHelper;
+import io.cdap.cdap.internal.app.store.preview.DefaultPreviewStore;
+import io.cdap.cdap.proto.NamespaceMeta;
+import io.cdap.cdap.proto.id.ApplicationId;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for the {@link PreviewDataWriter}.
+ */
+public class PreviewDataWriterTest {
+
+  private static PreviewStore store;
+
+  @BeforeClass
+  public static void beforeClass() {
+    Injector injector = AppFabricTestHelper.getInjector();
+    store = injector.getInstance(DefaultPreviewStore.class);
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    AppFabricTestHelper.shutdown();
+  }
+
+  @Test
+  public void testValuesChangedAfterTracing() {
+    ApplicationId applicationId = new ApplicationId(NamespaceMeta.DEFAULT.getName(), RunIds.generate().getId());
+    PreviewDataWriter writer = new PreviewDataWriter(store, 10);
+
+    // pipelines may reuse and change a value right after tracing it
+    Map<String, String> map = new HashMap<>();
+    map.put("key", "before");
+    writer.add(applicationId, "stage", "map", map);
+    map.put("key", "after");
+
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("values", Schema.arrayOf(Schema.of(Schema.Type.STRING))));
+    List<String> values = new ArrayList<>();
+    values.add("before");
+    writer.add(applicationId, "stage", "records.out", StructuredRecord.builder(schema).set("values", values).build());
+    values.set(0, "after");
+
+    writer.flush(applicationId);
+
+    Map<String, List<JsonElement>> data = store.get(applicationId, "stage");
+    Assert.assertEquals("before", data.get("map").get(0).getAsJsonObject().get("key").getAsString());
+    JsonObject record = data.get("records.out").get(0).getAsJsonObject();
+    Assert.assertEquals("before", record.get("values").getAsJsonArray().get(0).getAsString());
+  }
+
+  @Test
+  public void testMaxValuesPerTracer() {
+    ApplicationId applicationId = new ApplicationId(NamespaceMeta.DEFAULT.getName(), RunIds.generate().getId());
+    PreviewDataWriter writer = new PreviewDataWriter(store, 3);
+    for (int i = 0; i < 5; i++) {
+      writer.add(applicationId, "first", "value", i);
+      writer.add(applicationId, "second", "value", i);
+    }
+    writer.flush(applicationId);
+
+    for (String tracer : new String[] { "first", "second" }) {
+      List<JsonElement> traced = store.get(applicationId, tracer).get("value");
+      Assert.assertEquals(3, traced.size());
+      for (int i = 0; i < traced.size(); i++) {
+        Assert.assertEquals(i, traced.get(i).getAsInt());
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.internal.app.runtime;
+
+import io.cdap.cdap.common.io.Locations;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Tests for {@link LocalizationCache}.
+ */
+public class LocalizationCacheTest {
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  private static final long TTL = TimeUnit.DAYS.toMillis(1);
+
+  @Test
+  public void testReuse() throws IOException {
+    Location cacheDir = Locations.toLocation(TEMP_FOLDER.newFolder("cache"));
+    File jar1 = createJar(TEMP_FOLDER.newFile("first.jar"), 1000L, "content");
+    // same content with different timestamps, like a jar that is rebuilt for every run
+    File jar2 = createJar(TEMP_FOLDER.newFile("second.jar"), 2000L, "content");
+    File jar3 = createJar(TEMP_FOLDER.newFile("third.jar"), 1000L, "other content");
+
+    LocalizationCache run1 = new LocalizationCache(cacheDir, "run1");
+    Location cached1 = run1.add(jar1);
+    Assert.assertEquals(jar1.length(), run1.getBytesUploaded());
+    Assert.assertEquals(0L, run1.getBytesReused());
+
+    LocalizationCache run2 = new LocalizationCache(cacheDir, "run2");
+    Assert.assertEquals(cached1, run2.add(jar2));
+    Location cached3 = run2.add(jar3);
+    Assert.assertNotEquals(cached1, cached3);
+    Assert.assertEquals(jar3.length(), run2.getBytesUploaded());
+    Assert.assertEquals(jar2.length(), run2.getBytesReused());
+
+    // files that are still referenced are never removed
+    run1.close();
+    LocalizationCache.cleanup(cacheDir, -1L, Collections.singleton("run2"), Long.MAX_VALUE);
+    Assert.assertTrue(cached1.exists());
+    Assert.assertTrue(cached3.exists());
+
+    // files are kept until they have not been used for longer than the ttl
+    run2.close();
+    LocalizationCache.cleanup(cacheDir, TTL, Collections.emptySet(), Long.MAX_VALUE);
+    Assert.assertTrue(cached1.exists());
+    LocalizationCache.cleanup(cacheDir, -1L, Collections.emptySet(), Long.MAX_VALUE);
+    Assert.assertFalse(cached1.exists());
+    Assert.assertFalse(cached3.exists());
+  }
+
+  @Test
+  public void testInactiveReference() throws IOException {
+    Location cacheDir = Locations.toLocation(TEMP_FOLDER.newFolder("inactive"));
+    File jar = createJar(TEMP_FOLDER.newFile("inactive.jar"), 1000L, "content");
+
+    // a run that never releases its reference, like one that was active when CDAP master stopped
+    LocalizationCache run = new LocalizationCache(cacheDir, "run");
+    Location cached = run.add(jar);
+    // the reference is kept as long as the run is active, however old it is
+    LocalizationCache.cleanup(cacheDir, -1L, Collections.singleton("run"), Long.MAX_VALUE);
+    Assert.assertTrue(cached.exists());
+    // a reference added after the active runs were listed may belong to a run that just started
+    LocalizationCache.cleanup(cacheDir, -1L, Collections.emptySet(), 0L);
+    Assert.assertTrue(cached.exists());
+
+    // the reference is released once the run is not active anymore, and the file is deleted after the ttl
+    LocalizationCache.cleanup(cacheDir, TTL, Collections.emptySet(), Long.MAX_VALUE);
+    Assert.assertTrue(cached.exists());
+    Assert.assertTrue(cacheDir.append(cached.getName() + ".refs").list().isEmpty());
+    LocalizationCache.cleanup(cacheDir, -1L, Collections.emptySet(), Long.MAX_VALUE);
+    Assert.assertFalse(cached.exists());
+    Assert.assertFalse(cacheDir.append(cached.getName() + ".refs").exists());
+
+    // a run adding the file again uploads it
+    run = new LocalizationCache(cacheDir, "other");
+    Assert.assertEquals(cached, run.add(jar));
+    Assert.assertTrue(cached.exists());
+    Assert.assertEquals(jar.length(), run.getBytesUploaded());
+  }
+
+  private File createJar(File file, long time, String content) throws IOException {
+    try (JarOutputStream jarOutput = new JarOutputStream(new FileOutputStream(file))) {
+      JarEntry entry = new JarEntry("file.txt");
+      entry.setTime(time);
+      jarOutput.putNextEntry(entry);
+      jarOutput.write(content.getBytes(StandardCharsets.UTF_8));
+      jarOutput.closeEntry();
+    }
+    return file;
+  }
+}
@@ -64,7 +64,9 @@ import io.cdap.cdap.common.test.NoopAdmin;
 import io.cdap.cdap.internal.app.preview.NoopDataTracerFactory;
 import io.cdap.cdap.internal.app.runtime.ThrowingRunnable;
 import io.cdap.http.HttpHandler;
+import io.cdap.http.HttpResponder;
 import io.cdap.http.NettyHttpService;
+import io.netty.handler.codec.http.HttpRequest;
 import org.apache.tephra.TransactionFailureException;
 import org.apache.twill.api.RunId;
 import org.apache.twill.common.Cancellable;
@@ -80,6 +82,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.URL;
@@ -87,9 +90,16 @@ import java.net.URLConnection;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -248,6 +258,71 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  /**
+   * A testing handler with asynchronous handler methods. Responses to the "wait" endpoint are only completed once
+   * the expected number of requests have been received.
+   */
+  public static final class AsyncHandler extends AbstractHttpServiceHandler {
+
+    private final List<CompletableFuture<Void>> pending;
+    private final int expectedRequests;
+
+    public AsyncHandler(List<CompletableFuture<Void>> pending, int expectedRequests) {
+      this.pending = pending;
+      this.expectedRequests = expectedRequests;
+    }
+
+    @Path("/wait/{id}")
+    @GET
+    @TransactionPolicy(TransactionControl.EXPLICIT)
+    public CompletionStage<Void> waitAll(HttpServiceRequest request, HttpServiceResponder responder,
+                                         @PathParam("id") String id) {
+      Assert.assertNull(System.getProperty(IN_TX));
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      List<CompletableFuture<Void>> completable = null;
+      synchronized (pending) {
+        pending.add(future);
+        if (pending.size() == expectedRequests) {
+          completable = new ArrayList<>(pending);
+        }
+      }
+      if (completable != null) {
+        // complete from another thread, the same way an asynchronous client would
+        List<CompletableFuture<Void>> futures = completable;
+        new Thread(() -> futures.forEach(f -> f.complete(null))).start();
+      }
+      return future.thenRun(() -> responder.sendString("Done " + id));
+    }
+
+    @Path("/fail")
+    @GET
+    @TransactionPolicy(TransactionControl.EXPLICIT)
+    public CompletableFuture<Void> fail(HttpServiceRequest request, HttpServiceResponder responder) {
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(new Exception("async failure"));
+      return future;
+    }
+
+    @Path("/noresponse")
+    @GET
+    @TransactionPolicy(TransactionControl.EXPLICIT)
+    public CompletionStage<Void> noResponse(HttpServiceRequest request, HttpServiceResponder responder) {
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * A testing handler with an asynchronous handler method that uses the default transaction policy.
+   */
+  public static final class ImplicitAsyncHandler extends AbstractHttpServiceHandler {
+
+    @Path("/async")
+    @GET
+    public CompletionStage<Void> async(HttpServiceRequest request, HttpServiceResponder responder) {
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
   /**
    * A {@link HttpContentConsumer} that writes uploaded bytes to a file.
    */
@@ -590,6 +665,77 @@ public class HttpHandlerGeneratorTest {
     }
   }
 
+  @Test
+  public void testAsyncHandler() throws Exception {
+    HttpHandlerFactory factory = new HttpHandlerFactory("/async", TransactionControl.IMPLICIT);
+
+    int requests = 10;
+    List<CompletableFuture<Void>> pending = new ArrayList<>();
+    HttpHandler httpHandler = factory.createHttpHandler(
+      TypeToken.of(AsyncHandler.class), new AbstractDelegatorContext<AsyncHandler>() {
+        @Override
+        protected AsyncHandler createHandler() {
+          return new AsyncHandler(pending, requests);
+        }
+      }, new NoopMetricsContext());
+
+    // The generated method returns void, and so does its generic signature
+    Method method = httpHandler.getClass().getMethod("waitAll", HttpRequest.class, HttpResponder.class, String.class);
+    Assert.assertEquals(void.class, method.getGenericReturnType());
+
+    // With a single executor thread, all requests can only be pending at the same time if the handler methods
+    // don't block the thread
+    NettyHttpService service = NettyHttpService.builder("test-async-handler")
+      .setHttpHandlers(httpHandler)
+      .setExecThreadPoolSize(1)
+      .build();
+
+    service.start();
+    ExecutorService executor = Executors.newFixedThreadPool(requests);
+    try {
+      InetSocketAddress bindAddress = service.getBindAddress();
+      List<Future<String>> responses = new ArrayList<>();
+      for (int i = 0; i < requests; i++) {
+        URL url = new URL(String.format("http://%s:%d/async/wait/%d",
+                                        bindAddress.getHostName(), bindAddress.getPort(), i));
+        responses.add(executor.submit(() -> {
+          URLConnection urlConn = url.openConnection();
+          urlConn.setReadTimeout(10000);
+          return new String(ByteStreams.toByteArray(urlConn.getInputStream()), Charsets.UTF_8);
+        }));
+      }
+      for (int i = 0; i < requests; i++) {
+        Assert.assertEquals("Done " + i, responses.get(i).get(10, TimeUnit.SECONDS));
+      }
+
+      HttpURLConnection urlConn = (HttpURLConnection) new URL(
+        String.format("http://%s:%d/async/fail", bindAddress.getHostName(), bindAddress.getPort())).openConnection();
+      Assert.assertEquals(500, urlConn.getResponseCode());
+      Assert.assertEquals("Exception occurred while handling request: async failure",
+                          new String(ByteStreams.toByteArray(urlConn.getErrorStream()), "UTF-8"));
+
+      urlConn = (HttpURLConnection) new URL(
+        String.format("http://%s:%d/async/noresponse", bindAddress.getHostName(), bindAddress.getPort()))
+        .openConnection();
+      Assert.assertEquals(500, urlConn.getResponseCode());
+    } finally {
+      executor.shutdownNow();
+      service.stop();
+    }
+  }
+
+  @Test
+  public void testAsyncImplicitTransaction() {
+    // A transaction cannot span the completion of an asynchronous handler method
+    HttpHandlerFactory factory = new HttpHandlerFactory("/async", TransactionControl.IMPLICIT);
+    try {
+      factory.validateHttpHandler(Collections.singletonList(new ImplicitAsyncHandler()));
+      Assert.fail("Expected the asynchronous handler method with implicit transaction to be rejected");
+    } catch (IllegalArgumentException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().contains("@TransactionPolicy(TransactionControl.EXPLICIT)"));
+    }
+  }
+
   private abstract static class AbstractDelegatorContext<T extends HttpServiceHandler> implements DelegatorContext<T> {
 
     private final ThreadLocal<T> threadLocal = new ThreadLocal<T>() {
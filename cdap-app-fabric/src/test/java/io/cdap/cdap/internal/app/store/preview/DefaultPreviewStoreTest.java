@@ -17,8 +17,11 @@ package io.cdap.cdap.internal.app.store.preview;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import com.google.inject.Injector;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.app.preview.PreviewStatus;
 import io.cdap.cdap.common.app.RunIds;
 import io.cdap.cdap.internal.AppFabricTestHelper;
@@ -33,6 +36,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -103,6 +108,42 @@ public class DefaultPreviewStoreTest {
     Assert.assertEquals(0, firstApplicationData.size());
   }
 
+  @Test
+  public void testRecords() {
+    ApplicationId applicationId = new ApplicationId(NamespaceMeta.DEFAULT.getName(), RunIds.generate().getId());
+    Schema schema = Schema.recordOf("record",
+                                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("count", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+    Schema otherSchema = Schema.recordOf("other", Schema.Field.of("value", Schema.of(Schema.Type.LONG)));
+
+    List<Map.Entry<String, Object>> values = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      values.add(new AbstractMap.SimpleEntry<>("records.out",
+                                               StructuredRecord.builder(schema).set("name", "n" + i).build()));
+    }
+    values.add(new AbstractMap.SimpleEntry<>("records.out",
+                                             StructuredRecord.builder(otherSchema).set("value", 10L).build()));
+    values.add(new AbstractMap.SimpleEntry<>("errors", "error"));
+    store.putAll(applicationId, "stage", values);
+    store.put(applicationId, "stage", "records.out", StructuredRecord.builder(schema).set("count", 3)
+      .set("name", "last").build());
+
+    Map<String, List<JsonElement>> data = store.get(applicationId, "stage");
+    Assert.assertEquals(2, data.size());
+    List<JsonElement> records = data.get("records.out");
+    Assert.assertEquals(7, records.size());
+    for (int i = 0; i < 5; i++) {
+      JsonObject record = records.get(i).getAsJsonObject();
+      Assert.assertEquals("n" + i, record.get("name").getAsString());
+      Assert.assertNull(record.get("count"));
+    }
+    Assert.assertEquals(10L, records.get(5).getAsJsonObject().get("value").getAsLong());
+    Assert.assertEquals("last", records.get(6).getAsJsonObject().get("name").getAsString());
+    Assert.assertEquals(3, records.get(6).getAsJsonObject().get("count").getAsInt());
+    Assert.assertEquals("error", data.get("errors").get(0).getAsString());
+
+  }
+
   @Test
   public void testPreviewInfo() throws IOException {
     // test non existing preview
@@ -174,6 +174,7 @@ public class MockProvisioner implements Provisioner {
     private long waitCreateMillis = -1L;
     private long waitDeleteMillis = -1L;
     private ClusterStatus firstClusterStatus;
+    private Long clusterReuseTTLSecs;
 
     /**
      * Configures the provisioner to fail in a retryable fashion every Nth method call.
@@ -240,6 +241,14 @@ public class MockProvisioner implements Provisioner {
       return this;
     }
 
+    /**
+     * Configures the profile to keep idle clusters for reuse for some time after a program run completes.
+     */
+    public PropertyBuilder reuseCluster(long dur, TimeUnit unit) {
+      clusterReuseTTLSecs = TimeUnit.SECONDS.convert(dur, unit);
+      return this;
+    }
+
     public ProvisionerInfo build() {
       List<ProvisionerPropertyValue> properties = new ArrayList<>();
       properties.add(new ProvisionerPropertyValue(FAIL_CREATE, Boolean.toString(failCreate), true));
@@ -255,6 +264,10 @@ public class MockProvisioner implements Provisioner {
       if (firstClusterStatus != null) {
         properties.add(new ProvisionerPropertyValue(FIRST_CLUSTER_STATUS, firstClusterStatus.name(), true));
       }
+      if (clusterReuseTTLSecs != null) {
+        properties.add(new ProvisionerPropertyValue(ProvisioningService.CLUSTER_REUSE_TTL_SECS,
+                                                    Long.toString(clusterReuseTTLSecs), true));
+      }
       return new ProvisionerInfo(NAME, properties);
     }
   }
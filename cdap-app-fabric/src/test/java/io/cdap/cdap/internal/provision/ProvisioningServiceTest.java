@@ -19,10 +19,13 @@ package io.cdap.cdap.internal.provision;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Service;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.cdap.cdap.api.app.ApplicationSpecification;
 import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
 import io.cdap.cdap.api.dataset.table.Table;
 import io.cdap.cdap.api.plugin.Requirements;
 import io.cdap.cdap.api.security.store.SecureStore;
@@ -34,16 +37,22 @@ import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.io.Locations;
 import io.cdap.cdap.common.utils.Tasks;
 import io.cdap.cdap.data2.datafabric.dataset.service.DatasetService;
+import io.cdap.cdap.internal.app.ApplicationSpecificationAdapter;
 import io.cdap.cdap.internal.app.DefaultApplicationSpecification;
 import io.cdap.cdap.internal.app.runtime.BasicArguments;
+import io.cdap.cdap.internal.app.runtime.ProgramOptionConstants;
 import io.cdap.cdap.internal.app.runtime.SimpleProgramOptions;
 import io.cdap.cdap.internal.app.runtime.SystemArguments;
 import io.cdap.cdap.internal.guice.AppFabricTestModule;
 import io.cdap.cdap.internal.pipeline.PluginRequirement;
 import io.cdap.cdap.messaging.MessagingService;
+import io.cdap.cdap.messaging.data.RawMessage;
+import io.cdap.cdap.proto.Notification;
+import io.cdap.cdap.proto.ProgramRunClusterStatus;
 import io.cdap.cdap.proto.id.NamespaceId;
 import io.cdap.cdap.proto.id.ProfileId;
 import io.cdap.cdap.proto.id.ProgramRunId;
+import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.proto.profile.Profile;
 import io.cdap.cdap.proto.provisioner.ProvisionerDetail;
 import io.cdap.cdap.proto.provisioner.ProvisionerInfo;
@@ -67,6 +76,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -76,12 +86,15 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
 
 /**
  * Test for Provisioning Service.
  */
 public class ProvisioningServiceTest {
 
+  private static final Gson GSON = ApplicationSpecificationAdapter.addTypeAdapters(new GsonBuilder()).create();
+
   @ClassRule
   public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
 
@@ -303,6 +316,95 @@ public class ProvisioningServiceTest {
     waitForExpectedProvisioningState(taskKey, ProvisioningOp.Status.CANCELLED);
   }
 
+  @Test
+  public void testClusterReuse() throws Exception {
+    ProvisionerInfo provisionerInfo = new MockProvisioner.PropertyBuilder().reuseCluster(1, TimeUnit.HOURS).build();
+
+    // the first run creates a cluster, which is kept in the pool when the run is done
+    TaskFields first = testProvision(ProvisioningOp.Status.CREATED, provisionerInfo);
+    String clusterName = first.programRunId.getRun();
+    ProvisioningTaskInfo firstTaskInfo =
+      provisionerStore.getTaskInfo(new ProvisioningTaskKey(first.programRunId, ProvisioningOp.Type.PROVISION));
+    Assert.assertEquals(clusterName, firstTaskInfo.getCluster().getName());
+    deprovisionToPool(first.programRunId);
+    Assert.assertNotNull(getPooledCluster(clusterName));
+    Assert.assertNull(provisionerStore.getTaskInfo(new ProvisioningTaskKey(first.programRunId,
+                                                                           ProvisioningOp.Type.PROVISION)));
+
+    // the second run reuses the pooled cluster
+    TaskFields second = testProvision(ProvisioningOp.Status.CREATED, provisionerInfo);
+    ProvisioningTaskInfo secondTaskInfo =
+      provisionerStore.getTaskInfo(new ProvisioningTaskKey(second.programRunId, ProvisioningOp.Type.PROVISION));
+    Assert.assertEquals(clusterName, secondTaskInfo.getCluster().getName());
+    Assert.assertEquals(firstTaskInfo.getSecureKeysDir(), secondTaskInfo.getSecureKeysDir());
+    Assert.assertNull(getPooledCluster(clusterName));
+
+    // while the cluster is in use, a third run gets a new cluster
+    TaskFields third = testProvision(ProvisioningOp.Status.CREATED, provisionerInfo);
+    ProvisioningTaskInfo thirdTaskInfo =
+      provisionerStore.getTaskInfo(new ProvisioningTaskKey(third.programRunId, ProvisioningOp.Type.PROVISION));
+    Assert.assertEquals(third.programRunId.getRun(), thirdTaskInfo.getCluster().getName());
+
+    // runs with different provisioner properties never reuse the cluster
+    deprovisionToPool(second.programRunId);
+    TaskFields other = testProvision(ProvisioningOp.Status.CREATED, new MockProvisioner.PropertyBuilder()
+      .reuseCluster(2, TimeUnit.HOURS).build());
+    ProvisioningTaskInfo otherTaskInfo =
+      provisionerStore.getTaskInfo(new ProvisioningTaskKey(other.programRunId, ProvisioningOp.Type.PROVISION));
+    Assert.assertEquals(other.programRunId.getRun(), otherTaskInfo.getCluster().getName());
+
+    // once expired, the cluster gets deleted as the last run that used it, without notifying that run again
+    PooledCluster pooledCluster = getPooledCluster(clusterName);
+    Assert.assertNotNull(pooledCluster);
+    Assert.assertEquals(second.programRunId, pooledCluster.getTaskInfo().getProgramRunId());
+    TransactionRunners.run(transactionRunner, context -> {
+      new ProvisionerTable(context).putPooledCluster(
+        new PooledCluster(pooledCluster.getPoolKey(), pooledCluster.getTaskInfo(), 0L,
+                          pooledCluster.getProvisionTimeMillis()));
+    }, IOException.class);
+    Assert.assertEquals(1, countClusterStatus(second.programRunId, ProgramRunClusterStatus.DEPROVISIONED));
+    provisioningService.deprovisionExpiredClusters();
+    Assert.assertNull(getPooledCluster(clusterName));
+    ProvisioningTaskKey taskKey = new ProvisioningTaskKey(second.programRunId,
+                                                          ProvisioningOp.Type.DEPROVISION_POOLED);
+    Tasks.waitFor(true, () -> provisionerStore.getTaskInfo(taskKey) == null, 60, TimeUnit.SECONDS);
+    Assert.assertEquals(1, countClusterStatus(second.programRunId, ProgramRunClusterStatus.DEPROVISIONED));
+  }
+
+  private int countClusterStatus(ProgramRunId programRunId, ProgramRunClusterStatus status) throws Exception {
+    String topicName = CConfiguration.create().get(Constants.AppFabric.PROGRAM_STATUS_EVENT_TOPIC);
+    TopicId topic = NamespaceId.SYSTEM.topic(topicName);
+    int count = 0;
+    try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topic).fetch()) {
+      while (iterator.hasNext()) {
+        Notification notification = GSON.fromJson(new String(iterator.next().getPayload(), StandardCharsets.UTF_8),
+                                                  Notification.class);
+        Map<String, String> properties = notification.getProperties();
+        if (status.name().equals(properties.get(ProgramOptionConstants.CLUSTER_STATUS))
+          && programRunId.equals(GSON.fromJson(properties.get(ProgramOptionConstants.PROGRAM_RUN_ID),
+                                               ProgramRunId.class))) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  private void deprovisionToPool(ProgramRunId programRunId) throws IOException {
+    Runnable task = TransactionRunners.run(transactionRunner, context -> {
+      return provisioningService.deprovision(programRunId, context);
+    });
+    task.run();
+  }
+
+  @Nullable
+  private PooledCluster getPooledCluster(String clusterName) throws IOException {
+    return provisionerStore.listPooledClusters().stream()
+      .filter(pooledCluster -> clusterName.equals(pooledCluster.getCluster().getName()))
+      .findFirst()
+      .orElse(null);
+  }
+
   private TaskFields testProvision(ProvisioningOp.Status expectedState, ProvisionerInfo provisionerInfo)
     throws InterruptedException, ExecutionException, TimeoutException, IOException {
     TaskFields taskFields = createTaskInfo(provisionerInfo);
@@ -38,6 +38,7 @@ import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.plugin.JoinerBridge;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.CachePlan;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
 import io.cdap.cdap.etl.spark.SparkPipelineRunner;
@@ -53,6 +54,7 @@ import io.cdap.cdap.etl.spark.streaming.function.DynamicJoinOn;
 import io.cdap.cdap.etl.spark.streaming.function.WrapOutputTransformFunction;
 import io.cdap.cdap.etl.spark.streaming.function.preview.LimitingFunction;
 import io.cdap.cdap.etl.validation.LoggingFailureCollector;
+import org.apache.spark.SparkConf;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
@@ -139,11 +141,17 @@ public class SparkStreamingPipelineRunner extends SparkPipelineRunner {
     return new DStreamCollection<>(sec, result);
   }
 
+  @Override
+  protected SparkConf getSparkConf() {
+    return streamingContext.sparkContext().getConf();
+  }
+
   @Override
   protected SparkCollection<Object> handleJoin(Map<String, SparkCollection<Object>> inputDataCollections,
                                                PipelinePhase pipelinePhase, PluginFunctionContext pluginFunctionContext,
                                                StageSpec stageSpec, Object plugin, Integer numPartitions,
-                                               StageStatisticsCollector collector) throws Exception {
+                                               StageStatisticsCollector collector,
+                                               CachePlan cachePlan) throws Exception {
     String stageName = stageSpec.getName();
     BatchJoiner<?, ?, ?> joiner;
     if (plugin instanceof BatchAutoJoiner) {
@@ -176,6 +184,6 @@ public class SparkStreamingPipelineRunner extends SparkPipelineRunner {
 
     BatchJoinerRuntimeContext joinerRuntimeContext = pluginFunctionContext.createBatchRuntimeContext();
     joiner.initialize(joinerRuntimeContext);
-    return handleJoin(joiner, inputDataCollections, stageSpec, numPartitions, collector).cache();
+    return handleJoin(joiner, inputDataCollections, stageSpec, numPartitions, collector);
   }
 }
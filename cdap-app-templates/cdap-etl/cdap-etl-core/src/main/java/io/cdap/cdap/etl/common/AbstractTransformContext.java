@@ -36,7 +36,8 @@ public abstract class AbstractTransformContext extends AbstractStageContext impl
 
   protected AbstractTransformContext(PipelineRuntime pipelineRuntime, StageSpec stageSpec, LookupProvider lookup) {
     super(pipelineRuntime, stageSpec);
-    this.lookup = lookup;
+    int cacheSize = getLookupCacheSize(stageSpec.getName());
+    this.lookup = cacheSize > 0 ? new CachingLookupProvider(lookup, cacheSize, getMetrics()) : lookup;
   }
 
   @Override
@@ -44,6 +45,25 @@ public abstract class AbstractTransformContext extends AbstractStageContext impl
     return lookup.provide(table, arguments);
   }
 
+  /**
+   * Returns the lookup cache size for the given stage, or {@code 0} if lookup results should not be cached.
+   */
+  private int getLookupCacheSize(String stageName) {
+    String size = arguments.get(stageName + "." + Constants.LOOKUP_CACHE_SIZE);
+    if (size == null) {
+      size = arguments.get(Constants.LOOKUP_CACHE_SIZE);
+    }
+    if (size == null) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(size.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(String.format("Invalid value '%s' for lookup cache size of stage '%s'.",
+                                                       size, stageName), e);
+    }
+  }
+
   @Override
   public void record(List<FieldOperation> fieldOperations) {
     throw new UnsupportedOperationException("Lineage recording is not supported.");
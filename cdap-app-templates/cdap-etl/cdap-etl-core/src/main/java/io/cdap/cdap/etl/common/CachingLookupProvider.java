@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupProvider;
+import io.cdap.cdap.etl.api.StageMetrics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link LookupProvider} that caches the results of the {@link Lookup} provided by another {@link LookupProvider}.
+ * Each provided {@link Lookup} keeps its own cache of the most recently used keys, bounded by a maximum size. Keys
+ * missing from the cache in a batch lookup are fetched with a single batch lookup. The number of cache hits and misses
+ * is reported through the {@link StageMetrics} of the stage.
+ *
+ * Values are cached for the lifetime of the {@link Lookup}, so this should only be used for tables that are
+ * not modified while the pipeline runs, or where reading stale values is acceptable.
+ */
+public class CachingLookupProvider implements LookupProvider {
+
+  private final LookupProvider delegate;
+  private final int cacheSize;
+  private final StageMetrics stageMetrics;
+
+  public CachingLookupProvider(LookupProvider delegate, int cacheSize, StageMetrics stageMetrics) {
+    if (cacheSize <= 0) {
+      throw new IllegalArgumentException("Lookup cache size must be positive, but is " + cacheSize);
+    }
+    this.delegate = delegate;
+    this.cacheSize = cacheSize;
+    this.stageMetrics = stageMetrics;
+  }
+
+  @Override
+  public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+    return new CachingLookup<>(delegate.provide(table, arguments));
+  }
+
+  /**
+   * A {@link Lookup} that caches results of another {@link Lookup} with LRU eviction.
+   *
+   * @param <T> type of the lookup value
+   */
+  private final class CachingLookup<T> implements Lookup<T> {
+
+    private final Lookup<T> lookup;
+    private final Map<String, T> cache;
+
+    private CachingLookup(Lookup<T> lookup) {
+      this.lookup = lookup;
+      this.cache = new LinkedHashMap<String, T>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+          return size() > cacheSize;
+        }
+      };
+    }
+
+    @Override
+    public T lookup(String key) {
+      synchronized (cache) {
+        // Use containsKey since absent keys are cached as null values
+        T value = cache.get(key);
+        if (value != null || cache.containsKey(key)) {
+          stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, 1);
+          return value;
+        }
+      }
+      T value = lookup.lookup(key);
+      stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, 1);
+      synchronized (cache) {
+        cache.put(key, value);
+      }
+      return value;
+    }
+
+    @Override
+    public Map<String, T> lookup(String... keys) {
+      return lookup(new LinkedHashSet<>(Arrays.asList(keys)));
+    }
+
+    @Override
+    public Map<String, T> lookup(Set<String> keys) {
+      Map<String, T> results = new HashMap<>();
+      Set<String> misses = new LinkedHashSet<>();
+      synchronized (cache) {
+        for (String key : keys) {
+          T value = cache.get(key);
+          if (value != null || cache.containsKey(key)) {
+            results.put(key, value);
+          } else {
+            misses.add(key);
+          }
+        }
+      }
+      if (results.size() > 0) {
+        stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_HITS, results.size());
+      }
+      if (misses.isEmpty()) {
+        return results;
+      }
+
+      stageMetrics.count(Constants.Metrics.LOOKUP_CACHE_MISSES, misses.size());
+      Map<String, T> fetched = lookup.lookup(misses);
+      synchronized (cache) {
+        for (String key : misses) {
+          T value = fetched.get(key);
+          cache.put(key, value);
+          results.put(key, value);
+        }
+      }
+      return results;
+    }
+  }
+}
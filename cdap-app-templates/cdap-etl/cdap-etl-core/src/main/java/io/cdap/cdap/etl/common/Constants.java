@@ -33,6 +33,19 @@ public final class Constants {
   public static final String SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG = "spark.cdap.pipeline.autocache.enable";
   public static final String SPARK_PIPELINE_CACHING_STORAGE_LEVEL = "spark.cdap.pipeline.caching.storage.level";
   public static final String DEFAULT_CACHING_STORAGE_LEVEL = "MEMORY_AND_DISK"; 
+  // Keeps the output of auto joins as Spark Datasets instead of converting it to StructuredRecords. Only auto joins
+  // are affected, since source and aggregator plugins produce StructuredRecords. Ignored by the Spark1 engine.
+  public static final String SPARK_PIPELINE_DATAFRAME_ENABLE_FLAG = "spark.cdap.pipeline.dataframe.enable";
+  public static final String SPARK_PIPELINE_JOIN_SKEW_ENABLE_FLAG = "spark.cdap.pipeline.join.skew.enable";
+  public static final String SPARK_PIPELINE_JOIN_SKEW_SAMPLE_FRACTION = "spark.cdap.pipeline.join.skew.sample.fraction";
+  public static final String SPARK_PIPELINE_JOIN_SKEW_THRESHOLD = "spark.cdap.pipeline.join.skew.threshold";
+  public static final String SPARK_PIPELINE_JOIN_SKEW_MAX_KEYS = "spark.cdap.pipeline.join.skew.max.keys";
+  public static final String SPARK_PIPELINE_JOIN_SKEW_SALT_BUCKETS = "spark.cdap.pipeline.join.skew.salt.buckets";
+  public static final String SPARK_PIPELINE_INCREMENTAL_WINDOW_AGGREGATION_ENABLE_FLAG =
+    "spark.cdap.pipeline.streaming.incremental.window.aggregation.enable";
+  // Maximum number of lookup results cached per lookup table in each task. Can be set for a single stage by
+  // prefixing it with the stage name and a dot.
+  public static final String LOOKUP_CACHE_SIZE = "lookup.cache.size";
 
   private Constants() {
     throw new AssertionError("Suppress default constructor for noninstantiability");
@@ -65,6 +78,10 @@ public final class Constants {
     public static final String RECORDS_ALERT = "records.alert";
     public static final String AGG_GROUPS = "aggregator.groups";
     public static final String JOIN_KEYS = "joiner.keys";
+    public static final String JOIN_SKEWED_KEYS = "joiner.skewed.keys";
+    public static final String AGG_WINDOW_PARTIALS = "aggregator.window.partials";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
   }
 
   /**
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.etl.api.Lookup;
+import io.cdap.cdap.etl.api.LookupProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for {@link CachingLookupProvider}.
+ */
+public class CachingLookupProviderTest {
+
+  @Test
+  public void testCaching() {
+    List<String> fetched = new ArrayList<>();
+    Map<String, String> data = ImmutableMap.of("a", "1", "b", "2", "c", "3");
+    LookupProvider provider = new LookupProvider() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> Lookup<T> provide(String table, Map<String, String> arguments) {
+        return (Lookup<T>) new Lookup<String>() {
+          @Override
+          public String lookup(String key) {
+            fetched.add(key);
+            return data.get(key);
+          }
+
+          @Override
+          public Map<String, String> lookup(String... keys) {
+            return lookup(ImmutableSet.copyOf(keys));
+          }
+
+          @Override
+          public Map<String, String> lookup(Set<String> keys) {
+            Map<String, String> result = new HashMap<>();
+            for (String key : keys) {
+              result.put(key, lookup(key));
+            }
+            return result;
+          }
+        };
+      }
+    };
+
+    MockMetrics metrics = new MockMetrics();
+    Lookup<String> lookup = new CachingLookupProvider(provider, 2, new DefaultStageMetrics(metrics, "stage"))
+      .provide("table", new HashMap<>());
+
+    Assert.assertEquals("1", lookup.lookup("a"));
+    Assert.assertEquals("1", lookup.lookup("a"));
+    // absent keys are cached too
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertEquals(ImmutableList.of("a", "x"), fetched);
+
+    // only misses are fetched, and "x" is evicted as the least recently used key
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2"), lookup.lookup("a", "b"));
+    Assert.assertEquals(ImmutableList.of("a", "x", "b"), fetched);
+    Assert.assertNull(lookup.lookup("x"));
+    Assert.assertEquals(ImmutableList.of("a", "x", "b", "x"), fetched);
+
+    Assert.assertEquals(3, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_HITS));
+    Assert.assertEquals(4, metrics.getCount("stage." + Constants.Metrics.LOOKUP_CACHE_MISSES));
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.cdap.cdap.etl.api.AlertPublisher;
+import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.batch.BatchSink;
+import io.cdap.cdap.etl.api.batch.SparkSink;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.PipelinePhase;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import org.apache.spark.SparkConf;
+import org.apache.spark.storage.StorageLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which collections in a pipeline phase should be persisted, at what storage level, and when they can be
+ * released.
+ *
+ * A collection is only persisted if it is read by more than one consumer, or if it is read by a stage with several
+ * inputs, since the union of the inputs can otherwise trigger recomputing it. The input of a SparkCompute is always
+ * persisted, since the plugin can read it any number of times. Each persisted collection is released as soon as
+ * every stage that triggers a Spark job downstream of it has completed, instead of staying in executor memory until
+ * the end of the run. Nothing is persisted if auto caching is disabled in the Spark configuration.
+ *
+ * The storage level defaults to the one configured for the pipeline in the Spark configuration, but can be set for
+ * individual stages using runtime arguments of the form 'pipeline.spark.cache.storage.level.[stage]=[level]'.
+ * For example, a stage with a large output can use MEMORY_AND_DISK_SER or OFF_HEAP while other stages keep
+ * the default.
+ *
+ * The left input of a join that samples for skewed keys is persisted even if auto caching is disabled, since the
+ * join has to read the same rows that were sampled and salted.
+ */
+public class CachePlan {
+  @VisibleForTesting
+  static final String STORAGE_LEVEL_PREFIX = "pipeline.spark.cache.storage.level.";
+  private static final Logger LOG = LoggerFactory.getLogger(CachePlan.class);
+
+  private final PipelinePhase phase;
+  private final boolean enabled;
+  private final StorageLevel defaultStorageLevel;
+  private final Map<String, StorageLevel> storageLevels;
+  // stage -> stages downstream of it that trigger a spark job
+  private final Map<String, Set<String>> downstreamJobs;
+  // stage -> collections persisted for that stage
+  private final Map<String, List<SparkCollection<?>>> persisted;
+  // collections returned by this plan, so that they are not persisted and released a second time
+  private final Set<SparkCollection<?>> persistedCollections;
+  private final Set<String> completed;
+
+  private CachePlan(PipelinePhase phase, boolean enabled, StorageLevel defaultStorageLevel,
+                    Map<String, StorageLevel> storageLevels, Map<String, Set<String>> downstreamJobs) {
+    this.phase = phase;
+    this.enabled = enabled;
+    this.defaultStorageLevel = defaultStorageLevel;
+    this.storageLevels = storageLevels;
+    this.downstreamJobs = downstreamJobs;
+    this.persisted = new HashMap<>();
+    this.persistedCollections = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.completed = new HashSet<>();
+  }
+
+  /**
+   * Create a plan for the given phase.
+   *
+   * @param phase the pipeline phase to plan
+   * @param arguments runtime arguments for the run, used to look up per stage storage levels
+   * @param sparkConf the Spark configuration, used to look up whether caching is enabled and the default storage level
+   * @return the cache plan for the phase
+   */
+  public static CachePlan create(PipelinePhase phase, Map<String, String> arguments, SparkConf sparkConf) {
+    boolean enabled = sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true);
+    StorageLevel defaultStorageLevel = StorageLevel.fromString(
+      sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL, Constants.DEFAULT_CACHING_STORAGE_LEVEL));
+    Map<String, StorageLevel> storageLevels = new HashMap<>();
+    for (Map.Entry<String, String> argument : arguments.entrySet()) {
+      String key = argument.getKey();
+      if (!key.startsWith(STORAGE_LEVEL_PREFIX)) {
+        continue;
+      }
+      String stageName = key.substring(STORAGE_LEVEL_PREFIX.length());
+      try {
+        storageLevels.put(stageName, StorageLevel.fromString(argument.getValue()));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+          String.format("Invalid storage level '%s' for stage '%s'.", argument.getValue(), stageName), e);
+      }
+    }
+
+    Set<String> jobStages = new HashSet<>();
+    for (StageSpec stageSpec : phase) {
+      if (triggersJob(phase, stageSpec)) {
+        jobStages.add(stageSpec.getName());
+      }
+    }
+
+    Map<String, Set<String>> downstreamJobs = new HashMap<>();
+    //noinspection ConstantConditions
+    if (phase.getDag() != null) {
+      for (String stageName : phase.getDag().getNodes()) {
+        Set<String> downstream = new HashSet<>(phase.getDag().accessibleFrom(stageName));
+        downstream.retainAll(jobStages);
+        downstreamJobs.put(stageName, downstream);
+      }
+    }
+    return new CachePlan(phase, enabled, defaultStorageLevel, storageLevels, downstreamJobs);
+  }
+
+  /**
+   * @return whether the normal output of the stage should be persisted
+   */
+  public boolean shouldCacheOutput(String stageName) {
+    Set<String> consumers = new HashSet<>();
+    for (String output : phase.getStageOutputs(stageName)) {
+      String pluginType = phase.getStage(output).getPluginType();
+      if (!ErrorTransform.PLUGIN_TYPE.equals(pluginType) && !AlertPublisher.PLUGIN_TYPE.equals(pluginType)) {
+        consumers.add(output);
+      }
+    }
+    return shouldCache(consumers);
+  }
+
+  /**
+   * @return whether the output of the stage for the given port should be persisted
+   */
+  public boolean shouldCachePort(String stageName, String port) {
+    Set<String> consumers = new HashSet<>();
+    for (Map.Entry<String, StageSpec.Port> outputPort : phase.getStage(stageName).getOutputPorts().entrySet()) {
+      if (port.equals(outputPort.getValue().getPort())) {
+        consumers.add(outputPort.getKey());
+      }
+    }
+    return shouldCache(consumers);
+  }
+
+  /**
+   * @return whether the error output of the stage should be persisted
+   */
+  public boolean shouldCacheErrors(String stageName) {
+    return shouldCache(getOutputsOfType(stageName, ErrorTransform.PLUGIN_TYPE));
+  }
+
+  /**
+   * @return whether the alert output of the stage should be persisted
+   */
+  public boolean shouldCacheAlerts(String stageName) {
+    return shouldCache(getOutputsOfType(stageName, AlertPublisher.PLUGIN_TYPE));
+  }
+
+  /**
+   * @return the storage level to use for collections of the given stage
+   */
+  public StorageLevel getStorageLevel(String stageName) {
+    return storageLevels.getOrDefault(stageName, defaultStorageLevel);
+  }
+
+  /**
+   * Persist the given collection for the given stage, keeping track of it so that it can be released
+   * once everything that depends on it has run. The collection is returned as is if caching is disabled.
+   */
+  public synchronized <T> SparkCollection<T> cache(String stageName, SparkCollection<T> collection) {
+    return enabled ? persist(stageName, collection) : collection;
+  }
+
+  /**
+   * Persist the left input of a join that samples it for skewed keys, even if auto caching is disabled.
+   * Otherwise the input is read once for sampling and again for the join, and a recomputed partition may not see
+   * its rows in the same order, giving them different salts. The collection is released like any other collection
+   * persisted for the joiner stage.
+   */
+  public synchronized <T> SparkCollection<T> cacheSkewedJoinInput(String joinerStageName,
+                                                                   SparkCollection<T> collection) {
+    return persist(joinerStageName, collection);
+  }
+
+  /**
+   * Mark a stage that triggers a Spark job as completed, and release every persisted collection that is not
+   * needed by any stage that has not completed yet.
+   */
+  public synchronized void stageCompleted(String stageName) {
+    completed.add(stageName);
+    Iterator<Map.Entry<String, List<SparkCollection<?>>>> persistedIter = persisted.entrySet().iterator();
+    while (persistedIter.hasNext()) {
+      Map.Entry<String, List<SparkCollection<?>>> entry = persistedIter.next();
+      Set<String> downstream = downstreamJobs.get(entry.getKey());
+      if (downstream != null && !completed.containsAll(downstream)) {
+        continue;
+      }
+      LOG.debug("Releasing {} persisted collections for stage '{}'.", entry.getValue().size(), entry.getKey());
+      for (SparkCollection<?> collection : entry.getValue()) {
+        collection.unpersist();
+        persistedCollections.remove(collection);
+      }
+      persistedIter.remove();
+    }
+  }
+
+  private <T> SparkCollection<T> persist(String stageName, SparkCollection<T> collection) {
+    // the collection is already persisted for an upstream stage, which is released after this stage anyway
+    if (persistedCollections.contains(collection)) {
+      return collection;
+    }
+    SparkCollection<T> cached = collection.cache(getStorageLevel(stageName));
+    persisted.computeIfAbsent(stageName, k -> new ArrayList<>()).add(cached);
+    persistedCollections.add(cached);
+    return cached;
+  }
+
+  @VisibleForTesting
+  Set<String> getDownstreamJobs(String stageName) {
+    return downstreamJobs.get(stageName);
+  }
+
+  // whether a collection read by the given stages should be cached
+  private boolean shouldCache(Set<String> consumers) {
+    if (consumers.size() > 1) {
+      return true;
+    }
+    for (String consumer : consumers) {
+      if (phase.getStageInputs(consumer).size() > 1) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private Set<String> getOutputsOfType(String stageName, String pluginType) {
+    Set<String> outputs = new HashSet<>();
+    for (String output : phase.getStageOutputs(stageName)) {
+      if (pluginType.equals(phase.getStage(output).getPluginType())) {
+        outputs.add(output);
+      }
+    }
+    return outputs;
+  }
+
+  // whether running the stage will trigger a spark job that reads its inputs
+  private static boolean triggersJob(PipelinePhase phase, StageSpec stageSpec) {
+    String pluginType = stageSpec.getPluginType();
+    return BatchSink.PLUGIN_TYPE.equals(pluginType) || SparkSink.PLUGIN_TYPE.equals(pluginType) ||
+      AlertPublisher.PLUGIN_TYPE.equals(pluginType) ||
+      (Constants.Connector.PLUGIN_TYPE.equals(pluginType) && phase.getSinks().contains(stageSpec.getName()));
+  }
+}
@@ -27,6 +27,7 @@ import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
 import io.cdap.cdap.etl.spark.join.JoinRequest;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.storage.StorageLevel;
 
 import java.util.List;
 import javax.annotation.Nullable;
@@ -45,7 +46,9 @@ public interface SparkCollection<T> {
 
   <C> C getUnderlying();
 
-  SparkCollection<T> cache();
+  SparkCollection<T> cache(StorageLevel storageLevel);
+
+  void unpersist();
 
   SparkCollection<T> union(SparkCollection<T> other);
 
@@ -63,7 +66,8 @@ public interface SparkCollection<T> {
 
   <K, V> SparkPairCollection<K, V> flatMapToPair(PairFlatMapFunction<T, K, V> function);
 
-  <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception;
+  <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute,
+                                 CachePlan cachePlan) throws Exception;
 
   Runnable createStoreTask(StageSpec stageSpec, PairFlatMapFunction<T, Object, Object> sinkFunction);
 
@@ -70,7 +70,9 @@ import io.cdap.cdap.etl.spark.function.OutputPassFilter;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
 import io.cdap.cdap.etl.spark.join.JoinCollection;
 import io.cdap.cdap.etl.spark.join.JoinRequest;
+import io.cdap.cdap.etl.spark.join.SkewedJoinSettings;
 import io.cdap.cdap.etl.validation.LoggingFailureCollector;
+import org.apache.spark.SparkConf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -108,6 +110,8 @@ public abstract class SparkPipelineRunner {
     SparkPairCollection<Object, List<JoinElement<Object>>> joinedInputs,
     StageStatisticsCollector collector) throws Exception;
 
+  protected abstract SparkConf getSparkConf();
+
   public void runPipeline(PipelinePhase pipelinePhase, String sourcePluginType,
                           JavaSparkExecutionContext sec,
                           Map<String, Integer> stagePartitions,
@@ -125,6 +129,7 @@ public abstract class SparkPipelineRunner {
       throw new IllegalStateException("Pipeline phase has no connections.");
     }
 
+    CachePlan cachePlan = CachePlan.create(pipelinePhase, sec.getRuntimeArguments(), getSparkConf());
     Collection<Runnable> sinkRunnables = new ArrayList<>();
     for (String stageName : pipelinePhase.getDag().getTopologicalOrder()) {
       StageSpec stageSpec = pipelinePhase.getStage(stageName);
@@ -203,7 +208,7 @@ public abstract class SparkPipelineRunner {
         // null in the other else-if conditions
         if (sourcePluginType.equals(pluginType) || isConnectorSource) {
           SparkCollection<RecordInfo<Object>> combinedData = getSource(stageSpec, collector);
-          emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+          emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                       combinedData, hasErrorOutput, hasAlertOutput);
         } else {
           throw new IllegalStateException(String.format("Stage '%s' has no input and is not a source.", stageName));
@@ -211,19 +216,20 @@ public abstract class SparkPipelineRunner {
 
       } else if (BatchSink.PLUGIN_TYPE.equals(pluginType) || isConnectorSink) {
 
-        sinkRunnables.add(stageData.createStoreTask(stageSpec,
-                                                    Compat.convert(new BatchSinkFunction(pluginFunctionContext))));
+        Runnable storeTask = stageData.createStoreTask(stageSpec,
+                                                       Compat.convert(new BatchSinkFunction(pluginFunctionContext)));
+        sinkRunnables.add(releaseAfter(storeTask, cachePlan, stageName));
 
       } else if (Transform.PLUGIN_TYPE.equals(pluginType)) {
 
         SparkCollection<RecordInfo<Object>> combinedData = stageData.transform(stageSpec, collector);
-        emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+        emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
       } else if (SplitterTransform.PLUGIN_TYPE.equals(pluginType)) {
 
         SparkCollection<RecordInfo<Object>> combinedData = stageData.multiOutputTransform(stageSpec, collector);
-        emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+        emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                     combinedData, hasErrorOutput, hasAlertOutput);
 
       } else if (ErrorTransform.PLUGIN_TYPE.equals(pluginType)) {
@@ -245,19 +251,20 @@ public abstract class SparkPipelineRunner {
         if (inputErrors != null) {
           SparkCollection<RecordInfo<Object>> combinedData =
             inputErrors.flatMap(stageSpec, Compat.convert(new ErrorTransformFunction<>(pluginFunctionContext)));
-          emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+          emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                       combinedData, hasErrorOutput, hasAlertOutput);
         }
 
       } else if (SparkCompute.PLUGIN_TYPE.equals(pluginType)) {
 
         SparkCompute<Object, Object> sparkCompute = pluginContext.newPluginInstance(stageName, macroEvaluator);
-        emittedBuilder = emittedBuilder.setOutput(stageData.compute(stageSpec, sparkCompute));
+        emittedBuilder = emittedBuilder.setOutput(cacheOutput(cachePlan, stageName,
+                                                              stageData.compute(stageSpec, sparkCompute, cachePlan)));
 
       } else if (SparkSink.PLUGIN_TYPE.equals(pluginType)) {
 
         SparkSink<Object> sparkSink = pluginContext.newPluginInstance(stageName, macroEvaluator);
-        sinkRunnables.add(stageData.createStoreTask(stageSpec, sparkSink));
+        sinkRunnables.add(releaseAfter(stageData.createStoreTask(stageSpec, sparkSink), cachePlan, stageName));
 
       } else if (BatchAggregator.PLUGIN_TYPE.equals(pluginType)) {
 
@@ -267,11 +274,11 @@ public abstract class SparkPipelineRunner {
         if (plugin instanceof BatchReducibleAggregator) {
           SparkCollection<RecordInfo<Object>> combinedData = stageData.reduceAggregate(stageSpec, partitions,
                                                                                        collector);
-          emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+          emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                       combinedData, hasErrorOutput, hasAlertOutput);
         } else {
           SparkCollection<RecordInfo<Object>> combinedData = stageData.aggregate(stageSpec, partitions, collector);
-          emittedBuilder = addEmitted(emittedBuilder, pipelinePhase, stageSpec,
+          emittedBuilder = addEmitted(emittedBuilder, cachePlan, stageSpec,
                                       combinedData, hasErrorOutput, hasAlertOutput);
         }
 
@@ -279,13 +286,15 @@ public abstract class SparkPipelineRunner {
 
         Integer numPartitions = stagePartitions.get(stageName);
         Object plugin = pluginContext.newPluginInstance(stageName, macroEvaluator);
-        emittedBuilder.setOutput(handleJoin(inputDataCollections, pipelinePhase, pluginFunctionContext,
-                                            stageSpec, plugin, numPartitions, collector));
+        SparkCollection<Object> joined = handleJoin(inputDataCollections, pipelinePhase, pluginFunctionContext,
+                                                    stageSpec, plugin, numPartitions, collector, cachePlan);
+        emittedBuilder.setOutput(cacheOutput(cachePlan, stageName, joined));
 
       } else if (Windower.PLUGIN_TYPE.equals(pluginType)) {
 
         Windower windower = pluginContext.newPluginInstance(stageName, macroEvaluator);
-        emittedBuilder = emittedBuilder.setOutput(stageData.window(stageSpec, windower));
+        emittedBuilder = emittedBuilder.setOutput(cacheOutput(cachePlan, stageName,
+                                                              stageData.window(stageSpec, windower)));
 
       } else if (AlertPublisher.PLUGIN_TYPE.equals(pluginType)) {
 
@@ -306,6 +315,7 @@ public abstract class SparkPipelineRunner {
         if (inputAlerts != null) {
           inputAlerts.publishAlerts(stageSpec, collector);
         }
+        cachePlan.stageCompleted(stageName);
 
       } else {
         throw new IllegalStateException(String.format("Stage %s is of unsupported plugin type %s.",
@@ -353,14 +363,15 @@ public abstract class SparkPipelineRunner {
   protected SparkCollection<Object> handleJoin(Map<String, SparkCollection<Object>> inputDataCollections,
                                                PipelinePhase pipelinePhase, PluginFunctionContext pluginFunctionContext,
                                                StageSpec stageSpec, Object plugin, Integer numPartitions,
-                                               StageStatisticsCollector collector) throws Exception {
+                                               StageStatisticsCollector collector,
+                                               CachePlan cachePlan) throws Exception {
     String stageName = stageSpec.getName();
     if (plugin instanceof BatchJoiner) {
       BatchJoiner<Object, Object, Object> joiner = (BatchJoiner<Object, Object, Object>) plugin;
       BatchJoinerRuntimeContext joinerRuntimeContext = pluginFunctionContext.createBatchRuntimeContext();
       joiner.initialize(joinerRuntimeContext);
 
-      return handleJoin(joiner, inputDataCollections, stageSpec, numPartitions, collector).cache();
+      return handleJoin(joiner, inputDataCollections, stageSpec, numPartitions, collector);
     } else if (plugin instanceof AutoJoiner) {
       AutoJoiner autoJoiner = (AutoJoiner) plugin;
       Map<String, Schema> inputSchemas = new HashMap<>();
@@ -375,7 +386,7 @@ public abstract class SparkPipelineRunner {
       // it is checked by PipelinePhasePreparer at the start of the run.
       JoinDefinition joinDefinition = autoJoiner.define(autoJoinerContext);
       failureCollector.getOrThrowException();
-      return handleAutoJoin(stageName, joinDefinition, inputDataCollections, numPartitions);
+      return handleAutoJoin(stageName, joinDefinition, inputDataCollections, numPartitions, cachePlan);
     } else {
       // should never happen unless there is a bug in the code. should have failed during deployment
       throw new IllegalStateException(String.format("Stage '%s' is an unknown joiner type %s",
@@ -389,7 +400,7 @@ public abstract class SparkPipelineRunner {
    */
   private SparkCollection<Object> handleAutoJoin(String stageName, JoinDefinition joinDefinition,
                                                  Map<String, SparkCollection<Object>> inputDataCollections,
-                                                 @Nullable Integer numPartitions) {
+                                                 @Nullable Integer numPartitions, CachePlan cachePlan) {
     // sort stages to join so that broadcasts happen last. This is to ensure that the left side is not a broadcast
     // so that we don't try to broadcast both sides of the join. It also causes less data to be shuffled for the
     // non-broadcast joins.
@@ -407,6 +418,9 @@ public abstract class SparkPipelineRunner {
     JoinStage left = stageIter.next();
     String leftName = left.getStageName();
     SparkCollection<Object> leftCollection = inputDataCollections.get(left.getStageName());
+    if (SkewedJoinSettings.fromConf(getSparkConf()).isEnabled()) {
+      leftCollection = cachePlan.cacheSkewedJoinInput(stageName, leftCollection);
+    }
     Schema leftSchema = left.getSchema();
 
     JoinCondition condition = joinDefinition.getCondition();
@@ -712,52 +726,41 @@ public abstract class SparkPipelineRunner {
     return mergeJoinResults(stageSpec, joinedInputs, collector);
   }
 
-  // return whether this stage should be cached to avoid recomputation
-  private boolean shouldCache(PipelinePhase pipelinePhase, StageSpec stageSpec) {
-
-    // cache this RDD if it has multiple outputs,
-    // otherwise computation of each output may trigger recomputing this stage
-    Set<String> outputs = pipelinePhase.getStageOutputs(stageSpec.getName());
-    if (outputs.size() > 1) {
-      return true;
-    }
-
-    // cache this stage if it is an input to a stage that has multiple inputs.
-    // otherwise the union computation may trigger recomputing this stage
-    for (String outputStageName : outputs) {
-      StageSpec outputStage = pipelinePhase.getStage(outputStageName);
-      //noinspection ConstantConditions
-      if (pipelinePhase.getStageInputs(outputStageName).size() > 1) {
-        return true;
-      }
-    }
+  // persist the output of a stage if the cache plan determines that it is read more than once
+  private SparkCollection<Object> cacheOutput(CachePlan cachePlan, String stageName,
+                                              SparkCollection<Object> output) {
+    return cachePlan.shouldCacheOutput(stageName) ? cachePlan.cache(stageName, output) : output;
+  }
 
-    return false;
+  // release collections that are no longer needed once the given sink task has run
+  private static Runnable releaseAfter(Runnable sinkTask, CachePlan cachePlan, String stageName) {
+    return () -> {
+      sinkTask.run();
+      cachePlan.stageCompleted(stageName);
+    };
   }
 
-  private EmittedRecords.Builder addEmitted(EmittedRecords.Builder builder, PipelinePhase pipelinePhase,
+  private EmittedRecords.Builder addEmitted(EmittedRecords.Builder builder, CachePlan cachePlan,
                                             StageSpec stageSpec, SparkCollection<RecordInfo<Object>> stageData,
                                             boolean hasErrors, boolean hasAlerts) {
-
+    String stageName = stageSpec.getName();
     if (hasErrors || hasAlerts || stageSpec.getOutputPorts().size() > 1) {
       // need to cache, otherwise the stage can be computed once per type of emitted record
-      stageData = stageData.cache();
+      stageData = cachePlan.cache(stageName, stageData);
     }
 
-    boolean shouldCache = shouldCache(pipelinePhase, stageSpec);
-
     if (hasErrors) {
       SparkCollection<ErrorRecord<Object>> errors =
         stageData.flatMap(stageSpec, Compat.convert(new ErrorPassFilter<>()));
-      if (shouldCache) {
-        errors = errors.cache();
+      if (cachePlan.shouldCacheErrors(stageName)) {
+        errors = cachePlan.cache(stageName, errors);
       }
       builder.setErrors(errors);
     }
     if (hasAlerts) {
       SparkCollection<Alert> alerts = stageData.flatMap(stageSpec, Compat.convert(new AlertPassFilter()));
-      if (shouldCache) {
-        alerts = alerts.cache();
+      if (cachePlan.shouldCacheAlerts(stageName)) {
+        alerts = cachePlan.cache(stageName, alerts);
       }
       builder.setAlerts(alerts);
     }
@@ -767,17 +770,14 @@ public abstract class SparkPipelineRunner {
       for (StageSpec.Port portSpec : stageSpec.getOutputPorts().values()) {
         String port = portSpec.getPort();
         SparkCollection<Object> portData = stageData.flatMap(stageSpec, Compat.convert(new OutputPassFilter<>(port)));
-        if (shouldCache) {
-          portData = portData.cache();
+        if (cachePlan.shouldCachePort(stageName, port)) {
+          portData = cachePlan.cache(stageName, portData);
         }
         builder.addPort(port, portData);
       }
     } else {
       SparkCollection<Object> outputs = stageData.flatMap(stageSpec, Compat.convert(new OutputPassFilter<>()));
-      if (shouldCache) {
-        outputs = outputs.cache();
-      }
-      builder.setOutput(outputs);
+      builder.setOutput(cacheOutput(cachePlan, stageName, outputs));
     }
 
     return builder;
@@ -39,6 +39,7 @@ import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.common.TrackedIterator;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.CachePlan;
 import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
@@ -67,10 +68,12 @@ import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.sql.Column;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.functions;
 import org.apache.spark.sql.types.StructType;
 import org.apache.spark.storage.StorageLevel;
 import scala.Tuple2;
 
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -85,6 +88,8 @@ import javax.annotation.Nullable;
  */
 public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   private static final Gson GSON = new Gson();
+  // fixed so that a recomputed partition assigns the same salts to the same rows
+  private static final long SALT_SEED = 0L;
   protected final JavaSparkExecutionContext sec;
   protected final JavaSparkContext jsc;
   protected final SQLContext sqlContext;
@@ -109,16 +114,14 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   }
 
   @Override
-  public SparkCollection<T> cache() {
-    SparkConf sparkConf = jsc.getConf();
-    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
-      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL, 
-                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
-      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
-      return wrap(rdd.persist(cacheStorageLevel));
-    } else {
-      return wrap(rdd);
-    }
+  public SparkCollection<T> cache(StorageLevel storageLevel) {
+    return wrap(rdd.persist(storageLevel));
+  }
+
+  @Override
+  public void unpersist() {
+    // don't block, the blocks will be removed in the background
+    rdd.unpersist(false);
   }
 
   @SuppressWarnings("unchecked")
@@ -195,19 +198,17 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
   }
 
   @Override
-  public <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
+  public <U> SparkCollection<U> compute(StageSpec stageSpec, SparkCompute<T, U> compute,
+                                        CachePlan cachePlan) throws Exception {
     String stageName = stageSpec.getName();
     PipelineRuntime pipelineRuntime = new SparkPipelineRuntime(sec);
     SparkExecutionPluginContext sparkPluginContext =
       new BasicSparkExecutionPluginContext(sec, jsc, datasetContext, pipelineRuntime, stageSpec);
     compute.initialize(sparkPluginContext);
 
-    JavaRDD<T> countedInput = rdd.map(new CountingFunction<T>(stageName, sec.getMetrics(),
-                                                              Constants.Metrics.RECORDS_IN, null));
-    SparkConf sparkConf = jsc.getConf();
-    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
-      countedInput = countedInput.cache();
-    }
+    // the plugin can read its input any number of times, so persist it until the stages that depend on it have run
+    JavaRDD<T> countedInput = cachePlan.cache(stageName, wrap(rdd.map(
+      new CountingFunction<T>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN, null)))).getUnderlying();
 
     return wrap(compute.transform(sparkPluginContext, countedInput)
                   .map(new CountingFunction<U>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_OUT,
@@ -246,6 +247,9 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
           sink.run(sparkPluginContext, countedRDD);
         } catch (Exception e) {
           Throwables.propagate(e);
+        } finally {
+          // the sink is done with its input, so there is no reason to keep it around
+          countedRDD.unpersist(false);
         }
       }
     };
@@ -282,4 +286,58 @@ public abstract class BaseRDDCollection<T> implements SparkCollection<T> {
     }
     return left.equalTo(right);
   }
+
+  /**
+   * Returns a column that is true if the values of the given key columns are equal to one of the given keys.
+   * Each key is a row containing the key values in the same order as the key columns.
+   */
+  protected Column isSkewedKey(List<Column> keyColumns, List<Row> skewedKeys) {
+    Column isSkewed = functions.lit(false);
+    for (Row skewedKey : skewedKeys) {
+      Column matches = null;
+      for (int i = 0; i < keyColumns.size(); i++) {
+        // null safe since null is commonly the key that causes skew
+        Column fieldMatches = keyColumns.get(i).eqNullSafe(functions.lit(skewedKey.get(i)));
+        matches = matches == null ? fieldMatches : matches.and(fieldMatches);
+      }
+      isSkewed = isSkewed.or(matches);
+    }
+    return isSkewed;
+  }
+
+  /**
+   * Returns a column with a random salt between 0 and numBuckets - 1. It should be added to the left input of the
+   * join before any join, while the rows still come from the persisted input.
+   *
+   * The salt is generated with a fixed seed, so a partition that is recomputed from the same rows in the same order,
+   * for example when a task is retried, gets the same salts. Otherwise a retried task could send a row to a different
+   * partition than the original attempt, duplicating or dropping it in the join output. The intermediate output of
+   * a join does not keep its order when recomputed, so it is never salted directly.
+   */
+  protected Column randomSalt(int numBuckets) {
+    return functions.floor(functions.rand(SALT_SEED).multiply(numBuckets)).cast("int");
+  }
+
+  /**
+   * Returns a column that uses the given salt for rows with a skewed key, and a salt of 0 for every other row.
+   * This should be used on the large side of the join. Rows that have no salt, because they did not come from
+   * the left input, get a salt of 0.
+   */
+  protected Column skewedSalt(Column isSkewed, Column salt) {
+    return functions.when(isSkewed, functions.coalesce(salt, functions.lit(0))).otherwise(functions.lit(0));
+  }
+
+  /**
+   * Returns a column that generates one row per salt bucket for rows with a skewed key, and a single row with
+   * salt 0 for every other row. This should be used on the side of the join that is joined to the salted side,
+   * so that each salted row still finds its matches.
+   */
+  protected Column replicatedSalt(Column isSkewed, int numBuckets) {
+    List<Column> allBuckets = new ArrayList<>(numBuckets);
+    for (int i = 0; i < numBuckets; i++) {
+      allBuckets.add(functions.lit(i));
+    }
+    Column replicated = functions.array(allBuckets.toArray(new Column[numBuckets]));
+    return functions.explode(functions.when(isSkewed, replicated).otherwise(functions.array(functions.lit(0))));
+  }
 }
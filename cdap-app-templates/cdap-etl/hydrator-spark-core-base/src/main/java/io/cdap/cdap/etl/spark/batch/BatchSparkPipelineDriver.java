@@ -49,6 +49,7 @@ import io.cdap.cdap.etl.spark.function.JoinMergeFunction;
 import io.cdap.cdap.etl.spark.function.JoinOnFunction;
 import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
+import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.sql.SQLContext;
 
@@ -106,6 +107,11 @@ public class BatchSparkPipelineDriver extends SparkPipelineRunner implements Jav
     return joinedInputs.flatMap(Compat.convert(new JoinMergeFunction<>(pluginFunctionContext)));
   }
 
+  @Override
+  protected SparkConf getSparkConf() {
+    return jsc.getConf();
+  }
+
   @Override
   public void run(JavaSparkExecutionContext sec) throws Exception {
     this.jsc = new JavaSparkContext();
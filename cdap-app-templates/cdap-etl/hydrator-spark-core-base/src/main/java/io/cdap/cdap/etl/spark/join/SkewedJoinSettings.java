@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.join;
+
+import io.cdap.cdap.etl.common.Constants;
+import org.apache.spark.SparkConf;
+
+/**
+ * Settings that control how skewed join keys are handled in an auto join.
+ *
+ * When enabled, the left side of the join is sampled on the driver to find keys that make up a large fraction
+ * of the data. Rows on the left side that have one of those keys are spread across several salt buckets, and rows
+ * on the other sides with the same key are replicated once per bucket, so that a single hot key is processed by
+ * several tasks instead of one.
+ */
+public class SkewedJoinSettings {
+  private static final double DEFAULT_SAMPLE_FRACTION = 0.01d;
+  private static final double DEFAULT_THRESHOLD = 0.05d;
+  private static final int DEFAULT_MAX_KEYS = 20;
+  private static final int DEFAULT_SALT_BUCKETS = 16;
+
+  private final boolean enabled;
+  private final double sampleFraction;
+  private final double threshold;
+  private final int maxKeys;
+  private final int saltBuckets;
+
+  private SkewedJoinSettings(boolean enabled, double sampleFraction, double threshold, int maxKeys,
+                             int saltBuckets) {
+    this.enabled = enabled;
+    this.sampleFraction = sampleFraction;
+    this.threshold = threshold;
+    this.maxKeys = maxKeys;
+    this.saltBuckets = saltBuckets;
+  }
+
+  /**
+   * Create settings from the given spark conf. Skew handling is disabled unless
+   * {@link Constants#SPARK_PIPELINE_JOIN_SKEW_ENABLE_FLAG} is set to true, usually as an engine property.
+   */
+  public static SkewedJoinSettings fromConf(SparkConf sparkConf) {
+    boolean enabled = sparkConf.getBoolean(Constants.SPARK_PIPELINE_JOIN_SKEW_ENABLE_FLAG, false);
+    double sampleFraction = sparkConf.getDouble(Constants.SPARK_PIPELINE_JOIN_SKEW_SAMPLE_FRACTION,
+                                                DEFAULT_SAMPLE_FRACTION);
+    double threshold = sparkConf.getDouble(Constants.SPARK_PIPELINE_JOIN_SKEW_THRESHOLD, DEFAULT_THRESHOLD);
+    int maxKeys = sparkConf.getInt(Constants.SPARK_PIPELINE_JOIN_SKEW_MAX_KEYS, DEFAULT_MAX_KEYS);
+    int saltBuckets = sparkConf.getInt(Constants.SPARK_PIPELINE_JOIN_SKEW_SALT_BUCKETS, DEFAULT_SALT_BUCKETS);
+
+    if (sampleFraction <= 0 || sampleFraction > 1) {
+      throw new IllegalArgumentException(
+        String.format("Invalid value '%s' for '%s'. It must be greater than 0 and at most 1.",
+                      sampleFraction, Constants.SPARK_PIPELINE_JOIN_SKEW_SAMPLE_FRACTION));
+    }
+    if (threshold <= 0 || threshold > 1) {
+      throw new IllegalArgumentException(
+        String.format("Invalid value '%s' for '%s'. It must be greater than 0 and at most 1.",
+                      threshold, Constants.SPARK_PIPELINE_JOIN_SKEW_THRESHOLD));
+    }
+    if (maxKeys < 1) {
+      throw new IllegalArgumentException(
+        String.format("Invalid value '%d' for '%s'. It must be at least 1.",
+                      maxKeys, Constants.SPARK_PIPELINE_JOIN_SKEW_MAX_KEYS));
+    }
+    if (saltBuckets < 2) {
+      throw new IllegalArgumentException(
+        String.format("Invalid value '%d' for '%s'. It must be at least 2.",
+                      saltBuckets, Constants.SPARK_PIPELINE_JOIN_SKEW_SALT_BUCKETS));
+    }
+    return new SkewedJoinSettings(enabled, sampleFraction, threshold, maxKeys, saltBuckets);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return fraction of the left side that is sampled to compute key frequencies
+   */
+  public double getSampleFraction() {
+    return sampleFraction;
+  }
+
+  /**
+   * @return minimum fraction of the sampled rows a key must have for it to be considered skewed
+   */
+  public double getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * @return maximum number of skewed keys to handle for a single join
+   */
+  public int getMaxKeys() {
+    return maxKeys;
+  }
+
+  /**
+   * @return number of buckets rows with a skewed key are spread across
+   */
+  public int getSaltBuckets() {
+    return saltBuckets;
+  }
+}
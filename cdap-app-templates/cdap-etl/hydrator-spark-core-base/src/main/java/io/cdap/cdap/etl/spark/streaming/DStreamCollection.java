@@ -25,12 +25,12 @@ import io.cdap.cdap.etl.api.batch.SparkCompute;
 import io.cdap.cdap.etl.api.batch.SparkExecutionPluginContext;
 import io.cdap.cdap.etl.api.batch.SparkSink;
 import io.cdap.cdap.etl.api.streaming.Windower;
-import io.cdap.cdap.etl.common.Constants;
 import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
 import io.cdap.cdap.etl.common.PipelineRuntime;
 import io.cdap.cdap.etl.common.RecordInfo;
 import io.cdap.cdap.etl.common.StageStatisticsCollector;
 import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.CachePlan;
 import io.cdap.cdap.etl.spark.Compat;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.SparkPairCollection;
@@ -46,7 +46,6 @@ import io.cdap.cdap.etl.spark.streaming.function.DynamicTransform;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingAlertPublishFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingBatchSinkFunction;
 import io.cdap.cdap.etl.spark.streaming.function.StreamingSparkSinkFunction;
-import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
@@ -79,16 +78,14 @@ public class DStreamCollection<T> implements SparkCollection<T> {
   }
 
   @Override
-  public SparkCollection<T> cache() {
-    SparkConf sparkConf = stream.context().sparkContext().getConf();
-    if (sparkConf.getBoolean(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, true)) {
-      String cacheStorageLevelString = sparkConf.get(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL, 
-                                                     Constants.DEFAULT_CACHING_STORAGE_LEVEL);
-      StorageLevel cacheStorageLevel = StorageLevel.fromString(cacheStorageLevelString);
-      return wrap(stream.persist(cacheStorageLevel));
-    } else {
-      return wrap(stream);
-    }
+  public SparkCollection<T> cache(StorageLevel storageLevel) {
+    return wrap(stream.persist(storageLevel));
+  }
+
+  @Override
+  public void unpersist() {
+    // no-op. Persisting a DStream persists the RDD of each batch, which spark streaming
+    // already releases once the batch is no longer needed.
   }
 
   @SuppressWarnings("unchecked")
@@ -139,7 +136,8 @@ public class DStreamCollection<T> implements SparkCollection<T> {
 
 
   @Override
-  public <U> SparkCollection<U> compute(final StageSpec stageSpec, SparkCompute<T, U> compute) throws Exception {
+  public <U> SparkCollection<U> compute(final StageSpec stageSpec, SparkCompute<T, U> compute,
+                                        CachePlan cachePlan) throws Exception {
     final SparkCompute<T, U> wrappedCompute =
       new DynamicSparkCompute<>(new DynamicDriverContext(stageSpec, sec, new NoopStageStatisticsCollector()), compute);
     Transactionals.execute(sec, new TxRunnable() {
@@ -186,10 +184,13 @@ public class DStreamCollection<T> implements SparkCollection<T> {
   @Override
   public SparkCollection<T> window(StageSpec stageSpec, Windower windower) {
     String stageName = stageSpec.getName();
-    return wrap(stream.transform(new CountingTransformFunction<T>(stageName, sec.getMetrics(), "records.in", null))
-                  .window(Durations.seconds(windower.getWidth()), Durations.seconds(windower.getSlideInterval()))
-                  .transform(new CountingTransformFunction<T>(stageName, sec.getMetrics(), "records.out",
-                                                             sec.getDataTracer(stageName))));
+    JavaDStream<T> counted =
+      stream.transform(new CountingTransformFunction<T>(stageName, sec.getMetrics(), "records.in", null));
+    JavaDStream<T> windowed =
+      counted.window(Durations.seconds(windower.getWidth()), Durations.seconds(windower.getSlideInterval()))
+        .transform(new CountingTransformFunction<T>(stageName, sec.getMetrics(), "records.out",
+                                                   sec.getDataTracer(stageName)));
+    return new WindowedDStreamCollection<>(sec, windowed, counted, windower.getWidth(), windower.getSlideInterval());
   }
 
   @Override
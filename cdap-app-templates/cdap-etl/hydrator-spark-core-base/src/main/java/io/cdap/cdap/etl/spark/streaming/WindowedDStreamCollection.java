@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming;
+
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.common.StageStatisticsCollector;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.SparkCollection;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorMergeWindow;
+import io.cdap.cdap.etl.spark.streaming.function.DynamicAggregatorPartialAggregate;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.streaming.Durations;
+import org.apache.spark.streaming.api.java.JavaDStream;
+import org.apache.spark.streaming.api.java.JavaPairDStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * The output of a Windower. Behaves like any other {@link DStreamCollection} of the windowed stream, but keeps
+ * track of the stream before it was windowed so that a reducible aggregate over the window can be computed
+ * incrementally.
+ *
+ * Without incremental aggregation, every record in the window is grouped again each time the window slides,
+ * so the cost of each batch grows with the window width. With it, each batch is reduced to one partial aggregate
+ * per group key as it arrives, and only those partials are windowed and merged. Batches that fall out of the
+ * window take their partials with them, so nothing needs to be retracted.
+ *
+ * @param <T> type of objects in the collection
+ */
+public class WindowedDStreamCollection<T> extends DStreamCollection<T> {
+  private final JavaSparkExecutionContext sec;
+  private final JavaDStream<T> unwindowed;
+  private final long width;
+  private final long slideInterval;
+
+  public WindowedDStreamCollection(JavaSparkExecutionContext sec, JavaDStream<T> windowed,
+                                   JavaDStream<T> unwindowed, long width, long slideInterval) {
+    super(sec, windowed);
+    this.sec = sec;
+    this.unwindowed = unwindowed;
+    this.width = width;
+    this.slideInterval = slideInterval;
+  }
+
+  @Override
+  public SparkCollection<T> cache(StorageLevel storageLevel) {
+    return keepUnwindowed(super.cache(storageLevel));
+  }
+
+  @Override
+  public SparkCollection<RecordInfo<Object>> reduceAggregate(StageSpec stageSpec, @Nullable Integer partitions,
+                                                             StageStatisticsCollector collector) {
+    boolean incremental = unwindowed.context().sparkContext().getConf()
+      .getBoolean(Constants.SPARK_PIPELINE_INCREMENTAL_WINDOW_AGGREGATION_ENABLE_FLAG, false);
+    if (!incremental) {
+      return super.reduceAggregate(stageSpec, partitions, collector);
+    }
+
+    DynamicDriverContext dynamicDriverContext = new DynamicDriverContext(stageSpec, sec, collector);
+    JavaPairDStream<Object, Object> partials =
+      unwindowed.transformToPair(new DynamicAggregatorPartialAggregate<Object, T, Object>(dynamicDriverContext,
+                                                                                          partitions));
+    JavaPairDStream<Object, Object> windowedPartials =
+      partials.window(Durations.seconds(width), Durations.seconds(slideInterval));
+    return new DStreamCollection<>(
+      sec, windowedPartials.transform(new DynamicAggregatorMergeWindow<Object, T, Object, Object>(dynamicDriverContext,
+                                                                                                 partitions)));
+  }
+
+  // a windower with more than one output is cached, which must not lose the stream needed for incremental aggregation
+  private SparkCollection<T> keepUnwindowed(SparkCollection<T> cached) {
+    JavaDStream<T> windowed = cached.getUnderlying();
+    return new WindowedDStreamCollection<>(sec, windowed, unwindowed, width, slideInterval);
+  }
+}
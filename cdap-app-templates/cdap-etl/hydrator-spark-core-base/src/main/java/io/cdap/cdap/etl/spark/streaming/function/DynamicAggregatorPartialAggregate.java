@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.spark.Compat;
+import io.cdap.cdap.etl.spark.function.AggregatorInitializeFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergePartitionFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorMergeValueFunction;
+import io.cdap.cdap.etl.spark.function.AggregatorReduceGroupByFunction;
+import io.cdap.cdap.etl.spark.function.CountingFunction;
+import io.cdap.cdap.etl.spark.function.PluginFunctionContext;
+import io.cdap.cdap.etl.spark.streaming.DynamicDriverContext;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.streaming.Time;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serializable function that reduces a single batch of input to one partial aggregate per group key, using a
+ * BatchReducibleAggregator. Dynamically instantiates the Aggregator plugin used to ensure that code changes are
+ * picked up and to ensure that macro substitution occurs. The partial aggregates are counted as they are produced,
+ * which shows how much state the window keeps per batch.
+ *
+ * @param <GROUP_KEY> type of group key
+ * @param <GROUP_VAL> type of group val
+ * @param <AGG_VAL> type of partial aggregate
+ */
+public class DynamicAggregatorPartialAggregate<GROUP_KEY, GROUP_VAL, AGG_VAL>
+  implements Function2<JavaRDD<GROUP_VAL>, Time, JavaPairRDD<GROUP_KEY, AGG_VAL>> {
+  private final DynamicDriverContext dynamicDriverContext;
+  private final Integer partitions;
+  private transient PairFlatMapFunction<GROUP_VAL, GROUP_KEY, GROUP_VAL> groupByFunction;
+  private transient Function<GROUP_VAL, AGG_VAL> initializeFunction;
+  private transient Function2<AGG_VAL, GROUP_VAL, AGG_VAL> mergeValueFunction;
+  private transient Function2<AGG_VAL, AGG_VAL, AGG_VAL> mergePartitionFunction;
+  private transient Function<AGG_VAL, AGG_VAL> countingFunction;
+
+  public DynamicAggregatorPartialAggregate(DynamicDriverContext dynamicDriverContext, @Nullable Integer partitions) {
+    this.dynamicDriverContext = dynamicDriverContext;
+    this.partitions = partitions;
+  }
+
+  @Override
+  public JavaPairRDD<GROUP_KEY, AGG_VAL> call(JavaRDD<GROUP_VAL> input, Time batchTime) throws Exception {
+    if (groupByFunction == null) {
+      PluginFunctionContext pluginFunctionContext = dynamicDriverContext.getPluginFunctionContext();
+      groupByFunction = Compat.convert(
+        new AggregatorReduceGroupByFunction<GROUP_KEY, GROUP_VAL>(pluginFunctionContext));
+      initializeFunction = new AggregatorInitializeFunction<>(pluginFunctionContext);
+      mergeValueFunction = new AggregatorMergeValueFunction<>(pluginFunctionContext);
+      mergePartitionFunction = new AggregatorMergePartitionFunction<>(pluginFunctionContext);
+      JavaSparkExecutionContext sec = dynamicDriverContext.getSparkExecutionContext();
+      countingFunction = new CountingFunction<>(pluginFunctionContext.getStageName(), sec.getMetrics(),
+                                                Constants.Metrics.AGG_WINDOW_PARTIALS, null);
+    }
+    JavaPairRDD<GROUP_KEY, GROUP_VAL> keyed = input.flatMapToPair(groupByFunction);
+    JavaPairRDD<GROUP_KEY, AGG_VAL> partials = partitions == null ?
+      keyed.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction) :
+      keyed.combineByKey(initializeFunction, mergeValueFunction, mergePartitionFunction, partitions);
+    return partials.mapValues(countingFunction);
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.artifact.ArtifactId;
+import io.cdap.cdap.api.artifact.ArtifactScope;
+import io.cdap.cdap.api.artifact.ArtifactVersion;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.etl.api.ErrorTransform;
+import io.cdap.cdap.etl.api.SplitterTransform;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.batch.BatchJoiner;
+import io.cdap.cdap.etl.api.batch.BatchSink;
+import io.cdap.cdap.etl.api.batch.BatchSource;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.PipelinePhase;
+import io.cdap.cdap.etl.proto.v2.spec.PluginSpec;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import org.apache.spark.SparkConf;
+import org.apache.spark.storage.StorageLevel;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+
+/**
+ * Tests for {@link CachePlan}.
+ */
+public class CachePlanTest {
+  private static final ArtifactId ARTIFACT = new ArtifactId("dummy", new ArtifactVersion("1.0.0"), ArtifactScope.USER);
+  private static final Schema SCHEMA = Schema.recordOf("x", Schema.Field.of("x", Schema.of(Schema.Type.INT)));
+
+  @Test
+  public void testPlan() {
+    /*
+             |--> t1 --> sink1
+        src -|       |-> sink2
+             |--> split --(a)--> sink3
+             |          |-(a)--> sink4
+             |          |-(b)--> sink5
+             |--> errors --> sink6 (error transform on src)
+     */
+    PipelinePhase phase = PipelinePhase.builder(ImmutableSet.of(BatchSource.PLUGIN_TYPE, Transform.PLUGIN_TYPE,
+                                                                SplitterTransform.PLUGIN_TYPE,
+                                                                ErrorTransform.PLUGIN_TYPE, BatchSink.PLUGIN_TYPE))
+      .addStage(StageSpec.builder("src", plugin(BatchSource.PLUGIN_TYPE))
+                  .addOutput(SCHEMA, "t1", "split", "errors").build())
+      .addStage(StageSpec.builder("t1", plugin(Transform.PLUGIN_TYPE)).addOutput(SCHEMA, "sink1", "sink2").build())
+      .addStage(StageSpec.builder("split", plugin(SplitterTransform.PLUGIN_TYPE))
+                  .addOutput("sink3", "a", SCHEMA)
+                  .addOutput("sink4", "a", SCHEMA)
+                  .addOutput("sink5", "b", SCHEMA)
+                  .build())
+      .addStage(StageSpec.builder("errors", plugin(ErrorTransform.PLUGIN_TYPE)).addOutput(SCHEMA, "sink6").build())
+      .addStage(StageSpec.builder("sink1", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addStage(StageSpec.builder("sink2", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addStage(StageSpec.builder("sink3", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addStage(StageSpec.builder("sink4", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addStage(StageSpec.builder("sink5", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addStage(StageSpec.builder("sink6", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addConnections("src", ImmutableSet.of("t1", "split", "errors"))
+      .addConnections("t1", ImmutableSet.of("sink1", "sink2"))
+      .addConnections("split", ImmutableSet.of("sink3", "sink4", "sink5"))
+      .addConnection("errors", "sink6")
+      .build();
+
+    CachePlan plan = CachePlan.create(phase, ImmutableMap.of(CachePlan.STORAGE_LEVEL_PREFIX + "t1", "OFF_HEAP"),
+                                      new SparkConf(false));
+
+    // src output is read by t1 and split, the error transform only reads its errors
+    Assert.assertTrue(plan.shouldCacheOutput("src"));
+    Assert.assertFalse(plan.shouldCacheErrors("src"));
+    Assert.assertTrue(plan.shouldCacheOutput("t1"));
+    Assert.assertFalse(plan.shouldCacheOutput("errors"));
+    Assert.assertTrue(plan.shouldCachePort("split", "a"));
+    Assert.assertFalse(plan.shouldCachePort("split", "b"));
+
+    Assert.assertEquals(StorageLevel.OFF_HEAP(), plan.getStorageLevel("t1"));
+    Assert.assertEquals(StorageLevel.MEMORY_AND_DISK(), plan.getStorageLevel("src"));
+
+    Assert.assertEquals(ImmutableSet.of("sink1", "sink2", "sink3", "sink4", "sink5", "sink6"),
+                        plan.getDownstreamJobs("src"));
+    Assert.assertEquals(ImmutableSet.of("sink1", "sink2"), plan.getDownstreamJobs("t1"));
+    Assert.assertEquals(ImmutableSet.of("sink3", "sink4", "sink5"), plan.getDownstreamJobs("split"));
+  }
+
+  @Test
+  public void testMultipleInputs() {
+    /*
+        src1 --> t1 --|
+                      |--> joiner --> sink
+        src2 ---------|
+     */
+    PipelinePhase phase = PipelinePhase.builder(ImmutableSet.of(BatchSource.PLUGIN_TYPE, Transform.PLUGIN_TYPE,
+                                                                BatchJoiner.PLUGIN_TYPE, BatchSink.PLUGIN_TYPE))
+      .addStage(StageSpec.builder("src1", plugin(BatchSource.PLUGIN_TYPE)).addOutput(SCHEMA, "t1").build())
+      .addStage(StageSpec.builder("src2", plugin(BatchSource.PLUGIN_TYPE)).addOutput(SCHEMA, "joiner").build())
+      .addStage(StageSpec.builder("t1", plugin(Transform.PLUGIN_TYPE)).addOutput(SCHEMA, "joiner").build())
+      .addStage(StageSpec.builder("joiner", plugin(BatchJoiner.PLUGIN_TYPE)).addOutput(SCHEMA, "sink").build())
+      .addStage(StageSpec.builder("sink", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addConnection("src1", "t1")
+      .addConnection("src2", "joiner")
+      .addConnection("t1", "joiner")
+      .addConnection("joiner", "sink")
+      .build();
+
+    SparkConf sparkConf = new SparkConf(false)
+      .set(Constants.SPARK_PIPELINE_CACHING_STORAGE_LEVEL, "MEMORY_ONLY_SER");
+    CachePlan plan = CachePlan.create(phase, Collections.emptyMap(), sparkConf);
+
+    // the inputs of a stage with several inputs are cached, even though they are only read once
+    Assert.assertFalse(plan.shouldCacheOutput("src1"));
+    Assert.assertTrue(plan.shouldCacheOutput("t1"));
+    Assert.assertTrue(plan.shouldCacheOutput("src2"));
+    Assert.assertFalse(plan.shouldCacheOutput("joiner"));
+    Assert.assertEquals(StorageLevel.MEMORY_ONLY_SER(), plan.getStorageLevel("t1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testSkewedJoinInput() {
+    /*
+        src1 --|
+               |--> joiner --> sink
+        src2 --|
+     */
+    PipelinePhase phase = PipelinePhase.builder(ImmutableSet.of(BatchSource.PLUGIN_TYPE, BatchJoiner.PLUGIN_TYPE,
+                                                                BatchSink.PLUGIN_TYPE))
+      .addStage(StageSpec.builder("src1", plugin(BatchSource.PLUGIN_TYPE)).addOutput(SCHEMA, "joiner").build())
+      .addStage(StageSpec.builder("src2", plugin(BatchSource.PLUGIN_TYPE)).addOutput(SCHEMA, "joiner").build())
+      .addStage(StageSpec.builder("joiner", plugin(BatchJoiner.PLUGIN_TYPE)).addOutput(SCHEMA, "sink").build())
+      .addStage(StageSpec.builder("sink", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addConnection("src1", "joiner")
+      .addConnection("src2", "joiner")
+      .addConnection("joiner", "sink")
+      .build();
+
+    // the input of a skewed join is persisted even if auto caching is disabled, and released after the join
+    SparkConf sparkConf = new SparkConf(false).set(Constants.SPARK_PIPELINE_AUTOCACHE_ENABLE_FLAG, "false");
+    CachePlan plan = CachePlan.create(phase, Collections.emptyMap(), sparkConf);
+    SparkCollection<Object> input = Mockito.mock(SparkCollection.class);
+    SparkCollection<Object> persisted = Mockito.mock(SparkCollection.class);
+    Mockito.when(input.cache(StorageLevel.MEMORY_AND_DISK())).thenReturn(persisted);
+    Assert.assertSame(input, plan.cache("src1", input));
+    Assert.assertSame(persisted, plan.cacheSkewedJoinInput("joiner", input));
+    plan.stageCompleted("sink");
+    Mockito.verify(persisted).unpersist();
+
+    // an input that is already persisted for its own stage is not persisted again
+    plan = CachePlan.create(phase, Collections.emptyMap(), new SparkConf(false));
+    input = Mockito.mock(SparkCollection.class);
+    Mockito.when(input.cache(StorageLevel.MEMORY_AND_DISK())).thenReturn(persisted);
+    SparkCollection<Object> cached = plan.cache("src1", input);
+    Assert.assertSame(cached, plan.cacheSkewedJoinInput("joiner", cached));
+    Mockito.verify(persisted, Mockito.never()).cache(Mockito.any(StorageLevel.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidStorageLevel() {
+    PipelinePhase phase = PipelinePhase.builder(ImmutableSet.of(BatchSource.PLUGIN_TYPE, BatchSink.PLUGIN_TYPE))
+      .addStage(StageSpec.builder("src", plugin(BatchSource.PLUGIN_TYPE)).addOutput(SCHEMA, "sink").build())
+      .addStage(StageSpec.builder("sink", plugin(BatchSink.PLUGIN_TYPE)).build())
+      .addConnection("src", "sink")
+      .build();
+    CachePlan.create(phase, ImmutableMap.of(CachePlan.STORAGE_LEVEL_PREFIX + "src", "IN_THE_CLOUD"),
+                     new SparkConf(false));
+  }
+
+  private static PluginSpec plugin(String type) {
+    return new PluginSpec(type, "mock", Collections.emptyMap(), ARTIFACT);
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.api.join.JoinField;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.spark.join.JoinCollection;
+import io.cdap.cdap.etl.spark.join.JoinRequest;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.SQLContext;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests that salting skewed keys in an auto join does not change the join output.
+ */
+public class SkewedJoinTest {
+  private static final String STAGE = "join";
+  private static final Map<String, Long> GAUGES = new ConcurrentHashMap<>();
+  private static final Schema PURCHASE_SCHEMA =
+    Schema.recordOf("purchase",
+                    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                    Schema.Field.of("item", Schema.of(Schema.Type.STRING)));
+  private static final Schema USER_SCHEMA =
+    Schema.recordOf("user",
+                    Schema.Field.of("id", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+  private static final Schema OUTPUT_SCHEMA =
+    Schema.recordOf("joined",
+                    Schema.Field.of("user", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                    Schema.Field.of("item", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                    Schema.Field.of("id", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+                    Schema.Field.of("name", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+  private static JavaSparkContext jsc;
+  private static JavaSparkContext skewJsc;
+  private static SQLContext sqlContext;
+  private static JavaSparkExecutionContext sec;
+
+  @BeforeClass
+  public static void setupClass() {
+    jsc = new JavaSparkContext(new SparkConf().setMaster("local[2]").setAppName("join")
+                                 .set("spark.ui.enabled", "false").set("spark.sql.shuffle.partitions", "4"));
+    // same spark context, but with skew handling enabled and sampling everything so that the skewed keys are known
+    SparkConf skewConf = jsc.getConf()
+      .set(Constants.SPARK_PIPELINE_JOIN_SKEW_ENABLE_FLAG, "true")
+      .set(Constants.SPARK_PIPELINE_JOIN_SKEW_SAMPLE_FRACTION, "1.0")
+      .set(Constants.SPARK_PIPELINE_JOIN_SKEW_THRESHOLD, "0.5")
+      .set(Constants.SPARK_PIPELINE_JOIN_SKEW_SALT_BUCKETS, "4");
+    skewJsc = new JavaSparkContext(jsc.sc()) {
+      @Override
+      public SparkConf getConf() {
+        return skewConf.clone();
+      }
+    };
+    sqlContext = new SQLContext(jsc);
+
+    sec = Mockito.mock(JavaSparkExecutionContext.class);
+    Mockito.when(sec.getMetrics()).thenReturn(new GaugeMetrics());
+    Mockito.when(sec.getDataTracer(STAGE)).thenReturn(new DisabledDataTracer());
+  }
+
+  @AfterClass
+  public static void teardownClass() {
+    if (jsc != null) {
+      jsc.stop();
+    }
+  }
+
+  @Test
+  public void testInnerJoin() {
+    testJoin(true, true, 32);
+  }
+
+  @Test
+  public void testLeftOuterJoin() {
+    testJoin(true, false, 34);
+  }
+
+  @Test
+  public void testRightOuterJoin() {
+    testJoin(false, true, 34);
+  }
+
+  @Test
+  public void testOuterJoin() {
+    testJoin(false, false, 36);
+  }
+
+  private void testJoin(boolean purchasesRequired, boolean usersRequired, int expectedSize) {
+    GAUGES.clear();
+    List<String> unsalted = join(jsc, purchasesRequired, usersRequired);
+    Assert.assertNull(GAUGES.get(STAGE + "." + Constants.Metrics.JOIN_SKEWED_KEYS));
+
+    List<String> salted = join(skewJsc, purchasesRequired, usersRequired);
+    // 'alice' makes up most of the purchases
+    Assert.assertEquals(1L, GAUGES.get(STAGE + "." + Constants.Metrics.JOIN_SKEWED_KEYS).longValue());
+
+    Assert.assertEquals(expectedSize, unsalted.size());
+    Assert.assertEquals(unsalted, salted);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> join(JavaSparkContext context, boolean purchasesRequired, boolean usersRequired) {
+    List<StructuredRecord> purchases = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      purchases.add(purchase("alice", "item" + i));
+    }
+    purchases.add(purchase("bob", "item0"));
+    purchases.add(purchase("bob", "item1"));
+    purchases.add(purchase("carl", "item0"));
+    purchases.add(purchase(null, "item0"));
+    List<StructuredRecord> users = Arrays.asList(user("alice", "Alice"), user("bob", "Bob"),
+                                                 user("dave", "Dave"), user(null, "Nobody"));
+
+    RDDCollection<StructuredRecord> purchaseCollection =
+      new RDDCollection<>(sec, context, sqlContext, null, null, jsc.parallelize(purchases, 3));
+    RDDCollection<StructuredRecord> userCollection =
+      new RDDCollection<>(sec, context, sqlContext, null, null, jsc.parallelize(users, 2));
+
+    List<JoinField> fields = Arrays.asList(new JoinField("purchases", "user"), new JoinField("purchases", "item"),
+                                           new JoinField("users", "id"), new JoinField("users", "name"));
+    JoinCollection toJoin = new JoinCollection("users", userCollection, USER_SCHEMA,
+                                               Collections.singletonList("id"), usersRequired, false);
+    JoinRequest joinRequest = new JoinRequest(STAGE, "purchases", Collections.singletonList("user"),
+                                              PURCHASE_SCHEMA, purchasesRequired, false, fields, OUTPUT_SCHEMA,
+                                              Collections.singletonList(toJoin), 4);
+    RDDCollection<StructuredRecord> joined =
+      (RDDCollection<StructuredRecord>) purchaseCollection.join(joinRequest);
+
+    List<String> output = new ArrayList<>();
+    for (StructuredRecord record : joined.rdd.collect()) {
+      output.add(record.get("user") + "," + record.get("item") + "," + record.get("id") + "," + record.get("name"));
+    }
+    Collections.sort(output);
+    return output;
+  }
+
+  private static StructuredRecord purchase(String user, String item) {
+    return StructuredRecord.builder(PURCHASE_SCHEMA).set("user", user).set("item", item).build();
+  }
+
+  private static StructuredRecord user(String id, String name) {
+    return StructuredRecord.builder(USER_SCHEMA).set("id", id).set("name", name).build();
+  }
+
+  /**
+   * Metrics that keep the last value of each gauge.
+   */
+  private static class GaugeMetrics implements Metrics, Serializable {
+
+    @Override
+    public void count(String metricName, int delta) {
+      // no-op
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      GAUGES.put(metricName, value);
+    }
+  }
+
+  /**
+   * A data tracer that never traces. It is serialized into Spark closures.
+   */
+  private static class DisabledDataTracer implements DataTracer, Serializable {
+
+    @Override
+    public void info(String propertyName, Object propertyValue) {
+      // no-op
+    }
+
+    @Override
+    public String getName() {
+      return STAGE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.streaming.function;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.app.ApplicationSpecification;
+import io.cdap.cdap.api.macro.MacroEvaluator;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.plugin.PluginContext;
+import io.cdap.cdap.api.plugin.PluginProperties;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.api.batch.BatchReducibleAggregator;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.proto.v2.spec.PluginSpec;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.streaming.DynamicDriverContext;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.streaming.Time;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests for incremental window aggregation with {@link DynamicAggregatorPartialAggregate} and
+ * {@link DynamicAggregatorMergeWindow}.
+ */
+public class DynamicAggregatorMergeWindowTest {
+  private static final String STAGE = "agg";
+  private static final String PARTIALS_METRIC = STAGE + "." + Constants.Metrics.AGG_WINDOW_PARTIALS;
+  private static final Map<String, Long> COUNTS = new ConcurrentHashMap<>();
+  private static final List<List<String>> BATCHES = Arrays.asList(
+    Arrays.asList("a", "b", "a", "c"),
+    Arrays.asList("b", "b", "d"),
+    Collections.<String>emptyList(),
+    Arrays.asList("a", "d", "e", "e", "e"));
+  private static JavaSparkContext jsc;
+  private static DynamicDriverContext driverContext;
+
+  @BeforeClass
+  public static void setupClass() {
+    jsc = new JavaSparkContext(new SparkConf().setMaster("local[2]").setAppName("window")
+                                                  .set("spark.ui.enabled", "false"));
+
+    ApplicationSpecification appSpec = Mockito.mock(ApplicationSpecification.class);
+    Mockito.when(appSpec.getName()).thenReturn("pipeline");
+    JavaSparkExecutionContext sec = Mockito.mock(JavaSparkExecutionContext.class);
+    Mockito.when(sec.getNamespace()).thenReturn("default");
+    Mockito.when(sec.getApplicationSpecification()).thenReturn(appSpec);
+    Mockito.when(sec.getPluginContext()).thenReturn(new CountPluginContext());
+    Mockito.when(sec.getMetrics()).thenReturn(new CountMetrics());
+    Mockito.when(sec.getDataTracer(STAGE)).thenReturn(new DisabledDataTracer());
+
+    // the stage spec reaches the Spark program as json, which is also what makes it serializable
+    Gson gson = new Gson();
+    StageSpec stageSpec = StageSpec.builder(STAGE, new PluginSpec(BatchAggregator.PLUGIN_TYPE, "count",
+                                                                  Collections.<String, String>emptyMap(), null))
+      .build();
+    stageSpec = gson.fromJson(gson.toJson(stageSpec), StageSpec.class);
+    driverContext = new DynamicDriverContext(stageSpec, sec, new NoopStageStatisticsCollector());
+  }
+
+  @AfterClass
+  public static void teardownClass() {
+    if (jsc != null) {
+      jsc.stop();
+    }
+  }
+
+  @Test
+  public void testPartialAggregate() throws Exception {
+    DynamicAggregatorPartialAggregate<String, String, Long> partialAggregate =
+      new DynamicAggregatorPartialAggregate<>(driverContext, null);
+    for (int i = 0; i < BATCHES.size(); i++) {
+      List<String> batch = BATCHES.get(i);
+      COUNTS.clear();
+      Map<String, Long> partials = partialAggregate.call(jsc.parallelize(batch, 2), new Time(i)).collectAsMap();
+      Assert.assertEquals(count(batch), partials);
+      // partials are counted as they are produced
+      Assert.assertEquals(partials.size(), COUNTS.getOrDefault(PARTIALS_METRIC, 0L).longValue());
+    }
+  }
+
+  @Test
+  public void testMergeWindow() throws Exception {
+    testMergeWindow(null);
+    testMergeWindow(3);
+  }
+
+  private void testMergeWindow(Integer partitions) throws Exception {
+    DynamicAggregatorPartialAggregate<String, String, Long> partialAggregate =
+      new DynamicAggregatorPartialAggregate<>(driverContext, partitions);
+    DynamicAggregatorMergeWindow<String, String, Long, String> mergeWindow =
+      new DynamicAggregatorMergeWindow<>(driverContext, partitions);
+    DynamicAggregatorGroupBy<String, String> groupBy = new DynamicAggregatorGroupBy<>(driverContext);
+    DynamicAggregatorAggregate<String, String, String> aggregate = new DynamicAggregatorAggregate<>(driverContext);
+
+    // slide a window of two batches over the input, the same way a windowed stream unions the RDDs of its batches
+    for (int i = 1; i < BATCHES.size(); i++) {
+      Time time = new Time(i);
+      JavaRDD<String> first = jsc.parallelize(BATCHES.get(i - 1), 2);
+      JavaRDD<String> second = jsc.parallelize(BATCHES.get(i), 2);
+
+      JavaPairRDD<String, Long> windowedPartials =
+        partialAggregate.call(first, time).union(partialAggregate.call(second, time));
+      COUNTS.clear();
+      Map<String, Long> incremental = toCounts(mergeWindow.call(windowedPartials, time));
+      // merging the window produces the partials of both batches without running another job to count them
+      long numPartials = count(BATCHES.get(i - 1)).size() + count(BATCHES.get(i)).size();
+      Assert.assertEquals(numPartials, COUNTS.getOrDefault(PARTIALS_METRIC, 0L).longValue());
+
+      JavaRDD<String> windowed = first.union(second);
+      Map<String, Long> full = toCounts(aggregate.call(groupBy.call(windowed, time).groupByKey(), time));
+
+      List<String> expected = new ArrayList<>(BATCHES.get(i - 1));
+      expected.addAll(BATCHES.get(i));
+      Assert.assertEquals(count(expected), incremental);
+      Assert.assertEquals(full, incremental);
+    }
+  }
+
+  private static Map<String, Long> count(List<String> values) {
+    Map<String, Long> counts = new HashMap<>();
+    for (String value : values) {
+      Long count = counts.get(value);
+      counts.put(value, count == null ? 1L : count + 1);
+    }
+    return counts;
+  }
+
+  private static Map<String, Long> toCounts(JavaRDD<RecordInfo<Object>> output) {
+    Map<String, Long> counts = new HashMap<>();
+    for (RecordInfo<Object> record : output.collect()) {
+      String[] keyCount = ((String) record.getValue()).split("=");
+      Assert.assertNull(counts.put(keyCount[0], Long.parseLong(keyCount[1])));
+    }
+    return counts;
+  }
+
+  /**
+   * Counts the occurrences of each value, emitting them as 'value=count'.
+   */
+  private static class CountAggregator extends BatchReducibleAggregator<String, String, Long, String> {
+
+    @Override
+    public void groupBy(String value, Emitter<String> emitter) {
+      emitter.emit(value);
+    }
+
+    @Override
+    public Long initializeAggregateValue(String value) {
+      return 1L;
+    }
+
+    @Override
+    public Long mergeValues(Long count, String value) {
+      return count + 1;
+    }
+
+    @Override
+    public Long mergePartitions(Long count1, Long count2) {
+      return count1 + count2;
+    }
+
+    @Override
+    public void finalize(String value, Long count, Emitter<String> emitter) {
+      emitter.emit(value + "=" + count);
+    }
+  }
+
+  /**
+   * Plugin context that always instantiates a {@link CountAggregator}. It is serialized into Spark closures.
+   */
+  private static class CountPluginContext implements PluginContext, Serializable {
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId) {
+      return PluginProperties.builder().build();
+    }
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId, MacroEvaluator evaluator) {
+      return getPluginProperties(pluginId);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Class<T> loadPluginClass(String pluginId) {
+      return (Class<T>) CountAggregator.class;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T newPluginInstance(String pluginId) {
+      return (T) new CountAggregator();
+    }
+
+    @Override
+    public <T> T newPluginInstance(String pluginId, MacroEvaluator evaluator) {
+      return newPluginInstance(pluginId);
+    }
+  }
+
+  /**
+   * Metrics that sum up the counts of each metric.
+   */
+  private static class CountMetrics implements Metrics, Serializable {
+
+    @Override
+    public void count(String metricName, int delta) {
+      COUNTS.merge(metricName, (long) delta, Long::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+
+  /**
+   * A data tracer that never traces. It is serialized into Spark closures.
+   */
+  private static class DisabledDataTracer implements DataTracer, Serializable {
+
+    @Override
+    public void info(String propertyName, Object propertyValue) {
+      // no-op
+    }
+
+    @Override
+    public String getName() {
+      return STAGE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+  }
+}
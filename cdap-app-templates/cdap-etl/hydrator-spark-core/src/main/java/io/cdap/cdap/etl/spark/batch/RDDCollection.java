@@ -23,10 +23,12 @@ import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
 import io.cdap.cdap.api.spark.sql.DataFrames;
 import io.cdap.cdap.etl.api.join.JoinField;
 import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.DefaultStageMetrics;
 import io.cdap.cdap.etl.spark.SparkCollection;
 import io.cdap.cdap.etl.spark.function.CountingFunction;
 import io.cdap.cdap.etl.spark.join.JoinCollection;
 import io.cdap.cdap.etl.spark.join.JoinRequest;
+import io.cdap.cdap.etl.spark.join.SkewedJoinSettings;
 import io.cdap.cdap.etl.spark.plugin.LiteralsBridge;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -38,15 +40,20 @@ import org.apache.spark.sql.SQLContext;
 import org.apache.spark.sql.functions;
 import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.StructType;
+import org.apache.spark.storage.StorageLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import scala.collection.JavaConversions;
 import scala.collection.Seq;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Spark1 RDD collection.
@@ -54,6 +61,10 @@ import java.util.stream.Collectors;
  * @param <T> type of object in the collection
  */
 public class RDDCollection<T> extends BaseRDDCollection<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(RDDCollection.class);
+  private static final String LEFT_SALT_PREFIX = "_cdap_left_salt_";
+  private static final String RIGHT_SALT_PREFIX = "_cdap_right_salt_";
+  private static final String SALT = "_cdap_salt";
 
   public RDDCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc, SQLContext sqlContext,
                        DatasetContext datasetContext, SparkBatchSinkFactory sinkFactory, JavaRDD<T> rdd) {
@@ -67,6 +78,10 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     String stageName = joinRequest.getStageName();
     Function<StructuredRecord, StructuredRecord> recordsInCounter =
       new CountingFunction<>(stageName, sec.getMetrics(), Constants.Metrics.RECORDS_IN, sec.getDataTracer(stageName));
+    if (jsc.getConf().getBoolean(Constants.SPARK_PIPELINE_DATAFRAME_ENABLE_FLAG, false)) {
+      LOG.warn("Ignoring {} for joiner stage '{}', since it is only supported with Spark 2.",
+               Constants.SPARK_PIPELINE_DATAFRAME_ENABLE_FLAG, stageName);
+    }
     StructType leftSparkSchema = DataFrames.toDataType(joinRequest.getLeftSchema());
     DataFrame left = toDataFrame(((JavaRDD<StructuredRecord>) rdd).map(recordsInCounter), leftSparkSchema);
     collections.put(joinRequest.getLeftStage(), left);
@@ -92,8 +107,27 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
         Join #3 is an inner join even though it contains 2 optional datasets, because 'B' is still required.
      */
     Integer joinPartitions = joinRequest.getNumPartitions();
+    SkewedJoinSettings skewSettings = SkewedJoinSettings.fromConf(jsc.getConf());
+    List<Row> skewedKeys = Collections.emptyList();
+    if (skewSettings.isEnabled()) {
+      // sample the uncounted input so that sampling does not affect the records.in metric
+      skewedKeys = findSkewedKeys(toDataFrame((JavaRDD<StructuredRecord>) rdd, leftSparkSchema),
+                                  joinRequest.getLeftKey(), skewSettings);
+      new DefaultStageMetrics(sec.getMetrics(), stageName).gauge(Constants.Metrics.JOIN_SKEWED_KEYS,
+                                                                 skewedKeys.size());
+      if (!skewedKeys.isEmpty()) {
+        LOG.info("Salting {} skewed keys in joiner stage '{}': {}", skewedKeys.size(), stageName, skewedKeys);
+      }
+    }
+    int joinNum = 0;
     boolean seenRequired = joinRequest.isLeftRequired();
     DataFrame joined = left;
+    Column saltColumn = null;
+    if (!skewedKeys.isEmpty()) {
+      // the left input was persisted before sampling, so its rows get the same salts if a partition is recomputed
+      joined = left.withColumn(SALT, randomSalt(skewSettings.getSaltBuckets()));
+      saltColumn = joined.col(SALT);
+    }
     for (JoinCollection toJoin : joinRequest.getToJoin()) {
       RDDCollection<StructuredRecord> data = (RDDCollection<StructuredRecord>) toJoin.getData();
       StructType sparkSchema = DataFrames.toDataType(toJoin.getSchema());
@@ -123,6 +157,30 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
       }
       seenRequired = seenRequired || toJoin.isRequired();
 
+      // only salt inner and left outer joins. Rows on the right side are replicated for skewed keys, so it is
+      // only safe to salt if right side rows that don't find a match are dropped.
+      boolean salt = !skewedKeys.isEmpty() && !toJoin.isBroadcast() &&
+        ("inner".equals(joinType) || "leftouter".equals(joinType));
+      if (salt) {
+        String leftSalt = LEFT_SALT_PREFIX + joinNum;
+        String rightSalt = RIGHT_SALT_PREFIX + joinNum;
+        joined = joined.withColumn(leftSalt, skewedSalt(isSkewedKey(leftJoinColumns, skewedKeys), saltColumn));
+        right = right.withColumn(rightSalt, replicatedSalt(isSkewedKey(rightJoinColumns, skewedKeys),
+                                                           skewSettings.getSaltBuckets()));
+        Column leftSaltColumn = joined.col(leftSalt);
+        Column rightSaltColumn = right.col(rightSalt);
+        joinOn = joinOn.and(leftSaltColumn.equalTo(rightSaltColumn));
+
+        // always repartition on the join key plus the salt. Otherwise, if an input is already partitioned on the
+        // join key, spark may decide it does not need to shuffle it again, leaving all skewed rows in one partition
+        List<Column> leftPartitionColumns = getPartitionColumns(joined, leftJoinColumns, joinRequest.isNullSafe());
+        leftPartitionColumns.add(leftSaltColumn);
+        List<Column> rightPartitionColumns = getPartitionColumns(right, rightJoinColumns, joinRequest.isNullSafe());
+        rightPartitionColumns.add(rightSaltColumn);
+        joined = repartition(joined, leftPartitionColumns, joinPartitions);
+        right = repartition(right, rightPartitionColumns, joinPartitions);
+      }
+
       if (toJoin.isBroadcast()) {
         right = functions.broadcast(right);
       }
@@ -130,16 +188,17 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
       // since they are partitioned on the same thing, spark will not repartition during the join,
       // which allows us to use a different number of partitions per joiner instead of using the global
       // spark.sql.shuffle.partitions setting in the spark conf
-      if (joinPartitions != null && !toJoin.isBroadcast()) {
+      if (joinPartitions != null && !toJoin.isBroadcast() && !salt) {
         right = partitionOnKey(right, toJoin.getKey(), joinRequest.isNullSafe(), sparkSchema, joinPartitions);
         // only need to repartition the left side if this is the first join,
         // as intermediate joins will already be partitioned on the key
-        if (joined == left) {
+        if (joinNum == 0) {
           joined = partitionOnKey(joined, joinRequest.getLeftKey(), joinRequest.isNullSafe(),
                                   leftSparkSchema, joinPartitions);
         }
       }
       joined = joined.join(right, joinOn, joinType);
+      joinNum++;
 
       /*
            Consider stages A, B, C:
@@ -217,4 +276,47 @@ public class RDDCollection<T> extends BaseRDDCollection<T> {
     }).collect(Collectors.toList());
   }
 
+  /**
+   * Samples the given data and returns the join keys that make up more than the configured fraction of the sample,
+   * most frequent first. Each returned row contains the key values in order, followed by the sampled count.
+   */
+  private List<Row> findSkewedKeys(DataFrame df, List<String> key, SkewedJoinSettings settings) {
+    Column[] keyColumns = key.stream().map(df::col).toArray(Column[]::new);
+    DataFrame keyCounts = df.select(keyColumns)
+      .sample(false, settings.getSampleFraction())
+      .groupBy(keyColumns)
+      .count()
+      .persist(StorageLevel.MEMORY_AND_DISK());
+    try {
+      Row total = keyCounts.agg(functions.sum("count")).first();
+      if (total.isNullAt(0)) {
+        return Collections.emptyList();
+      }
+      // a key that appears only once in the sample is never considered skewed
+      long minCount = Math.max(2L, (long) Math.ceil(total.getLong(0) * settings.getThreshold()));
+      Column count = keyCounts.col("count");
+      return keyCounts.filter(count.geq(minCount))
+        .orderBy(count.desc())
+        .limit(settings.getMaxKeys())
+        .collectAsList();
+    } finally {
+      keyCounts.unpersist();
+    }
+  }
+
+  private DataFrame repartition(DataFrame df, List<Column> columns, @Nullable Integer numPartitions) {
+    Seq<Column> columnSeq = JavaConversions.asScalaBuffer(columns).toSeq();
+    return numPartitions == null ? df.repartition(columnSeq) : df.repartition(numPartitions, columnSeq);
+  }
+
+  private List<Column> getPartitionColumns(DataFrame df, List<Column> columns, boolean isNullSafe) {
+    return columns.stream().map(column -> {
+      if (!isNullSafe) {
+        return column;
+      }
+      // same as partitioning on key names, partition on coalesce(col, [default val]) for null safe joins
+      DataType dataType = df.select(column).schema().fields()[0].dataType();
+      return functions.coalesce(column, new Column(LiteralsBridge.defaultLiteral(dataType)));
+    }).collect(Collectors.toList());
+  }
 }
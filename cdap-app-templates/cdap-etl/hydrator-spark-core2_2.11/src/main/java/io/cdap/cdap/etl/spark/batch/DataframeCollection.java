@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import io.cdap.cdap.api.data.DatasetContext;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import io.cdap.cdap.etl.spark.SparkCollection;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.storage.StorageLevel;
+
+/**
+ * Spark2 collection of StructuredRecords that is backed by a Dataset of Rows.
+ *
+ * Operations that are implemented by Spark SQL, like joins, use the Dataset directly, so data passed between them
+ * stays in Spark's binary row format and benefits from whole stage code generation. Operations that pass records
+ * to a plugin use the RDD of StructuredRecords that is derived from the Dataset, so records are only converted
+ * when a plugin needs them.
+ *
+ * Only auto joins produce a DataframeCollection. Sources and aggregators are not run as Datasets, since their
+ * plugins read and emit StructuredRecords through arbitrary code that Spark SQL cannot plan. Their output is
+ * converted to a Dataset when it is read by an auto join.
+ *
+ * @param <T> type of object in the collection. Always StructuredRecord.
+ */
+public class DataframeCollection<T> extends RDDCollection<T> {
+  private final Schema schema;
+  private final Dataset<Row> dataframe;
+
+  @SuppressWarnings("unchecked")
+  public DataframeCollection(JavaSparkExecutionContext sec, JavaSparkContext jsc, SQLContext sqlContext,
+                             DatasetContext datasetContext, SparkBatchSinkFactory sinkFactory,
+                             Schema schema, Dataset<Row> dataframe) {
+    super(sec, jsc, sqlContext, datasetContext, sinkFactory, (JavaRDD<T>) toRecords(dataframe, schema));
+    this.schema = schema;
+    this.dataframe = dataframe;
+  }
+
+  /**
+   * @return the schema of the records in this collection
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * @return the Dataset backing this collection
+   */
+  public Dataset<Row> getDataframe() {
+    return dataframe;
+  }
+
+  @Override
+  public SparkCollection<T> cache(StorageLevel storageLevel) {
+    // persisting the Dataset uses Spark's compressed columnar cache instead of caching deserialized records
+    return new DataframeCollection<>(sec, jsc, sqlContext, datasetContext, sinkFactory,
+                                     schema, dataframe.persist(storageLevel));
+  }
+
+  @Override
+  public void unpersist() {
+    dataframe.unpersist(false);
+  }
+
+  private static JavaRDD<StructuredRecord> toRecords(Dataset<Row> dataframe, Schema schema) {
+    return dataframe.javaRDD().map(row -> DataFrames.fromRow(row, schema));
+  }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.etl.spark.batch;
+
+import com.google.gson.Gson;
+import io.cdap.cdap.api.app.ApplicationSpecification;
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.macro.MacroEvaluator;
+import io.cdap.cdap.api.metrics.Metrics;
+import io.cdap.cdap.api.plugin.PluginContext;
+import io.cdap.cdap.api.plugin.PluginProperties;
+import io.cdap.cdap.api.preview.DataTracer;
+import io.cdap.cdap.api.spark.JavaSparkExecutionContext;
+import io.cdap.cdap.api.spark.sql.DataFrames;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.Transform;
+import io.cdap.cdap.etl.api.batch.BatchAggregator;
+import io.cdap.cdap.etl.api.join.JoinField;
+import io.cdap.cdap.etl.common.Constants;
+import io.cdap.cdap.etl.common.NoopStageStatisticsCollector;
+import io.cdap.cdap.etl.common.RecordInfo;
+import io.cdap.cdap.etl.proto.v2.spec.PluginSpec;
+import io.cdap.cdap.etl.proto.v2.spec.StageSpec;
+import io.cdap.cdap.etl.spark.SparkCollection;
+import io.cdap.cdap.etl.spark.join.JoinCollection;
+import io.cdap.cdap.etl.spark.join.JoinRequest;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.storage.StorageLevel;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tests that a {@link DataframeCollection} gives the same results as an {@link RDDCollection}.
+ */
+public class DataframeCollectionTest {
+  private static final String JOIN = "join";
+  private static final String FILTER = "filter";
+  private static final String AGGREGATE = "aggregate";
+  private static final Map<String, Long> COUNTS = new ConcurrentHashMap<>();
+  private static final Schema PURCHASE_SCHEMA =
+    Schema.recordOf("purchase",
+                    Schema.Field.of("user", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("item", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("price", Schema.of(Schema.Type.INT)));
+  private static final Schema USER_SCHEMA =
+    Schema.recordOf("user",
+                    Schema.Field.of("id", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)));
+  private static final Schema OUTPUT_SCHEMA =
+    Schema.recordOf("joined",
+                    Schema.Field.of("name", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("item", Schema.of(Schema.Type.STRING)),
+                    Schema.Field.of("price", Schema.of(Schema.Type.INT)));
+  private static final List<StructuredRecord> PURCHASES = Arrays.asList(
+    purchase("u0", "apple", 5), purchase("u0", "pear", 12), purchase("u1", "apple", 5),
+    purchase("u1", "melon", 20), purchase("u1", "pear", 12), purchase("u2", "melon", 20),
+    purchase("u3", "apple", 5));
+  private static final List<StructuredRecord> USERS = Arrays.asList(
+    user("u0", "alice"), user("u1", "bob"), user("u2", "carl"), user("u4", "dave"));
+  private static JavaSparkContext jsc;
+  private static JavaSparkContext dataframeJsc;
+  private static SQLContext sqlContext;
+  private static JavaSparkExecutionContext sec;
+
+  @BeforeClass
+  public static void setupClass() {
+    jsc = new JavaSparkContext(new SparkConf().setMaster("local[2]").setAppName("dataframe")
+                                 .set("spark.ui.enabled", "false").set("spark.sql.shuffle.partitions", "4"));
+    // same spark context, but with joins keeping their output as Datasets
+    SparkConf dataframeConf = jsc.getConf().set(Constants.SPARK_PIPELINE_DATAFRAME_ENABLE_FLAG, "true");
+    dataframeJsc = new JavaSparkContext(jsc.sc()) {
+      @Override
+      public SparkConf getConf() {
+        return dataframeConf.clone();
+      }
+    };
+    sqlContext = new SQLContext(jsc);
+
+    ApplicationSpecification appSpec = Mockito.mock(ApplicationSpecification.class);
+    Mockito.when(appSpec.getName()).thenReturn("pipeline");
+    sec = Mockito.mock(JavaSparkExecutionContext.class);
+    Mockito.when(sec.getNamespace()).thenReturn("default");
+    Mockito.when(sec.getApplicationSpecification()).thenReturn(appSpec);
+    Mockito.when(sec.getPluginContext()).thenReturn(new TestPluginContext());
+    Mockito.when(sec.getMetrics()).thenReturn(new CountMetrics());
+    Mockito.when(sec.getDataTracer(Mockito.anyString())).thenReturn(new DisabledDataTracer());
+  }
+
+  @AfterClass
+  public static void teardownClass() {
+    if (jsc != null) {
+      jsc.stop();
+    }
+  }
+
+  @Before
+  public void setup() {
+    COUNTS.clear();
+  }
+
+  @Test
+  public void testJoin() {
+    SparkCollection<StructuredRecord> rddJoined = join(false);
+    Assert.assertFalse(rddJoined instanceof DataframeCollection);
+    List<String> expected = toStrings(rddJoined);
+    Map<String, Long> expectedCounts = new ConcurrentHashMap<>(COUNTS);
+
+    COUNTS.clear();
+    SparkCollection<StructuredRecord> dataframeJoined = join(true);
+    Assert.assertTrue(dataframeJoined instanceof DataframeCollection);
+    Assert.assertEquals(OUTPUT_SCHEMA, ((DataframeCollection<StructuredRecord>) dataframeJoined).getSchema());
+    Assert.assertEquals(expected, toStrings(dataframeJoined));
+
+    Assert.assertEquals(Arrays.asList("alice,apple,5", "alice,pear,12", "bob,apple,5", "bob,melon,20",
+                                      "bob,pear,12", "carl,melon,20"), expected);
+    // records are counted the same way whether they are kept as a Dataset or not
+    Assert.assertEquals(11L, COUNTS.get(JOIN + "." + Constants.Metrics.RECORDS_IN).longValue());
+    Assert.assertEquals(6L, COUNTS.get(JOIN + "." + Constants.Metrics.RECORDS_OUT).longValue());
+    Assert.assertEquals(expectedCounts, COUNTS);
+  }
+
+  @Test
+  public void testFilter() {
+    StageSpec stageSpec = createStageSpec(FILTER, Transform.PLUGIN_TYPE);
+    List<String> expected = toStrings(join(false).transform(stageSpec, new NoopStageStatisticsCollector()));
+    List<String> actual = toStrings(join(true).transform(stageSpec, new NoopStageStatisticsCollector()));
+
+    Assert.assertEquals(Arrays.asList("alice,pear,12", "bob,melon,20", "bob,pear,12", "carl,melon,20"), expected);
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testAggregate() {
+    StageSpec stageSpec = createStageSpec(AGGREGATE, BatchAggregator.PLUGIN_TYPE);
+    List<String> expected = toStrings(join(false).aggregate(stageSpec, null, new NoopStageStatisticsCollector()));
+    List<String> actual = toStrings(join(true).aggregate(stageSpec, 3, new NoopStageStatisticsCollector()));
+
+    Assert.assertEquals(Arrays.asList("alice=17", "bob=37", "carl=20"), expected);
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testCache() {
+    SparkCollection<StructuredRecord> joined = join(true);
+    List<String> expected = toStrings(joined);
+
+    // the records of the cached collection are read from the persisted Dataset
+    DataframeCollection<StructuredRecord> cached =
+      (DataframeCollection<StructuredRecord>) joined.cache(StorageLevel.MEMORY_ONLY());
+    Assert.assertEquals(StorageLevel.MEMORY_ONLY(), cached.getDataframe().storageLevel());
+    Assert.assertEquals(expected, toStrings(cached));
+    cached.unpersist();
+    Assert.assertEquals(StorageLevel.NONE(), cached.getDataframe().storageLevel());
+  }
+
+  /**
+   * Joins purchases with users. When keeping Datasets, the inputs are also {@link DataframeCollection}s.
+   */
+  @SuppressWarnings("unchecked")
+  private SparkCollection<StructuredRecord> join(boolean keepDataframes) {
+    RDDCollection<StructuredRecord> purchases = createCollection(PURCHASES, PURCHASE_SCHEMA, keepDataframes);
+    RDDCollection<StructuredRecord> users = createCollection(USERS, USER_SCHEMA, keepDataframes);
+
+    List<JoinField> fields = Arrays.asList(new JoinField("users", "name"), new JoinField("purchases", "item"),
+                                           new JoinField("purchases", "price"));
+    JoinCollection toJoin = new JoinCollection("users", users, USER_SCHEMA,
+                                               Collections.singletonList("id"), true, false);
+    JoinRequest joinRequest = new JoinRequest(JOIN, "purchases", Collections.singletonList("user"),
+                                              PURCHASE_SCHEMA, true, false, fields, OUTPUT_SCHEMA,
+                                              Collections.singletonList(toJoin), null);
+    return purchases.join(joinRequest);
+  }
+
+  private RDDCollection<StructuredRecord> createCollection(List<StructuredRecord> records, Schema schema,
+                                                           boolean keepDataframes) {
+    JavaRDD<StructuredRecord> rdd = jsc.parallelize(records, 2);
+    if (!keepDataframes) {
+      return new RDDCollection<>(sec, jsc, sqlContext, null, null, rdd);
+    }
+    StructType sparkSchema = DataFrames.toDataType(schema);
+    Dataset<Row> dataframe = sqlContext.createDataFrame(rdd.map(record -> DataFrames.toRow(record, sparkSchema)),
+                                                        sparkSchema);
+    return new DataframeCollection<>(sec, dataframeJsc, sqlContext, null, null, schema, dataframe);
+  }
+
+  private static StageSpec createStageSpec(String name, String pluginType) {
+    // the stage spec reaches the Spark program as json, which is also what makes it serializable
+    Gson gson = new Gson();
+    StageSpec stageSpec = StageSpec.builder(name, new PluginSpec(pluginType, name,
+                                                                 Collections.<String, String>emptyMap(), null))
+      .build();
+    return gson.fromJson(gson.toJson(stageSpec), StageSpec.class);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<String> toStrings(SparkCollection<?> collection) {
+    List<String> output = new ArrayList<>();
+    for (Object value : ((JavaRDD<Object>) collection.getUnderlying()).collect()) {
+      if (value instanceof RecordInfo) {
+        value = ((RecordInfo<?>) value).getValue();
+      }
+      if (value instanceof StructuredRecord) {
+        StructuredRecord record = (StructuredRecord) value;
+        value = record.get("name") + "," + record.get("item") + "," + record.get("price");
+      }
+      output.add((String) value);
+    }
+    Collections.sort(output);
+    return output;
+  }
+
+  private static StructuredRecord purchase(String user, String item, int price) {
+    return StructuredRecord.builder(PURCHASE_SCHEMA).set("user", user).set("item", item).set("price", price).build();
+  }
+
+  private static StructuredRecord user(String id, String name) {
+    return StructuredRecord.builder(USER_SCHEMA).set("id", id).set("name", name).build();
+  }
+
+  /**
+   * Keeps joined records with a price of at least 10.
+   */
+  private static class PriceFilter extends Transform<StructuredRecord, StructuredRecord> {
+
+    @Override
+    public void transform(StructuredRecord input, Emitter<StructuredRecord> emitter) {
+      Integer price = input.get("price");
+      if (price >= 10) {
+        emitter.emit(input);
+      }
+    }
+  }
+
+  /**
+   * Sums the price of joined records by name, emitting them as 'name=total'.
+   */
+  private static class TotalAggregator extends BatchAggregator<String, StructuredRecord, String> {
+
+    @Override
+    public void groupBy(StructuredRecord input, Emitter<String> emitter) {
+      emitter.emit(input.get("name"));
+    }
+
+    @Override
+    public void aggregate(String name, Iterator<StructuredRecord> records, Emitter<String> emitter) {
+      int total = 0;
+      while (records.hasNext()) {
+        Integer price = records.next().get("price");
+        total += price;
+      }
+      emitter.emit(name + "=" + total);
+    }
+  }
+
+  /**
+   * Plugin context that instantiates the plugin of each test stage. It is serialized into Spark closures.
+   */
+  private static class TestPluginContext implements PluginContext, Serializable {
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId) {
+      return PluginProperties.builder().build();
+    }
+
+    @Override
+    public PluginProperties getPluginProperties(String pluginId, MacroEvaluator evaluator) {
+      return getPluginProperties(pluginId);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> Class<T> loadPluginClass(String pluginId) {
+      return (Class<T>) (FILTER.equals(pluginId) ? PriceFilter.class : TotalAggregator.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T newPluginInstance(String pluginId) {
+      return (T) (FILTER.equals(pluginId) ? new PriceFilter() : new TotalAggregator());
+    }
+
+    @Override
+    public <T> T newPluginInstance(String pluginId, MacroEvaluator evaluator) {
+      return newPluginInstance(pluginId);
+    }
+  }
+
+  /**
+   * Metrics that sum up the counts of each metric.
+   */
+  private static class CountMetrics implements Metrics, Serializable {
+
+    @Override
+    public void count(String metricName, int delta) {
+      COUNTS.merge(metricName, (long) delta, Long::sum);
+    }
+
+    @Override
+    public void gauge(String metricName, long value) {
+      // no-op
+    }
+  }
+
+  /**
+   * A data tracer that never traces. It is serialized into Spark closures.
+   */
+  private static class DisabledDataTracer implements DataTracer, Serializable {
+
+    @Override
+    public void info(String propertyName, Object propertyValue) {
+      // no-op
+    }
+
+    @Override
+    public String getName() {
+      return JOIN;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return false;
+    }
+  }
+}
@@ -781,7 +781,7 @@ public class Configuration implements Iterable<Map.Entry<String, String>> {
     return StringUtils.TraditionalBinaryPrefix.string2long(valueString);
   }
 
-  private String getHexDigits(String value) {
+  static String getHexDigits(String value) {
     boolean negative = false;
     String str = value;
     String hexString = null;
@@ -2090,4 +2090,12 @@ public class Configuration implements Iterable<Map.Entry<String, String>> {
     }
     return prefixedProperties;
   }
+
+  /**
+   * Returns an immutable {@link ConfigurationSnapshot} of the current properties, with variables substituted.
+   * It is for reading properties in frequently called code without the cost of variable substitution and locking.
+   */
+  public ConfigurationSnapshot snapshot() {
+    return new ConfigurationSnapshot(this);
+  }
 }
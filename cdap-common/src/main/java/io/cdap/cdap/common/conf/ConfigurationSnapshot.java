@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.conf;
+
+import com.google.common.base.Preconditions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable view of a {@link Configuration} taken at a point of time, for reading properties in frequently
+ * called code.
+ *
+ * Unlike {@link Configuration}, variables are substituted once when the snapshot is taken, reads do not lock,
+ * and typed values are parsed on first access and then cached. The value conversions are the same as the
+ * corresponding {@link Configuration} methods. Changes made to the {@link Configuration} after the snapshot is
+ * taken are not visible, and deprecated property names are not translated.
+ */
+public final class ConfigurationSnapshot {
+
+  private final Map<String, Value> values;
+
+  ConfigurationSnapshot(Configuration conf) {
+    Map<String, Value> values = new HashMap<>();
+    for (Map.Entry<String, String> entry : conf) {
+      String value = entry.getValue();
+      if (value != null) {
+        values.put(entry.getKey(), new Value(value));
+      }
+    }
+    this.values = values;
+  }
+
+  /**
+   * Returns the value of the given property, or {@code null} if there is no such property.
+   */
+  @Nullable
+  public String get(String name) {
+    Value value = values.get(name);
+    return value == null ? null : value.value;
+  }
+
+  /**
+   * Returns the value of the given property, or the given default value if there is no such property.
+   */
+  public String get(String name, String defaultValue) {
+    Value value = values.get(name);
+    return value == null ? defaultValue : value.value;
+  }
+
+  /**
+   * Returns the trimmed value of the given property, or {@code null} if there is no such property.
+   */
+  @Nullable
+  public String getTrimmed(String name) {
+    Value value = values.get(name);
+    return value == null ? null : value.trimmed;
+  }
+
+  /**
+   * Returns the value of the given property as an {@code int}.
+   *
+   * @throws NumberFormatException if the value is not a valid {@code int}
+   * @throws NullPointerException if there is no such property
+   */
+  public int getInt(String name) {
+    Value value = values.get(name);
+    Preconditions.checkNotNull(value);
+    return value.getInt();
+  }
+
+  /**
+   * Returns the value of the given property as an {@code int}, or the given default value if there is no such
+   * property.
+   *
+   * @throws NumberFormatException if the value is not a valid {@code int}
+   */
+  public int getInt(String name, int defaultValue) {
+    Value value = values.get(name);
+    return value == null ? defaultValue : value.getInt();
+  }
+
+  /**
+   * Returns the value of the given property as a {@code long}.
+   *
+   * @throws NumberFormatException if the value is not a valid {@code long}
+   * @throws NullPointerException if there is no such property
+   */
+  public long getLong(String name) {
+    Value value = values.get(name);
+    Preconditions.checkNotNull(value);
+    return value.getLong();
+  }
+
+  /**
+   * Returns the value of the given property as a {@code long}, or the given default value if there is no such
+   * property.
+   *
+   * @throws NumberFormatException if the value is not a valid {@code long}
+   */
+  public long getLong(String name, long defaultValue) {
+    Value value = values.get(name);
+    return value == null ? defaultValue : value.getLong();
+  }
+
+  /**
+   * Returns the value of the given property, which is a duration in the given unit, converted to another unit.
+   *
+   * @param name the property name
+   * @param unit the unit of the property value
+   * @param targetUnit the unit to convert the duration to
+   * @throws NumberFormatException if the value is not a valid {@code long}
+   * @throws NullPointerException if there is no such property
+   */
+  public long getTime(String name, TimeUnit unit, TimeUnit targetUnit) {
+    return targetUnit.convert(getLong(name), unit);
+  }
+
+  /**
+   * Returns the value of the given property as a {@code boolean}.
+   *
+   * @throws IllegalArgumentException if the value is not a valid {@code boolean}
+   * @throws NullPointerException if there is no such property
+   */
+  public boolean getBoolean(String name) {
+    Value value = values.get(name);
+    Preconditions.checkNotNull(value);
+    Boolean result = value.getBoolean();
+    if (result == null) {
+      throw new IllegalArgumentException("Configured property is not a valid boolean: name="
+                                           + name + ", value=" + value.trimmed);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the value of the given property as a {@code boolean}, or the given default value if there is no such
+   * property or if the value is not a valid {@code boolean}.
+   */
+  public boolean getBoolean(String name, boolean defaultValue) {
+    Value value = values.get(name);
+    Boolean result = value == null ? null : value.getBoolean();
+    return result == null ? defaultValue : result;
+  }
+
+  /**
+   * Returns the number of properties in this snapshot.
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * A property value with its typed values parsed on demand. Parsing the same value concurrently is harmless,
+   * since it always gives the same result.
+   */
+  private static final class Value {
+
+    private final String value;
+    private final String trimmed;
+    private volatile Integer intValue;
+    private volatile Long longValue;
+    private volatile Boolean booleanValue;
+
+    Value(String value) {
+      this.value = value;
+      this.trimmed = value.trim();
+    }
+
+    int getInt() {
+      Integer result = intValue;
+      if (result == null) {
+        String hexString = Configuration.getHexDigits(trimmed);
+        result = hexString == null ? Integer.parseInt(trimmed) : Integer.parseInt(hexString, 16);
+        intValue = result;
+      }
+      return result;
+    }
+
+    long getLong() {
+      Long result = longValue;
+      if (result == null) {
+        String hexString = Configuration.getHexDigits(trimmed);
+        result = hexString == null ? Long.parseLong(trimmed) : Long.parseLong(hexString, 16);
+        longValue = result;
+      }
+      return result;
+    }
+
+    /**
+     * Returns the value as a {@link Boolean}, or {@code null} if it is not a valid {@code boolean}.
+     */
+    @Nullable
+    Boolean getBoolean() {
+      Boolean result = booleanValue;
+      if (result == null) {
+        if ("true".equalsIgnoreCase(trimmed)) {
+          result = Boolean.TRUE;
+        } else if ("false".equalsIgnoreCase(trimmed)) {
+          result = Boolean.FALSE;
+        } else {
+          return null;
+        }
+        booleanValue = result;
+      }
+      return result;
+    }
+  }
+}
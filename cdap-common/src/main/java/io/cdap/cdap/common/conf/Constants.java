@@ -209,6 +209,11 @@ public final class Constants {
     public static final String SPARK_COMPAT = "app.program.spark.compat";
     public static final String RUNTIME_EXT_DIR = "app.program.runtime.extensions.dir";
     public static final String PROGRAM_MAX_START_SECONDS = "app.program.max.start.seconds";
+    public static final String LOCALIZATION_CACHE_ENABLED = "app.program.localization.cache.enabled";
+    public static final String LOCALIZATION_CACHE_DIR = "app.program.localization.cache.dir";
+    public static final String LOCALIZATION_CACHE_TTL_SECONDS = "app.program.localization.cache.ttl.seconds";
+    public static final String LOCALIZATION_CACHE_CLEANUP_INTERVAL_SECONDS =
+      "app.program.localization.cache.cleanup.interval.seconds";
     public static final String PROGRAM_MAX_STOP_SECONDS = "app.program.max.stop.seconds";
     public static final String YARN_ATTEMPT_FAILURES_VALIDITY_INTERVAL =
       "app.program.yarn.attempt.failures.validity.interval";
@@ -216,6 +221,7 @@ public final class Constants {
     public static final String PROGRAM_TRANSACTION_CONTROL = "app.program.transaction.control";
     public static final String MAX_CONCURRENT_RUNS = "app.max.concurrent.runs";
     public static final String PROGRAM_LAUNCH_THREADS = "app.program.launch.threads";
+    public static final String DEPLOY_THREADS = "app.deploy.threads";
 
     // A boolean value cConf entry to tell whether a ProgramRunner is running remotely (i.e. not inside app-fabric)
     // This config is not present in the cdap-default.xml as it is only set internally by CDAP.
@@ -352,6 +358,7 @@ public final class Constants {
     public static final String CACHE_SIZE = "preview.cache.size";
     public static final String REQUEST_POLL_DELAY_MILLIS = "preview.request.poll.delay.millis";
     public static final String MAX_RUNS = "preview.max.runs";
+    public static final String MAX_TRACED_VALUES = "preview.tracer.max.values";
   }
 
   /**
@@ -576,6 +583,7 @@ public final class Constants {
     public static final String CONNECTION_TIMEOUT_SECS = "router.connection.idle.timeout.secs";
     public static final String ROUTER_AUDIT_PATH_CHECK_ENABLED = "router.audit.path.check.enabled";
     public static final String ROUTER_AUDIT_LOG_ENABLED = "router.audit.log.enabled";
+    public static final String ENDPOINT_STRATEGY = "router.endpoint.strategy";
 
     /**
      * Defaults.
@@ -607,6 +615,8 @@ public final class Constants {
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
+    public static final String ENTITY_TABLE_CACHE_SIZE = "metrics.data.entity.cache.size";
+    public static final String ENTITY_TABLE_CACHE_WARMUP_SIZE = "metrics.data.entity.cache.warmup.size";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
     public static final String TIME_SERIES_TABLE_ROLL_TIME = "metrics.data.table.ts.rollTime";
 
@@ -631,6 +641,7 @@ public final class Constants {
     public static final String DEFAULT_METRIC_TABLE_PREFIX = "metrics.table";
 
     public static final String METRICS_HBASE_MAX_SCAN_THREADS = "metrics.hbase.max.scan.threads";
+    public static final String METRICS_QUERY_SCAN_THREADS = "metrics.query.scan.threads";
     public static final String METRICS_HBASE_TABLE_SPLITS = "metrics.table.splits";
     public static final String METRICS_TABLE_HBASE_SPLIT_POLICY = "metrics.table.hbase.split.policy";
 
@@ -764,6 +775,12 @@ public final class Constants {
       public static final long MAX_MINUTE_RESOLUTION_QUERY_INTERVAL = 600;
       // Number of seconds to subtract from current timestamp when query without "end" time.
       public static final long QUERY_SECOND_DELAY = 2;
+
+      // Metrics emitted for metrics queries
+      public static final String QUERY_COUNT = "metrics.query.count";
+      public static final String QUERY_FAILURE_COUNT = "metrics.query.failure.count";
+      public static final String QUERY_MILLIS = "metrics.query.ms";
+      public static final String QUERY_TIMESERIES_COUNT = "metrics.query.timeseries.count";
     }
 
     /**
@@ -775,6 +792,28 @@ public final class Constants {
       public static final String PROGRAM_KILLED_RUNS = "program.killed.runs";
       public static final String PROGRAM_REJECTED_RUNS = "program.rejected.runs";
       public static final String PROGRAM_NODE_MINUTES = "program.node.minutes";
+      public static final String LOCALIZATION_BYTES_UPLOADED = "program.localization.bytes.uploaded";
+      public static final String LOCALIZATION_BYTES_REUSED = "program.localization.bytes.reused";
+    }
+
+    /**
+     * Application deployment metrics
+     */
+    public static final class AppDeploy {
+      public static final String DEPLOY_COUNT = "app.deploy.count";
+      public static final String DEPLOY_MILLIS = "app.deploy.ms";
+      // Time taken by each deployment stage, the metric name is the prefix followed by "<stage>.ms"
+      public static final String STAGE_METRICS_PREFIX = "app.deploy.stage.";
+    }
+
+    /**
+     * Provisioner metrics
+     */
+    public static final class Provisioner {
+      public static final String CLUSTER_POOL_HITS = "provisioner.cluster.pool.hits";
+      public static final String CLUSTER_POOL_MISSES = "provisioner.cluster.pool.misses";
+      public static final String CLUSTER_POOL_SAVED_MILLIS = "provisioner.cluster.pool.saved.ms";
+      public static final String CLUSTER_POOL_EXPIRED = "provisioner.cluster.pool.expired";
     }
 
     /**
@@ -1238,6 +1277,8 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
+  public static final String CFG_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY =
+    "data.local.storage.bloom.filter.bits.per.key";
 
   /**
    * Defaults for Data Fabric.
@@ -1246,6 +1287,7 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final int DEFAULT_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY = 10;
 
   /**
    * Used for upgrade and backwards compatability
@@ -1358,6 +1400,8 @@ public final class Constants {
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TABLE_HBASE_SPLIT_POLICY = "messaging.table.hbase.split.policy";
     public static final String TOPIC_DEFAULT_TTL_SECONDS = "messaging.topic.default.ttl.seconds";
+    public static final String WRITER_LINGER_MILLIS = "messaging.writer.linger.ms";
+    public static final String WRITER_BATCH_MAX_BYTES = "messaging.writer.batch.max.bytes";
     public static final String COPROCESSOR_METADATA_CACHE_UPDATE_FREQUENCY_SECONDS =
       "messaging.coprocessor.metadata.cache.update.frequency.seconds";
 
@@ -1366,6 +1410,7 @@ public final class Constants {
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
     public static final String HTTP_COMPRESS_PAYLOAD = "messaging.http.compress.payload";
+    public static final String CLIENT_ENDPOINT_STRATEGY = "messaging.client.endpoint.strategy";
 
     // Distributed mode related configurations
     public static final String HA_FENCING_DELAY_SECONDS = "messaging.ha.fencing.delay.seconds";
@@ -1414,6 +1459,7 @@ public final class Constants {
     public static final String EXTENSIONS_DIR = "runtime.extensions.dir";
     public static final String SYSTEM_PROPERTY_PREFIX = "provisioner.system.properties.";
     public static final String EXECUTOR_THREADS = "provisioner.executor.threads";
+    public static final String CLUSTER_POOL_CHECK_INTERVAL_SECS = "provisioner.cluster.pool.check.interval.secs";
   }
 
   /**
@@ -17,6 +17,7 @@ package io.cdap.cdap.common.discovery;
 
 import org.apache.twill.discovery.Discoverable;
 
+import java.net.InetSocketAddress;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -42,4 +43,27 @@ public interface EndpointStrategy {
    */
   @Nullable
   Discoverable pick(long timeout, TimeUnit timeoutUnit);
+
+  /**
+   * Notifies that a request is being sent to the given endpoint. Strategies that do not use load feedback
+   * ignore it.
+   *
+   * @param endpoint the address of the endpoint
+   */
+  default void requestStarted(InetSocketAddress endpoint) {
+    // no-op
+  }
+
+  /**
+   * Notifies that a request sent to the given endpoint is completed. Every call to
+   * {@link #requestStarted(InetSocketAddress)} should be followed by a call to this method.
+   *
+   * @param endpoint the address of the endpoint
+   * @param latencyNanos the time in nanoseconds that the request took
+   * @param success {@code false} if the endpoint failed to serve the request, for example it could not be
+   *                connected or it was unavailable
+   */
+  default void requestCompleted(InetSocketAddress endpoint, long latencyNanos, boolean success) {
+    // no-op
+  }
 }
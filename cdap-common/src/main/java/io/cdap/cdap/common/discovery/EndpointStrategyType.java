@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.discovery;
+
+import io.cdap.cdap.common.conf.CConfiguration;
+import org.apache.twill.discovery.ServiceDiscovered;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Types of {@link EndpointStrategy} that can be selected through configuration.
+ */
+public enum EndpointStrategyType {
+  RANDOM(RandomEndpointStrategy::new),
+  STICKY(StickyEndpointStrategy::new),
+  LATENCY_AWARE(LatencyAwareEndpointStrategy::new);
+
+  private static final Logger LOG = LoggerFactory.getLogger(EndpointStrategyType.class);
+
+  private final Function<Supplier<ServiceDiscovered>, EndpointStrategy> factory;
+
+  EndpointStrategyType(Function<Supplier<ServiceDiscovered>, EndpointStrategy> factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Creates a new {@link EndpointStrategy} of this type.
+   *
+   * @param serviceDiscoveredSupplier the {@link Supplier} of {@link ServiceDiscovered} to pick endpoints from
+   * @return a new {@link EndpointStrategy}
+   */
+  public EndpointStrategy create(Supplier<ServiceDiscovered> serviceDiscoveredSupplier) {
+    return factory.apply(serviceDiscoveredSupplier);
+  }
+
+  /**
+   * Returns the {@link EndpointStrategyType} set in the given configuration key. If it is not set or invalid,
+   * {@link #RANDOM} is returned.
+   */
+  public static EndpointStrategyType fromConfig(CConfiguration cConf, String key) {
+    String type = cConf.get(key, RANDOM.name()).trim();
+    try {
+      return valueOf(type.toUpperCase().replace('-', '_'));
+    } catch (IllegalArgumentException e) {
+      LOG.warn("Unsupported endpoint strategy '{}' in configuration {}. Using {} instead.", type, key, RANDOM);
+      return RANDOM;
+    }
+  }
+}
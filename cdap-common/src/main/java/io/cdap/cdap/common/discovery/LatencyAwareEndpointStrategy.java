@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.discovery;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.ServiceDiscovered;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link EndpointStrategy} that prefers endpoints which respond faster and have fewer requests in progress.
+ *
+ * Each pick compares two randomly chosen endpoints and returns the one with the lower cost. The cost is the
+ * exponentially weighted moving average of the request latency times the number of requests in progress plus one.
+ * An endpoint that fails a number of consecutive requests is ejected for some time. If all endpoints are ejected,
+ * they are all considered again.
+ *
+ * The latency and the in progress requests are only known for requests reported through
+ * {@link #requestStarted(InetSocketAddress)} and {@link #requestCompleted(InetSocketAddress, long, boolean)}.
+ * Endpoints are identified by host name and port.
+ */
+public final class LatencyAwareEndpointStrategy extends AbstractEndpointStrategy {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareEndpointStrategy.class);
+
+  // Weight of a new latency sample in the moving average
+  private static final double LATENCY_DECAY = 0.3d;
+  private static final int MAX_CONSECUTIVE_FAILURES = 3;
+  private static final long EJECT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private final ConcurrentMap<String, EndpointStats> stats;
+  private final int maxConsecutiveFailures;
+  private final long ejectNanos;
+
+  /**
+   * Constructs a latency aware endpoint strategy with the given {@link ServiceDiscovered}.
+   */
+  public LatencyAwareEndpointStrategy(Supplier<ServiceDiscovered> serviceDiscoveredSupplier) {
+    this(serviceDiscoveredSupplier, MAX_CONSECUTIVE_FAILURES, EJECT_NANOS);
+  }
+
+  @VisibleForTesting
+  LatencyAwareEndpointStrategy(Supplier<ServiceDiscovered> serviceDiscoveredSupplier,
+                               int maxConsecutiveFailures, long ejectNanos) {
+    super(serviceDiscoveredSupplier);
+    this.stats = new ConcurrentHashMap<>();
+    this.maxConsecutiveFailures = maxConsecutiveFailures;
+    this.ejectNanos = ejectNanos;
+  }
+
+  @Nullable
+  @Override
+  protected Discoverable pick(ServiceDiscovered serviceDiscovered) {
+    List<Discoverable> available = new ArrayList<>();
+    List<Discoverable> ejected = new ArrayList<>();
+    Set<String> keys = new HashSet<>();
+    long now = System.nanoTime();
+
+    for (Discoverable discoverable : serviceDiscovered) {
+      String key = getKey(discoverable.getSocketAddress());
+      keys.add(key);
+      if (stats.computeIfAbsent(key, k -> new EndpointStats()).isEjected(now)) {
+        ejected.add(discoverable);
+      } else {
+        available.add(discoverable);
+      }
+    }
+
+    // Forget endpoints that are gone
+    if (stats.size() > keys.size()) {
+      stats.keySet().retainAll(keys);
+    }
+
+    List<Discoverable> candidates = available.isEmpty() ? ejected : available;
+    if (candidates.size() <= 1) {
+      return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int first = random.nextInt(candidates.size());
+    int second = random.nextInt(candidates.size() - 1);
+    if (second >= first) {
+      second++;
+    }
+    Discoverable firstCandidate = candidates.get(first);
+    Discoverable secondCandidate = candidates.get(second);
+    EndpointStats firstStats = stats.get(getKey(firstCandidate.getSocketAddress()));
+    EndpointStats secondStats = stats.get(getKey(secondCandidate.getSocketAddress()));
+    if (firstStats == null || secondStats == null) {
+      return firstCandidate;
+    }
+    return firstStats.compareTo(secondStats) <= 0 ? firstCandidate : secondCandidate;
+  }
+
+  @Override
+  public void requestStarted(InetSocketAddress endpoint) {
+    EndpointStats endpointStats = stats.get(getKey(endpoint));
+    if (endpointStats != null) {
+      endpointStats.started();
+    }
+  }
+
+  @Override
+  public void requestCompleted(InetSocketAddress endpoint, long latencyNanos, boolean success) {
+    EndpointStats endpointStats = stats.get(getKey(endpoint));
+    if (endpointStats == null) {
+      return;
+    }
+    if (endpointStats.completed(latencyNanos, success)) {
+      LOG.debug("Endpoint {} failed {} consecutive requests. It is not used for {} seconds.",
+                endpoint, maxConsecutiveFailures, TimeUnit.NANOSECONDS.toSeconds(ejectNanos));
+    }
+  }
+
+  /**
+   * Returns the key for identifying the given endpoint. It uses the host name since it is what being used
+   * for the URL created by {@link URIScheme#createURI(Discoverable, String, Object...)}.
+   */
+  private String getKey(InetSocketAddress address) {
+    return address.getHostName() + ":" + address.getPort();
+  }
+
+  /**
+   * Load and health information of an endpoint.
+   */
+  private final class EndpointStats {
+
+    private int inFlight;
+    private double latencyNanos = -1d;
+    private int consecutiveFailures;
+    private long ejectedUntilNanos;
+    private boolean ejected;
+
+    synchronized void started() {
+      inFlight++;
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @return {@code true} if the endpoint got ejected because of this request
+     */
+    synchronized boolean completed(long requestLatencyNanos, boolean success) {
+      inFlight = Math.max(0, inFlight - 1);
+      if (success) {
+        consecutiveFailures = 0;
+        latencyNanos = latencyNanos < 0
+          ? requestLatencyNanos
+          : latencyNanos + LATENCY_DECAY * (requestLatencyNanos - latencyNanos);
+        return false;
+      }
+      if (++consecutiveFailures < maxConsecutiveFailures) {
+        return false;
+      }
+      consecutiveFailures = 0;
+      ejected = true;
+      ejectedUntilNanos = System.nanoTime() + ejectNanos;
+      return true;
+    }
+
+    synchronized boolean isEjected(long now) {
+      if (ejected && now - ejectedUntilNanos >= 0) {
+        ejected = false;
+      }
+      return ejected;
+    }
+
+    /**
+     * Compares the cost of sending a request to this endpoint and the given endpoint. If the latency of either
+     * endpoint is not known yet, only the number of requests in progress is compared.
+     */
+    int compareTo(EndpointStats other) {
+      int inFlight;
+      double latencyNanos;
+      synchronized (this) {
+        inFlight = this.inFlight;
+        latencyNanos = this.latencyNanos;
+      }
+      int otherInFlight;
+      double otherLatencyNanos;
+      synchronized (other) {
+        otherInFlight = other.inFlight;
+        otherLatencyNanos = other.latencyNanos;
+      }
+      if (latencyNanos < 0 || otherLatencyNanos < 0) {
+        return Integer.compare(inFlight, otherInFlight);
+      }
+      return Double.compare(latencyNanos * (inFlight + 1), otherLatencyNanos * (otherInFlight + 1));
+    }
+  }
+}
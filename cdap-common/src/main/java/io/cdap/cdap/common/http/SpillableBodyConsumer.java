@@ -61,6 +61,21 @@ public abstract class SpillableBodyConsumer extends BodyConsumer {
    */
   protected abstract void processInput(InputStream inputStream, HttpResponder responder) throws Exception;
 
+  /**
+   * This method will be called to process the complete request body if it fits in the in memory buffer.
+   * The buffer holds the request chunks as received, without copying, and is released after this method returns.
+   * By default it calls {@link #processInput(InputStream, HttpResponder)} with the buffer content.
+   *
+   * @param buffer the {@link ByteBuf} containing the request body
+   * @param responder the {@link HttpResponder} for responding to client
+   * @throws IOException if failed to process the given input
+   */
+  protected void processInput(ByteBuf buffer, HttpResponder responder) throws Exception {
+    try (InputStream is = new CombineInputStream(buffer, null)) {
+      processInput(is, responder);
+    }
+  }
+
   @Override
   public void chunk(ByteBuf request, HttpResponder responder) {
     if (outputStream == null) {
@@ -90,8 +105,14 @@ public abstract class SpillableBodyConsumer extends BodyConsumer {
   public void finished(HttpResponder responder) {
     Closeables.closeQuietly(outputStream);
 
-    try (InputStream is = new CombineInputStream(buffer, outputStream == null ? null : spillPath)) {
-      processInput(is, responder);
+    try {
+      if (outputStream == null) {
+        processInput(buffer, responder);
+      } else {
+        try (InputStream is = new CombineInputStream(buffer, spillPath)) {
+          processInput(is, responder);
+        }
+      }
     } catch (Exception e) {
       Throwables.propagateIfPossible(e);
       throw new RuntimeException(String.format("Failed to process input from buffer%s",
@@ -22,7 +22,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.net.HttpHeaders;
 import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
-import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
+import io.cdap.cdap.common.discovery.EndpointStrategyType;
 import io.cdap.cdap.common.discovery.URIScheme;
 import io.cdap.cdap.common.security.HttpsEnabler;
 import io.cdap.cdap.security.spi.authorization.UnauthorizedException;
@@ -37,6 +37,7 @@ import org.apache.twill.discovery.DiscoveryServiceClient;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
@@ -66,9 +67,16 @@ public class RemoteClient {
   public RemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
                       HttpRequestConfig httpRequestConfig, String basePath,
                       @Nullable RemoteAuthenticator authenticator) {
+    this(discoveryClient, discoverableServiceName, httpRequestConfig, basePath, authenticator,
+         EndpointStrategyType.RANDOM);
+  }
+
+  public RemoteClient(DiscoveryServiceClient discoveryClient, String discoverableServiceName,
+                      HttpRequestConfig httpRequestConfig, String basePath,
+                      @Nullable RemoteAuthenticator authenticator, EndpointStrategyType endpointStrategyType) {
     this.discoverableServiceName = discoverableServiceName;
     this.httpRequestConfig = httpRequestConfig;
-    this.endpointStrategy = new RandomEndpointStrategy(() -> discoveryClient.discover(discoverableServiceName));
+    this.endpointStrategy = endpointStrategyType.create(() -> discoveryClient.discover(discoverableServiceName));
     String cleanBasePath = basePath.startsWith("/") ? basePath.substring(1) : basePath;
     this.basePath = cleanBasePath.endsWith("/") ? cleanBasePath : cleanBasePath + "/";
     this.authenticator = authenticator;
@@ -115,8 +123,16 @@ public class RemoteClient {
                                     request.getBody(), request.getBodyLength());
     }
 
+    // Report the outcome to the endpoint strategy, so that it can prefer endpoints that are faster
+    URL url = request.getURL();
+    InetSocketAddress endpoint = InetSocketAddress.createUnresolved(url.getHost(), url.getPort() < 0
+      ? url.getDefaultPort() : url.getPort());
+    endpointStrategy.requestStarted(endpoint);
+    long startNanos = System.nanoTime();
+    boolean success = false;
     try {
       HttpResponse response = HttpRequests.execute(httpRequest, httpRequestConfig);
+      success = response.getResponseCode() != HttpURLConnection.HTTP_UNAVAILABLE;
       switch (response.getResponseCode()) {
         case HttpURLConnection.HTTP_UNAVAILABLE:
           throw new ServiceUnavailableException(discoverableServiceName, response.getResponseBodyAsString());
@@ -127,6 +143,8 @@ public class RemoteClient {
       }
     } catch (ConnectException e) {
       throw new ServiceUnavailableException(discoverableServiceName, e);
+    } finally {
+      endpointStrategy.requestCompleted(endpoint, System.nanoTime() - startNanos, success);
     }
   }
 
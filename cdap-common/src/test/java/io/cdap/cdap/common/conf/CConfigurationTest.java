@@ -24,6 +24,7 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Testing CConfiguration.
@@ -194,5 +195,57 @@ public class CConfigurationTest {
     }
   }
 
+  @Test
+  public void testSnapshot() {
+    CConfiguration conf = CConfiguration.create();
+    conf.set("test.property.base", "base");
+    conf.set("test.property.var", "${test.property.base}/dir");
+    conf.set("test.property.int", " 10 ");
+    conf.set("test.property.hex", "0x10");
+    conf.set("test.property.boolean", "TRUE");
+    conf.set("test.property.invalid", "invalid");
+
+    ConfigurationSnapshot snapshot = conf.snapshot();
+    conf.set("test.property.base", "changed");
+    conf.set("test.property.added", "added");
+
+    // Variables are resolved when the snapshot is taken and later changes are not visible
+    Assert.assertEquals("base/dir", snapshot.get("test.property.var"));
+    Assert.assertEquals("changed/dir", conf.get("test.property.var"));
+    Assert.assertNull(snapshot.get("test.property.added"));
+    Assert.assertEquals("default", snapshot.get("test.property.added", "default"));
+    Assert.assertEquals(conf.get(Constants.CFG_LOCAL_DATA_DIR), snapshot.get(Constants.CFG_LOCAL_DATA_DIR));
+
+    Assert.assertEquals(" 10 ", snapshot.get("test.property.int"));
+    Assert.assertEquals("10", snapshot.getTrimmed("test.property.int"));
+    Assert.assertEquals(10, snapshot.getInt("test.property.int"));
+    Assert.assertEquals(10, snapshot.getInt("test.property.int", 1));
+    Assert.assertEquals(1, snapshot.getInt("missing.property", 1));
+    Assert.assertEquals(16L, snapshot.getLong("test.property.hex"));
+    Assert.assertEquals(10000L, snapshot.getTime("test.property.int", TimeUnit.SECONDS, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(snapshot.getBoolean("test.property.boolean"));
+    Assert.assertTrue(snapshot.getBoolean("test.property.invalid", true));
+    Assert.assertFalse(snapshot.getBoolean("missing.property", false));
+
+    try {
+      snapshot.getInt("missing.property");
+      Assert.fail("Expected getInt() to throw NullPointerException");
+    } catch (NullPointerException e) {
+      // expected
+    }
+    try {
+      snapshot.getLong("test.property.invalid");
+      Assert.fail("Expected getLong() to throw NumberFormatException");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+    try {
+      snapshot.getBoolean("test.property.invalid");
+      Assert.fail("Expected getBoolean() to throw IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
   private enum TestEnum { FIRST }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.conf;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * Measures the throughput of reading properties from a {@link CConfiguration} and from its
+ * {@link ConfigurationSnapshot}, with one thread and with several threads reading concurrently.
+ *
+ * It is not run as part of the unit tests. Run it with
+ * <pre>
+ *   mvn test -pl cdap-common -Dtest=ConfigurationSnapshotBenchmark \
+ *     -Dbenchmark.threads=8 -Dbenchmark.seconds=5 -Dbenchmark.iterations=3
+ * </pre>
+ * The results are logged to {@code target/surefire-reports}. Lock contention in
+ * {@link Configuration#get(String)} only shows with more than one CPU.
+ */
+public class ConfigurationSnapshotBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ConfigurationSnapshotBenchmark.class);
+
+  // properties read on hot paths, some of them with variables to substitute
+  private static final String[] STRING_KEYS = {
+    Constants.AppFabric.PROGRAM_TRANSACTION_CONTROL,
+    Constants.Dataset.DATA_EVENT_TOPIC,
+    Constants.CFG_LOCAL_DATA_DIR,
+    Constants.CFG_HDFS_NAMESPACE,
+  };
+  private static final String[] INT_KEYS = {
+    Constants.AppFabric.SERVER_PORT,
+    Constants.AppFabric.EXEC_THREADS,
+  };
+
+  // consumes the values read so that the reads are not optimized away
+  private static volatile int sink;
+
+  @Test
+  public void benchmark() throws Exception {
+    int threads = Integer.getInteger("benchmark.threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    long durationMillis = TimeUnit.SECONDS.toMillis(Long.getLong("benchmark.seconds", 1L));
+    int iterations = Integer.getInteger("benchmark.iterations", 1);
+
+    CConfiguration cConf = CConfiguration.create();
+    ConfigurationSnapshot snapshot = cConf.snapshot();
+    for (String key : STRING_KEYS) {
+      Assert.assertEquals(cConf.get(key), snapshot.get(key));
+    }
+
+    List<String> results = new ArrayList<>();
+    for (int threadCount : new int[] { 1, threads }) {
+      for (int i = 0; i < iterations; i++) {
+        // the first iteration also warms up the code
+        results.add(String.format("threads=%d iteration=%d get: configuration %.1f Mops/s, snapshot %.1f Mops/s; " +
+                                    "getInt: configuration %.1f Mops/s, snapshot %.1f Mops/s",
+                                  threadCount, i,
+                                  measure(threadCount, durationMillis, key -> cConf.get(key).length(), STRING_KEYS),
+                                  measure(threadCount, durationMillis, key -> snapshot.get(key).length(),
+                                          STRING_KEYS),
+                                  measure(threadCount, durationMillis, cConf::getInt, INT_KEYS),
+                                  measure(threadCount, durationMillis, snapshot::getInt, INT_KEYS)));
+      }
+    }
+    for (String result : results) {
+      LOG.info(result);
+    }
+  }
+
+  /**
+   * Reads the given keys from the given number of threads for the given duration.
+   *
+   * @return the total number of reads per second of all threads, in millions
+   */
+  private double measure(int threads, long durationMillis,
+                         ToIntFunction<String> reader, String[] keys) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch startLatch = new CountDownLatch(1);
+      List<Future<Long>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          startLatch.await();
+          long endTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+          long reads = 0;
+          int result = 0;
+          while (System.nanoTime() < endTime) {
+            // check the time once per batch of reads
+            for (int j = 0; j < 1000; j++) {
+              result += reader.applyAsInt(keys[j % keys.length]);
+            }
+            reads += 1000;
+          }
+          sink = result;
+          return reads;
+        }));
+      }
+      long startTime = System.nanoTime();
+      startLatch.countDown();
+      long reads = 0;
+      for (Future<Long> future : futures) {
+        reads += future.get();
+      }
+      double seconds = (System.nanoTime() - startTime) / 1e9d;
+      return reads / seconds / 1e6d;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
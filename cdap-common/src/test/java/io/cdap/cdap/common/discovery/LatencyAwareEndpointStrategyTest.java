@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.common.discovery;
+
+import org.apache.twill.discovery.Discoverable;
+import org.apache.twill.discovery.InMemoryDiscoveryService;
+import org.apache.twill.discovery.ServiceDiscovered;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LatencyAwareEndpointStrategy}.
+ */
+public class LatencyAwareEndpointStrategyTest {
+
+  private static final String SERVICE = "test";
+
+  @Test
+  public void testPreferFaster() {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    InetSocketAddress fast = register(discoveryService, 10001);
+    InetSocketAddress slow = register(discoveryService, 10002);
+    ServiceDiscovered serviceDiscovered = discoveryService.discover(SERVICE);
+    LatencyAwareEndpointStrategy strategy = new LatencyAwareEndpointStrategy(() -> serviceDiscovered);
+
+    // Before there is any latency information, both endpoints are picked
+    Map<InetSocketAddress, Integer> counts = pick(strategy, 100);
+    Assert.assertEquals(2, counts.size());
+
+    strategy.requestStarted(fast);
+    strategy.requestCompleted(fast, TimeUnit.MILLISECONDS.toNanos(1), true);
+    strategy.requestStarted(slow);
+    strategy.requestCompleted(slow, TimeUnit.MILLISECONDS.toNanos(100), true);
+
+    // With two endpoints, both are compared on every pick
+    counts = pick(strategy, 100);
+    Assert.assertEquals(100, (int) counts.get(fast));
+
+    // Requests in progress make the fast endpoint more expensive than the slow one
+    for (int i = 0; i < 200; i++) {
+      strategy.requestStarted(fast);
+    }
+    counts = pick(strategy, 100);
+    Assert.assertEquals(100, (int) counts.get(slow));
+  }
+
+  @Test
+  public void testEjection() throws InterruptedException {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    InetSocketAddress healthy = register(discoveryService, 10001);
+    InetSocketAddress failing = register(discoveryService, 10002);
+    ServiceDiscovered serviceDiscovered = discoveryService.discover(SERVICE);
+    long ejectNanos = TimeUnit.MILLISECONDS.toNanos(200);
+    LatencyAwareEndpointStrategy strategy = new LatencyAwareEndpointStrategy(() -> serviceDiscovered, 2, ejectNanos);
+
+    // Make the failing endpoint look faster, so that it is picked if it is not ejected
+    pick(strategy, 1);
+    strategy.requestStarted(healthy);
+    strategy.requestCompleted(healthy, TimeUnit.MILLISECONDS.toNanos(100), true);
+
+    // A success in between resets the failure count
+    for (boolean success : new boolean[] { false, true, false }) {
+      strategy.requestStarted(failing);
+      strategy.requestCompleted(failing, TimeUnit.MILLISECONDS.toNanos(1), success);
+    }
+    Assert.assertEquals(100, (int) pick(strategy, 100).get(failing));
+
+    strategy.requestStarted(failing);
+    strategy.requestCompleted(failing, TimeUnit.MILLISECONDS.toNanos(1), false);
+    Assert.assertEquals(100, (int) pick(strategy, 100).get(healthy));
+
+    // The endpoint is used again after the ejection time
+    TimeUnit.NANOSECONDS.sleep(ejectNanos);
+    Assert.assertEquals(100, (int) pick(strategy, 100).get(failing));
+  }
+
+  @Test
+  public void testAllEjected() {
+    InMemoryDiscoveryService discoveryService = new InMemoryDiscoveryService();
+    InetSocketAddress address = register(discoveryService, 10001);
+    ServiceDiscovered serviceDiscovered = discoveryService.discover(SERVICE);
+    LatencyAwareEndpointStrategy strategy = new LatencyAwareEndpointStrategy(() -> serviceDiscovered, 1,
+                                                                             TimeUnit.HOURS.toNanos(1));
+    Assert.assertNotNull(strategy.pick());
+    strategy.requestStarted(address);
+    strategy.requestCompleted(address, 0L, false);
+
+    // The only endpoint is still returned rather than none
+    Discoverable discoverable = strategy.pick();
+    Assert.assertNotNull(discoverable);
+    Assert.assertEquals(address, discoverable.getSocketAddress());
+  }
+
+  private InetSocketAddress register(InMemoryDiscoveryService discoveryService, int port) {
+    InetSocketAddress address = new InetSocketAddress("localhost", port);
+    discoveryService.register(new Discoverable(SERVICE, address));
+    return address;
+  }
+
+  private Map<InetSocketAddress, Integer> pick(EndpointStrategy strategy, int times) {
+    Map<InetSocketAddress, Integer> counts = new HashMap<>();
+    for (int i = 0; i < times; i++) {
+      Discoverable discoverable = strategy.pick();
+      Assert.assertNotNull(discoverable);
+      counts.merge(discoverable.getSocketAddress(), 1, Integer::sum);
+    }
+    return counts;
+  }
+}
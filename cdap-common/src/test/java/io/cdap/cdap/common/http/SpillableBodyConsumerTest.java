@@ -25,6 +25,7 @@ import io.cdap.http.AbstractHttpHandler;
 import io.cdap.http.BodyConsumer;
 import io.cdap.http.HttpResponder;
 import io.cdap.http.NettyHttpService;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -37,6 +38,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 
@@ -58,19 +60,31 @@ public class SpillableBodyConsumerTest {
     testPost(Strings.repeat("0123456789", 10), 1024);
   }
 
+  @Test
+  public void testBufferInput() throws Exception {
+    String body = Strings.repeat("0123456789", 10);
+    // Bodies that fit in the buffer are given as ByteBuf, otherwise as InputStream
+    testPost("/postBuffer", body, 1024, "buffer:" + body);
+    testPost("/postBuffer", body, 15, "stream:" + body);
+  }
+
   private void testPost(String body, int bufferLimit) throws Exception {
+    testPost("/post", body, bufferLimit, body);
+  }
+
+  private void testPost(String path, String body, int bufferLimit, String expected) throws Exception {
     NettyHttpService httpService = NettyHttpService.builder("test")
       .setHttpHandlers(new TestHandler(bufferLimit))
       .build();
     httpService.start();
     try {
       InetSocketAddress addr = httpService.getBindAddress();
-      URL url = new URL(String.format("http://%s:%d/post", addr.getHostName(), addr.getPort()));
+      URL url = new URL(String.format("http://%s:%d%s", addr.getHostName(), addr.getPort(), path));
       HttpResponse response = HttpRequests.execute(io.cdap.common.http.HttpRequest.post(url).withBody(body).build(),
                                                    new HttpRequestConfig(1000, 10000000));
 
       Assert.assertEquals(200, response.getResponseCode());
-      Assert.assertEquals(body, response.getResponseBodyAsString());
+      Assert.assertEquals(expected, response.getResponseBodyAsString());
     } finally {
       httpService.stop();
     }
@@ -97,5 +111,22 @@ public class SpillableBodyConsumerTest {
         }
       };
     }
+
+    @POST
+    @Path("/postBuffer")
+    public BodyConsumer postBuffer(HttpRequest request, HttpResponder responder) throws IOException {
+      return new SpillableBodyConsumer(TEMP_FOLDER.newFile().toPath(), bufferSize) {
+        @Override
+        protected void processInput(InputStream is, HttpResponder responder) throws IOException {
+          responder.sendString(HttpResponseStatus.OK, "stream:" + new String(ByteStreams.toByteArray(is),
+                                                                             StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected void processInput(ByteBuf buffer, HttpResponder responder) {
+          responder.sendString(HttpResponseStatus.OK, "buffer:" + buffer.toString(StandardCharsets.UTF_8));
+        }
+      };
+    }
   }
 }
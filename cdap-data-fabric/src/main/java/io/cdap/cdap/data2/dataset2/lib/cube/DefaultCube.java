@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
@@ -63,6 +64,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -83,6 +85,10 @@ public class DefaultCube implements Cube, MeteredDataset {
   private final Map<String, ? extends Aggregation> aggregations;
   private final Map<String, AggregationAlias> aggregationAliasMap;
   private final ExecutorService executorService;
+  private final int queryScanThreads;
+  @Nullable
+  private final ExecutorService queryExecutorService;
+  private final int maxRecordsToScan;
 
   @Nullable
   private MetricsCollector metrics;
@@ -90,6 +96,23 @@ public class DefaultCube implements Cube, MeteredDataset {
   public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
                      Map<String, ? extends Aggregation> aggregations,
                      Map<String, AggregationAlias> aggregationAliasMap) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, 1);
+  }
+
+  /**
+   * Creates a {@link DefaultCube} that splits scans of queries over long time ranges into at most the given number
+   * of scans, which run concurrently.
+   */
+  public DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+                     Map<String, ? extends Aggregation> aggregations,
+                     Map<String, AggregationAlias> aggregationAliasMap, int queryScanThreads) {
+    this(resolutions, factTableSupplier, aggregations, aggregationAliasMap, queryScanThreads, MAX_RECORDS_TO_SCAN);
+  }
+
+  @VisibleForTesting
+  DefaultCube(int[] resolutions, FactTableSupplier factTableSupplier,
+              Map<String, ? extends Aggregation> aggregations,
+              Map<String, AggregationAlias> aggregationAliasMap, int queryScanThreads, int maxRecordsToScan) {
     this.aggregations = aggregations;
     this.resolutionToFactTable = Maps.newHashMap();
     for (int resolution : resolutions) {
@@ -99,6 +122,17 @@ public class DefaultCube implements Cube, MeteredDataset {
     this.executorService = new ThreadPoolExecutor(0, resolutions.length, 30, TimeUnit.SECONDS,
                                                   new LinkedBlockingQueue<>(),
                                                   Threads.createDaemonThreadFactory("metrics-table-%d"));
+    this.queryScanThreads = queryScanThreads;
+    if (queryScanThreads > 1) {
+      // When all threads are busy, the scan is performed in the caller thread
+      this.queryExecutorService = new ThreadPoolExecutor(0, queryScanThreads, 30, TimeUnit.SECONDS,
+                                                         new SynchronousQueue<>(),
+                                                         Threads.createDaemonThreadFactory("metrics-query-%d"),
+                                                         (runnable, executor) -> runnable.run());
+    } else {
+      this.queryExecutorService = null;
+    }
+    this.maxRecordsToScan = maxRecordsToScan;
   }
 
   @Override
@@ -254,8 +288,7 @@ public class DefaultCube implements Cube, MeteredDataset {
 
     // 3) execute scan query
     FactTable table = resolutionToFactTable.get(query.getResolution());
-    FactScanner scanner = table.scan(scan);
-    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, scanner);
+    Table<Map<String, String>, String, Map<Long, Long>> resultMap = getTimeSeries(query, table, scan);
 
     incrementMetric("cube.query.request.success.count", 1);
     incrementMetric("cube.query.result.size", resultMap.size());
@@ -374,12 +407,116 @@ public class DefaultCube implements Cube, MeteredDataset {
     return currentBest;
   }
 
-  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactScanner scanner) {
+  private Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries(CubeQuery query, FactTable table,
+                                                                             FactScan scan) {
+    List<FactScan> splits = queryExecutorService == null ?
+      Collections.singletonList(scan) : table.split(scan, queryScanThreads);
+    ScanResult result = splits.size() == 1 ?
+      getTimeSeries(query, table, scan, maxRecordsToScan) : getTimeSeries(query, table, scan, splits);
+    if (result.isTruncated()) {
+      LOG.warn("Scanned the maximum of {} records for query {}, the result only covers the time range up to {}.",
+               maxRecordsToScan, query, result.getLastTimestamp());
+      incrementMetric("cube.query.scan.truncated.count", 1);
+    }
+    return result.getTimeSeries();
+  }
+
+  /**
+   * Scans the given splits of a scan concurrently, and returns the same result as scanning it at once. Each split
+   * scans up to an equal share of the limit on records to scan. The first split that reaches its share is scanned
+   * again, together with all later splits, with the part of the limit left by the earlier splits.
+   */
+  private ScanResult getTimeSeries(CubeQuery query, FactTable table, FactScan scan, List<FactScan> splits) {
+    incrementMetric("cube.query.scan.split.count", splits.size());
+
+    int recordsPerSplit = maxRecordsToScan / splits.size();
+    List<Future<ScanResult>> futures = new ArrayList<>(splits.size());
+    for (FactScan split : splits) {
+      futures.add(queryExecutorService.submit(() -> getTimeSeries(query, table, split, recordsPerSplit)));
+    }
+
     // {dimension values, measure} -> {time -> value}s
     Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
+    RuntimeException failure = null;
+    int records = 0;
+    long lastTimestamp = 0L;
+    FactScan remainingScan = null;
+    // merge in the order of the splits, which is the order in which a single scan reads the records
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        ScanResult splitResult = Uninterruptibles.getUninterruptibly(futures.get(i));
+        if (failure != null || remainingScan != null) {
+          continue;
+        }
+        if (splitResult.isTruncated()) {
+          FactScan split = splits.get(i);
+          remainingScan = new FactScan(split.getStartTs(), scan.getEndTs(),
+                                       scan.getMeasureNames(), scan.getDimensionValues());
+          continue;
+        }
+        merge(query, result, splitResult.getTimeSeries());
+        records += splitResult.getRecords();
+        lastTimestamp = Math.max(lastTimestamp, splitResult.getLastTimestamp());
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = new RuntimeException("Failed to scan for query " + query, e.getCause());
+        } else {
+          failure.addSuppressed(e.getCause());
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    if (remainingScan == null) {
+      return new ScanResult(result, false, lastTimestamp, records);
+    }
+
+    incrementMetric("cube.query.scan.split.rescan.count", 1);
+    ScanResult remaining = getTimeSeries(query, table, remainingScan, maxRecordsToScan - records);
+    merge(query, result, remaining.getTimeSeries());
+    return new ScanResult(result, remaining.isTruncated(), Math.max(lastTimestamp, remaining.getLastTimestamp()),
+                          records + remaining.getRecords());
+  }
+
+  /**
+   * Merges time series into the given ones, aggregating values of the same time.
+   */
+  private void merge(CubeQuery query, Table<Map<String, String>, String, Map<Long, Long>> timeSeries,
+                     Table<Map<String, String>, String, Map<Long, Long>> toMerge) {
+    for (Table.Cell<Map<String, String>, String, Map<Long, Long>> cell : toMerge.cellSet()) {
+      Map<Long, Long> timeValues = timeSeries.get(cell.getRowKey(), cell.getColumnKey());
+      if (timeValues == null) {
+        timeSeries.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue());
+        continue;
+      }
+      AggregationFunction function = query.getMeasurements().get(cell.getColumnKey());
+      for (Map.Entry<Long, Long> timeValue : cell.getValue().entrySet()) {
+        timeValues.put(timeValue.getKey(),
+                       aggregate(function, timeValues.get(timeValue.getKey()), timeValue.getValue()));
+      }
+    }
+  }
+
+  private ScanResult getTimeSeries(CubeQuery query, FactTable table, FactScan scan, int maxRecords) {
+    FactScanner scanner = table.scan(scan);
+    try {
+      return getTimeSeries(query, scanner, maxRecords);
+    } finally {
+      scanner.close();
+    }
+  }
 
+  private ScanResult getTimeSeries(CubeQuery query, FactScanner scanner, int maxRecords) {
+    // {dimension values, measure} -> {time -> value}s
+    Table<Map<String, String>, String, Map<Long, Long>> result = HashBasedTable.create();
     int count = 0;
+    long lastTimestamp = 0L;
+
     while (scanner.hasNext()) {
+      if (count >= maxRecords) {
+        return new ScanResult(result, true, lastTimestamp, count);
+      }
       FactScanResult next = scanner.next();
       incrementMetric("cube.query.scan.records.count", 1);
 
@@ -414,35 +551,35 @@ public class DefaultCube implements Cube, MeteredDataset {
       for (TimeValue timeValue : next) {
         Map<Long, Long> timeValues = result.get(seriesDimensions, next.getMeasureName());
         if (timeValues == null) {
-          result.put(seriesDimensions, next.getMeasureName(), Maps.<Long, Long>newHashMap());
+          timeValues = Maps.newHashMap();
+          result.put(seriesDimensions, next.getMeasureName(), timeValues);
         }
 
         AggregationFunction function = query.getMeasurements().get(next.getMeasureName());
-        if (AggregationFunction.SUM == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value == null ? 0 : value;
-          value += timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MAX == function) {
-          Long value = result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value > timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.MIN == function) {
-          Long value =  result.get(seriesDimensions, next.getMeasureName()).get(timeValue.getTimestamp());
-          value = value != null && value < timeValue.getValue() ? value : timeValue.getValue();
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), value);
-        } else if (AggregationFunction.LATEST == function) {
-          result.get(seriesDimensions, next.getMeasureName()).put(timeValue.getTimestamp(), timeValue.getValue());
-        } else {
-          // should never happen: developer error
-          throw new RuntimeException("Unknown MeasureType: " + function);
-        }
-      }
-      if (++count >= MAX_RECORDS_TO_SCAN) {
-        break;
+        timeValues.put(timeValue.getTimestamp(),
+                       aggregate(function, timeValues.get(timeValue.getTimestamp()), timeValue.getValue()));
+        lastTimestamp = Math.max(lastTimestamp, timeValue.getTimestamp());
       }
+      count++;
     }
-    return result;
+    return new ScanResult(result, false, lastTimestamp, count);
+  }
+
+  /**
+   * Aggregates a value with the current aggregated value of the same time.
+   */
+  private static long aggregate(AggregationFunction function, @Nullable Long current, long value) {
+    if (AggregationFunction.SUM == function) {
+      return current == null ? value : current + value;
+    } else if (AggregationFunction.MAX == function) {
+      return current != null && current > value ? current : value;
+    } else if (AggregationFunction.MIN == function) {
+      return current != null && current < value ? current : value;
+    } else if (AggregationFunction.LATEST == function) {
+      return value;
+    }
+    // should never happen: developer error
+    throw new RuntimeException("Unknown MeasureType: " + function);
   }
 
   private Collection<TimeSeries> convertToQueryResult(
@@ -516,6 +653,9 @@ public class DefaultCube implements Cube, MeteredDataset {
       }
     } finally {
       executorService.shutdown();
+      if (queryExecutorService != null) {
+        queryExecutorService.shutdown();
+      }
     }
   }
 
@@ -540,4 +680,40 @@ public class DefaultCube implements Cube, MeteredDataset {
     }
 
   }
+
+  /**
+   * The time series read by a scan, whether the scan stopped before reading all records, and the number of records
+   * read.
+   */
+  private static final class ScanResult {
+    // {dimension values, measure} -> {time -> value}s
+    private final Table<Map<String, String>, String, Map<Long, Long>> timeSeries;
+    private final boolean truncated;
+    private final long lastTimestamp;
+    private final int records;
+
+    ScanResult(Table<Map<String, String>, String, Map<Long, Long>> timeSeries, boolean truncated,
+               long lastTimestamp, int records) {
+      this.timeSeries = timeSeries;
+      this.truncated = truncated;
+      this.lastTimestamp = lastTimestamp;
+      this.records = records;
+    }
+
+    Table<Map<String, String>, String, Map<Long, Long>> getTimeSeries() {
+      return timeSeries;
+    }
+
+    boolean isTruncated() {
+      return truncated;
+    }
+
+    long getLastTimestamp() {
+      return lastTimestamp;
+    }
+
+    int getRecords() {
+      return records;
+    }
+  }
 }
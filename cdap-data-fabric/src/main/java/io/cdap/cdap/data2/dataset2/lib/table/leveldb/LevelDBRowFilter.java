@@ -0,0 +1,184 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.api.common.Bytes;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An in-memory bloom filter over the row keys of a LevelDB table. The LevelDB implementation used does not support
+ * filter policies, so without this, every read of a row that does not exist has to search all levels of the table.
+ *
+ * The filter is populated by {@link #load(DB)} with the rows that exist in the table, and by {@link #add(byte[])}
+ * with every row before it is written. Until loading completes, every row might be contained. To grow with the
+ * table without ever being rebuilt, the filter consists of bloom filters of increasing capacity, and a row is added
+ * to the last of them. Rows that are deleted stay in the filter until the table is opened again.
+ */
+final class LevelDBRowFilter {
+
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+  private static final int INITIAL_CAPACITY = 16384;
+  private static final int GROWTH_FACTOR = 4;
+
+  private final int bitsPerKey;
+  private final int numHashes;
+  private volatile List<Segment> segments;
+  private volatile boolean loaded;
+
+  LevelDBRowFilter(int bitsPerKey) {
+    this.bitsPerKey = bitsPerKey;
+    // The number of hash functions that minimizes the false positive rate is bitsPerKey * ln(2)
+    this.numHashes = Math.max(1, Math.min(30, (int) Math.round(bitsPerKey * Math.log(2))));
+    this.segments = ImmutableList.of(new Segment(INITIAL_CAPACITY, bitsPerKey));
+  }
+
+  /**
+   * Adds a row to the filter. This must be called before the row is written to the table.
+   */
+  void add(byte[] row) {
+    byte[] hash = HASH_FUNCTION.hashBytes(row).asBytes();
+    long hash1 = Bytes.toLong(hash, 0);
+    long hash2 = Bytes.toLong(hash, Bytes.SIZEOF_LONG);
+
+    List<Segment> segments = this.segments;
+    for (Segment segment : segments) {
+      if (segment.mightContain(hash1, hash2, numHashes)) {
+        return;
+      }
+    }
+    Segment last = segments.get(segments.size() - 1);
+    if (last.put(hash1, hash2, numHashes) > last.capacity) {
+      grow(last);
+    }
+  }
+
+  /**
+   * Returns {@code false} if the table definitely does not contain the given row.
+   */
+  boolean mightContain(byte[] row) {
+    if (!loaded) {
+      return true;
+    }
+    byte[] hash = HASH_FUNCTION.hashBytes(row).asBytes();
+    long hash1 = Bytes.toLong(hash, 0);
+    long hash2 = Bytes.toLong(hash, Bytes.SIZEOF_LONG);
+    for (Segment segment : segments) {
+      if (segment.mightContain(hash1, hash2, numHashes)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds all rows in the given table to the filter, after which the filter is used to exclude rows.
+   */
+  void load(DB db) throws IOException {
+    try (DBIterator iterator = db.iterator()) {
+      iterator.seekToFirst();
+      byte[] previousRow = null;
+      while (iterator.hasNext()) {
+        byte[] row = KeyValue.fromKey(iterator.next().getKey()).getRow();
+        if (previousRow == null || !Bytes.equals(previousRow, row)) {
+          add(row);
+          previousRow = row;
+        }
+      }
+    }
+    loaded = true;
+  }
+
+  @VisibleForTesting
+  boolean isLoaded() {
+    return loaded;
+  }
+
+  private synchronized void grow(Segment last) {
+    List<Segment> segments = this.segments;
+    if (segments.get(segments.size() - 1) != last) {
+      return;
+    }
+    long capacity = Math.min((long) last.capacity * GROWTH_FACTOR, Integer.MAX_VALUE / bitsPerKey);
+    this.segments = ImmutableList.<Segment>builder().addAll(segments).add(new Segment((int) capacity, bitsPerKey))
+      .build();
+  }
+
+  /**
+   * A bloom filter with a fixed capacity. Bits are set atomically, so it can be updated concurrently.
+   */
+  private static final class Segment {
+
+    private final int capacity;
+    private final long numBits;
+    private final AtomicLongArray bits;
+    private final AtomicInteger size;
+
+    Segment(int capacity, int bitsPerKey) {
+      this.capacity = capacity;
+      this.bits = new AtomicLongArray((int) (((long) capacity * bitsPerKey + 63) / 64));
+      this.numBits = bits.length() * 64L;
+      this.size = new AtomicInteger();
+    }
+
+    /**
+     * Sets the bits for the given hash and returns the number of entries added to this segment.
+     */
+    int put(long hash1, long hash2, int numHashes) {
+      boolean changed = false;
+      for (int i = 0; i < numHashes; i++) {
+        long index = index(hash1, hash2, i);
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long value = bits.get(word);
+        while ((value & mask) == 0) {
+          if (bits.compareAndSet(word, value, value | mask)) {
+            changed = true;
+            break;
+          }
+          value = bits.get(word);
+        }
+      }
+      return changed ? size.incrementAndGet() : size.get();
+    }
+
+    boolean mightContain(long hash1, long hash2, int numHashes) {
+      for (int i = 0; i < numHashes; i++) {
+        long index = index(hash1, hash2, i);
+        if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+      // Double hashing, as in "Less Hashing, Same Performance: Building a Better Bloom Filter"
+      long combined = hash1 + i * hash2;
+      return (combined & Long.MAX_VALUE) % numBits;
+    }
+  }
+}
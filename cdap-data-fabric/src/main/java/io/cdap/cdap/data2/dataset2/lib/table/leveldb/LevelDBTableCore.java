@@ -84,6 +84,26 @@ public class LevelDBTableCore {
     return service.getWriteOptions();
   }
 
+  /**
+   * Adds the given rows to the row filter of the table. This must be called before writing to the rows.
+   */
+  private void addToRowFilter(Collection<byte[]> rows) throws IOException {
+    LevelDBRowFilter rowFilter = service.getRowFilter(tableName);
+    if (rowFilter != null) {
+      for (byte[] row : rows) {
+        rowFilter.add(row);
+      }
+    }
+  }
+
+  /**
+   * Returns {@code false} if the table definitely does not contain the given row.
+   */
+  private boolean mightContainRow(byte[] row) throws IOException {
+    LevelDBRowFilter rowFilter = service.getRowFilter(tableName);
+    return rowFilter == null || rowFilter.mightContain(row);
+  }
+
 
   public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
     byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
@@ -107,6 +127,7 @@ public class LevelDBTableCore {
   public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
     Map<byte[], Long> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
 
+    addToRowFilter(Collections.singleton(row));
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
     try (Snapshot snapshot = db.getSnapshot()) {
@@ -131,6 +152,7 @@ public class LevelDBTableCore {
       return;
     }
 
+    addToRowFilter(updates.keySet());
     DB db = getDB();
     WriteBatch writeBatch = db.createWriteBatch();
     try (Snapshot snapshot = db.getSnapshot()) {
@@ -161,6 +183,7 @@ public class LevelDBTableCore {
   }
 
   public void persist(Map<byte[], ? extends Map<byte[], byte[]>> changes, long version) throws IOException {
+    addToRowFilter(changes.keySet());
     DB db = getDB();
     // todo support writing null when no transaction
     WriteBatch batch = db.createWriteBatch();
@@ -174,6 +197,7 @@ public class LevelDBTableCore {
   }
 
   public void put(byte[] row, byte[] column, byte[] value, long version) throws IOException {
+    addToRowFilter(Collections.singleton(row));
     getDB().put(createPutKey(row, column, version), value);
   }
 
@@ -223,6 +247,10 @@ public class LevelDBTableCore {
       Arrays.sort(columns, Bytes.BYTES_COMPARATOR);
       limit = columns.length;
     }
+    // Avoid searching the table for rows that don't exist
+    if (!mightContainRow(row)) {
+      return new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    }
 
     byte[] startKey = createStartKey(row, columns == null ? startCol : columns[0]);
     byte[] endKey = createEndKey(row, columns == null ? stopCol : upperBound(columns[columns.length - 1]));
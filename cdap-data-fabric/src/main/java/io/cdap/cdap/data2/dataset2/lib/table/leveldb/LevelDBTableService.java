@@ -28,6 +28,7 @@ import com.google.inject.Singleton;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.data2.util.TableId;
+import org.apache.twill.common.Threads;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBComparator;
 import org.iq80.leveldb.Options;
@@ -43,6 +44,11 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -58,9 +64,15 @@ public class LevelDBTableService implements AutoCloseable {
   private long cacheSize;
   private String basePath;
   private WriteOptions writeOptions;
+  private int rowFilterBitsPerKey;
   private boolean isClosed;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  private final ConcurrentMap<String, LevelDBRowFilter> rowFilters = Maps.newConcurrentMap();
+  // Loads row filters in the background. The thread terminates when there is nothing to load for a while.
+  private final ExecutorService rowFilterLoader =
+    new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                           Threads.createDaemonThreadFactory("leveldb-row-filter-loader"));
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -90,6 +102,8 @@ public class LevelDBTableService implements AutoCloseable {
     cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
     writeOptions = new WriteOptions().sync(
       config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, Constants.DEFAULT_DATA_LEVELDB_FSYNC));
+    rowFilterBitsPerKey = config.getInt(Constants.CFG_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY,
+                                        Constants.DEFAULT_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY);
   }
 
   /**
@@ -100,6 +114,7 @@ public class LevelDBTableService implements AutoCloseable {
       Closeables.closeQuietly(entries);
     }
     tables.clear();
+    rowFilters.clear();
   }
 
   private void ensureOpen() {
@@ -108,6 +123,7 @@ public class LevelDBTableService implements AutoCloseable {
 
   public void close() {
     isClosed = true;
+    rowFilterLoader.shutdownNow();
     clearTables();
   }
 
@@ -186,6 +202,40 @@ public class LevelDBTableService implements AutoCloseable {
     return db;
   }
 
+  /**
+   * Returns the filter over the row keys of the given table, or {@code null} if row filters are disabled.
+   * The filter is loaded in the background when it is first requested, and it must be updated with every row
+   * before the row is written to the table.
+   */
+  @Nullable
+  LevelDBRowFilter getRowFilter(String tableName) throws IOException {
+    if (rowFilterBitsPerKey <= 0) {
+      return null;
+    }
+    LevelDBRowFilter filter = rowFilters.get(tableName);
+    if (filter != null) {
+      return filter;
+    }
+    DB db = getTable(tableName);
+    synchronized (tables) {
+      filter = rowFilters.get(tableName);
+      if (filter == null) {
+        filter = new LevelDBRowFilter(rowFilterBitsPerKey);
+        rowFilters.put(tableName, filter);
+        LevelDBRowFilter loadFilter = filter;
+        rowFilterLoader.execute(() -> {
+          try {
+            loadFilter.load(db);
+          } catch (Exception e) {
+            // The filter is not used for excluding rows if it is not loaded
+            LOG.warn("Failed to load the row filter of LevelDB table {}", tableName, e);
+          }
+        });
+      }
+    }
+    return filter;
+  }
+
   public void ensureTableExists(String tableName) throws IOException {
     ensureOpen();
     DB db = tables.get(tableName);
@@ -238,6 +288,7 @@ public class LevelDBTableService implements AutoCloseable {
 
   public void dropTable(String name) throws IOException {
     ensureOpen();
+    rowFilters.remove(name);
     DB db = tables.remove(name);
     if (db != null) {
       db.close();
@@ -19,8 +19,12 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.api.dataset.table.Row;
+import io.cdap.cdap.api.dataset.table.Scanner;
+import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +48,10 @@ import javax.annotation.Nullable;
  * <h5>Entity mapping rows</h5>
  * Each entity would have two rows. One is keyed by {@code [type].[entityName]} and have one "id" column which
  * stores the unique ID. The other is a reverse map from {@code [type].id} to entity name in "name" column.
+ *
+ * <h5>Caches</h5>
+ * The mappings in both directions are cached, each cache holding at most a configurable number of entries with the
+ * least recently used ones being evicted first.
  */
 public final class EntityTable implements Closeable {
 
@@ -54,22 +62,34 @@ public final class EntityTable implements Closeable {
   private static final byte[] NAME = Bytes.toBytes("name");
   private static final byte[] DOT = { '.' };
   // max number of distinct values of entity of a single type
-  private static final long MAX_ID_COUNT = 0x1000000L;
+  public static final long MAX_ID_COUNT = 0x1000000L;
+  // default max number of entries in each of the caches
+  private static final int DEFAULT_CACHE_SIZE = 100000;
 
   private final MetricsTable table;
   private final LoadingCache<EntityName, Long> entityCache;
   private final LoadingCache<EntityId, EntityName> idCache;
   private final long maxId;
   private final int size;
-
+  private CacheStats lastEntityCacheStats;
+  private CacheStats lastIdCacheStats;
 
   /**
-   * Creates an EntityTable with max id = 16777215.
+   * Creates an EntityTable with max id = 16777215 and caches of 100000 entries.
    *
-   * See {@link #EntityTable(MetricsTable, long)}.
+   * See {@link #EntityTable(MetricsTable, long, int)}.
    */
   public EntityTable(MetricsTable table) {
-    this(table, MAX_ID_COUNT);
+    this(table, MAX_ID_COUNT, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates an EntityTable with caches of 100000 entries.
+   *
+   * See {@link #EntityTable(MetricsTable, long, int)}.
+   */
+  EntityTable(MetricsTable table, long maxId) {
+    this(table, maxId, DEFAULT_CACHE_SIZE);
   }
 
   /**
@@ -77,16 +97,22 @@ public final class EntityTable implements Closeable {
    *
    * @param table The storage table
    * @param maxId Maximum ID (exclusive) that can be generated.
+   * @param cacheSize Maximum number of entries in each of the name to ID and ID to name caches.
    */
-  EntityTable(MetricsTable table, long maxId) {
+  public EntityTable(MetricsTable table, long maxId, int cacheSize) {
     Preconditions.checkArgument(table != null, "Table cannot be null.");
     Preconditions.checkArgument(maxId > 0, "maxId must be > 0.");
+    Preconditions.checkArgument(cacheSize > 0, "cacheSize must be > 0.");
 
     this.table = table;
-    this.entityCache = CacheBuilder.newBuilder().build(createEntityCacheLoader());
-    this.idCache = CacheBuilder.newBuilder().build(createIdCacheLoader());
+    this.entityCache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats()
+      .build(createEntityCacheLoader());
+    this.idCache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats()
+      .build(createIdCacheLoader());
     this.maxId = maxId;
     this.size = computeSize(maxId);
+    this.lastEntityCacheStats = entityCache.stats();
+    this.lastIdCacheStats = idCache.stats();
   }
 
   /**
@@ -127,6 +153,55 @@ public final class EntityTable implements Closeable {
     return size;
   }
 
+  /**
+   * Loads up to the given number of mappings into the caches with a single scan of the table, so that they don't
+   * have to be looked up one by one afterwards. Mappings are loaded in the order of their type and then their ID.
+   *
+   * @param limit the maximum number of mappings to load
+   * @return the number of mappings loaded
+   */
+  public int warmUp(int limit) {
+    int count = 0;
+    try (Scanner scanner = table.scan(null, null, null)) {
+      Row row;
+      while (count < limit && (row = scanner.next()) != null) {
+        // only the reverse mapping rows, which are keyed by [type].[id], have the "name" column
+        byte[] name = row.get(NAME);
+        byte[] rowKey = row.getRow();
+        int typeLength = rowKey.length - Bytes.SIZEOF_LONG - 1;
+        if (name == null || typeLength < 0 || rowKey[typeLength] != DOT[0]) {
+          continue;
+        }
+        EntityName entityName = new EntityName(Bytes.toString(rowKey, 0, typeLength), Bytes.toString(name));
+        long id = Bytes.toLong(rowKey, typeLength + 1);
+        entityCache.put(entityName, id);
+        idCache.put(new EntityId(id, entityName.getType()), entityName);
+        count++;
+      }
+    }
+    LOG.debug("Loaded {} entity mappings from table {}", count, table);
+    return count;
+  }
+
+  /**
+   * Emits the cache hit, miss and eviction counts since the last call of this method to the given collector.
+   */
+  public synchronized void emitCacheMetrics(MetricsCollector metrics) {
+    CacheStats stats = entityCache.stats();
+    emitCacheMetrics(metrics, "entityTable.entity.cache", stats.minus(lastEntityCacheStats));
+    lastEntityCacheStats = stats;
+
+    stats = idCache.stats();
+    emitCacheMetrics(metrics, "entityTable.id.cache", stats.minus(lastIdCacheStats));
+    lastIdCacheStats = stats;
+  }
+
+  private void emitCacheMetrics(MetricsCollector metrics, String prefix, CacheStats stats) {
+    metrics.increment(prefix + ".hit.count", stats.hitCount());
+    metrics.increment(prefix + ".miss.count", stats.missCount());
+    metrics.increment(prefix + ".eviction.count", stats.evictionCount());
+  }
+
   private CacheLoader<EntityName, Long> createEntityCacheLoader() {
     return new CacheLoader<EntityName, Long>() {
       @Override
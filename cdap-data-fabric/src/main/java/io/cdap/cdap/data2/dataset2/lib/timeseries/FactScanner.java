@@ -42,6 +42,8 @@ public final class FactScanner implements Iterator<FactScanResult> {
   private final long startTs;
   private final long endTs;
 
+  private boolean closed;
+
   // Track the number of row scanned through the iterator. It's for reporting and debugging purpose.
   private int rowScanned;
 
@@ -64,7 +66,10 @@ public final class FactScanner implements Iterator<FactScanResult> {
   }
 
   public void close() {
-    scanner.close();
+    if (!closed) {
+      closed = true;
+      scanner.close();
+    }
   }
 
   public int getRowScanned() {
@@ -133,7 +138,7 @@ public final class FactScanner implements Iterator<FactScanResult> {
           return new FactScanResult(measureName, dimensionValues, timeValues);
         }
 
-        scanner.close();
+        FactScanner.this.close();
         return endOfData();
       }
     };
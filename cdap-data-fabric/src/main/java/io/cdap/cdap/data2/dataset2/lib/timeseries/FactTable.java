@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.math.LongMath;
 import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.api.dataset.lib.cube.DimensionValue;
 import io.cdap.cdap.api.dataset.lib.cube.MeasureType;
@@ -65,6 +66,8 @@ public final class FactTable implements Closeable {
   // hard limits on some ops to stay on safe side
   private static final int MAX_RECORDS_TO_SCAN_DURING_SEARCH = 10 * 1000 * 1000;
   private static final int MAX_SCANS_DURING_SEARCH = 10 * 1000;
+  // smallest number of data points, in the table resolution, covered by a split of a scan
+  private static final int MIN_POINTS_PER_SPLIT = 1440;
 
   private final MetricsTable timeSeriesTable;
   private final EntityTable entityTable;
@@ -172,6 +175,7 @@ public final class FactTable implements Closeable {
     if (metrics != null) {
       metrics.increment(putCountMetric, gaugesTable.size());
       metrics.increment(incrementCountMetric, incrementsTable.size());
+      entityTable.emitCacheMetrics(metrics);
     }
   }
 
@@ -189,9 +193,50 @@ public final class FactTable implements Closeable {
   }
 
   public FactScanner scan(FactScan scan) {
+    if (metrics != null) {
+      entityTable.emitCacheMetrics(metrics);
+    }
     return new FactScanner(getScanner(scan), codec, scan.getStartTs(), scan.getEndTs(), scan.getMeasureNames());
   }
 
+  /**
+   * Splits the given scan into scans over consecutive time ranges. Since the time base follows the aggregation group
+   * in the row key, every split covers whole rows and hence scans a disjoint row key range. A split covers at least
+   * {@link #MIN_POINTS_PER_SPLIT} data points, so that short scans are not split.
+   *
+   * @param scan the scan to split
+   * @param maxSplits maximum number of splits
+   * @return the splits, ordered by time; it contains only the given scan if the time range is too small to split
+   */
+  public List<FactScan> split(FactScan scan, int maxSplits) {
+    // the totals table has a single time base
+    if (resolution == Integer.MAX_VALUE) {
+      return Collections.singletonList(scan);
+    }
+
+    // Row time bases are multiples of the roll time, and timestamps are multiples of the resolution, hence
+    // multiples of both always start a new row
+    long rowInterval = (long) resolution / LongMath.gcd(resolution, rollTime) * rollTime;
+    long startRow = scan.getStartTs() / rowInterval * rowInterval;
+    long endRow = scan.getEndTs() / rowInterval * rowInterval;
+    long rows = (endRow - startRow) / rowInterval + 1;
+    long minRowsPerSplit = Math.max(1L, (long) MIN_POINTS_PER_SPLIT * resolution / rowInterval);
+    int splits = (int) Math.min(maxSplits, rows / minRowsPerSplit);
+    if (splits <= 1) {
+      return Collections.singletonList(scan);
+    }
+
+    long splitInterval = (rows + splits - 1) / splits * rowInterval;
+    List<FactScan> result = new ArrayList<>(splits);
+    long startTs = scan.getStartTs();
+    for (long splitStart = startRow + splitInterval; splitStart <= endRow; splitStart += splitInterval) {
+      result.add(new FactScan(startTs, splitStart - 1, scan.getMeasureNames(), scan.getDimensionValues()));
+      startTs = splitStart;
+    }
+    result.add(new FactScan(startTs, scan.getEndTs(), scan.getMeasureNames(), scan.getDimensionValues()));
+    return result;
+  }
+
   private List<String> getSortedMeasures(Collection<String> measures) {
     Map<String, Long> measureToEntityMap = new HashMap<>();
     List<String> measureNames = new ArrayList<>();
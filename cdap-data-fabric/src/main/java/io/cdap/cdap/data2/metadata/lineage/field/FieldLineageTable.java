@@ -43,6 +43,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -55,6 +56,11 @@ import javax.annotation.Nullable;
 
 /**
  * Dataset to store/retrieve field level lineage information.
+ *
+ * Besides the summaries stored once per distinct lineage checksum, the summaries of every endpoint field are also
+ * merged into one row per day as runs are added. Summary queries read these daily rows for the whole days in the
+ * requested range, and only look at individual runs for the partial days at either end of the range, or for days
+ * before the endpoint's daily rows started being maintained.
  */
 public class FieldLineageTable {
 
@@ -65,6 +71,7 @@ public class FieldLineageTable {
 
   private static final String INCOMING_DIRECTION_MARKER = "i";
   private static final String OUTGOING_DIRECTION_MARKER = "o";
+  private static final long BUCKET_MILLIS = TimeUnit.DAYS.toMillis(1);
 
   private static final Type SET_FIELD_TYPE = new TypeToken<HashSet<String>>() { }.getType();
   private static final Type SET_ENDPOINT_FIELD_TYPE = new TypeToken<HashSet<EndPointField>>() { }.getType();
@@ -75,6 +82,8 @@ public class FieldLineageTable {
   private StructuredTable operationsTable;
   private StructuredTable destinationFieldsTable;
   private StructuredTable summaryFieldsTable;
+  private StructuredTable summaryBucketsTable;
+  private StructuredTable summaryBucketsStartTable;
 
   private FieldLineageTable(StructuredTableContext structuredTableContext) {
     this.structuredTableContext = structuredTableContext;
@@ -123,6 +132,22 @@ public class FieldLineageTable {
     return summaryFieldsTable;
   }
 
+  private StructuredTable getSummaryBucketsTable() {
+    if (summaryBucketsTable == null) {
+      summaryBucketsTable =
+        structuredTableContext.getTable(StoreDefinition.FieldLineageStore.SUMMARY_BUCKETS_TABLE);
+    }
+    return summaryBucketsTable;
+  }
+
+  private StructuredTable getSummaryBucketsStartTable() {
+    if (summaryBucketsStartTable == null) {
+      summaryBucketsStartTable =
+        structuredTableContext.getTable(StoreDefinition.FieldLineageStore.SUMMARY_BUCKETS_START_TABLE);
+    }
+    return summaryBucketsStartTable;
+  }
+
   /**
    * Store the field lineage information.
    *
@@ -142,6 +167,12 @@ public class FieldLineageTable {
       addSummary(checksum, OUTGOING_DIRECTION_MARKER, info.getOutgoingSummary());
     }
 
+    // buckets need to be updated before the reference records are added, since the reference records of
+    // previous runs decide when the buckets of an endpoint start
+    long runTime = RunIds.getTime(RunIds.fromString(programRunId.getEntityName()), TimeUnit.MILLISECONDS);
+    addSummaryBuckets(INCOMING_DIRECTION_MARKER, runTime, info.getIncomingSummary());
+    addSummaryBuckets(OUTGOING_DIRECTION_MARKER, runTime, info.getOutgoingSummary());
+
     addFieldLineageInfoReferenceRecords(programRunId, info);
   }
 
@@ -151,6 +182,8 @@ public class FieldLineageTable {
     getDestinationFieldsTable().deleteAll(Range.all());
     getOperationsTable().deleteAll(Range.all());
     getSummaryFieldsTable().deleteAll(Range.all());
+    getSummaryBucketsTable().deleteAll(Range.all());
+    getSummaryBucketsStartTable().deleteAll(Range.all());
   }
 
   @Nullable
@@ -177,6 +210,78 @@ public class FieldLineageTable {
     }
   }
 
+  private void addSummaryBuckets(String direction, long runTime,
+                                 Map<EndPointField, Set<EndPointField>> summary) throws IOException {
+    long bucket = getBucket(runTime);
+    Map<EndPoint, Long> bucketsStart = new HashMap<>();
+    for (Map.Entry<EndPointField, Set<EndPointField>> entry : summary.entrySet()) {
+      EndPoint endPoint = entry.getKey().getEndPoint();
+      Long start = bucketsStart.get(endPoint);
+      if (start == null) {
+        start = getOrCreateBucketsStart(direction, endPoint, bucket);
+        bucketsStart.put(endPoint, start);
+      }
+      // buckets before the start are never read
+      if (bucket < start) {
+        continue;
+      }
+
+      List<Field<?>> keys = getSummaryBucketKey(direction, entry.getKey(), bucket);
+      Set<EndPointField> merged = new HashSet<>();
+      Optional<StructuredRow> row = getSummaryBucketsTable().read(keys);
+      if (row.isPresent()) {
+        Set<EndPointField> existing = parseEndPointFields(
+          row.get().getString(StoreDefinition.FieldLineageStore.DESTINATION_DATA_FIELD), bucket);
+        if (existing != null) {
+          if (existing.containsAll(entry.getValue())) {
+            continue;
+          }
+          merged.addAll(existing);
+        }
+      }
+      merged.addAll(entry.getValue());
+      keys.add(Fields.stringField(StoreDefinition.FieldLineageStore.DESTINATION_DATA_FIELD, GSON.toJson(merged)));
+      getSummaryBucketsTable().upsert(keys);
+    }
+  }
+
+  /**
+   * Get the first bucket that contains the complete summaries of the given endpoint, creating it if the endpoint
+   * does not have one yet. If the endpoint already has runs, which were added before buckets were maintained,
+   * buckets start after the day of the latest of those runs. Those days are only covered by the per run summaries.
+   */
+  private long getOrCreateBucketsStart(String direction, EndPoint endPoint, long bucket) throws IOException {
+    List<Field<?>> keys = new ArrayList<>();
+    keys.add(Fields.stringField(StoreDefinition.FieldLineageStore.DIRECTION_FIELD, direction));
+    addEndPoint(keys, endPoint);
+    Optional<StructuredRow> row = getSummaryBucketsStartTable().read(keys);
+    if (row.isPresent()) {
+      return row.get().getLong(StoreDefinition.FieldLineageStore.BUCKET_TIME_FIELD);
+    }
+
+    long start = bucket;
+    // time is inverted, so the first reference record is the one for the latest run
+    try (CloseableIterator<StructuredRow> iterator =
+      getEndpointChecksumTable().scan(Range.singleton(new ArrayList<>(keys)), 1)) {
+      if (iterator.hasNext()) {
+        long latestRunTime = invertTime(iterator.next().getLong(StoreDefinition.FieldLineageStore.START_TIME_FIELD));
+        start = Math.max(start, getBucket(latestRunTime) + BUCKET_MILLIS);
+      }
+    }
+    keys.add(Fields.longField(StoreDefinition.FieldLineageStore.BUCKET_TIME_FIELD, start));
+    getSummaryBucketsStartTable().upsert(keys);
+    return start;
+  }
+
+  @Nullable
+  private Long readBucketsStart(String direction, EndPoint endPoint) throws IOException {
+    List<Field<?>> keys = new ArrayList<>();
+    keys.add(Fields.stringField(StoreDefinition.FieldLineageStore.DIRECTION_FIELD, direction));
+    addEndPoint(keys, endPoint);
+    Optional<StructuredRow> row = getSummaryBucketsStartTable().read(keys);
+    return row.map(r -> r.getLong(StoreDefinition.FieldLineageStore.BUCKET_TIME_FIELD)).orElse(null);
+  }
+
   /**
    * Add records referring to the common operation record having the given checksum.
    * Operations represent transformations from source endpoints to the destination endpoints.
@@ -307,6 +412,58 @@ public class FieldLineageTable {
   }
 
   private Set<EndPointField> getSummary(String direction, EndPointField endPointField, long start, long end)
+    throws IOException {
+    Long bucketsStart = readBucketsStart(direction, endPointField.getEndPoint());
+    // only whole days can be read from the buckets
+    long firstBucket = Math.max(bucketsStart == null ? Long.MAX_VALUE : bucketsStart,
+                                start == getBucket(start) ? start : getBucket(start) + BUCKET_MILLIS);
+    long endBucket = getBucket(end);
+    if (firstBucket >= endBucket) {
+      return getSummaryFromRuns(direction, endPointField, start, end);
+    }
+
+    Set<EndPointField> result = getSummaryFromBuckets(direction, endPointField, firstBucket, endBucket);
+    if (start < firstBucket) {
+      result.addAll(getSummaryFromRuns(direction, endPointField, start, firstBucket));
+    }
+    if (endBucket < end) {
+      result.addAll(getSummaryFromRuns(direction, endPointField, endBucket, end));
+    }
+    return result;
+  }
+
+  private Set<EndPointField> getSummaryFromBuckets(String direction, EndPointField endPointField,
+                                                   long firstBucket, long endBucket) throws IOException {
+    List<Field<?>> scanStartKey = getSummaryBucketKey(direction, endPointField, firstBucket);
+    List<Field<?>> scanEndKey = getSummaryBucketKey(direction, endPointField, endBucket);
+    Set<EndPointField> result = new HashSet<>();
+    try (CloseableIterator<StructuredRow> iterator =
+      getSummaryBucketsTable().scan(
+        Range.create(scanStartKey, Range.Bound.INCLUSIVE, scanEndKey, Range.Bound.EXCLUSIVE), Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        StructuredRow row = iterator.next();
+        Set<EndPointField> endPointFields =
+          parseEndPointFields(row.getString(StoreDefinition.FieldLineageStore.DESTINATION_DATA_FIELD),
+                              row.getLong(StoreDefinition.FieldLineageStore.BUCKET_TIME_FIELD));
+        if (endPointFields != null) {
+          result.addAll(endPointFields);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Nullable
+  private Set<EndPointField> parseEndPointFields(String value, long bucket) {
+    try {
+      return GSON.fromJson(value, SET_ENDPOINT_FIELD_TYPE);
+    } catch (JsonSyntaxException e) {
+      LOG.warn(String.format("Failed to parse json from summary bucket %d.", bucket));
+      return null;
+    }
+  }
+
+  private Set<EndPointField> getSummaryFromRuns(String direction, EndPointField endPointField, long start, long end)
     throws IOException {
     Set<Long> checksums = getChecksumsWithProgramRunsInRange(direction, endPointField.getEndPoint(),
                                                              start, end).keySet();
@@ -454,6 +611,19 @@ public class FieldLineageTable {
     return fields;
   }
 
+  private long getBucket(long time) {
+    return time - Math.floorMod(time, BUCKET_MILLIS);
+  }
+
+  private List<Field<?>> getSummaryBucketKey(String direction, EndPointField endPointField, long bucket) {
+    List<Field<?>> fields = new ArrayList<>();
+    fields.add(Fields.stringField(StoreDefinition.FieldLineageStore.DIRECTION_FIELD, direction));
+    addEndPoint(fields, endPointField.getEndPoint());
+    fields.add(Fields.stringField(StoreDefinition.FieldLineageStore.ENDPOINT_FIELD, endPointField.getField()));
+    fields.add(Fields.longField(StoreDefinition.FieldLineageStore.BUCKET_TIME_FIELD, bucket));
+    return fields;
+  }
+
   private long invertTime(long time) {
     return Long.MAX_VALUE - time;
   }
@@ -351,6 +351,12 @@ public final class StoreDefinition {
     public static final String KEY_TYPE = "type";
     public static final String PROVISIONER_TASK_INFO_FIELD = "provisioner_task_info";
 
+    public static final StructuredTableId CLUSTER_POOL_TABLE = new StructuredTableId("provisioner_cluster_pool");
+    public static final String POOL_KEY_FIELD = "pool_key";
+    public static final String CLUSTER_NAME_FIELD = "cluster_name";
+    public static final String EXPIRY_TIME_FIELD = "expiry_time";
+    public static final String POOLED_CLUSTER_FIELD = "pooled_cluster";
+
     public static final StructuredTableSpecification PROVISIONER_STORE_SPEC = new StructuredTableSpecification.Builder()
       .withId(PROVISIONER_TABLE)
       .withFields(Fields.stringType(NAMESPACE_FIELD),
@@ -365,11 +371,23 @@ public final class StoreDefinition {
                        PROGRAM_TYPE_FIELD, PROGRAM_FIELD, RUN_FIELD, KEY_TYPE)
       .build();
 
+    public static final StructuredTableSpecification CLUSTER_POOL_SPEC = new StructuredTableSpecification.Builder()
+      .withId(CLUSTER_POOL_TABLE)
+      .withFields(Fields.stringType(POOL_KEY_FIELD),
+                  Fields.stringType(CLUSTER_NAME_FIELD),
+                  Fields.longType(EXPIRY_TIME_FIELD),
+                  Fields.stringType(POOLED_CLUSTER_FIELD))
+      .withPrimaryKeys(POOL_KEY_FIELD, CLUSTER_NAME_FIELD)
+      .build();
+
     public static void createTable(StructuredTableAdmin tableAdmin,
                                    boolean overWrite) throws IOException, TableAlreadyExistsException {
       if (overWrite || tableAdmin.getSpecification(PROVISIONER_TABLE) == null) {
         tableAdmin.create(PROVISIONER_STORE_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(CLUSTER_POOL_TABLE) == null) {
+        tableAdmin.create(CLUSTER_POOL_SPEC);
+      }
     }
   }
   /**
@@ -960,6 +978,9 @@ public final class StoreDefinition {
     public static final StructuredTableId OPERATIONS_TABLE = new StructuredTableId("operations_table");
     public static final StructuredTableId DESTINATION_FIELDS_TABLE = new StructuredTableId("destination_fields_table");
     public static final StructuredTableId SUMMARY_FIELDS_TABLE = new StructuredTableId("summary_fields_table");
+    public static final StructuredTableId SUMMARY_BUCKETS_TABLE = new StructuredTableId("summary_buckets_table");
+    public static final StructuredTableId SUMMARY_BUCKETS_START_TABLE =
+      new StructuredTableId("summary_buckets_start_table");
 
     public static final String DIRECTION_FIELD = "direction";
     public static final String ENDPOINT_NAMESPACE_FIELD = "endpoint_namespace";
@@ -970,6 +991,7 @@ public final class StoreDefinition {
     public static final String OPERATIONS_FIELD = "operations";
     public static final String DESTINATION_DATA_FIELD = "destination_data";
     public static final String ENDPOINT_FIELD = "endpoint_field";
+    public static final String BUCKET_TIME_FIELD = "bucket_time";
 
     public static final StructuredTableSpecification ENDPOINT_CHECKSUM_SPEC =
       new StructuredTableSpecification.Builder()
@@ -1010,6 +1032,27 @@ public final class StoreDefinition {
         .withPrimaryKeys(CHECKSUM_FIELD, DIRECTION_FIELD, ENDPOINT_NAMESPACE_FIELD, ENDPOINT_NAME_FIELD,
                          ENDPOINT_FIELD)
         .build();
+    public static final StructuredTableSpecification SUMMARY_BUCKETS_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SUMMARY_BUCKETS_TABLE)
+        .withFields(Fields.stringType(DIRECTION_FIELD),
+                    Fields.stringType(ENDPOINT_NAMESPACE_FIELD),
+                    Fields.stringType(ENDPOINT_NAME_FIELD),
+                    Fields.stringType(ENDPOINT_FIELD),
+                    Fields.longType(BUCKET_TIME_FIELD),
+                    Fields.stringType(DESTINATION_DATA_FIELD))
+        .withPrimaryKeys(DIRECTION_FIELD, ENDPOINT_NAMESPACE_FIELD, ENDPOINT_NAME_FIELD, ENDPOINT_FIELD,
+                         BUCKET_TIME_FIELD)
+        .build();
+    public static final StructuredTableSpecification SUMMARY_BUCKETS_START_SPEC =
+      new StructuredTableSpecification.Builder()
+        .withId(SUMMARY_BUCKETS_START_TABLE)
+        .withFields(Fields.stringType(DIRECTION_FIELD),
+                    Fields.stringType(ENDPOINT_NAMESPACE_FIELD),
+                    Fields.stringType(ENDPOINT_NAME_FIELD),
+                    Fields.longType(BUCKET_TIME_FIELD))
+        .withPrimaryKeys(DIRECTION_FIELD, ENDPOINT_NAMESPACE_FIELD, ENDPOINT_NAME_FIELD)
+        .build();
 
     public static void createTables(StructuredTableAdmin tableAdmin,
                                     boolean overWrite) throws IOException, TableAlreadyExistsException {
@@ -1025,6 +1068,12 @@ public final class StoreDefinition {
       if (overWrite || tableAdmin.getSpecification(SUMMARY_FIELDS_TABLE) == null) {
         tableAdmin.create(SUMMARY_FIELDS_SPEC);
       }
+      if (overWrite || tableAdmin.getSpecification(SUMMARY_BUCKETS_TABLE) == null) {
+        tableAdmin.create(SUMMARY_BUCKETS_SPEC);
+      }
+      if (overWrite || tableAdmin.getSpecification(SUMMARY_BUCKETS_START_TABLE) == null) {
+        tableAdmin.create(SUMMARY_BUCKETS_START_SPEC);
+      }
     }
   }
 
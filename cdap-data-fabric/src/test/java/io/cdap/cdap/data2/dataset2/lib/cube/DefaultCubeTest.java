@@ -16,14 +16,23 @@
 
 package io.cdap.cdap.data2.dataset2.lib.cube;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
 import io.cdap.cdap.api.dataset.lib.cube.Cube;
+import io.cdap.cdap.api.dataset.lib.cube.CubeQuery;
+import io.cdap.cdap.api.dataset.lib.cube.TimeSeries;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.EntityTable;
 import io.cdap.cdap.data2.dataset2.lib.timeseries.FactTable;
+import org.junit.Assert;
+import org.junit.Test;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -32,6 +41,108 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
   @Override
   protected Cube getCube(final String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations) {
+    return getCube(name, resolutions, aggregations, 1);
+  }
+
+  @Test
+  public void testParallelQuery() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    int resolution = 60;
+    Cube sequentialCube = getCube("sequentialCube", new int[] {resolution}, ImmutableMap.of("agg", agg), 1);
+    Cube parallelCube = getCube("parallelCube", new int[] {resolution}, ImmutableMap.of("agg", agg), 4);
+
+    // write a value every 30 minutes for 10 days, for different dimension values
+    long ts = 1000 * 3600;
+    for (int i = 0; i < 480; i++) {
+      for (int j = 0; j < 6; j++) {
+        String dim1 = j % 2 == 0 ? "a" : "b";
+        String dim2 = String.valueOf(j % 3);
+        writeInc(sequentialCube, "metric1", ts + i * 1800, i + j, dim1, dim2);
+        writeInc(parallelCube, "metric1", ts + i * 1800, i + j, dim1, dim2);
+      }
+    }
+
+    for (AggregationFunction function : AggregationFunction.values()) {
+      CubeQuery query = CubeQuery.builder()
+        .select()
+          .measurement("metric1", function)
+        .from("agg").resolution(resolution, TimeUnit.SECONDS)
+        .where()
+          .dimensions(ImmutableMap.of())
+          .timeRange(ts + 100, ts + 480 * 1800)
+        .groupBy()
+          .dimensions(ImmutableList.of("dim1"))
+        .limit(Integer.MAX_VALUE)
+        .build();
+
+      Collection<TimeSeries> expected = sequentialCube.query(query);
+      Collection<TimeSeries> result = parallelCube.query(query);
+      Assert.assertEquals(2, result.size());
+      Assert.assertEquals(ImmutableSet.copyOf(expected), ImmutableSet.copyOf(result));
+      for (TimeSeries timeSeries : result) {
+        Assert.assertEquals(479, timeSeries.getTimeValues().size());
+      }
+    }
+  }
+
+  @Test
+  public void testParallelQueryLimit() throws Exception {
+    Aggregation agg = new DefaultAggregation(ImmutableList.of("dim1", "dim2"));
+    int resolution = 60;
+    // The query is split into scans of 61, 61, 76 and 342 records, since most records are in the last hours
+    for (int maxRecords : new int[] { 600, 400, 200 }) {
+      Cube sequentialCube = getCube("sequentialLimit" + maxRecords, new int[] {resolution},
+                                    ImmutableMap.of("agg", agg), 1, maxRecords);
+      Cube parallelCube = getCube("parallelLimit" + maxRecords, new int[] {resolution},
+                                  ImmutableMap.of("agg", agg), 4, maxRecords);
+
+      // write a value every 30 minutes for 10 days, for one dimension value in the first 180 hours and six after
+      long ts = 1000 * 3600;
+      for (int i = 0; i < 480; i++) {
+        for (int j = 0; j < (i < 360 ? 1 : 6); j++) {
+          String dim1 = j % 2 == 0 ? "a" : "b";
+          String dim2 = String.valueOf(j % 3);
+          writeInc(sequentialCube, "metric1", ts + i * 1800, i + j, dim1, dim2);
+          writeInc(parallelCube, "metric1", ts + i * 1800, i + j, dim1, dim2);
+        }
+      }
+
+      CubeQuery query = CubeQuery.builder()
+        .select()
+          .measurement("metric1", AggregationFunction.SUM)
+        .from("agg").resolution(resolution, TimeUnit.SECONDS)
+        .where()
+          .dimensions(ImmutableMap.of())
+          .timeRange(ts + 100, ts + 480 * 1800)
+        .groupBy()
+          .dimensions(ImmutableList.of("dim1", "dim2"))
+        .limit(Integer.MAX_VALUE)
+        .build();
+
+      // splits reaching their share of the limit don't change the result, whether it is truncated or not
+      Collection<TimeSeries> expected = sequentialCube.query(query);
+      Collection<TimeSeries> result = parallelCube.query(query);
+      Assert.assertEquals(ImmutableSet.copyOf(expected), ImmutableSet.copyOf(result));
+      int points = 0;
+      for (TimeSeries timeSeries : result) {
+        points += timeSeries.getTimeValues().size();
+      }
+      // 479 points for the first dimension values and 120 for each of the 5 others, if not truncated
+      if (maxRecords == 600) {
+        Assert.assertEquals(1079, points);
+      } else {
+        Assert.assertTrue(points < 1079);
+      }
+    }
+  }
+
+  private Cube getCube(String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations,
+                       int queryScanThreads) {
+    return getCube(name, resolutions, aggregations, queryScanThreads, 100 * 1000);
+  }
+
+  private Cube getCube(String name, int[] resolutions, Map<String, ? extends Aggregation> aggregations,
+                       int queryScanThreads, int maxRecordsToScan) {
     FactTableSupplier supplier = (resolution, rollTime) -> {
       String entityTableName = "EntityTable-" + name;
       InMemoryTableService.create(entityTableName);
@@ -43,6 +154,7 @@ public class DefaultCubeTest extends AbstractCubeTest {
 
     };
 
-    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of());
+    return new DefaultCube(resolutions, supplier, aggregations, ImmutableMap.<String, AggregationAlias>of(),
+                           queryScanThreads, maxRecordsToScan);
   }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.Tasks;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of reading existing and missing rows of a LevelDB table, with and without
+ * {@link LevelDBRowFilter row filters}.
+ *
+ * It is not run as part of the unit tests. Run it with
+ * <pre>
+ *   mvn test -pl cdap-data-fabric -Dtest=LevelDBRowFilterBenchmark \
+ *     -Dbenchmark.rows=10000000 -Dbenchmark.reads=1000000
+ * </pre>
+ * The results are logged to {@code target/surefire-reports}. Loading 10M rows takes several minutes and
+ * about 1GB of disk.
+ */
+public class LevelDBRowFilterBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LevelDBRowFilterBenchmark.class);
+  private static final String TABLE_NAME = "benchmark";
+  private static final byte[] COLUMN = Bytes.toBytes("c");
+  private static final int BATCH_SIZE = 10000;
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  // consumes the rows read so that the reads are not optimized away
+  private static volatile int sink;
+
+  @Test
+  public void benchmark() throws Exception {
+    int rows = Integer.getInteger("benchmark.rows", 10000000);
+    int reads = Integer.getInteger("benchmark.reads", 1000000);
+    File dir = TMP_FOLDER.newFolder();
+
+    // load the table without a filter, then read it with the filter disabled and with it enabled
+    LevelDBTableService service = createService(dir, 0);
+    try {
+      long startTime = System.nanoTime();
+      load(service, rows);
+      LOG.info("Loaded {} rows in {} seconds", rows, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime));
+      measure(service, "without filter", rows, reads);
+    } finally {
+      service.close();
+    }
+
+    service = createService(dir, Constants.DEFAULT_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY);
+    try {
+      long startTime = System.nanoTime();
+      LevelDBRowFilter filter = service.getRowFilter(TABLE_NAME);
+      Assert.assertNotNull(filter);
+      Tasks.waitFor(true, filter::isLoaded, 1, TimeUnit.HOURS, 100, TimeUnit.MILLISECONDS);
+      LOG.info("Loaded the row filter in {} seconds", TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime));
+      measure(service, "with filter", rows, reads);
+    } finally {
+      service.close();
+    }
+  }
+
+  private LevelDBTableService createService(File dir, int bitsPerKey) {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, dir.getAbsolutePath());
+    cConf.setBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, false);
+    cConf.setInt(Constants.CFG_DATA_LEVELDB_BLOOM_FILTER_BITS_PER_KEY, bitsPerKey);
+    LevelDBTableService service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+    return service;
+  }
+
+  private void load(LevelDBTableService service, int rows) throws Exception {
+    service.ensureTableExists(TABLE_NAME);
+    LevelDBTableCore table = new LevelDBTableCore(TABLE_NAME, service);
+    Map<byte[], Map<byte[], byte[]>> batch = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (int i = 0; i < rows; i++) {
+      Map<byte[], byte[]> columns = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      columns.put(COLUMN, Bytes.toBytes(i));
+      batch.put(existingRow(i), columns);
+      if (batch.size() == BATCH_SIZE) {
+        table.persist(batch, 1L);
+        batch.clear();
+      }
+    }
+    table.persist(batch, 1L);
+  }
+
+  /**
+   * Reads random existing and missing rows, and logs the average latency of each.
+   */
+  private void measure(LevelDBTableService service, String description, int rows, int reads) throws Exception {
+    LevelDBTableCore table = new LevelDBTableCore(TABLE_NAME, service);
+    Random random = new Random(0);
+    // the first round warms up the code and the block cache
+    for (int round = 0; round < 2; round++) {
+      long existingNanos = 0;
+      long missingNanos = 0;
+      int found = 0;
+      for (int i = 0; i < reads; i++) {
+        int index = random.nextInt(rows);
+        long startTime = System.nanoTime();
+        found += table.getRow(existingRow(index), null, null, null, -1, null).size();
+        long midTime = System.nanoTime();
+        found += table.getRow(missingRow(index), null, null, null, -1, null).size();
+        existingNanos += midTime - startTime;
+        missingNanos += System.nanoTime() - midTime;
+      }
+      Assert.assertEquals(reads, found);
+      sink = found;
+      LOG.info("Round {} {}: {} us per read of an existing row, {} us per read of a missing row",
+               round, description, String.format("%.2f", existingNanos / 1000d / reads),
+               String.format("%.2f", missingNanos / 1000d / reads));
+    }
+  }
+
+  private static byte[] existingRow(int index) {
+    return Bytes.toBytes(String.format("row%010d", index));
+  }
+
+  /**
+   * Returns a row that sorts right after an existing row, so that reading it searches the table.
+   */
+  private static byte[] missingRow(int index) {
+    return Bytes.toBytes(String.format("row%010d-", index));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.data2.dataset2.lib.table.leveldb;
+
+import io.cdap.cdap.api.common.Bytes;
+import io.cdap.cdap.common.conf.CConfiguration;
+import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.utils.Tasks;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LevelDBRowFilter}.
+ */
+public class LevelDBRowFilterTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static LevelDBTableService service;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+  }
+
+  @AfterClass
+  public static void finish() {
+    service.close();
+  }
+
+  @Test
+  public void testFilter() throws Exception {
+    String tableName = "filter";
+    service.ensureTableExists(tableName);
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    for (int i = 0; i < 1000; i++) {
+      table.put(Bytes.toBytes("row" + i), Bytes.toBytes("c"), Bytes.toBytes(i), 1L);
+    }
+
+    // A filter loaded from the table contains all existing rows
+    LevelDBRowFilter filter = new LevelDBRowFilter(10);
+    Assert.assertTrue(filter.mightContain(Bytes.toBytes("absent")));
+    filter.load(service.getTable(tableName));
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertTrue(filter.mightContain(Bytes.toBytes("row" + i)));
+    }
+
+    // Adding rows beyond the initial capacity grows the filter, while keeping a low false positive rate
+    for (int i = 1000; i < 100000; i++) {
+      filter.add(Bytes.toBytes("row" + i));
+    }
+    for (int i = 0; i < 100000; i++) {
+      Assert.assertTrue(filter.mightContain(Bytes.toBytes("row" + i)));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 100000; i++) {
+      if (filter.mightContain(Bytes.toBytes("absent" + i))) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue("False positive rate too high: " + falsePositives, falsePositives < 5000);
+  }
+
+  @Test
+  public void testTableReads() throws Exception {
+    String tableName = "reads";
+    service.ensureTableExists(tableName);
+    LevelDBTableCore table = new LevelDBTableCore(tableName, service);
+    byte[] column = Bytes.toBytes("c");
+    table.put(Bytes.toBytes("existing"), column, Bytes.toBytes("v1"), 1L);
+
+    // Wait for the filter to be loaded in the background
+    LevelDBRowFilter filter = service.getRowFilter(tableName);
+    Assert.assertNotNull(filter);
+    Tasks.waitFor(true, filter::isLoaded, 10, TimeUnit.SECONDS);
+
+    Assert.assertArrayEquals(Bytes.toBytes("v1"),
+                             table.getRow(Bytes.toBytes("existing"), null, null, null, -1, null).get(column));
+    Assert.assertFalse(filter.mightContain(Bytes.toBytes("absent")));
+    Assert.assertTrue(table.getRow(Bytes.toBytes("absent"), null, null, null, -1, null).isEmpty());
+
+    // Rows written after loading are read
+    table.put(Bytes.toBytes("absent"), column, Bytes.toBytes("v2"), 1L);
+    table.increment(Bytes.toBytes("counter"), Collections.singletonMap(column, 5L));
+    Assert.assertArrayEquals(Bytes.toBytes("v2"),
+                             table.getRow(Bytes.toBytes("absent"), null, null, null, -1, null).get(column));
+    Assert.assertEquals(5L, Bytes.toLong(table.getRow(Bytes.toBytes("counter"), new byte[][] { column },
+                                                      null, null, -1, null).get(column)));
+
+    // Dropping the table drops the filter
+    service.dropTable(tableName);
+    service.ensureTableExists(tableName);
+    Assert.assertNotSame(filter, service.getRowFilter(tableName));
+  }
+}
@@ -15,12 +15,16 @@
  */
 package io.cdap.cdap.data2.dataset2.lib.timeseries;
 
+import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.data2.dataset2.lib.table.MetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import io.cdap.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  *
  */
@@ -91,4 +95,79 @@ public class EntityTableTest {
       Assert.assertEquals("app" + i, entityTable.getName(i, "app"));
     }
   }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    InMemoryTableService.create("testWarmUp");
+    MetricsTable table = new InMemoryMetricsTable("testWarmUp");
+
+    EntityTable entityTable = new EntityTable(table);
+    for (int i = 1; i <= 10; i++) {
+      entityTable.getId("app", "app" + i);
+      entityTable.getId("run", "run" + i);
+    }
+
+    // A new entityTable loads the mappings with a scan, which are then served from the caches.
+    entityTable = new EntityTable(table);
+    Assert.assertEquals(15, entityTable.warmUp(15));
+
+    Map<String, Long> metrics = new HashMap<>();
+    entityTable.emitCacheMetrics(createCollector(metrics));
+    for (int i = 1; i <= 10; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("app", "app" + i));
+      Assert.assertEquals("app" + i, entityTable.getName(i, "app"));
+    }
+    for (int i = 1; i <= 5; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("run", "run" + i));
+      Assert.assertEquals("run" + i, entityTable.getName(i, "run"));
+    }
+    entityTable.emitCacheMetrics(createCollector(metrics));
+    Assert.assertEquals(15L, (long) metrics.get("entityTable.entity.cache.hit.count"));
+    Assert.assertEquals(0L, (long) metrics.get("entityTable.entity.cache.miss.count"));
+    Assert.assertEquals(15L, (long) metrics.get("entityTable.id.cache.hit.count"));
+    Assert.assertEquals(0L, (long) metrics.get("entityTable.id.cache.miss.count"));
+
+    // Mappings beyond the warm up limit are still looked up from the table
+    Assert.assertEquals(6L, entityTable.getId("run", "run6"));
+    Assert.assertEquals("run6", entityTable.getName(6, "run"));
+    entityTable.emitCacheMetrics(createCollector(metrics));
+    Assert.assertEquals(1L, (long) metrics.get("entityTable.entity.cache.miss.count"));
+    Assert.assertEquals(1L, (long) metrics.get("entityTable.id.cache.miss.count"));
+  }
+
+  @Test
+  public void testBoundedCache() throws Exception {
+    InMemoryTableService.create("testBoundedCache");
+    MetricsTable table = new InMemoryMetricsTable("testBoundedCache");
+
+    EntityTable entityTable = new EntityTable(table, 0x1000000L, 10);
+    for (int i = 1; i <= 100; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("run", "run" + i));
+    }
+    Map<String, Long> metrics = new HashMap<>();
+    entityTable.emitCacheMetrics(createCollector(metrics));
+    Assert.assertEquals(100L, (long) metrics.get("entityTable.entity.cache.miss.count"));
+    // Guava caches may evict before reaching the maximum size, since it is split among the cache segments
+    Assert.assertTrue(metrics.get("entityTable.entity.cache.eviction.count") >= 90L);
+
+    // Evicted mappings are loaded from the table again
+    for (int i = 1; i <= 100; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("run", "run" + i));
+      Assert.assertEquals("run" + i, entityTable.getName(i, "run"));
+    }
+  }
+
+  private MetricsCollector createCollector(final Map<String, Long> metrics) {
+    return new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        metrics.put(metricName, value);
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        metrics.put(metricName, value);
+      }
+    };
+  }
 }
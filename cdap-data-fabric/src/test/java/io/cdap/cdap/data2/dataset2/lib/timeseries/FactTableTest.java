@@ -19,6 +19,7 @@ import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -38,6 +39,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -631,6 +633,116 @@ public class FactTableTest {
     }
   }
 
+  @Test
+  public void testSplitScan() throws Exception {
+    InMemoryTableService.create("SplitEntityTable");
+    InMemoryTableService.create("SplitDataTable");
+    int resolution = 60;
+    int rollTime = 3600;
+    FactTable table = new FactTable(new InMemoryMetricsTable("SplitDataTable"),
+                                    new EntityTable(new InMemoryMetricsTable("SplitEntityTable")),
+                                    resolution, rollTime);
+
+    // write a value every 30 minutes for 10 days
+    long ts = 1000 * rollTime;
+    for (int i = 0; i < 480; i++) {
+      writeInc(table, "metric1", ts + i * 1800, i + 1, "dim1", "value1");
+      writeInc(table, "metric2", ts + i * 1800, i + 1, "dim1", "value2");
+    }
+
+    FactScan scan = new FactScan(ts + 100, ts + 480 * 1800, "metric1", dimValues("dim1", null));
+    List<FactScan> splits = table.split(scan, 4);
+    Assert.assertEquals(4, splits.size());
+    Assert.assertEquals(scan.getStartTs(), splits.get(0).getStartTs());
+    Assert.assertEquals(scan.getEndTs(), splits.get(3).getEndTs());
+    for (int i = 1; i < splits.size(); i++) {
+      Assert.assertEquals(splits.get(i - 1).getEndTs() + 1, splits.get(i).getStartTs());
+      Assert.assertEquals(0, splits.get(i).getStartTs() % rollTime);
+    }
+
+    // scanning all splits gives the same result as scanning the whole range
+    List<TimeValue> expected = Lists.newArrayList();
+    for (int i = 1; i < 480; i++) {
+      expected.add(new TimeValue(ts + i * 1800, i + 1));
+    }
+    List<TimeValue> actual = Lists.newArrayList();
+    for (FactScan split : splits) {
+      FactScanner scanner = table.scan(split);
+      try {
+        while (scanner.hasNext()) {
+          FactScanResult result = scanner.next();
+          Assert.assertEquals("metric1", result.getMeasureName());
+          Iterators.addAll(actual, result.iterator());
+        }
+      } finally {
+        scanner.close();
+      }
+    }
+    Assert.assertEquals(expected, actual);
+
+    // small time ranges are not split
+    Assert.assertEquals(Collections.singletonList(scan), table.split(scan, 1));
+    FactScan smallScan = new FactScan(ts, ts + 24 * rollTime, "metric1", dimValues("dim1", null));
+    Assert.assertEquals(Collections.singletonList(smallScan), table.split(smallScan, 4));
+  }
+
+  @Test
+  public void testSplitScanDefaultRollTimes() throws Exception {
+    // the roll times of cdap-default.xml, where a row holds a single data point
+    testSplitScanSingleColumnRows(60, 60, 10 * 24 * 60);
+    testSplitScanSingleColumnRows(3600, 24, 200 * 24);
+  }
+
+  private void testSplitScanSingleColumnRows(int resolution, int rollTime, int points) throws Exception {
+    String entityTableName = "SplitEntityTable-" + resolution;
+    String dataTableName = "SplitDataTable-" + resolution;
+    InMemoryTableService.create(entityTableName);
+    InMemoryTableService.create(dataTableName);
+    FactTable table = new FactTable(new InMemoryMetricsTable(dataTableName),
+                                    new EntityTable(new InMemoryMetricsTable(entityTableName)),
+                                    resolution, rollTime);
+
+    long ts = 1000 * 3600;
+    for (int i = 0; i < points; i++) {
+      writeInc(table, "metric1", ts + i * resolution, i + 1, "dim1", "value1");
+    }
+
+    // a day of data at minute resolution or two hours at hour resolution is read with a single scan
+    FactScan smallScan = new FactScan(ts, ts + 1439 * 60, "metric1", dimValues("dim1", null));
+    Assert.assertEquals(Collections.singletonList(smallScan), table.split(smallScan, 4));
+    smallScan = new FactScan(ts, ts + 2 * 3600, "metric1", dimValues("dim1", null));
+    Assert.assertEquals(Collections.singletonList(smallScan), table.split(smallScan, 4));
+
+    FactScan scan = new FactScan(ts + 10, ts + (points - 1) * resolution, "metric1", dimValues("dim1", null));
+    List<FactScan> splits = table.split(scan, 4);
+    Assert.assertTrue(splits.size() > 1);
+    Assert.assertEquals(scan.getStartTs(), splits.get(0).getStartTs());
+    Assert.assertEquals(scan.getEndTs(), splits.get(splits.size() - 1).getEndTs());
+    for (int i = 1; i < splits.size(); i++) {
+      Assert.assertEquals(splits.get(i - 1).getEndTs() + 1, splits.get(i).getStartTs());
+      // splits start at row boundaries, hence a multiple of the resolution
+      Assert.assertEquals(0, splits.get(i).getStartTs() % resolution);
+    }
+
+    // every row is read by exactly one split
+    List<TimeValue> expected = Lists.newArrayList();
+    for (int i = 1; i < points; i++) {
+      expected.add(new TimeValue(ts + i * resolution, i + 1));
+    }
+    List<TimeValue> actual = Lists.newArrayList();
+    for (FactScan split : splits) {
+      FactScanner scanner = table.scan(split);
+      try {
+        while (scanner.hasNext()) {
+          Iterators.addAll(actual, scanner.next().iterator());
+        }
+      } finally {
+        scanner.close();
+      }
+    }
+    Assert.assertEquals(expected, actual);
+  }
+
   private List<TimeValue> timeValues(long ts, int resolution, long... values) {
     List<TimeValue> timeValues = Lists.newArrayList();
     for (int i = 0; i < values.length; i++) {
@@ -40,6 +40,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test for storage and retrieval of the field lineage operations.
@@ -225,6 +226,52 @@ public abstract class FieldLineageTableTest {
     });
   }
 
+  @Test
+  public void testSummaryBuckets() {
+    long day = TimeUnit.DAYS.toMillis(1);
+    ProgramId program = new ProgramId("default", "app1", ProgramType.WORKFLOW, "workflow1");
+    ProgramRunId programRun1 = program.run(RunIds.generate(day + 1000).getId());
+    ProgramRunId programRun2 = program.run(RunIds.generate(3 * day + 1000).getId());
+    // added after the other runs, but for a day before the summary buckets of the endpoints start
+    ProgramRunId programRun3 = program.run(RunIds.generate(5).getId());
+
+    FieldLineageInfo info1 = new FieldLineageInfo(generateOperations(false));
+    FieldLineageInfo info2 = new FieldLineageInfo(generateOperations(true));
+
+    TransactionRunners.run(transactionRunner, context -> {
+      FieldLineageTable fieldLineageTable = FieldLineageTable.create(context);
+      fieldLineageTable.addFieldLineageInfo(programRun1, info1);
+      fieldLineageTable.addFieldLineageInfo(programRun2, info2);
+      fieldLineageTable.addFieldLineageInfo(programRun3, info2);
+    });
+
+    TransactionRunners.run(transactionRunner, context -> {
+      FieldLineageTable fieldLineageTable = FieldLineageTable.create(context);
+      EndPoint source = EndPoint.of("ns1", "endpoint1");
+      EndPoint destination = EndPoint.of("myns", "another_file");
+      EndPointField fileName = new EndPointField(destination, "file_name");
+      Set<EndPointField> expected = Collections.singleton(new EndPointField(source, "file_name"));
+
+      // whole days only
+      Assert.assertEquals(Collections.EMPTY_SET, fieldLineageTable.getIncomingSummary(fileName, day, 3 * day));
+      Assert.assertEquals(expected, fieldLineageTable.getIncomingSummary(fileName, day, 4 * day));
+      // partial days at either end of the range
+      Assert.assertEquals(expected, fieldLineageTable.getIncomingSummary(fileName, day + 1, 3 * day + 1001));
+      Assert.assertEquals(Collections.EMPTY_SET,
+                          fieldLineageTable.getIncomingSummary(fileName, day + 1, 3 * day + 1000));
+      Assert.assertEquals(Collections.EMPTY_SET,
+                          fieldLineageTable.getIncomingSummary(fileName, 3 * day + 2000, 5 * day));
+      // days before the buckets start
+      Assert.assertEquals(expected, fieldLineageTable.getIncomingSummary(fileName, 0, day));
+      Assert.assertEquals(expected, fieldLineageTable.getIncomingSummary(fileName, 0, 2 * day));
+
+      Assert.assertEquals(Collections.singleton(new EndPointField(destination, "offset")),
+                          fieldLineageTable.getOutgoingSummary(new EndPointField(source, "offset"), day, 2 * day));
+      Assert.assertEquals(Collections.EMPTY_SET,
+                          fieldLineageTable.getOutgoingSummary(new EndPointField(source, "file_name"), day, 3 * day));
+    });
+  }
+
   private List<Operation> generateOperations(boolean addAditionalField) {
     // read: file -> (offset, body)
     // parse: (body) -> (first_name, last_name)
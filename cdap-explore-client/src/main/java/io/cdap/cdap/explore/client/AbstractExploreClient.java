@@ -28,6 +28,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.gson.Gson;
 import io.cdap.cdap.api.dataset.DatasetSpecification;
 import io.cdap.cdap.api.dataset.lib.PartitionKey;
@@ -55,7 +56,13 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -67,10 +74,12 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
   private static final Logger LOG = LoggerFactory.getLogger(AbstractExploreClient.class);
 
   private final ListeningScheduledExecutorService executor;
+  private final ExecutorService prefetchExecutor;
 
   protected AbstractExploreClient() {
     executor = MoreExecutors.listeningDecorator(
       Executors.newSingleThreadScheduledExecutor(Threads.createDaemonThreadFactory("explore-client-executor")));
+    prefetchExecutor = Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("explore-result-prefetch-%d"));
   }
 
   @Override
@@ -78,6 +87,7 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
     // This will cancel all the running tasks, with interruption - that means that all
     // queries submitted by this executor will be closed
     executor.shutdownNow();
+    prefetchExecutor.shutdownNow();
   }
 
   @Override
@@ -371,7 +381,8 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
           if (QueryStatus.OpStatus.ERROR.equals(status.getStatus())) {
             throw new SQLException(status.getErrorMessage(), status.getSqlState());
           }
-          ExploreExecutionResult result = new ClientExploreExecutionResult(AbstractExploreClient.this, handle, status);
+          ExploreExecutionResult result = new ClientExploreExecutionResult(AbstractExploreClient.this, handle, status,
+                                                                            prefetchExecutor);
           mustCloseHandle = !resultFuture.set(result) || !status.hasResults();
         } catch (Exception e) {
           mustCloseHandle = true;
@@ -402,7 +413,8 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
   }
 
   /**
-   * Result iterator which polls Explore service using HTTP to get next results.
+   * Result iterator which polls Explore service using HTTP to get next results. Once a page of results is received,
+   * the next page is fetched in the background while the current one is consumed.
    */
   private static final class ClientExploreExecutionResult extends AbstractIterator<QueryResult>
     implements ExploreExecutionResult {
@@ -412,15 +424,23 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
     private int fetchSize = DEFAULT_FETCH_SIZE;
     private Iterator<QueryResult> delegate;
     private List<ColumnDesc> resultSchema = null;
+    private Future<List<QueryResult>> nextPage;
 
     private final ExploreHttpClient exploreClient;
     private final QueryHandle handle;
     private final QueryStatus status;
+    private final Executor prefetchExecutor;
+    private final String userId;
+    private final String userIp;
 
-    ClientExploreExecutionResult(ExploreHttpClient exploreClient, QueryHandle handle, QueryStatus status) {
+    ClientExploreExecutionResult(ExploreHttpClient exploreClient, QueryHandle handle, QueryStatus status,
+                                 Executor prefetchExecutor) {
       this.exploreClient = exploreClient;
       this.handle = handle;
       this.status = status;
+      this.prefetchExecutor = prefetchExecutor;
+      this.userId = SecurityRequestContext.getUserId();
+      this.userIp = SecurityRequestContext.getUserIP();
     }
 
     @Override
@@ -439,13 +459,14 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
       }
       try {
         // call the endpoint 'next' to get more results and set delegate
-        List<QueryResult> nextResults = convertRows(exploreClient.nextResults(handle, fetchSize));
+        List<QueryResult> nextResults = convertRows(fetchNextPage());
         delegate = nextResults.iterator();
 
         // At this point, if delegate has no result, there are no more results at all
         if (!delegate.hasNext()) {
           return endOfData();
         }
+        prefetchNextPage();
         return delegate.next();
       } catch (ExploreException e) {
         LOG.error("Exception while iterating through the results of query {}", handle.getHandle(), e);
@@ -457,6 +478,39 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
       }
     }
 
+    private List<QueryResult> fetchNextPage() throws ExploreException, HandleNotFoundException {
+      Future<List<QueryResult>> page = nextPage;
+      nextPage = null;
+      if (page == null) {
+        return exploreClient.nextResults(handle, fetchSize);
+      }
+      try {
+        return Uninterruptibles.getUninterruptibly(page);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), ExploreException.class, HandleNotFoundException.class);
+        throw new ExploreException(e.getCause());
+      }
+    }
+
+    private void prefetchNextPage() {
+      final int size = fetchSize;
+      FutureTask<List<QueryResult>> task = new FutureTask<>(new Callable<List<QueryResult>>() {
+        @Override
+        public List<QueryResult> call() throws Exception {
+          SecurityRequestContext.setUserId(userId);
+          SecurityRequestContext.setUserIP(userIp);
+          return exploreClient.nextResults(handle, size);
+        }
+      });
+      try {
+        prefetchExecutor.execute(task);
+        nextPage = task;
+      } catch (RejectedExecutionException e) {
+        // The client is closed, the next page will be fetched when it is needed
+        LOG.trace("Not prefetching results of query {}", handle.getHandle(), e);
+      }
+    }
+
     private List<QueryResult> convertRows(List<QueryResult> rows) throws ExploreException {
       List<ColumnDesc> schema = getResultSchema();
       ImmutableList.Builder<QueryResult> builder = ImmutableList.builder();
@@ -480,7 +534,12 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
             } else if (schemaColumn.getType().equals("TINYINT")) {
               columnValue = ((Double) columnValue).byteValue();
             }
-          } else if ("BINARY".equals(columnType)) {
+          } else if (columnValue instanceof Integer && "SMALLINT".equals(columnType)) {
+            // Binary encoded results have the exact number types, except for short and byte values
+            columnValue = ((Integer) columnValue).shortValue();
+          } else if (columnValue instanceof Integer && "TINYINT".equals(columnType)) {
+            columnValue = ((Integer) columnValue).byteValue();
+          } else if ("BINARY".equals(columnType) && !(columnValue instanceof byte[])) {
             // A BINARY value is a byte array, which is deserialized by GSon into a list of
             // double objects - here we recreate a byte[] object.
             List<Object> binary;
@@ -520,6 +579,11 @@ public abstract class AbstractExploreClient extends ExploreHttpClient implements
 
     @Override
     public void close() throws IOException {
+      Future<List<QueryResult>> page = nextPage;
+      nextPage = null;
+      if (page != null) {
+        page.cancel(true);
+      }
       try {
         exploreClient.close(handle);
       } catch (HandleNotFoundException e) {
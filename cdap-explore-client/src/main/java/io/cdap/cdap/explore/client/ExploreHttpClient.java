@@ -20,6 +20,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HttpHeaders;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonParseException;
@@ -33,6 +34,7 @@ import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.UnauthenticatedException;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.cdap.common.io.BinaryDecoder;
 import io.cdap.cdap.explore.service.Explore;
 import io.cdap.cdap.explore.service.ExploreException;
 import io.cdap.cdap.explore.service.HandleNotFoundException;
@@ -40,6 +42,7 @@ import io.cdap.cdap.explore.service.MetaDataInfo;
 import io.cdap.cdap.explore.service.TableNotFoundException;
 import io.cdap.cdap.explore.utils.ColumnsArgs;
 import io.cdap.cdap.explore.utils.FunctionsArgs;
+import io.cdap.cdap.explore.utils.QueryResultsCodec;
 import io.cdap.cdap.explore.utils.SchemasArgs;
 import io.cdap.cdap.explore.utils.TablesArgs;
 import io.cdap.cdap.internal.io.SchemaTypeAdapter;
@@ -61,6 +64,7 @@ import io.cdap.common.http.HttpResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
@@ -268,8 +272,13 @@ abstract class ExploreHttpClient implements Explore {
   public List<QueryResult> nextResults(QueryHandle handle, int size) throws ExploreException, HandleNotFoundException {
     HttpResponse response = doPost(String.format("data/explore/queries/%s/%s",
                                                  handle.getHandle(), "next"),
-                                   GSON.toJson(ImmutableMap.of("size", size)), null);
+                                   GSON.toJson(ImmutableMap.of("size", size)),
+                                   ImmutableMap.of(HttpHeaders.ACCEPT, QueryResultsCodec.MEDIA_TYPE));
     if (response.getResponseCode() == HttpURLConnection.HTTP_OK) {
+      // Servers that don't support the binary encoding respond with JSON
+      if (QueryResultsCodec.isBinary(getContentType(response))) {
+        return parseBinary(response);
+      }
       return parseJson(response, ROW_LIST_TYPE);
     } else if (response.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
       throw new HandleNotFoundException("Handle " + handle.getHandle() + "not found.");
@@ -481,6 +490,24 @@ abstract class ExploreHttpClient implements Explore {
     }
   }
 
+  private List<QueryResult> parseBinary(HttpResponse response) throws ExploreException {
+    try {
+      return QueryResultsCodec.decode(new BinaryDecoder(new ByteArrayInputStream(response.getResponseBody())));
+    } catch (IOException e) {
+      throw new ExploreException("Cannot decode query results from server response", e);
+    }
+  }
+
+  @Nullable
+  private static String getContentType(HttpResponse response) {
+    for (Map.Entry<String, String> header : response.getHeaders().entries()) {
+      if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
   private HttpResponse doGet(String resource) throws ExploreException {
     return doRequest(resource, HttpMethod.GET, null, null);
   }
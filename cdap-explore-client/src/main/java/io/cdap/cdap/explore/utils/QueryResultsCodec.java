@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.explore.utils;
+
+import io.cdap.cdap.common.io.Decoder;
+import io.cdap.cdap.common.io.Encoder;
+import io.cdap.cdap.proto.QueryResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Binary encoding of query result rows, used instead of JSON when a client accepts {@link #MEDIA_TYPE}.
+ *
+ * The encoding is Avro binary of an array of rows, where each row is an array of the union
+ * {@code [null, boolean, int, long, float, double, string, bytes]}. Rows are written in blocks, each prefixed
+ * with the number of rows in the block, and a block of size zero ends the array. This allows a large result set to be
+ * streamed one page at a time. Unlike JSON, numbers keep their type and binary values are not inflated.
+ * Byte and short values are written as int, and values of any other type as their string representation.
+ */
+public final class QueryResultsCodec {
+
+  public static final String MEDIA_TYPE = "avro/binary";
+
+  private static final int NULL = 0;
+  private static final int BOOLEAN = 1;
+  private static final int INT = 2;
+  private static final int LONG = 3;
+  private static final int FLOAT = 4;
+  private static final int DOUBLE = 5;
+  private static final int STRING = 6;
+  private static final int BYTES = 7;
+
+  private QueryResultsCodec() {
+  }
+
+  /**
+   * Returns {@code true} if the given {@code Accept} or {@code Content-Type} header value is the binary encoding.
+   */
+  public static boolean isBinary(@Nullable String mediaType) {
+    return mediaType != null && mediaType.toLowerCase().contains(MEDIA_TYPE);
+  }
+
+  /**
+   * Encodes the given rows as a complete array.
+   */
+  public static void encode(Collection<QueryResult> rows, Encoder encoder) throws IOException {
+    encodeBlock(rows, encoder);
+    encodeEnd(encoder);
+  }
+
+  /**
+   * Encodes the given rows as one block of the array. Does nothing if there are no rows.
+   */
+  public static void encodeBlock(Collection<QueryResult> rows, Encoder encoder) throws IOException {
+    if (rows.isEmpty()) {
+      return;
+    }
+    encoder.writeInt(rows.size());
+    for (QueryResult row : rows) {
+      List<Object> columns = row.getColumns();
+      encoder.writeInt(columns.size());
+      for (Object value : columns) {
+        encodeValue(value, encoder);
+      }
+      if (!columns.isEmpty()) {
+        encoder.writeInt(0);
+      }
+    }
+  }
+
+  /**
+   * Encodes the end of the array.
+   */
+  public static void encodeEnd(Encoder encoder) throws IOException {
+    encoder.writeInt(0);
+  }
+
+  /**
+   * Decodes all rows of an array.
+   */
+  public static List<QueryResult> decode(Decoder decoder) throws IOException {
+    List<QueryResult> rows = new ArrayList<>();
+    int blockSize = decoder.readInt();
+    while (blockSize != 0) {
+      for (int i = 0; i < blockSize; i++) {
+        rows.add(new QueryResult(decodeColumns(decoder)));
+      }
+      blockSize = decoder.readInt();
+    }
+    return rows;
+  }
+
+  private static List<Object> decodeColumns(Decoder decoder) throws IOException {
+    List<Object> columns = new ArrayList<>();
+    int blockSize = decoder.readInt();
+    while (blockSize != 0) {
+      for (int i = 0; i < blockSize; i++) {
+        columns.add(decodeValue(decoder));
+      }
+      blockSize = decoder.readInt();
+    }
+    return columns;
+  }
+
+  private static void encodeValue(Object value, Encoder encoder) throws IOException {
+    if (value == null) {
+      encoder.writeInt(NULL).writeNull();
+    } else if (value instanceof Boolean) {
+      encoder.writeInt(BOOLEAN).writeBool((Boolean) value);
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      encoder.writeInt(INT).writeInt(((Number) value).intValue());
+    } else if (value instanceof Long) {
+      encoder.writeInt(LONG).writeLong((Long) value);
+    } else if (value instanceof Float) {
+      encoder.writeInt(FLOAT).writeFloat((Float) value);
+    } else if (value instanceof Double) {
+      encoder.writeInt(DOUBLE).writeDouble((Double) value);
+    } else if (value instanceof byte[]) {
+      encoder.writeInt(BYTES).writeBytes((byte[]) value);
+    } else if (value instanceof ByteBuffer) {
+      encoder.writeInt(BYTES).writeBytes(((ByteBuffer) value).duplicate());
+    } else {
+      encoder.writeInt(STRING).writeString(value.toString());
+    }
+  }
+
+  private static Object decodeValue(Decoder decoder) throws IOException {
+    int type = decoder.readInt();
+    switch (type) {
+      case NULL:
+        return decoder.readNull();
+      case BOOLEAN:
+        return decoder.readBool();
+      case INT:
+        return decoder.readInt();
+      case LONG:
+        return decoder.readLong();
+      case FLOAT:
+        return decoder.readFloat();
+      case DOUBLE:
+        return decoder.readDouble();
+      case STRING:
+        return decoder.readString();
+      case BYTES:
+        ByteBuffer buffer = decoder.readBytes();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+      default:
+        throw new IOException("Unknown type index " + type + " in query result");
+    }
+  }
+}
@@ -21,23 +21,29 @@ import com.google.common.collect.Lists;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.io.BinaryEncoder;
 import io.cdap.cdap.explore.service.ExploreException;
 import io.cdap.cdap.explore.service.ExploreService;
 import io.cdap.cdap.explore.service.HandleNotFoundException;
 import io.cdap.cdap.explore.service.hive.OperationInfo;
+import io.cdap.cdap.explore.utils.QueryResultsCodec;
 import io.cdap.cdap.proto.ColumnDesc;
 import io.cdap.cdap.proto.QueryHandle;
 import io.cdap.cdap.proto.QueryResult;
 import io.cdap.cdap.proto.QueryStatus;
 import io.cdap.cdap.security.impersonation.ImpersonationUtils;
 import io.cdap.http.HttpResponder;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
@@ -183,7 +189,15 @@ public class ExploreQueryExecutorHttpHandler extends AbstractExploreQueryExecuto
           }
         });
       }
-      responder.sendJson(HttpResponseStatus.OK, GSON.toJson(results));
+      if (QueryResultsCodec.isBinary(request.headers().get(HttpHeaderNames.ACCEPT))) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        QueryResultsCodec.encode(results, new BinaryEncoder(os));
+        responder.sendByteArray(HttpResponseStatus.OK, os.toByteArray(),
+                                new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE,
+                                                             QueryResultsCodec.MEDIA_TYPE));
+      } else {
+        responder.sendJson(HttpResponseStatus.OK, GSON.toJson(results));
+      }
     } catch (IllegalArgumentException e) {
       LOG.debug("Got exception:", e);
       responder.sendString(HttpResponseStatus.BAD_REQUEST, e.getMessage());
@@ -238,17 +252,18 @@ public class ExploreQueryExecutorHttpHandler extends AbstractExploreQueryExecuto
     throws ExploreException, IOException, SQLException, HandleNotFoundException {
     // NOTE: this call is a POST because it is not idempotent: cursor of results is moved
     final QueryHandle handle = QueryHandle.fromId(id);
+    final boolean binary = QueryResultsCodec.isBinary(request.headers().get(HttpHeaderNames.ACCEPT));
     doAs(handle, new Callable<Void>() {
       @Override
       public Void call() throws Exception {
-        doDownloadQueryResults(responder, handle);
+        doDownloadQueryResults(responder, handle, binary);
         return null;
       }
     });
   }
 
-  private void doDownloadQueryResults(HttpResponder responder,
-                                      QueryHandle handle) throws ExploreException, IOException {
+  private void doDownloadQueryResults(HttpResponder responder, QueryHandle handle,
+                                      boolean binary) throws ExploreException, IOException {
     try {
       if (handle.equals(QueryHandle.NO_OP) ||
         !exploreService.getStatus(handle).getStatus().equals(QueryStatus.OpStatus.FINISHED)) {
@@ -256,8 +271,11 @@ public class ExploreQueryExecutorHttpHandler extends AbstractExploreQueryExecuto
         return;
       }
 
-      QueryResultsBodyProducer queryResultsBodyProducer = new QueryResultsBodyProducer(exploreService, handle);
-      responder.sendContent(HttpResponseStatus.OK, queryResultsBodyProducer, EmptyHttpHeaders.INSTANCE);
+      QueryResultsBodyProducer queryResultsBodyProducer = new QueryResultsBodyProducer(exploreService, handle, binary);
+      HttpHeaders headers = binary
+        ? new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, QueryResultsCodec.MEDIA_TYPE)
+        : EmptyHttpHeaders.INSTANCE;
+      responder.sendContent(HttpResponseStatus.OK, queryResultsBodyProducer, headers);
 
     } catch (IllegalArgumentException e) {
       LOG.debug("Got exception:", e);
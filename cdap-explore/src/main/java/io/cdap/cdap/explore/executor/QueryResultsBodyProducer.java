@@ -17,9 +17,12 @@
 package io.cdap.cdap.explore.executor;
 
 import com.google.gson.Gson;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.common.io.Encoder;
 import io.cdap.cdap.explore.service.ExploreException;
 import io.cdap.cdap.explore.service.ExploreService;
 import io.cdap.cdap.explore.service.HandleNotFoundException;
+import io.cdap.cdap.explore.utils.QueryResultsCodec;
 import io.cdap.cdap.proto.ColumnDesc;
 import io.cdap.cdap.proto.QueryHandle;
 import io.cdap.cdap.proto.QueryResult;
@@ -37,7 +40,8 @@ import java.sql.SQLException;
 import java.util.List;
 
 /**
- * BodyProducer used for returning the results of a Query, chunk by chunk.
+ * BodyProducer used for returning the results of a Query, chunk by chunk. The results are either written as CSV,
+ * or in the binary encoding of {@link QueryResultsCodec}, with one block of rows per chunk.
  */
 final class QueryResultsBodyProducer extends BodyProducer {
 
@@ -46,19 +50,25 @@ final class QueryResultsBodyProducer extends BodyProducer {
 
   private final ExploreService exploreService;
   private final QueryHandle handle;
+  private final boolean binary;
 
   private final ByteBuf buffer;
   private final PrintWriter writer;
+  private final Encoder encoder;
 
   private List<QueryResult> results;
+  private boolean ended;
 
-  QueryResultsBodyProducer(ExploreService exploreService,
-                           QueryHandle handle) throws HandleNotFoundException, SQLException, ExploreException {
+  QueryResultsBodyProducer(ExploreService exploreService, QueryHandle handle,
+                           boolean binary) throws HandleNotFoundException, SQLException, ExploreException {
     this.exploreService = exploreService;
     this.handle = handle;
+    this.binary = binary;
 
     this.buffer = Unpooled.buffer();
-    this.writer = new PrintWriter(new OutputStreamWriter(new ByteBufOutputStream(buffer), StandardCharsets.UTF_8));
+    ByteBufOutputStream os = new ByteBufOutputStream(buffer);
+    this.writer = new PrintWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+    this.encoder = new BinaryEncoder(os);
   }
 
   @Override
@@ -70,20 +80,31 @@ final class QueryResultsBodyProducer extends BodyProducer {
     }
 
     if (results.isEmpty()) {
+      if (binary && !ended) {
+        ended = true;
+        QueryResultsCodec.encodeEnd(encoder);
+        return buffer.copy();
+      }
       return Unpooled.EMPTY_BUFFER;
     }
 
-    for (QueryResult result : results) {
-      appendCSVRow(writer, result);
+    if (binary) {
+      QueryResultsCodec.encodeBlock(results, encoder);
+    } else {
+      for (QueryResult result : results) {
+        appendCSVRow(writer, result);
+      }
+      writer.flush();
     }
-    writer.flush();
 
     results = exploreService.nextResults(handle, AbstractExploreQueryExecutorHttpHandler.DOWNLOAD_FETCH_CHUNK_SIZE);
     return buffer.copy();
   }
 
   private void initialize() throws HandleNotFoundException, SQLException, ExploreException {
-    writer.println(getCSVHeaders(exploreService.getResultSchema(handle)));
+    if (!binary) {
+      writer.println(getCSVHeaders(exploreService.getResultSchema(handle)));
+    }
 
     results = exploreService.previewResults(handle);
     if (results.isEmpty()) {
@@ -0,0 +1,225 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.explore.executor;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.utils.Tasks;
+import io.cdap.cdap.explore.client.ExploreExecutionResult;
+import io.cdap.cdap.explore.client.FixedAddressExploreClient;
+import io.cdap.cdap.explore.service.ExploreService;
+import io.cdap.cdap.explore.service.hive.OperationInfo;
+import io.cdap.cdap.explore.utils.QueryResultsCodec;
+import io.cdap.cdap.proto.ColumnDesc;
+import io.cdap.cdap.proto.QueryHandle;
+import io.cdap.cdap.proto.QueryResult;
+import io.cdap.cdap.proto.QueryStatus;
+import io.cdap.cdap.proto.id.NamespaceId;
+import io.cdap.cdap.proto.id.NamespacedEntityId;
+import io.cdap.cdap.security.impersonation.ImpersonatedOpType;
+import io.cdap.cdap.security.impersonation.Impersonator;
+import io.cdap.common.http.HttpRequest;
+import io.cdap.common.http.HttpRequests;
+import io.cdap.common.http.HttpResponse;
+import io.cdap.http.NettyHttpService;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link ExploreQueryExecutorHttpHandler} serving query results to the explore client and over HTTP.
+ */
+public class ExploreQueryExecutorHttpHandlerTest {
+
+  private static final Gson GSON = new Gson();
+  private static final List<ColumnDesc> SCHEMA = ImmutableList.of(new ColumnDesc("name", "STRING", 1, null),
+                                                                  new ColumnDesc("count", "BIGINT", 2, null));
+  // A long that a double can't represent, so it is only returned exactly by the binary encoding
+  private static final long LARGE_COUNT = (1L << 53) + 1;
+
+  private static ExploreService exploreService;
+  private static NettyHttpService httpService;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    exploreService = Mockito.mock(ExploreService.class);
+    OperationInfo operationInfo = Mockito.mock(OperationInfo.class);
+    Mockito.when(operationInfo.getUGI()).thenReturn(UserGroupInformation.getCurrentUser());
+    Mockito.when(exploreService.getOperationInfo(Mockito.any(QueryHandle.class))).thenReturn(operationInfo);
+
+    Impersonator impersonator = Mockito.mock(Impersonator.class);
+    Mockito.when(impersonator.doAs(Mockito.any(NamespacedEntityId.class), Mockito.any(Callable.class),
+                                   Mockito.any(ImpersonatedOpType.class))).thenAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        return ((Callable<?>) invocation.getArguments()[1]).call();
+      }
+    });
+
+    httpService = NettyHttpService.builder("explore-query-test")
+      .setHttpHandlers(new ExploreQueryExecutorHttpHandler(exploreService),
+                       new NamespacedExploreQueryExecutorHttpHandler(exploreService, impersonator))
+      .build();
+    httpService.start();
+  }
+
+  @AfterClass
+  public static void finish() throws Exception {
+    httpService.stop();
+  }
+
+  @Test
+  public void testPrefetchedResults() throws Exception {
+    AtomicInteger fetches = new AtomicInteger();
+    QueryHandle handle = mockQuery(fetches, page(0, 2), page(2, 2), page(4, 1));
+    Mockito.when(exploreService.execute(Mockito.any(NamespaceId.class), Mockito.eq("select prefetch"),
+                                        Mockito.anyMapOf(String.class, String.class))).thenReturn(handle);
+
+    InetSocketAddress address = httpService.getBindAddress();
+    try (FixedAddressExploreClient client = new FixedAddressExploreClient(address.getHostName(), address.getPort(),
+                                                                          null, false, false)) {
+      List<QueryResult> results = new ArrayList<>();
+      try (ExploreExecutionResult result = client.submit(NamespaceId.DEFAULT, "select prefetch")
+        .get(10, TimeUnit.SECONDS)) {
+        results.add(result.next());
+        // The second page is fetched while the first one is being consumed
+        Tasks.waitFor(2, fetches::get, 10, TimeUnit.SECONDS);
+        while (result.hasNext()) {
+          results.add(result.next());
+        }
+      }
+      Assert.assertEquals(5, results.size());
+      for (int i = 0; i < results.size(); i++) {
+        Assert.assertEquals(row(i).getColumns(), results.get(i).getColumns());
+      }
+      Mockito.verify(exploreService, Mockito.timeout(10000)).close(handle);
+    }
+  }
+
+  @Test
+  public void testNextResults() throws Exception {
+    QueryHandle handle = mockQuery(new AtomicInteger(), page(0, 2));
+    URL url = getURL("data/explore/queries/" + handle.getHandle() + "/next");
+
+    HttpResponse response = HttpRequests.execute(
+      HttpRequest.post(url).withBody(GSON.toJson(Collections.singletonMap("size", 2)))
+        .addHeader("Accept", QueryResultsCodec.MEDIA_TYPE).build(), new DefaultHttpRequestConfig(false));
+    Assert.assertEquals(200, response.getResponseCode());
+    Assert.assertTrue(QueryResultsCodec.isBinary(getContentType(response)));
+    Assert.assertEquals(page(0, 2), decode(response.getResponseBody()));
+
+    // Without the accept header, the results are returned as JSON
+    response = HttpRequests.execute(
+      HttpRequest.post(url).withBody(GSON.toJson(Collections.singletonMap("size", 2))).build(),
+      new DefaultHttpRequestConfig(false));
+    Assert.assertEquals(200, response.getResponseCode());
+    Assert.assertFalse(QueryResultsCodec.isBinary(getContentType(response)));
+    List<QueryResult> results = GSON.fromJson(response.getResponseBodyAsString(),
+                                              new TypeToken<List<QueryResult>>() { }.getType());
+    Assert.assertTrue(results.isEmpty());
+  }
+
+  @Test
+  public void testDownloadResults() throws Exception {
+    QueryHandle handle = mockQuery(new AtomicInteger(), page(0, 3), page(3, 2));
+    URL url = getURL("data/explore/queries/" + handle.getHandle() + "/download");
+
+    HttpResponse response = HttpRequests.execute(
+      HttpRequest.post(url).addHeader("Accept", QueryResultsCodec.MEDIA_TYPE).build(),
+      new DefaultHttpRequestConfig(false));
+    Assert.assertEquals(200, response.getResponseCode());
+    Assert.assertTrue(QueryResultsCodec.isBinary(getContentType(response)));
+    // One block per page, followed by the end of the array
+    List<QueryResult> expected = new ArrayList<>(page(0, 3));
+    expected.addAll(page(3, 2));
+    Assert.assertEquals(expected, decode(response.getResponseBody()));
+  }
+
+  /**
+   * Mocks a finished query that returns the given pages of results, and counts the pages fetched.
+   */
+  @SafeVarargs
+  private static QueryHandle mockQuery(AtomicInteger fetches, List<QueryResult>... pages) throws Exception {
+    QueryHandle handle = QueryHandle.generate();
+    Iterator<List<QueryResult>> iterator = Arrays.asList(pages).iterator();
+    Mockito.when(exploreService.getStatus(handle)).thenReturn(new QueryStatus(QueryStatus.OpStatus.FINISHED, true));
+    Mockito.when(exploreService.getResultSchema(handle)).thenReturn(SCHEMA);
+    Mockito.when(exploreService.previewResults(handle)).thenReturn(Collections.<QueryResult>emptyList());
+    Mockito.when(exploreService.nextResults(Mockito.eq(handle), Mockito.anyInt())).thenAnswer(
+      new Answer<List<QueryResult>>() {
+        @Override
+        public List<QueryResult> answer(InvocationOnMock invocation) {
+          fetches.incrementAndGet();
+          synchronized (iterator) {
+            return iterator.hasNext() ? iterator.next() : Collections.<QueryResult>emptyList();
+          }
+        }
+      });
+    return handle;
+  }
+
+  private static List<QueryResult> page(int start, int size) {
+    List<QueryResult> rows = new ArrayList<>();
+    for (int i = start; i < start + size; i++) {
+      rows.add(row(i));
+    }
+    return rows;
+  }
+
+  private static QueryResult row(int index) {
+    return new QueryResult(Arrays.<Object>asList("name" + index, LARGE_COUNT + index));
+  }
+
+  private static List<QueryResult> decode(byte[] body) throws Exception {
+    return QueryResultsCodec.decode(new BinaryDecoder(new ByteArrayInputStream(body)));
+  }
+
+  private static String getContentType(HttpResponse response) {
+    for (Map.Entry<String, String> header : response.getHeaders().entries()) {
+      if ("Content-Type".equalsIgnoreCase(header.getKey())) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static URL getURL(String path) throws Exception {
+    InetSocketAddress address = httpService.getBindAddress();
+    return new URL(String.format("http://%s:%d/v3/%s", address.getHostName(), address.getPort(), path));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.explore.utils;
+
+import com.google.common.collect.ImmutableList;
+import io.cdap.cdap.common.io.BinaryDecoder;
+import io.cdap.cdap.common.io.BinaryEncoder;
+import io.cdap.cdap.proto.QueryResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link QueryResultsCodec}.
+ */
+public class QueryResultsCodecTest {
+
+  @Test
+  public void testEncoding() throws IOException {
+    List<QueryResult> rows = ImmutableList.of(
+      new QueryResult(Arrays.<Object>asList(1, 2L, 3.5f, 4.5d, true, "str", null)),
+      new QueryResult(Arrays.<Object>asList((short) 5, (byte) 6, new BigDecimal("7.25"), new byte[] { 1, 2 })),
+      new QueryResult(Collections.emptyList()));
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    QueryResultsCodec.encode(rows, new BinaryEncoder(os));
+    List<QueryResult> decoded = decode(os.toByteArray());
+
+    Assert.assertEquals(3, decoded.size());
+    Assert.assertEquals(rows.get(0), decoded.get(0));
+    List<Object> second = decoded.get(1).getColumns();
+    Assert.assertEquals(Arrays.<Object>asList(5, 6, "7.25"), second.subList(0, 3));
+    Assert.assertArrayEquals(new byte[] { 1, 2 }, (byte[]) second.get(3));
+    Assert.assertTrue(decoded.get(2).getColumns().isEmpty());
+  }
+
+  @Test
+  public void testBlocks() throws IOException {
+    // A streamed result set is written one block per page
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = new BinaryEncoder(os);
+    QueryResultsCodec.encodeBlock(ImmutableList.of(new QueryResult(Collections.<Object>singletonList("a"))), encoder);
+    QueryResultsCodec.encodeBlock(Collections.<QueryResult>emptyList(), encoder);
+    QueryResultsCodec.encodeBlock(ImmutableList.of(new QueryResult(Collections.<Object>singletonList("b")),
+                                                   new QueryResult(Collections.<Object>singletonList("c"))), encoder);
+    QueryResultsCodec.encodeEnd(encoder);
+
+    List<QueryResult> decoded = decode(os.toByteArray());
+    Assert.assertEquals(3, decoded.size());
+    Assert.assertEquals("c", decoded.get(2).getColumns().get(0));
+
+    // An empty result set
+    os.reset();
+    QueryResultsCodec.encode(Collections.<QueryResult>emptyList(), encoder);
+    Assert.assertTrue(decode(os.toByteArray()).isEmpty());
+  }
+
+  private List<QueryResult> decode(byte[] bytes) throws IOException {
+    return QueryResultsCodec.decode(new BinaryDecoder(new ByteArrayInputStream(bytes)));
+  }
+}
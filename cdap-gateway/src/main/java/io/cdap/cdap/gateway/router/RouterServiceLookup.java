@@ -24,7 +24,7 @@ import com.google.inject.Inject;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
 import io.cdap.cdap.common.discovery.EndpointStrategy;
-import io.cdap.cdap.common.discovery.RandomEndpointStrategy;
+import io.cdap.cdap.common.discovery.EndpointStrategyType;
 import io.cdap.cdap.common.service.ServiceDiscoverable;
 import io.cdap.cdap.gateway.discovery.VersionFilteredServiceDiscovered;
 import io.netty.handler.codec.http.HttpRequest;
@@ -46,12 +46,14 @@ public class RouterServiceLookup {
   private final DiscoveryServiceClient discoveryServiceClient;
   private final LoadingCache<RouteDestination, EndpointStrategy> discoverableCache;
   private final RouterPathLookup routerPathLookup;
+  private final EndpointStrategyType endpointStrategyType;
 
   @Inject
   RouterServiceLookup(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient,
                       RouterPathLookup routerPathLookup) {
     this.discoveryServiceClient = discoveryServiceClient;
     this.routerPathLookup = routerPathLookup;
+    this.endpointStrategyType = EndpointStrategyType.fromConfig(cConf, Constants.Router.ENDPOINT_STRATEGY);
     this.discoverableCache = CacheBuilder.newBuilder()
       .expireAfterAccess(1, TimeUnit.HOURS)
       .build(new CacheLoader<RouteDestination, EndpointStrategy>() {
@@ -97,12 +99,11 @@ public class RouterServiceLookup {
 
       // If the request is from the versioned endpoint, filter the discoverables by the version
       if (version != null) {
-        return new RandomEndpointStrategy(
+        return endpointStrategyType.create(
           () -> new VersionFilteredServiceDiscovered(discoveryServiceClient.discover(serviceName), version));
       }
     }
 
-    // For all other cases, use the random strategy
-    return new RandomEndpointStrategy(() -> discoveryServiceClient.discover(serviceName));
+    return endpointStrategyType.create(() -> discoveryServiceClient.discover(serviceName));
   }
 }
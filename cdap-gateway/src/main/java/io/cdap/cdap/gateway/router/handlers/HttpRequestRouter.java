@@ -58,6 +58,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.Flushable;
+import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -83,6 +84,11 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   private int inflightRequests;
   private MessageSender currentMessageSender;
   private ChannelFutureListener failureResponseListener;
+  // For reporting the outcome of the current request to the strategy that picked the endpoint
+  private EndpointStrategy currentStrategy;
+  private InetSocketAddress currentEndpoint;
+  private long requestStartNanos;
+  private boolean responseSuccess;
 
   public HttpRequestRouter(CConfiguration cConf, RouterServiceLookup serviceLookup) {
     this.cConf = cConf;
@@ -129,9 +135,15 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
           }
         };
 
-        currentMessageSender = getMessageSender(
-          inboundChannel, getDiscoverable(request)
-        );
+        EndpointStrategy strategy = getEndpointStrategy(request);
+        Discoverable discoverable = getDiscoverable(strategy, request);
+        currentMessageSender = getMessageSender(inboundChannel, discoverable);
+
+        currentStrategy = strategy;
+        currentEndpoint = discoverable.getSocketAddress();
+        requestStartNanos = System.nanoTime();
+        responseSuccess = true;
+        strategy.requestStarted(currentEndpoint);
       }
 
       if (inflightRequests == 1 && currentMessageSender != null) {
@@ -153,10 +165,14 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
   @Override
   public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+    if (msg instanceof HttpResponse) {
+      responseSuccess = !HttpResponseStatus.SERVICE_UNAVAILABLE.equals(((HttpResponse) msg).status());
+    }
     ctx.writeAndFlush(msg, promise);
 
     // When the response for the first request is completed, write N failure responses for pipelining requests (if any).
     if (msg instanceof LastHttpContent) {
+      completeRequest(responseSuccess);
       for (int i = 0; i < inflightRequests - 1; i++) {
         ctx.writeAndFlush(createPipeliningNotSupported());
       }
@@ -180,6 +196,8 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
 
   @Override
   public void channelInactive(ChannelHandlerContext ctx) {
+    // The client went away before the response completed, which doesn't mean the endpoint failed
+    completeRequest(true);
     if (currentMessageSender != null) {
       currentMessageSender.close();
     }
@@ -197,6 +215,7 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
         @Override
         public void operationComplete(ChannelFuture future) {
           if (!future.isSuccess()) {
+            completeRequest(false);
             HttpResponse response = createErrorResponse(future.cause());
             HttpUtil.setKeepAlive(response, false);
             inboundChannel.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
@@ -208,14 +227,32 @@ public class HttpRequestRouter extends ChannelDuplexHandler {
   }
 
   /**
-   * Finds the {@link Discoverable} for the given {@link HttpRequest} to route to.
+   * Reports the outcome of the current request to the {@link EndpointStrategy} that picked the endpoint for it.
    */
-  private Discoverable getDiscoverable(HttpRequest httpRequest) {
+  private void completeRequest(boolean success) {
+    if (currentStrategy != null) {
+      currentStrategy.requestCompleted(currentEndpoint, System.nanoTime() - requestStartNanos, success);
+      currentStrategy = null;
+      currentEndpoint = null;
+    }
+  }
+
+  /**
+   * Finds the {@link EndpointStrategy} for picking the endpoint to route the given {@link HttpRequest} to.
+   */
+  private EndpointStrategy getEndpointStrategy(HttpRequest httpRequest) {
     EndpointStrategy strategy = serviceLookup.getDiscoverable(httpRequest);
     if (strategy == null) {
       throw new HandlerException(HttpResponseStatus.SERVICE_UNAVAILABLE,
                                  "No endpoint strategy found for request " + getRequestLine(httpRequest));
     }
+    return strategy;
+  }
+
+  /**
+   * Finds the {@link Discoverable} for the given {@link HttpRequest} to route to.
+   */
+  private Discoverable getDiscoverable(EndpointStrategy strategy, HttpRequest httpRequest) {
     // Do a non-blocking pick first. If the service has been discovered before, this should return an endpoint
     // immediately.
     Discoverable discoverable = strategy.pick();
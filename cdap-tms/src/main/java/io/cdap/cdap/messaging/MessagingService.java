@@ -95,6 +95,22 @@ public interface MessagingService {
    */
   MessageFetcher prepareFetch(TopicId topicId) throws TopicNotFoundException, IOException;
 
+  /**
+   * Prepares to fetch messages from one partition of the given topic. Messages in different partitions are
+   * not ordered relative to each other.
+   *
+   * @param topicId the topic to fetch message from
+   * @param partition the partition to fetch message from, between {@code 0} and the number of partitions of the topic
+   * @return a {@link MessageFetcher} for setting up parameters for fetching messages from the messaging system
+   * @throws TopicNotFoundException if the topic or the partition doesn't exist
+   * @throws IOException if failed to fetch messages
+   * @throws ServiceUnavailableException if the messaging service is not available
+   * @see TopicMetadata#getPartitions()
+   */
+  default MessageFetcher prepareFetch(TopicId topicId, int partition) throws TopicNotFoundException, IOException {
+    return prepareFetch(TopicMetadata.getPartitionTopicId(topicId, partition));
+  }
+
   /**
    * Publishes a list of messages to the messaging system.
    *
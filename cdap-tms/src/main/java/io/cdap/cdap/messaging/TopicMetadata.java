@@ -17,11 +17,14 @@
 package io.cdap.cdap.messaging;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
 import io.cdap.cdap.proto.id.TopicId;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Represents metadata about a messaging topic.
@@ -30,6 +33,15 @@ public class TopicMetadata {
 
   public static final String GENERATION_KEY = MessagingUtils.Constants.GENERATION_KEY;
   public static final String TTL_KEY = MessagingUtils.Constants.TTL_KEY;
+  public static final String PARTITIONS_KEY = "partitions";
+
+  /**
+   * Separator between the topic name and the partition number in the name of the topic backing a partition.
+   */
+  public static final String PARTITION_SEPARATOR = "__p";
+
+  // the name of a topic backing a partition other than partition 0
+  private static final Pattern PARTITION_TOPIC_PATTERN = Pattern.compile("(.+)" + PARTITION_SEPARATOR + "([1-9]\\d*)");
 
   private final TopicId topicId;
   private final Map<String, String> properties;
@@ -109,6 +121,80 @@ public class TopicMetadata {
     return Integer.parseInt(properties.get(TTL_KEY));
   }
 
+  /**
+   * Returns the number of partitions of the topic. Topics without the partitions property have one partition.
+   */
+  public int getPartitions() {
+    if (!validated) {
+      validatePartitions();
+    }
+    String partitions = properties.get(PARTITIONS_KEY);
+    return partitions == null ? 1 : Integer.parseInt(partitions);
+  }
+
+  /**
+   * Returns the partition that messages with the given key are routed to. Messages with the same key always go
+   * to the same partition, hence are consumed in the order they were published.
+   */
+  public int getPartition(byte[] key) {
+    return getPartition(key, getPartitions());
+  }
+
+  /**
+   * Returns the partition among the given number of partitions that messages with the given key are routed to.
+   */
+  public static int getPartition(byte[] key, int partitions) {
+    if (partitions <= 1) {
+      return 0;
+    }
+    return (Hashing.murmur3_32().hashBytes(key).asInt() & Integer.MAX_VALUE) % partitions;
+  }
+
+  /**
+   * Returns the id of the topic that stores the messages of the given partition of a partitioned topic.
+   * Partition {@code 0} is stored in the topic itself, while every other partition is stored in a topic
+   * named {@code <topic>__p<partition>} in the same namespace.
+   */
+  public static TopicId getPartitionTopicId(TopicId topicId, int partition) {
+    if (partition < 0) {
+      throw new IllegalArgumentException("Partition must not be negative for topic " + topicId);
+    }
+    if (partition == 0) {
+      return topicId;
+    }
+    return topicId.getParent().topic(topicId.getTopic() + PARTITION_SEPARATOR + partition);
+  }
+
+  /**
+   * Returns the partition that the given topic stores if its name has the form {@code <topic>__p<partition>}
+   * of a topic backing a partition, or {@code 0} otherwise. Whether the partitioned topic exists is not checked.
+   */
+  public static int getBackedPartition(TopicId topicId) {
+    Matcher matcher = PARTITION_TOPIC_PATTERN.matcher(topicId.getTopic());
+    if (!matcher.matches()) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(matcher.group(2));
+    } catch (NumberFormatException e) {
+      // too many digits to be a partition
+      return 0;
+    }
+  }
+
+  /**
+   * Returns the id of the partitioned topic that the given topic would back a partition of, based on its name.
+   *
+   * @throws IllegalArgumentException if the name does not have the form {@code <topic>__p<partition>}
+   */
+  public static TopicId getPartitionedTopicId(TopicId partitionTopicId) {
+    Matcher matcher = PARTITION_TOPIC_PATTERN.matcher(partitionTopicId.getTopic());
+    if (!matcher.matches()) {
+      throw new IllegalArgumentException("Topic " + partitionTopicId + " does not back a partition of a topic");
+    }
+    return partitionTopicId.getParent().topic(matcher.group(1));
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -142,6 +228,7 @@ public class TopicMetadata {
   private void validateProperties() {
     validateTTL();
     validateGeneration();
+    validatePartitions();
   }
 
   /**
@@ -183,6 +270,26 @@ public class TopicMetadata {
     }
   }
 
+  /**
+   * Validates the optional "partitions" property of the given topic.
+   *
+   * @throws IllegalArgumentException if the partitions value is not a number or <= 0.
+   */
+  private void validatePartitions() {
+    String partitions = properties.get(PARTITIONS_KEY);
+    if (partitions == null) {
+      return;
+    }
+    try {
+      if (Integer.parseInt(partitions) <= 0) {
+        throw new IllegalArgumentException("The partitions property must be greater than zero for topic " + topicId);
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("The partitions property must be a number greater than zero for topic "
+                                           + topicId, e);
+    }
+  }
+
   /**
    * Turns a list of {@link Object} into a {@link Map} by using even index objects as keys and the following odd index
    * objects as values. The {@link Object#toString()} method will be used to convert {@link Object} to {@link String}.
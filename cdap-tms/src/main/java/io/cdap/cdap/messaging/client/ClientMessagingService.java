@@ -33,6 +33,7 @@ import io.cdap.cdap.api.messaging.TopicNotFoundException;
 import io.cdap.cdap.common.ServiceUnavailableException;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
+import io.cdap.cdap.common.discovery.EndpointStrategyType;
 import io.cdap.cdap.common.http.DefaultHttpRequestConfig;
 import io.cdap.cdap.common.internal.remote.RemoteClient;
 import io.cdap.cdap.messaging.MessageFetcher;
@@ -105,13 +106,19 @@ public final class ClientMessagingService implements MessagingService {
 
   @Inject
   ClientMessagingService(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient) {
-    this(discoveryServiceClient, cConf.getBoolean(Constants.MessagingSystem.HTTP_COMPRESS_PAYLOAD));
+    this(discoveryServiceClient, cConf.getBoolean(Constants.MessagingSystem.HTTP_COMPRESS_PAYLOAD),
+         EndpointStrategyType.fromConfig(cConf, Constants.MessagingSystem.CLIENT_ENDPOINT_STRATEGY));
   }
 
   @VisibleForTesting
   public ClientMessagingService(DiscoveryServiceClient discoveryServiceClient, boolean compressPayload) {
+    this(discoveryServiceClient, compressPayload, EndpointStrategyType.RANDOM);
+  }
+
+  private ClientMessagingService(DiscoveryServiceClient discoveryServiceClient, boolean compressPayload,
+                                 EndpointStrategyType endpointStrategyType) {
     this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
-                                         HTTP_REQUEST_CONFIG, "/v1/namespaces/");
+                                         HTTP_REQUEST_CONFIG, "/v1/namespaces/", null, endpointStrategyType);
     this.compressPayload = compressPayload;
   }
 
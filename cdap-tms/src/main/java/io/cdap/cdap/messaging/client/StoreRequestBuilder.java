@@ -19,6 +19,7 @@ package io.cdap.cdap.messaging.client;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import io.cdap.cdap.messaging.StoreRequest;
+import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.proto.id.TopicId;
 
 import java.nio.charset.StandardCharsets;
@@ -37,8 +38,10 @@ public final class StoreRequestBuilder {
   private static final Function<String, byte[]> STRING_TO_BYTES = input -> input.getBytes(StandardCharsets.UTF_8);
 
   private final TopicId topicId;
+  private final int partitions;
   private List<byte[]> payloads;
   private Long txWritePointer;
+  private byte[] partitionKey;
 
   /**
    * Creates a new {@link StoreRequestBuilder} instance.
@@ -46,14 +49,25 @@ public final class StoreRequestBuilder {
    * @param topicId the topic that the store action will happen.
    */
   public static StoreRequestBuilder of(TopicId topicId) {
-    return new StoreRequestBuilder(topicId);
+    return new StoreRequestBuilder(topicId, 1);
+  }
+
+  /**
+   * Creates a new {@link StoreRequestBuilder} instance for a topic that can be partitioned.
+   * The partition to store to is selected by the key set with {@link #setPartitionKey(byte[])}.
+   *
+   * @param topicMetadata the metadata of the topic that the store action will happen.
+   */
+  public static StoreRequestBuilder of(TopicMetadata topicMetadata) {
+    return new StoreRequestBuilder(topicMetadata.getTopicId(), topicMetadata.getPartitions());
   }
 
   /**
    * Constructor. This is private and the {@link #of(TopicId)} method should be used.
    */
-  private StoreRequestBuilder(TopicId topicId) {
+  private StoreRequestBuilder(TopicId topicId, int partitions) {
     this.topicId = topicId;
+    this.partitions = partitions;
   }
 
   /**
@@ -98,6 +112,26 @@ public final class StoreRequestBuilder {
     return this;
   }
 
+  /**
+   * Sets the key for selecting the partition to store to. All payloads stored with the same key go to the same
+   * partition, so that they are consumed in the order they were stored. The string will be converted to byte arrays
+   * using UTF-8 encoding.
+   */
+  public StoreRequestBuilder setPartitionKey(String partitionKey) {
+    return setPartitionKey(STRING_TO_BYTES.apply(partitionKey));
+  }
+
+  /**
+   * Sets the key for selecting the partition to store to. All payloads stored with the same key go to the same
+   * partition, so that they are consumed in the order they were stored.
+   *
+   * @param partitionKey the partition key, or {@code null} to store to the first partition
+   */
+  public StoreRequestBuilder setPartitionKey(@Nullable byte[] partitionKey) {
+    this.partitionKey = partitionKey;
+    return this;
+  }
+
   /**
    * Returns {@code true} if there is some payload in this builder.
    */
@@ -112,7 +146,9 @@ public final class StoreRequestBuilder {
     if (txWritePointer == null && (payloads == null || payloads.isEmpty())) {
       throw new IllegalArgumentException("Payload cannot be empty for non-transactional publish");
     }
-    return new SimpleStoreRequest(topicId, txWritePointer != null, txWritePointer == null ? -1L : txWritePointer,
+    int partition = partitionKey == null ? 0 : TopicMetadata.getPartition(partitionKey, partitions);
+    return new SimpleStoreRequest(TopicMetadata.getPartitionTopicId(topicId, partition), txWritePointer != null,
+                                  txWritePointer == null ? -1L : txWritePointer,
                                   payloads);
   }
 
@@ -35,6 +35,7 @@ import io.cdap.http.HttpResponder;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
@@ -58,6 +59,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import javax.ws.rs.POST;
@@ -93,22 +95,12 @@ public final class StoreHandler extends AbstractHttpHandler {
     return new SpillableBodyConsumer(Files.createTempFile(tempDir, "tms.publish", ".tmp"), bufferSize) {
       @Override
       protected void processInput(InputStream inputStream, HttpResponder responder) throws Exception {
-        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream);
-        // Empty payload is only allowed for transactional publish
-        if (!storeRequest.isTransactional() && !storeRequest.hasPayload()) {
-          throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
-                                          + topicId);
-        }
-        // Publish the message and response with the rollback information
-        RollbackDetail rollbackInfo = messagingService.publish(storeRequest);
-        if (rollbackInfo == null) {
-          // Non-tx publish doesn't have rollback info.
-          responder.sendStatus(HttpResponseStatus.OK);
-        } else {
-          ByteBuf response = encodeRollbackDetail(rollbackInfo);
-          responder.sendContent(HttpResponseStatus.OK, response,
-                                new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
-        }
+        publishMessages(createStoreRequest(topicId, request, inputStream), responder);
+      }
+
+      @Override
+      protected void processInput(ByteBuf buffer, HttpResponder responder) throws Exception {
+        publishMessages(createStoreRequest(topicId, request, buffer), responder);
       }
     };
   }
@@ -123,15 +115,12 @@ public final class StoreHandler extends AbstractHttpHandler {
     return new SpillableBodyConsumer(Files.createTempFile(tempDir, "tms.store", ".tmp"), bufferSize) {
       @Override
       protected void processInput(InputStream inputStream, HttpResponder responder) throws Exception {
-        StoreRequest storeRequest = createStoreRequest(topicId, request, inputStream);
-
-        // It must be transactional with payload for store request
-        if (!storeRequest.isTransactional() || !storeRequest.hasPayload()) {
-          throw new BadRequestException("Store request must be transactional with payload. Topic: " + topicId);
-        }
+        storePayloads(createStoreRequest(topicId, request, inputStream), responder);
+      }
 
-        messagingService.storePayload(storeRequest);
-        responder.sendStatus(HttpResponseStatus.OK);
+      @Override
+      protected void processInput(ByteBuf buffer, HttpResponder responder) throws Exception {
+        storePayloads(createStoreRequest(topicId, request, buffer), responder);
       }
     };
   }
@@ -149,21 +138,74 @@ public final class StoreHandler extends AbstractHttpHandler {
     responder.sendStatus(HttpResponseStatus.OK);
   }
 
+  /**
+   * Publishes the given {@link StoreRequest} and responds with the rollback information.
+   */
+  private void publishMessages(StoreRequest storeRequest, HttpResponder responder) throws Exception {
+    // Empty payload is only allowed for transactional publish
+    if (!storeRequest.isTransactional() && !storeRequest.hasPayload()) {
+      throw new BadRequestException("Empty payload is only allowed for publishing transactional message. Topic: "
+                                      + storeRequest.getTopicId());
+    }
+    // Publish the message and response with the rollback information
+    RollbackDetail rollbackInfo = messagingService.publish(storeRequest);
+    if (rollbackInfo == null) {
+      // Non-tx publish doesn't have rollback info.
+      responder.sendStatus(HttpResponseStatus.OK);
+    } else {
+      ByteBuf response = encodeRollbackDetail(rollbackInfo);
+      responder.sendContent(HttpResponseStatus.OK, response,
+                            new DefaultHttpHeaders().set(HttpHeaderNames.CONTENT_TYPE, "avro/binary"));
+    }
+  }
+
+  /**
+   * Stores the payloads of the given {@link StoreRequest} to the payload table.
+   */
+  private void storePayloads(StoreRequest storeRequest, HttpResponder responder) throws Exception {
+    // It must be transactional with payload for store request
+    if (!storeRequest.isTransactional() || !storeRequest.hasPayload()) {
+      throw new BadRequestException("Store request must be transactional with payload. Topic: "
+                                      + storeRequest.getTopicId());
+    }
+
+    messagingService.storePayload(storeRequest);
+    responder.sendStatus(HttpResponseStatus.OK);
+  }
+
   /**
    * Creates a {@link StoreRequest} instance based on the given {@link HttpRequest}.
    */
   private StoreRequest createStoreRequest(TopicId topicId,
                                           HttpRequest request, InputStream is) throws BadRequestException, IOException {
-    // Currently only support avro
-    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
-      throw new BadRequestException("Only avro/binary content type is supported.");
-    }
+    checkContentType(request);
 
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(is, null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.PublishRequest.SCHEMA);
     return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder));
   }
 
+  /**
+   * Creates a {@link StoreRequest} instance based on the given {@link HttpRequest}, with payloads decoded as slices
+   * of the given buffer. The buffer must not be released before the request is written.
+   */
+  private StoreRequest createStoreRequest(TopicId topicId,
+                                          HttpRequest request, ByteBuf buffer) throws BadRequestException {
+    checkContentType(request);
+    try {
+      return ByteBufStoreRequest.decode(topicId, buffer);
+    } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+      throw new BadRequestException("Invalid publish request for topic " + topicId, e);
+    }
+  }
+
+  private void checkContentType(HttpRequest request) throws BadRequestException {
+    // Currently only support avro
+    if (!"avro/binary".equals(request.headers().get(HttpHeaderNames.CONTENT_TYPE))) {
+      throw new BadRequestException("Only avro/binary content type is supported.");
+    }
+  }
+
   /**
    * Encodes the {@link RollbackDetail} object as avro record based on the {@link Schemas.V1.PublishResponse#SCHEMA}.
    */
@@ -221,6 +263,91 @@ public final class StoreHandler extends AbstractHttpHandler {
     }
   }
 
+  /**
+   * A {@link StoreRequest} that decodes an avro binary encoded {@link Schemas.V1.PublishRequest} directly from
+   * a {@link ByteBuf}. Payloads are kept as slices of the buffer, and each of them is copied only once,
+   * into the byte array to be written to the table, when it is iterated.
+   */
+  private static final class ByteBufStoreRequest extends StoreRequest {
+
+    private final List<ByteBuf> payloads;
+
+    private ByteBufStoreRequest(TopicId topicId, boolean transactional,
+                                long transactionWritePointer, List<ByteBuf> payloads) {
+      super(topicId, transactional, transactionWritePointer);
+      this.payloads = payloads;
+    }
+
+    /**
+     * Decodes a {@link Schemas.V1.PublishRequest} record from the given buffer.
+     *
+     * @throws IllegalArgumentException if the buffer doesn't contain a valid record
+     * @throws IndexOutOfBoundsException if the buffer ends before the record does
+     */
+    static ByteBufStoreRequest decode(TopicId topicId, ByteBuf buffer) {
+      // The transactionWritePointer field is an union of [long, null]
+      boolean transactional;
+      long transactionWritePointer = -1L;
+      long unionIndex = readLong(buffer);
+      if (unionIndex == 0L) {
+        transactional = true;
+        transactionWritePointer = readLong(buffer);
+      } else if (unionIndex == 1L) {
+        transactional = false;
+      } else {
+        throw new IllegalArgumentException("Invalid union index " + unionIndex + " for transactionWritePointer");
+      }
+
+      // The messages field is an array of bytes, encoded as a sequence of blocks
+      List<ByteBuf> payloads = new ArrayList<>();
+      long count = readLong(buffer);
+      while (count != 0L) {
+        if (count < 0L) {
+          // A negative count is followed by the size of the block in bytes
+          count = -count;
+          readLong(buffer);
+        }
+        for (long i = 0; i < count; i++) {
+          long length = readLong(buffer);
+          if (length < 0L || length > buffer.readableBytes()) {
+            throw new IllegalArgumentException("Invalid message length " + length);
+          }
+          payloads.add(buffer.readSlice((int) length));
+        }
+        count = readLong(buffer);
+      }
+      return new ByteBufStoreRequest(topicId, transactional, transactionWritePointer, payloads);
+    }
+
+    /**
+     * Reads an avro binary encoded long, which is a zig-zag encoded variable length integer.
+     */
+    private static long readLong(ByteBuf buffer) {
+      long value = 0L;
+      int shift = 0;
+      byte b;
+      do {
+        if (shift >= 64) {
+          throw new IllegalArgumentException("Invalid long encoding");
+        }
+        b = buffer.readByte();
+        value |= (long) (b & 0x7f) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (value >>> 1) ^ -(value & 1L);
+    }
+
+    @Override
+    public boolean hasPayload() {
+      return !payloads.isEmpty();
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+      return payloads.stream().map(ByteBufUtil::getBytes).iterator();
+    }
+  }
+
   /**
    * A {@link RollbackDetail} implementation that is backed by a {@link GenericRecord} with the
    * {@link Schemas.V1.PublishResponse#SCHEMA}.
@@ -31,15 +31,17 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Class to support writing to message/payload tables with high concurrency.
  *
- * It uses a non-blocking algorithm to batch writes from concurrent threads. The algorithm is the same as
- * the one used in ConcurrentStreamWriter.
+ * It uses group commit to batch writes from concurrent threads, without dedicating a thread to writing.
  *
  * The algorithm is like this:
  *
@@ -49,24 +51,31 @@ import javax.annotation.concurrent.ThreadSafe;
  * 1. Constructs a PendingStoreRequest locally and enqueue it to a ConcurrentLinkedQueue.
  * 2. Use CAS to set an AtomicBoolean flag to true.
  * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-7.
- * 4. Provides an Iterator of PendingStoreRequest, which consumes from the ConcurrentLinkedQueue mentioned in step 1.
- * 5. The message table store method will consume the Iterator until it is empty
- * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure).
- * 7. Set the AtomicBoolean flag back to false.
- * 8. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, go back to step 2.
+ * 4. Optionally waits for the linger time, or until the batch byte limit is reached, for more requests to arrive.
+ * 5. Drains requests from the queue up to the batch byte limit and writes them to the table,
+ *    repeatedly until the PendingStoreRequest of this thread is written.
+ * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure) and unpark its thread.
+ * 7. Set the AtomicBoolean flag back to false, and unpark the thread of the request at the head of the queue, if any,
+ *    so that it becomes the next writer.
+ * 8. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, park until it is unparked and
+ *    go back to step 2.
  * </pre>
  *
- * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
- * get written and flushed.
+ * Since a thread that fails to become the writer only does so while another thread holds the flag, and that
+ * thread checks the queue after releasing the flag, every enqueued request eventually gets written. Waiting
+ * threads are parked instead of spinning, hence don't consume CPU while the table is slow.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
+  private final long lingerNanos;
+  private final long maxBatchBytes;
   private final PendingStoreQueue pendingStoreQueue;
   private final AtomicBoolean writerFlag;
   private final AtomicBoolean closed;
+  private volatile Thread lingeringWriter;
 
   /**
    * Constructor with a {@link NoopMetricsContext}. This constructor should only be used in unit-testing.
@@ -76,15 +85,28 @@ final class ConcurrentMessageWriter implements Closeable {
     this(messagesWriter, new NoopMetricsContext());
   }
 
+  /**
+   * Constructor without linger time and batch byte limit. This constructor should only be used in unit-testing.
+   */
+  @VisibleForTesting
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+    this(messagesWriter, metricsCollector, 0L, Long.MAX_VALUE);
+  }
+
   /**
    * Constructor.
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param lingerMillis number of milliseconds to wait for more requests before writing a batch
+   * @param maxBatchBytes maximum number of payload bytes to write in one batch
    */
-  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          long lingerMillis, long maxBatchBytes) {
     this.messagesWriter = messagesWriter;
     this.metricsCollector = metricsCollector;
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+    this.maxBatchBytes = maxBatchBytes;
     this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
@@ -111,9 +133,16 @@ final class ConcurrentMessageWriter implements Closeable {
 
     metricsCollector.increment("persist.requested", 1L);
 
+    // Wake up the lingering writer if there are enough bytes for a batch
+    Thread writer = lingeringWriter;
+    if (writer != null && pendingStoreQueue.getQueuedBytes() >= maxBatchBytes) {
+      LockSupport.unpark(writer);
+    }
+
     while (!pendingStoreRequest.isCompleted()) {
-      if (!tryWrite()) {
-        Thread.yield();
+      write(pendingStoreRequest);
+      if (!pendingStoreRequest.isCompleted()) {
+        LockSupport.park(this);
       }
     }
 
@@ -134,21 +163,44 @@ final class ConcurrentMessageWriter implements Closeable {
   }
 
   /**
-   * Tries to acquire the writer flag and persist the pending requests.
-   *
-   * @return {@code true} if acquired the writer flag and called {@link PendingStoreQueue#persist(StoreRequestWriter)};
-   *         otherwise {@code false} will be returned.
+   * Tries to acquire the writer flag and persist pending requests until the given request is completed.
+   * If failed to acquire the writer flag, the thread holding the flag will take care of the given request.
    */
-  private boolean tryWrite() {
+  private void write(PendingStoreRequest request) {
     if (!writerFlag.compareAndSet(false, true)) {
-      return false;
+      return;
     }
     try {
-      pendingStoreQueue.persist(messagesWriter);
+      linger();
+      while (!request.isCompleted()) {
+        pendingStoreQueue.persist(messagesWriter, maxBatchBytes);
+      }
     } finally {
       writerFlag.set(false);
     }
-    return true;
+    // Hand over writing to the thread of the next pending request.
+    // It becomes the writer unless another thread already is, which then checks the queue again after writing.
+    pendingStoreQueue.wakeUpNext();
+  }
+
+  /**
+   * Waits for the linger time, or until there are enough bytes queued for a batch.
+   */
+  private void linger() {
+    if (lingerNanos <= 0L) {
+      return;
+    }
+    long deadline = System.nanoTime() + lingerNanos;
+    lingeringWriter = Thread.currentThread();
+    try {
+      long remaining = lingerNanos;
+      while (remaining > 0L && pendingStoreQueue.getQueuedBytes() < maxBatchBytes) {
+        LockSupport.parkNanos(this, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    } finally {
+      lingeringWriter = null;
+    }
   }
 
   @Override
@@ -159,26 +211,36 @@ final class ConcurrentMessageWriter implements Closeable {
     // Flush everything in the queue.
     // When this thread can grab the writer flag, all pending write requests must be completed since the closed
     // flag was already set to false.
-    while (!tryWrite()) {
+    while (!writerFlag.compareAndSet(false, true)) {
       Thread.yield();
     }
+    try {
+      while (pendingStoreQueue.hasPending()) {
+        pendingStoreQueue.persist(messagesWriter, maxBatchBytes);
+      }
+    } finally {
+      writerFlag.set(false);
+    }
+    pendingStoreQueue.wakeUpNext();
     messagesWriter.close();
   }
 
   /**
    * A resettable {@link Iterator} to provide {@link StoreRequest} to {@link StoreRequestWriter}.
-   * Except the {@link #enqueue(PendingStoreRequest)} method, all methods on this class can only be
-   * called while holding the writer flag.
+   * Except the {@link #enqueue(PendingStoreRequest)}, {@link #getQueuedBytes()}, {@link #hasPending()} and
+   * {@link #wakeUpNext()} methods, all methods on this class can only be called while holding the writer flag.
    */
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
     private final Queue<PendingStoreRequest> writeQueue;
+    private final AtomicLong queuedBytes;
     private final List<PendingStoreRequest> inflightRequests;
 
     private PendingStoreQueue(MetricsCollector metricsCollector) {
       this.metricsCollector = metricsCollector;
       this.writeQueue = new ConcurrentLinkedQueue<>();
+      this.queuedBytes = new AtomicLong();
       this.inflightRequests = new ArrayList<>(100);
     }
 
@@ -186,27 +248,64 @@ final class ConcurrentMessageWriter implements Closeable {
      * Puts the given {@link PendingStoreRequest} to the concurrent queue.
      */
     void enqueue(PendingStoreRequest storeRequest) {
+      queuedBytes.addAndGet(storeRequest.getPayloadSize());
       writeQueue.add(storeRequest);
     }
 
     /**
-     * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     * Returns the number of payload bytes of all requests in the queue.
      */
-    void persist(StoreRequestWriter<?> writer) {
-      // Capture all current events.
+    long getQueuedBytes() {
+      return queuedBytes.get();
+    }
+
+    /**
+     * Returns {@code true} if there are requests in the queue.
+     */
+    boolean hasPending() {
+      return !writeQueue.isEmpty();
+    }
+
+    /**
+     * Unparks the thread of the request at the head of the queue, if there is one.
+     */
+    void wakeUpNext() {
+      PendingStoreRequest request = writeQueue.peek();
+      if (request != null) {
+        request.wakeUp();
+      }
+    }
+
+    /**
+     * Persists {@link PendingStoreRequest} currently in the queue with the given writer, up to the given number of
+     * payload bytes. At least one request is persisted if the queue is not empty.
+     */
+    void persist(StoreRequestWriter<?> writer, long maxBatchBytes) {
+      // Capture the current events up to the byte limit.
       // The reason for capturing instead of using a live iterator is to avoid the possible case of infinite write
       // time. E.g. while generating the entry to write to the storage table, a new store request get enqueued.
       // The number of requests in the queue is bounded by the number of threads that call this method.
       // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
       // the thread pool size used by the http service.
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
-      while (request != null) {
+      long batchBytes = 0L;
+      long queueWaitNanos = 0L;
+      long now = System.nanoTime();
+      PendingStoreRequest request = writeQueue.peek();
+      while (request != null
+        && (inflightRequests.isEmpty() || batchBytes + request.getPayloadSize() <= maxBatchBytes)) {
+        writeQueue.poll();
         inflightRequests.add(request);
-        request = writeQueue.poll();
+        batchBytes += request.getPayloadSize();
+        queueWaitNanos += now - request.getCreateNanos();
+        request = writeQueue.peek();
       }
+      queuedBytes.addAndGet(-batchBytes);
 
       metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      if (inflightRequests.isEmpty()) {
+        return;
+      }
 
       try {
         writer.write(inflightRequests.iterator());
@@ -214,17 +313,23 @@ final class ConcurrentMessageWriter implements Closeable {
       } catch (Throwable t) {
         completeAll(t);
       }
+
+      // The metrics system has no histogram, hence emit sums and counts for computing the averages
+      metricsCollector.increment("persist.commit.count", 1L);
+      metricsCollector.increment("persist.commit.requests", inflightRequests.size());
+      metricsCollector.increment("persist.commit.bytes", batchBytes);
+      metricsCollector.increment("persist.commit.time.ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - now));
+      metricsCollector.increment("persist.queue.wait.time.ms", TimeUnit.NANOSECONDS.toMillis(queueWaitNanos));
+      inflightRequests.clear();
     }
 
     /**
-     * Marks all inflight requests as collected through the {@link Iterator#next()} method as completed.
+     * Marks all inflight requests as completed.
      * This method must be called while holding the writer flag.
      */
-    void completeAll(@Nullable Throwable failureCause) {
-      Iterator<PendingStoreRequest> iterator = inflightRequests.iterator();
-      while (iterator.hasNext()) {
-        iterator.next().completed(failureCause);
-        iterator.remove();
+    private void completeAll(@Nullable Throwable failureCause) {
+      for (PendingStoreRequest request : inflightRequests) {
+        request.completed(failureCause);
       }
     }
   }
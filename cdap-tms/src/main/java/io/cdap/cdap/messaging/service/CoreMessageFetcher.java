@@ -18,6 +18,7 @@ package io.cdap.cdap.messaging.service;
 
 import com.google.common.base.Throwables;
 import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.api.metrics.MetricsCollector;
 import io.cdap.cdap.messaging.MessageFetcher;
 import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.messaging.data.MessageId;
@@ -29,6 +30,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
@@ -41,16 +44,22 @@ final class CoreMessageFetcher extends MessageFetcher {
 
   private static final Logger LOG = LoggerFactory.getLogger(CoreMessageFetcher.class);
 
+  // Maximum number of transactions that payloads are fetched for with a single payload table scan
+  private static final int MAX_PAYLOAD_SCAN_TRANSACTIONS = 100;
+
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final MetricsCollector metricsCollector;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     MetricsCollector metricsCollector) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.metricsCollector = metricsCollector;
   }
 
   @Override
@@ -121,6 +130,10 @@ final class CoreMessageFetcher extends MessageFetcher {
   /**
    * A {@link CloseableIterator} of {@link RawMessage} implementation that contains the core message fetching logic
    * by combine scanning on both {@link MessageTable} and {@link PayloadTable}.
+   *
+   * Consecutive message entries that refer to the payload table are grouped if their transaction write pointers
+   * are increasing, and the payloads of a group are fetched with a single scan over the range of write pointers.
+   * Payloads in the range that belong to other transactions are skipped.
    */
   private final class MessageCloseableIterator implements CloseableIterator<RawMessage> {
 
@@ -128,18 +141,23 @@ final class CoreMessageFetcher extends MessageFetcher {
     private final TopicId topicId;
     private final MessageTable messageTable;
     private RawMessage nextMessage;
-    private MessageTable.Entry messageEntry;
+    private MessageTable.Entry peekedMessageEntry;
+    private final Map<Long, MessageTable.Entry> payloadMessageEntries;
     private CloseableIterator<PayloadTable.Entry> payloadIterator;
+    private int messageCount;
+    private int payloadScanCount;
     private MessageId startOffset;
     private boolean inclusive;
     private int messageLimit;
     private PayloadTable payloadTable;
+    private boolean closed;
 
     MessageCloseableIterator(MessageTable messageTable) throws IOException {
       this.topicId = topicMetadata.getTopicId();
       this.messageTable = messageTable;
       this.inclusive = isIncludeStart();
       this.messageLimit = getLimit();
+      this.payloadMessageEntries = new HashMap<>();
 
       long ttl = topicMetadata.getTTL();
       startOffset = getStartOffset() == null ? null : new MessageId(getStartOffset());
@@ -179,43 +197,63 @@ final class CoreMessageFetcher extends MessageFetcher {
         // If there is a payload iterator and is not empty, read the next message from the it
         if (payloadIterator != null && payloadIterator.hasNext()) {
           PayloadTable.Entry payloadEntry = payloadIterator.next();
-          // messageEntry is guaranteed to be non-null if payloadIterator is non-null
-          nextMessage = new RawMessage(createMessageId(messageEntry, payloadEntry), payloadEntry.getPayload());
-          break;
+          MessageTable.Entry messageEntry = payloadMessageEntries.get(payloadEntry.getTransactionWritePointer());
+          // Skip payloads of transactions that are not referred to by the message entries being fetched
+          if (messageEntry != null) {
+            nextMessage = new RawMessage(createMessageId(messageEntry, payloadEntry), payloadEntry.getPayload());
+            break;
+          }
+          continue;
         }
 
         // If there is no payload iterator or it has been exhausted, read the next message from the message iterator
-        if (messageIterator.hasNext()) {
-          messageEntry = messageIterator.next();
-          if (messageEntry.isPayloadReference()) {
-            // If the message entry is a reference to payload table, create the payload iterator
-            try {
-              if (payloadTable == null) {
-                payloadTable = payloadTableProvider.get();
-              }
-
-              closeQuietly(payloadIterator);
+        MessageTable.Entry messageEntry = nextMessageEntry();
+        if (messageEntry == null) {
+          // If there is no more message from the message iterator as well, then no more message to fetch
+          break;
+        }
+        if (messageEntry.isPayloadReference()) {
+          // If the message entry is a reference to payload table, create the payload iterator
+          try {
+            if (payloadTable == null) {
+              payloadTable = payloadTableProvider.get();
+            }
 
-              MessageId payloadStartOffset = startOffset == null
-                ? new MessageId(createMessageId(messageEntry, null))
-                : new MessageId(createMessageId(messageEntry, startOffset.getPayloadWriteTimestamp(),
-                                                startOffset.getPayloadSequenceId()));
+            closeQuietly(payloadIterator);
+            payloadMessageEntries.clear();
+            payloadMessageEntries.put(messageEntry.getTransactionWritePointer(), messageEntry);
 
-              // If startOffset is not used, always fetch with inclusive.
+            if (startOffset != null) {
+              MessageId payloadStartOffset = new MessageId(
+                createMessageId(messageEntry, startOffset.getPayloadWriteTimestamp(),
+                                startOffset.getPayloadSequenceId()));
               payloadIterator = payloadTable.fetch(topicMetadata, messageEntry.getTransactionWritePointer(),
-                                                   payloadStartOffset, startOffset == null || inclusive, messageLimit);
+                                                   payloadStartOffset, inclusive, messageLimit);
               // The start offset is only used for the first payloadIterator being constructed.
               startOffset = null;
-            } catch (IOException e) {
-              throw Throwables.propagate(e);
+            } else {
+              // Group the following message entries that refer to the payload table with increasing write pointers
+              long startWritePointer = messageEntry.getTransactionWritePointer();
+              long endWritePointer = startWritePointer;
+              while (payloadMessageEntries.size() < MAX_PAYLOAD_SCAN_TRANSACTIONS) {
+                MessageTable.Entry entry = peekMessageEntry();
+                if (entry == null || !entry.isPayloadReference()
+                  || entry.getTransactionWritePointer() <= endWritePointer) {
+                  break;
+                }
+                endWritePointer = entry.getTransactionWritePointer();
+                payloadMessageEntries.put(endWritePointer, nextMessageEntry());
+              }
+              payloadIterator = payloadTable.fetch(topicMetadata, startWritePointer, endWritePointer,
+                                                   Integer.MAX_VALUE);
             }
-          } else {
-            // Otherwise, the message entry is the next message
-            nextMessage = new RawMessage(createMessageId(messageEntry, null), messageEntry.getPayload());
+            payloadScanCount++;
+          } catch (IOException e) {
+            throw Throwables.propagate(e);
           }
         } else {
-          // If there is no more message from the message iterator as well, then no more message to fetch
-          break;
+          // Otherwise, the message entry is the next message
+          nextMessage = new RawMessage(createMessageId(messageEntry, null), messageEntry.getPayload());
         }
       }
       // After the first message, all the sub-sequence table.fetch call should always include all message.
@@ -231,9 +269,31 @@ final class CoreMessageFetcher extends MessageFetcher {
       RawMessage message = nextMessage;
       nextMessage = null;
       messageLimit--;
+      messageCount++;
       return message;
     }
 
+    /**
+     * Returns the next entry from the message table without consuming it, or {@code null} if there is none.
+     */
+    @Nullable
+    private MessageTable.Entry peekMessageEntry() {
+      if (peekedMessageEntry == null && messageIterator.hasNext()) {
+        peekedMessageEntry = messageIterator.next();
+      }
+      return peekedMessageEntry;
+    }
+
+    /**
+     * Consumes and returns the next entry from the message table, or {@code null} if there is none.
+     */
+    @Nullable
+    private MessageTable.Entry nextMessageEntry() {
+      MessageTable.Entry entry = peekMessageEntry();
+      peekedMessageEntry = null;
+      return entry;
+    }
+
     @Override
     public void remove() {
       throw new UnsupportedOperationException("Remove is not supported");
@@ -241,6 +301,13 @@ final class CoreMessageFetcher extends MessageFetcher {
 
     @Override
     public void close() {
+      // only report the metrics once if closed more than once
+      if (closed) {
+        return;
+      }
+      closed = true;
+      metricsCollector.increment("fetch.messages", messageCount);
+      metricsCollector.increment("fetch.payload.scans", payloadScanCount);
       closeQuietly(payloadIterator);
       closeQuietly(messageIterator);
       closeQuietly(payloadTable);
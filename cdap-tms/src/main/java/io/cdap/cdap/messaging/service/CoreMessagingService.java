@@ -55,7 +55,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -119,10 +121,30 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
 
   @Override
   public void createTopic(TopicMetadata topicMetadata) throws TopicAlreadyExistsException, IOException {
+    // Names of the topics backing partitions are reserved even before the partitioned topic exists,
+    // otherwise creating the partitioned topic later would adopt the existing topic as one of its partitions.
+    if (TopicMetadata.getBackedPartition(topicMetadata.getTopicId()) > 0) {
+      throw new IllegalArgumentException(String.format(
+        "Invalid topic name '%s'. Topic names must not end with '%s' followed by a number.",
+        topicMetadata.getTopicId().getTopic(), TopicMetadata.PARTITION_SEPARATOR));
+    }
     try (MetadataTable metadataTable = createMetadataTable()) {
       Map<String, String> properties = createDefaultProperties();
       properties.putAll(topicMetadata.getProperties());
-      metadataTable.createTopic(new TopicMetadata(topicMetadata.getTopicId(), properties, true));
+      TopicMetadata metadata = new TopicMetadata(topicMetadata.getTopicId(), properties, true);
+
+      // Create the topics backing the partitions first, so that a partitioned topic only exists once all of its
+      // partitions exist. Topics left from a previous failed creation are reused.
+      Map<String, String> partitionProperties = getPartitionProperties(properties);
+      for (int partition = 1; partition < metadata.getPartitions(); partition++) {
+        TopicId partitionTopicId = TopicMetadata.getPartitionTopicId(metadata.getTopicId(), partition);
+        try {
+          metadataTable.createTopic(new TopicMetadata(partitionTopicId, partitionProperties, true));
+        } catch (TopicAlreadyExistsException e) {
+          LOG.debug("Partition topic {} already exists", partitionTopicId);
+        }
+      }
+      metadataTable.createTopic(metadata);
     }
   }
 
@@ -131,7 +153,20 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try (MetadataTable metadataTable = createMetadataTable()) {
       Map<String, String> properties = createDefaultProperties();
       properties.putAll(topicMetadata.getProperties());
-      metadataTable.updateTopic(new TopicMetadata(topicMetadata.getTopicId(), properties, true));
+      TopicMetadata metadata = new TopicMetadata(topicMetadata.getTopicId(), properties, true);
+
+      int partitions = metadataTable.getMetadata(metadata.getTopicId()).getPartitions();
+      if (partitions != metadata.getPartitions()) {
+        throw new IllegalArgumentException("The number of partitions cannot be changed for topic "
+                                             + metadata.getTopicId());
+      }
+      Map<String, String> partitionProperties = getPartitionProperties(properties);
+      for (int partition = 1; partition < partitions; partition++) {
+        TopicId partitionTopicId = TopicMetadata.getPartitionTopicId(metadata.getTopicId(), partition);
+        metadataTable.updateTopic(new TopicMetadata(partitionTopicId, partitionProperties, true));
+        topicCache.invalidate(partitionTopicId);
+      }
+      metadataTable.updateTopic(metadata);
       topicCache.invalidate(topicMetadata.getTopicId());
     }
   }
@@ -139,10 +174,19 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   @Override
   public void deleteTopic(TopicId topicId) throws TopicNotFoundException, IOException {
     try (MetadataTable metadataTable = createMetadataTable()) {
+      int partitions = metadataTable.getMetadata(topicId).getPartitions();
       metadataTable.deleteTopic(topicId);
-      topicCache.invalidate(topicId);
-      messageTableWriterCache.invalidate(topicId);
-      payloadTableWriterCache.invalidate(topicId);
+      invalidateTopic(topicId);
+
+      for (int partition = 1; partition < partitions; partition++) {
+        TopicId partitionTopicId = TopicMetadata.getPartitionTopicId(topicId, partition);
+        try {
+          metadataTable.deleteTopic(partitionTopicId);
+        } catch (TopicNotFoundException e) {
+          LOG.debug("Partition topic {} already deleted", partitionTopicId);
+        }
+        invalidateTopic(partitionTopicId);
+      }
     }
   }
 
@@ -160,16 +204,51 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   @Override
   public List<TopicId> listTopics(NamespaceId namespaceId) throws IOException {
     try (MetadataTable metadataTable = createMetadataTable()) {
-      return metadataTable.listTopics(namespaceId);
+      List<TopicId> topics = metadataTable.listTopics(namespaceId);
+      Set<TopicId> topicSet = new HashSet<>(topics);
+      List<TopicId> result = new ArrayList<>(topics.size());
+      for (TopicId topicId : topics) {
+        if (!isPartitionTopic(metadataTable, topicId, topicSet)) {
+          result.add(topicId);
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Returns whether the given topic backs a partition of an existing partitioned topic. Those topics are internal.
+   */
+  private boolean isPartitionTopic(MetadataTable metadataTable, TopicId topicId,
+                                   Set<TopicId> existingTopics) throws IOException {
+    int partition = TopicMetadata.getBackedPartition(topicId);
+    if (partition == 0) {
+      return false;
+    }
+    TopicId partitionedTopicId = TopicMetadata.getPartitionedTopicId(topicId);
+    if (!existingTopics.contains(partitionedTopicId)) {
+      return false;
+    }
+    try {
+      return partition < metadataTable.getMetadata(partitionedTopicId).getPartitions();
+    } catch (TopicNotFoundException e) {
+      // deleted concurrently
+      return false;
     }
   }
 
   @Override
   public MessageFetcher prepareFetch(final TopicId topicId) throws TopicNotFoundException, IOException {
     final TopicMetadata metadata = getTopic(topicId);
+    MetricsContext metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
+      Constants.Metrics.Tag.COMPONENT, Constants.Service.MESSAGING_SERVICE,
+      Constants.Metrics.Tag.INSTANCE_ID, cConf.get(Constants.MessagingSystem.CONTAINER_INSTANCE_ID, "0"),
+      Constants.Metrics.Tag.NAMESPACE, topicId.getNamespace()
+    ));
     return new CoreMessageFetcher(metadata,
                                   () -> createMessageTable(metadata),
-                                  () -> createPayloadTable(metadata));
+                                  () -> createPayloadTable(metadata),
+                                  metricsContext);
   }
 
   @Nullable
@@ -366,7 +445,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          return new ConcurrentMessageWriter(messagesWriter, metricsContext,
+                                             cConf.getLong(Constants.MessagingSystem.WRITER_LINGER_MILLIS),
+                                             cConf.getLong(Constants.MessagingSystem.WRITER_BATCH_MAX_BYTES));
         }
       });
   }
@@ -386,6 +467,24 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     return tableFactory.createPayloadTable(topicMetadata);
   }
 
+  /**
+   * Removes all cached states of the given topic.
+   */
+  private void invalidateTopic(TopicId topicId) {
+    topicCache.invalidate(topicId);
+    messageTableWriterCache.invalidate(topicId);
+    payloadTableWriterCache.invalidate(topicId);
+  }
+
+  /**
+   * Returns the properties of the topics backing the partitions of a topic with the given properties.
+   */
+  private Map<String, String> getPartitionProperties(Map<String, String> properties) {
+    Map<String, String> partitionProperties = new HashMap<>(properties);
+    partitionProperties.remove(TopicMetadata.PARTITIONS_KEY);
+    return partitionProperties;
+  }
+
   /**
    * Creates default topic properties based on {@link CConfiguration}.
    */
@@ -19,7 +19,10 @@ package io.cdap.cdap.messaging.service;
 import io.cdap.cdap.messaging.StoreRequest;
 import io.cdap.cdap.messaging.TopicMetadata;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 
 /**
@@ -29,8 +32,12 @@ final class PendingStoreRequest extends StoreRequest {
 
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
+  private final List<byte[]> payloads;
+  private final long payloadSize;
+  private final Thread thread;
+  private final long createNanos;
 
-  private boolean completed;
+  private volatile boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
@@ -42,12 +49,45 @@ final class PendingStoreRequest extends StoreRequest {
           originalRequest.getTransactionWritePointer());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
+
+    // Collect the payloads in the calling thread, so that the writer knows the size of the request
+    List<byte[]> payloads = new ArrayList<>();
+    long payloadSize = 0L;
+    for (byte[] payload : originalRequest) {
+      payloads.add(payload);
+      payloadSize += payload.length;
+    }
+    this.payloads = payloads;
+    this.payloadSize = payloadSize;
+    this.thread = Thread.currentThread();
+    this.createNanos = System.nanoTime();
   }
 
   TopicMetadata getTopicMetadata() {
     return metadata;
   }
 
+  /**
+   * Returns the total number of bytes of all payloads in this request.
+   */
+  long getPayloadSize() {
+    return payloadSize;
+  }
+
+  /**
+   * Returns the {@link System#nanoTime()} when this request was created.
+   */
+  long getCreateNanos() {
+    return createNanos;
+  }
+
+  /**
+   * Unparks the thread that created this request.
+   */
+  void wakeUp() {
+    LockSupport.unpark(thread);
+  }
+
   boolean isCompleted() {
     return completed;
   }
@@ -65,8 +105,9 @@ final class PendingStoreRequest extends StoreRequest {
   }
 
   void completed(@Nullable Throwable failureCause) {
-    completed = true;
     this.failureCause = failureCause;
+    completed = true;
+    wakeUp();
   }
 
   void setStartTimestamp(long startTimestamp) {
@@ -108,7 +149,7 @@ final class PendingStoreRequest extends StoreRequest {
 
   @Override
   public Iterator<byte[]> iterator() {
-    return originalRequest.iterator();
+    return payloads.iterator();
   }
 
   @Override
@@ -72,6 +72,25 @@ public abstract class AbstractPayloadTable implements PayloadTable {
     Bytes.putShort(startRow, topic.length + (2 * Bytes.SIZEOF_LONG), messageId.getPayloadSequenceId());
     stopRow = Bytes.stopKeyForPrefix(stopRow);
 
+    return fetch(startRow, stopRow, inclusive, limit);
+  }
+
+  @Override
+  public CloseableIterator<Entry> fetch(TopicMetadata metadata, long startTransactionWritePointer,
+                                        long endTransactionWritePointer, int limit) throws IOException {
+    byte[] topic = MessagingUtils.toDataKeyPrefix(metadata.getTopicId(), metadata.getGeneration());
+    byte[] startRow = new byte[topic.length + Bytes.SIZEOF_LONG];
+    byte[] stopRow = new byte[topic.length + Bytes.SIZEOF_LONG];
+    Bytes.putBytes(startRow, 0, topic, 0, topic.length);
+    Bytes.putBytes(stopRow, 0, topic, 0, topic.length);
+    Bytes.putLong(startRow, topic.length, startTransactionWritePointer);
+    Bytes.putLong(stopRow, topic.length, endTransactionWritePointer);
+    stopRow = Bytes.stopKeyForPrefix(stopRow);
+    return fetch(startRow, stopRow, true, limit);
+  }
+
+  private CloseableIterator<Entry> fetch(byte[] startRow, byte[] stopRow,
+                                         final boolean inclusive, int limit) throws IOException {
     final CloseableIterator<RawPayloadTableEntry> scanner = read(startRow, stopRow, limit);
     return new AbstractCloseableIterator<Entry>() {
       private boolean closed = false;
@@ -81,6 +81,20 @@ public interface PayloadTable extends Closeable {
   CloseableIterator<Entry> fetch(TopicMetadata metadata, long transactionWritePointer, MessageId messageId,
                                  boolean inclusive, int limit) throws IOException;
 
+  /**
+   * Fetches all entries from the payload table under the given topic for a range of transaction write pointers,
+   * using a single scan. Entries are ordered by transaction write pointer, followed by the order in which they
+   * were stored.
+   *
+   * @param metadata {@link TopicMetadata} of the topic to fetch from
+   * @param startTransactionWritePointer the smallest transaction write pointer to fetch, inclusive
+   * @param endTransactionWritePointer the largest transaction write pointer to fetch, inclusive
+   * @param limit maximum number of entries to fetch
+   * @return a {@link CloseableIterator} of entries
+   */
+  CloseableIterator<Entry> fetch(TopicMetadata metadata, long startTransactionWritePointer,
+                                 long endTransactionWritePointer, int limit) throws IOException;
+
   /**
    * Stores a list of entries to the payload table under the given topic.
    *
@@ -17,10 +17,15 @@
 package io.cdap.cdap.messaging.subscriber;
 
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractIdleService;
+import com.google.common.util.concurrent.Service;
 import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.common.service.RetryStrategy;
 import io.cdap.cdap.common.utils.ImmutablePair;
 import io.cdap.cdap.common.utils.TimeBoundIterator;
+import io.cdap.cdap.messaging.TopicMetadata;
 import io.cdap.cdap.proto.id.TopicId;
 import io.cdap.cdap.spi.data.StructuredTableContext;
 import io.cdap.cdap.spi.data.transaction.TransactionRunner;
@@ -29,7 +34,10 @@ import io.cdap.cdap.spi.data.transaction.TxCallable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 /**
@@ -62,6 +70,26 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractMess
     this.txTimeoutSeconds = txTimeoutSeconds;
   }
 
+  /**
+   * Creates a {@link Service} that consumes all partitions of a topic in parallel, with one subscriber per partition.
+   * Messages published with the same partition key are in the same partition, hence are processed in order by
+   * the same subscriber. Each subscriber must persist its message id separately, for example keyed by
+   * {@link #getTopicId()}, since message ids of different partitions are unrelated.
+   *
+   * @param topicMetadata the metadata of the topic to consume from
+   * @param subscriberFactory a {@link Function} to create the subscriber for the topic of one partition
+   * @return a {@link Service} that starts and stops the subscribers of all partitions
+   */
+  public static Service forPartitions(TopicMetadata topicMetadata,
+                                      Function<TopicId, ? extends Service> subscriberFactory) {
+    List<Service> subscribers = new ArrayList<>();
+    for (int partition = 0; partition < topicMetadata.getPartitions(); partition++) {
+      subscribers.add(subscriberFactory.apply(TopicMetadata.getPartitionTopicId(topicMetadata.getTopicId(),
+                                                                               partition)));
+    }
+    return new PartitionedSubscriberService(subscribers);
+  }
+
   /**
    * Returns the {@link TransactionRunner} for executing tasks in transaction.
    */
@@ -201,4 +229,60 @@ public abstract class AbstractMessagingSubscriberService<T> extends AbstractMess
       return lastMessageId;
     }
   }
+
+  /**
+   * A {@link Service} that runs the subscribers of all partitions of a topic.
+   */
+  private static final class PartitionedSubscriberService extends AbstractIdleService {
+
+    private final List<Service> subscribers;
+
+    PartitionedSubscriberService(List<Service> subscribers) {
+      this.subscribers = ImmutableList.copyOf(subscribers);
+    }
+
+    @Override
+    protected void startUp() throws Exception {
+      List<Service> started = new ArrayList<>();
+      try {
+        for (Service subscriber : subscribers) {
+          subscriber.startAndWait();
+          started.add(subscriber);
+        }
+      } catch (Exception e) {
+        // Stop the subscribers that were started before the failure
+        for (Service subscriber : Lists.reverse(started)) {
+          stopQuietly(subscriber, e);
+        }
+        throw e;
+      }
+    }
+
+    @Override
+    protected void shutDown() throws Exception {
+      Exception failure = null;
+      for (Service subscriber : Lists.reverse(subscribers)) {
+        try {
+          subscriber.stopAndWait();
+        } catch (Exception e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    private void stopQuietly(Service subscriber, Exception failure) {
+      try {
+        subscriber.stopAndWait();
+      } catch (Exception e) {
+        failure.addSuppressed(e);
+      }
+    }
+  }
 }
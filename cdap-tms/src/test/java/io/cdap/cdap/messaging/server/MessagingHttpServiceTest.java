@@ -247,6 +247,86 @@ public class MessagingHttpServiceTest {
     }
   }
 
+  @Test
+  public void testPartitionedTopic() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("partitioned");
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 4));
+    TopicMetadata metadata = client.getTopic(topicId);
+    Assert.assertEquals(4, metadata.getPartitions());
+
+    // The topics backing the partitions are not listed
+    List<TopicId> topics = client.listTopics(topicId.getParent());
+    Assert.assertTrue(topics.contains(topicId));
+    for (int partition = 1; partition < 4; partition++) {
+      Assert.assertFalse(topics.contains(TopicMetadata.getPartitionTopicId(topicId, partition)));
+    }
+
+    // Names of the topics backing partitions are reserved, whether the partitioned topic exists or not
+    for (TopicId reserved : new TopicId[] { TopicMetadata.getPartitionTopicId(topicId, 4),
+                                            topicId.getParent().topic("other__p1") }) {
+      try {
+        client.createTopic(new TopicMetadata(reserved));
+        Assert.fail("Expected IllegalArgumentException");
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+
+    // Other names that contain the separator are valid and listed
+    TopicId prodTopicId = topicId.getParent().topic("partitioned__prod");
+    client.createTopic(new TopicMetadata(prodTopicId));
+    Assert.assertTrue(client.listTopics(topicId.getParent()).contains(prodTopicId));
+    client.deleteTopic(prodTopicId);
+
+    // Publish messages of different keys interleaved
+    for (int i = 0; i < 5; i++) {
+      for (int key = 0; key < 10; key++) {
+        client.publish(StoreRequestBuilder.of(metadata).setPartitionKey("k" + key).addPayload(key + ":" + i).build());
+      }
+    }
+
+    // All messages of a key must be in the partition of the key, in publish order
+    Set<Integer> nonEmptyPartitions = new HashSet<>();
+    int count = 0;
+    for (int partition = 0; partition < 4; partition++) {
+      List<String> payloads = new ArrayList<>();
+      try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId, partition).fetch()) {
+        iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+      }
+      int[] nextIndex = new int[10];
+      for (String payload : payloads) {
+        int key = Integer.parseInt(payload.substring(0, payload.indexOf(':')));
+        Assert.assertEquals(partition, metadata.getPartition(Bytes.toBytes("k" + key)));
+        Assert.assertEquals(key + ":" + nextIndex[key]++, payload);
+        count++;
+        nonEmptyPartitions.add(partition);
+      }
+    }
+    Assert.assertEquals(50, count);
+    Assert.assertTrue(nonEmptyPartitions.size() > 1);
+
+    // The number of partitions cannot be changed
+    try {
+      client.updateTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 2));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    client.updateTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, 4, TopicMetadata.TTL_KEY, 100));
+    Assert.assertEquals(100, client.getTopic(TopicMetadata.getPartitionTopicId(topicId, 3)).getTTL());
+
+    // Deleting the topic deletes all partitions
+    client.deleteTopic(topicId);
+    for (int partition = 0; partition < 4; partition++) {
+      try {
+        client.getTopic(TopicMetadata.getPartitionTopicId(topicId, partition));
+        Assert.fail("Expected TopicNotFoundException");
+      } catch (TopicNotFoundException e) {
+        // Expected
+      }
+    }
+  }
+
   @Test
   public void testDeletes() throws Exception {
     TopicId topicId = new NamespaceId("ns1").topic("del");
@@ -589,6 +669,53 @@ public class MessagingHttpServiceTest {
     client.deleteTopic(topicId);
   }
 
+  @Test
+  public void testPayloadTableMultipleTransactions() throws Exception {
+    TopicId topicId = new NamespaceId("ns1").topic("testPayloadTableMultipleTransactions");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Store payloads of four transactions
+    for (long tx = 10L; tx < 14L; tx++) {
+      client.storePayload(StoreRequestBuilder.of(topicId)
+                            .addPayload(tx + ".1").addPayload(tx + ".2").setTransaction(tx).build());
+    }
+
+    // Commit transactions out of order, with a non-transactional message in between. The payloads of the
+    // uncommitted transaction 11 are in the range of the write pointers of 10 and 12, and must not be fetched
+    client.publish(StoreRequestBuilder.of(topicId).setTransaction(10L).build());
+    client.publish(StoreRequestBuilder.of(topicId).setTransaction(12L).build());
+    client.publish(StoreRequestBuilder.of(topicId).addPayload("m").build());
+    client.publish(StoreRequestBuilder.of(topicId).setTransaction(13L).build());
+    List<String> payloads = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+    }
+    Assert.assertEquals(Arrays.asList("10.1", "10.2", "12.1", "12.2", "m", "13.1", "13.2"), payloads);
+
+    client.publish(StoreRequestBuilder.of(topicId).setTransaction(11L).build());
+    List<RawMessage> messages = new ArrayList<>();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
+      Iterators.addAll(messages, iterator);
+    }
+    payloads.clear();
+    messages.forEach(message -> payloads.add(Bytes.toString(message.getPayload())));
+    Assert.assertEquals(Arrays.asList("10.1", "10.2", "12.1", "12.2", "m", "13.1", "13.2", "11.1", "11.2"),
+                        payloads);
+
+    // Fetch with a limit, and starting from a message inside a group
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).setLimit(3).fetch()) {
+      Assert.assertEquals(3, Iterators.size(iterator));
+    }
+    payloads.clear();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setStartMessage(messages.get(2).getId(), false).fetch()) {
+      iterator.forEachRemaining(message -> payloads.add(Bytes.toString(message.getPayload())));
+    }
+    Assert.assertEquals(Arrays.asList("12.2", "m", "13.1", "13.2", "11.1", "11.2"), payloads);
+
+    client.deleteTopic(topicId);
+  }
+
   @Test
   public void testReuseRequest() throws IOException, TopicAlreadyExistsException, TopicNotFoundException {
     // This test a StoreRequest object can be reused.
@@ -17,6 +17,7 @@
 package io.cdap.cdap.messaging.service;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -37,10 +38,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
@@ -268,6 +272,49 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  @Test
+  public void testGroupCommit() throws InterruptedException {
+    TopicId topicId = NamespaceId.DEFAULT.topic("t");
+    TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider());
+
+    // With a long linger time, the writer should commit once the batch byte limit is reached
+    Map<String, Long> metrics = new ConcurrentHashMap<>();
+    int threadCount = 3;
+    ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        metrics.merge(metricName, value, Long::sum);
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        // no-op
+      }
+    }, TimeUnit.MINUTES.toMillis(1), threadCount * 10);
+
+    Stopwatch stopwatch = new Stopwatch().start();
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      executor.submit(() -> {
+        try {
+          writer.persist(new TestStoreRequest(topicId, Collections.singletonList(Strings.repeat("x", 10))), metadata);
+        } catch (IOException e) {
+          LOG.error("Failed to persist", e);
+        }
+      });
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    Assert.assertTrue(stopwatch.elapsedMillis() < TimeUnit.MINUTES.toMillis(1));
+
+    Assert.assertEquals(threadCount, testWriter.getMessages().get(topicId).size());
+    Assert.assertEquals(Long.valueOf(threadCount), metrics.get("persist.success"));
+    Assert.assertEquals(Long.valueOf(1L), metrics.get("persist.commit.count"));
+    Assert.assertEquals(Long.valueOf(threadCount), metrics.get("persist.commit.requests"));
+    Assert.assertEquals(Long.valueOf(threadCount * 10), metrics.get("persist.commit.bytes"));
+  }
+
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
@@ -137,6 +137,38 @@ public abstract class PayloadTableTest {
     }
   }
 
+  @Test
+  public void testWritePointerRangeFetch() throws Exception {
+    TopicId topicId = NamespaceId.DEFAULT.topic("rangePayload");
+    TopicMetadata metadata = new TopicMetadata(topicId, DEFAULT_PROPERTY);
+    try (MetadataTable metadataTable = getMetadataTable();
+         PayloadTable table = getPayloadTable(metadata)) {
+      metadataTable.createTopic(metadata);
+      List<PayloadTable.Entry> entryList = new ArrayList<>();
+      for (long writePtr = 10L; writePtr < 15L; writePtr++) {
+        for (short seqId = 0; seqId < 3; seqId++) {
+          entryList.add(new TestPayloadEntry(topicId, GENERATION, writePtr, 1L, seqId,
+                                             Bytes.toBytes(writePtr + ":" + seqId)));
+        }
+      }
+      table.store(entryList.iterator());
+
+      // Fetch all payloads of write pointers 11 to 13 with one scan, ordered by write pointer
+      List<String> payloads = new ArrayList<>();
+      try (CloseableIterator<PayloadTable.Entry> iterator = table.fetch(metadata, 11L, 13L, Integer.MAX_VALUE)) {
+        while (iterator.hasNext()) {
+          payloads.add(Bytes.toString(iterator.next().getPayload()));
+        }
+      }
+      Assert.assertEquals(ImmutableList.of("11:0", "11:1", "11:2", "12:0", "12:1", "12:2", "13:0", "13:1", "13:2"),
+                          payloads);
+
+      try (CloseableIterator<PayloadTable.Entry> iterator = table.fetch(metadata, 14L, 14L, 2)) {
+        checkData(iterator, ImmutableSet.of(14L), 2);
+      }
+    }
+  }
+
   @Test
   public void testConcurrentWrites() throws Exception {
     // Create two threads, each of them writes to a different topic with two events in one store call.
@@ -224,6 +256,15 @@ public abstract class PayloadTableTest {
     Assert.assertEquals(expectedCount, count);
   }
 
+  private void checkData(CloseableIterator<PayloadTable.Entry> entries, Set<Long> acceptablePtrs, int expectedCount) {
+    int count = 0;
+    while (entries.hasNext()) {
+      Assert.assertTrue(acceptablePtrs.contains(entries.next().getTransactionWritePointer()));
+      count++;
+    }
+    Assert.assertEquals(expectedCount, count);
+  }
+
   private void populateList(List<PayloadTable.Entry> payloadTable) {
     List<Integer> writePointers = ImmutableList.of(100, 101, 102);
     int data = 123;
@@ -92,7 +92,7 @@ public final class LoggingUtil {
   public static Map<String, String> encodeMDC(Map<String, String> mdc) {
     Map<String, String> encodeMap = new HashMap<>(mdc.size());
     for (Map.Entry<String, String> entry : mdc.entrySet()) {
-      encodeMap.put(entry.getKey() == null ? MDC_NULL_KEY : entry.getKey(), entry.getValue());
+      encodeMap.put(encodeMDCKey(entry.getKey()), entry.getValue());
     }
     return encodeMap;
   }
@@ -111,9 +111,24 @@ public final class LoggingUtil {
       // AVRO does not allow null map keys.
       Object key = entry.getKey();
       Object value = entry.getValue();
-      stringMap.put(key == null || MDC_NULL_KEY.equals(key.toString()) ? null : key.toString(),
-                    value == null ? null : value.toString());
+      stringMap.put(key == null ? null : decodeMDCKey(key.toString()), value == null ? null : value.toString());
     }
     return stringMap;
   }
+
+  /**
+   * Returns the key to store in the encoded mdc map for the given mdc key, which replaces {@code null} with
+   * {@link #MDC_NULL_KEY}.
+   */
+  public static String encodeMDCKey(@Nullable String key) {
+    return key == null ? MDC_NULL_KEY : key;
+  }
+
+  /**
+   * Reverts the {@link #encodeMDCKey(String)} replacement.
+   */
+  @Nullable
+  public static String decodeMDCKey(String key) {
+    return MDC_NULL_KEY.equals(key) ? null : key;
+  }
 }
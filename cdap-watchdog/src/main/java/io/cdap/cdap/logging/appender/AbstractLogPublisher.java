@@ -16,6 +16,7 @@
 
 package io.cdap.cdap.logging.appender;
 
+import ch.qos.logback.classic.Level;
 import io.cdap.cdap.common.logging.LogSamplers;
 import io.cdap.cdap.common.logging.Loggers;
 import io.cdap.cdap.common.service.AbstractRetryableScheduledService;
@@ -25,12 +26,12 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A class that continuously serializes logs from a queue and publishes them.
+ * A class that continuously serializes logs from a queue and publishes them. Adding logs never blocks the caller;
+ * when the queue is full, logs are dropped, starting with those below {@link Level#WARN}.
  *
  * @param <MESSAGE> the type of message used in the in-memory buffer, before publishing
  */
@@ -38,18 +39,22 @@ public abstract class AbstractLogPublisher<MESSAGE> extends AbstractRetryableSch
   private static final Logger LOG = LoggerFactory.getLogger(AbstractLogPublisher.class);
   private static final Logger OUTAGE_LOG = Loggers.sampling(
     LOG, LogSamplers.all(LogSamplers.skipFirstN(5), LogSamplers.limitRate(TimeUnit.SECONDS.toMillis(30))));
+  private static final Logger DROPPED_LOG = Loggers.sampling(
+    LOG, LogSamplers.limitRate(TimeUnit.SECONDS.toMillis(60)));
 
   private final int queueSize;
-  private final BlockingQueue<LogMessage> messageQueue;
+  private final LogEventRingBuffer<LogMessage> messageQueue;
   private final List<MESSAGE> buffer;
+  private Map<Level, Long> reportedDroppedCounts;
   private volatile boolean failed;
   private volatile Thread publishThread;
 
   public AbstractLogPublisher(int queueSize, RetryStrategy retryStrategy) {
     super(retryStrategy);
     this.queueSize = queueSize;
-    this.messageQueue = new ArrayBlockingQueue<>(queueSize);
+    this.messageQueue = new LogEventRingBuffer<>(queueSize);
     this.buffer = new ArrayList<>(queueSize);
+    this.reportedDroppedCounts = messageQueue.getDroppedCounts();
   }
 
   /**
@@ -69,36 +74,19 @@ public abstract class AbstractLogPublisher<MESSAGE> extends AbstractRetryableSch
   protected abstract void publish(List<MESSAGE> logMessages) throws Exception;
 
   /**
-   * Adds a log message for publishing.
+   * Adds a log message for publishing. This method never blocks. If the queue is full, the message is dropped.
    *
    * @param logMessage the log message to add for publishing
    */
-  public final void addMessage(LogMessage logMessage) throws InterruptedException {
-    // Try to insert new logs, but don't block for longer then a second
-    // If it takes too long, start dropping old logs
-    while (!offerUninterruptibly(messageQueue, logMessage, 1, TimeUnit.SECONDS)) {
-      messageQueue.poll();
-    }
+  public final void addMessage(LogMessage logMessage) {
+    messageQueue.offer(logMessage);
   }
 
   /**
-   * Offers an element to the given queue uninterruptibly.
+   * Returns the number of log messages dropped so far for each level, because the queue was full.
    */
-  private <E> boolean offerUninterruptibly(BlockingQueue<E> queue, E element, long timeout, TimeUnit timeUnit) {
-    boolean interrupted = false;
-    try {
-      while (true) {
-        try {
-          return queue.offer(element, timeout, timeUnit);
-        } catch (InterruptedException e) {
-          interrupted = true;
-        }
-      }
-    } finally {
-      if (interrupted) {
-        Thread.currentThread().interrupt();
-      }
-    }
+  public final Map<Level, Long> getDroppedCounts() {
+    return messageQueue.getDroppedCounts();
   }
 
   @Override
@@ -108,9 +96,22 @@ public abstract class AbstractLogPublisher<MESSAGE> extends AbstractRetryableSch
     // We only clear the buffer once the messages are successfully published
     buffer.clear();
     failed = false;
+    reportDroppedMessages();
     return 0;
   }
 
+  /**
+   * Logs the number of dropped messages if more messages were dropped since the last report.
+   */
+  private void reportDroppedMessages() {
+    Map<Level, Long> droppedCounts = messageQueue.getDroppedCounts();
+    if (!droppedCounts.equals(reportedDroppedCounts)) {
+      reportedDroppedCounts = droppedCounts;
+      DROPPED_LOG.warn("Log messages dropped by {} because the queue is full. Total dropped by level: {}",
+                       getServiceName(), droppedCounts);
+    }
+  }
+
   @Override
   protected void logTaskFailure(Throwable t) {
     OUTAGE_LOG.error("Publish log message failed for {}. Will be retried.", getServiceName(), t);
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded, lock-free ring buffer of log events with multiple producers and a single consumer.
+ *
+ * Adding an event never blocks. Once the buffer is three quarters full, events below {@link Level#WARN} are
+ * dropped so that the remaining space is kept for warnings and errors. Events of any level are dropped when the
+ * buffer is full. The number of dropped events is counted per level.
+ *
+ * @param <E> type of the log event
+ */
+final class LogEventRingBuffer<E extends ILoggingEvent> {
+
+  private static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+
+  private final int capacity;
+  private final int lowPriorityCapacity;
+  private final AtomicReferenceArray<E> events;
+  // The sequence of each slot tells whether it is ready for the producer at position (sequence == position),
+  // or for the consumer at position (sequence == position + 1).
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail;
+  private final AtomicLong head;
+  private final AtomicLongArray dropped;
+  private volatile Thread waitingThread;
+
+  LogEventRingBuffer(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+    this.lowPriorityCapacity = Math.max(1, capacity - capacity / 4);
+    this.events = new AtomicReferenceArray<>(capacity);
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+    this.tail = new AtomicLong();
+    this.head = new AtomicLong();
+    this.dropped = new AtomicLongArray(LEVELS.length);
+  }
+
+  /**
+   * Adds an event to the buffer without blocking.
+   *
+   * @return {@code true} if the event was added, {@code false} if it was dropped
+   */
+  boolean offer(E event) {
+    int limit = event.getLevel().isGreaterOrEqual(Level.WARN) ? capacity : lowPriorityCapacity;
+    long position = tail.get();
+    while (true) {
+      if (position - head.get() >= limit) {
+        dropped.incrementAndGet(levelIndex(event.getLevel()));
+        return false;
+      }
+      int index = (int) (position % capacity);
+      long diff = sequences.get(index) - position;
+      if (diff == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          events.set(index, event);
+          sequences.set(index, position + 1);
+          Thread waiting = waitingThread;
+          if (waiting != null) {
+            LockSupport.unpark(waiting);
+          }
+          return true;
+        }
+        position = tail.get();
+      } else if (diff < 0) {
+        // The slot has not been consumed since the last round, hence the buffer is full
+        dropped.incrementAndGet(levelIndex(event.getLevel()));
+        return false;
+      } else {
+        // Another producer claimed the position
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the oldest event from the buffer. This method must only be called from a single consumer thread.
+   *
+   * @return the oldest event or {@code null} if there is no event ready
+   */
+  @Nullable
+  E poll() {
+    long position = head.get();
+    int index = (int) (position % capacity);
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    E event = events.get(index);
+    events.set(index, null);
+    sequences.set(index, position + capacity);
+    head.set(position + 1);
+    return event;
+  }
+
+  /**
+   * Removes the oldest event from the buffer, waiting for up to the given time if there is no event ready. This
+   * method must only be called from a single consumer thread.
+   *
+   * @return the oldest event or {@code null} if no event became ready in time
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  @Nullable
+  E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    E event = poll();
+    while (event == null) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return null;
+      }
+      waitingThread = Thread.currentThread();
+      try {
+        // Check again after publishing the waiting thread, otherwise the wakeup from a producer could be missed
+        event = poll();
+        if (event == null) {
+          LockSupport.parkNanos(this, remaining);
+          if (Thread.interrupted()) {
+            throw new InterruptedException();
+          }
+          event = poll();
+        }
+      } finally {
+        waitingThread = null;
+      }
+    }
+    return event;
+  }
+
+  /**
+   * Returns {@code true} if there is no event in the buffer, including events that are still being added.
+   */
+  boolean isEmpty() {
+    return head.get() == tail.get();
+  }
+
+  /**
+   * Returns the number of dropped events for each level that had any dropped events.
+   */
+  Map<Level, Long> getDroppedCounts() {
+    Map<Level, Long> counts = new LinkedHashMap<>();
+    for (int i = 0; i < LEVELS.length; i++) {
+      long count = dropped.get(i);
+      if (count > 0) {
+        counts.put(LEVELS[i], count);
+      }
+    }
+    return counts;
+  }
+
+  private static int levelIndex(Level level) {
+    switch (level.toInt()) {
+      case Level.TRACE_INT:
+        return 0;
+      case Level.DEBUG_INT:
+        return 1;
+      case Level.INFO_INT:
+        return 2;
+      case Level.WARN_INT:
+        return 3;
+      default:
+        return level.toInt() < Level.TRACE_INT ? 0 : 4;
+    }
+  }
+}
@@ -67,11 +67,7 @@ public final class KafkaLogAppender extends LogAppender {
     logMessage.prepareForDeferredProcessing();
     logMessage.getCallerData();
 
-    try {
-      kafkaLogPublisher.get().addMessage(logMessage);
-    } catch (InterruptedException e) {
-      addInfo("Interrupted when adding log message to queue: " + logMessage.getFormattedMessage());
-    }
+    kafkaLogPublisher.get().addMessage(logMessage);
   }
 
   /**
@@ -92,11 +92,7 @@ public class RemoteLogAppender extends LogAppender {
     logMessage.prepareForDeferredProcessing();
     logMessage.getCallerData();
 
-    try {
-      publisher.get().addMessage(logMessage);
-    } catch (InterruptedException e) {
-      addInfo("Interrupted when adding log message to queue: " + logMessage.getFormattedMessage());
-    }
+    publisher.get().addMessage(logMessage);
   }
 
   /**
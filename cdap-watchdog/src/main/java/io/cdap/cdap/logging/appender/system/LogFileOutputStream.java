@@ -22,6 +22,7 @@ import io.cdap.cdap.common.io.ByteBuffers;
 import io.cdap.cdap.common.io.Syncable;
 import io.cdap.cdap.logging.serialize.LoggingEvent;
 import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import io.cdap.cdap.logging.write.LogFileSummary;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
 import org.apache.avro.generic.GenericDatumWriter;
@@ -47,9 +48,11 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private static final Logger LOG = LoggerFactory.getLogger(LogFileOutputStream.class);
 
   private final Location location;
+  private final String filePermissions;
   private final long createTime;
   private final Closeable closeable;
   private final LoggingEventSerializer serializer;
+  private final LogFileSummary.Builder summaryBuilder;
 
   private OutputStream outputStream;
   private DataFileWriter<GenericRecord> dataFileWriter;
@@ -58,8 +61,10 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
     this.location = location;
+    this.filePermissions = filePermissions;
     this.closeable = closeable;
     this.serializer = new LoggingEventSerializer();
+    this.summaryBuilder = new LogFileSummary.Builder();
 
     Schema schema = serializer.getAvroSchema();
     try {
@@ -82,6 +87,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    summaryBuilder.add(event);
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
@@ -115,6 +121,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    summaryBuilder.sync(fileSize);
   }
 
   @Override
@@ -131,7 +138,19 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   public void close() throws IOException {
     LOG.trace("Closing file {}", location);
     try {
-      dataFileWriter.close();
+      long endPosition;
+      try {
+        // Sync to find the end position of the last block for the summary
+        endPosition = dataFileWriter.sync();
+      } finally {
+        dataFileWriter.close();
+      }
+      try {
+        summaryBuilder.write(location, filePermissions, endPosition);
+      } catch (IOException e) {
+        // The summary is only used to speed up reading, hence not failing the close
+        LOG.warn("Failed to write summary for log file {}", location, e);
+      }
     } finally {
       closeable.close();
     }
@@ -83,11 +83,7 @@ public final class TMSLogAppender extends LogAppender {
     logMessage.prepareForDeferredProcessing();
     logMessage.getCallerData();
 
-    try {
-      tmsLogPublisher.get().addMessage(logMessage);
-    } catch (InterruptedException e) {
-      addInfo("Interrupted when adding log message to queue: " + logMessage.getFormattedMessage());
-    }
+    tmsLogPublisher.get().addMessage(logMessage);
   }
 
   // Based off of StringPartitioner, but that class can not be used in Standalone, as kafka dependencies do not exist
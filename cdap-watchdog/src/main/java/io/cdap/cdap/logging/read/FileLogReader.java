@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -76,6 +77,10 @@ public class FileLogReader implements LogReader {
       }
 
       for (LogLocation file : sortedFilesInRange) {
+        if (!file.mayMatch(logFilter, fromTimeMs, Long.MAX_VALUE)) {
+          LOG.trace("Skipping file {} without matching events", file);
+          continue;
+        }
         LOG.trace("Reading file {}", file);
         file.readLog(logFilter, fromTimeMs, Long.MAX_VALUE, maxEvents - callback.getCount(), callback);
         if (callback.getCount() >= maxEvents) {
@@ -110,6 +115,10 @@ public class FileLogReader implements LogReader {
       List<Collection<LogEvent>> logSegments = Lists.newLinkedList();
       int count = 0;
       for (LogLocation file : Lists.reverse(sortedFilesInRange)) {
+        if (!file.mayMatch(logFilter, Long.MIN_VALUE, fromTimeMs + 1)) {
+          LOG.trace("Skipping file {} without matching events", file);
+          continue;
+        }
         try {
           LOG.trace("Reading file {}", file);
 
@@ -141,8 +150,13 @@ public class FileLogReader implements LogReader {
                                                               filter));
 
       LOG.trace("Using fromTimeMs={}, toTimeMs={}", fromTimeMs, toTimeMs);
-      List<LogLocation> sortedFilesInRange =
-        fileMetadataReader.listFiles(LoggingContextHelper.getLogPathIdentifier(loggingContext), fromTimeMs, toTimeMs);
+      List<LogLocation> sortedFilesInRange = new ArrayList<>();
+      for (LogLocation file : fileMetadataReader.listFiles(LoggingContextHelper.getLogPathIdentifier(loggingContext),
+                                                           fromTimeMs, toTimeMs)) {
+        if (file.mayMatch(logFilter, fromTimeMs, toTimeMs)) {
+          sortedFilesInRange.add(file);
+        }
+      }
 
       if (sortedFilesInRange.isEmpty()) {
         // return empty iterator
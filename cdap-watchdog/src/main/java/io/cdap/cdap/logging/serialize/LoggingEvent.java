@@ -20,11 +20,17 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.IThrowableProxy;
 import ch.qos.logback.classic.spi.LoggerContextVO;
+import com.google.common.base.Throwables;
+import io.cdap.cdap.api.common.Bytes;
 import io.cdap.cdap.logging.LoggingUtil;
 import org.apache.avro.generic.GenericArray;
+import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
 import org.slf4j.Marker;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Map;
@@ -35,8 +41,11 @@ import javax.annotation.Nullable;
 */
 public final class LoggingEvent implements ILoggingEvent {
 
+  private static final GenericDatumReader<GenericRecord> DATUM_READER =
+    new GenericDatumReader<>(LogSchema.LoggingEvent.SCHEMA);
+
   private final ByteBuffer encoded;
-  private final GenericRecord record;
+  private GenericRecord record;
 
   private boolean threadNamePreserved;
   private String threadName;
@@ -85,6 +94,21 @@ public final class LoggingEvent implements ILoggingEvent {
     this.encoded = encoded;
   }
 
+  /**
+   * Creates an event from the encoded buffer with the fields needed for sorting and routing already decoded.
+   * The rest of the event is decoded from the buffer when it is first accessed.
+   */
+  LoggingEvent(ByteBuffer encoded, long timestamp, Level level, Map<String, String> mdc) {
+    // Keep a private view so that decoding is not affected by changes to the position of the given buffer
+    this.encoded = encoded.duplicate();
+    this.timestamp = timestamp;
+    this.timestampPreserved = true;
+    this.level = level;
+    this.levelPreserved = true;
+    this.mdc = mdc;
+    this.mdcPreserved = true;
+  }
+
   /**
    * Returns the {@link ByteBuffer} that this event is decoded from or {@code null} if
    * the original encoded buffer is unknown.
@@ -98,13 +122,26 @@ public final class LoggingEvent implements ILoggingEvent {
    * Returns the {@link GenericRecord} that this event is constructed from.
    */
   public GenericRecord getRecord() {
+    if (record == null) {
+      ByteBuffer buffer = encoded.duplicate();
+      BinaryDecoder decoder = buffer.hasArray()
+        ? DecoderFactory.get().binaryDecoder(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                                             buffer.remaining(), null)
+        : DecoderFactory.get().binaryDecoder(Bytes.toBytes(buffer), null);
+      try {
+        record = DATUM_READER.read(null, decoder);
+      } catch (IOException e) {
+        // This shouldn't happen since the timestamp, level and mdc were decoded from the same buffer
+        throw Throwables.propagate(e);
+      }
+    }
     return record;
   }
 
   @Override
   public String getThreadName() {
     if (!threadNamePreserved) {
-      threadName = LoggingUtil.stringOrNull(record.get("threadName"));
+      threadName = LoggingUtil.stringOrNull(getRecord().get("threadName"));
       threadNamePreserved = true;
     }
     return threadName;
@@ -113,7 +150,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Level getLevel() {
     if (!levelPreserved) {
-      level = Level.toLevel((Integer) record.get("level"));
+      level = Level.toLevel((Integer) getRecord().get("level"));
       levelPreserved = true;
     }
     return level;
@@ -122,7 +159,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getMessage() {
     if (!messagePreserved) {
-      message = LoggingUtil.stringOrNull(record.get("message"));
+      message = LoggingUtil.stringOrNull(getRecord().get("message"));
       messagePreserved = true;
     }
     return message;
@@ -131,7 +168,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Object[] getArgumentArray() {
     if (!argumentArrayPreserved) {
-      GenericArray<?> argArray = (GenericArray<?>) record.get("argumentArray");
+      GenericArray<?> argArray = (GenericArray<?>) getRecord().get("argumentArray");
       if (argArray != null) {
         argumentArray = new String[argArray.size()];
         int i = 0;
@@ -147,7 +184,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getFormattedMessage() {
     if (!formattedMessagePreserved) {
-      formattedMessage = LoggingUtil.stringOrNull(record.get("formattedMessage"));
+      formattedMessage = LoggingUtil.stringOrNull(getRecord().get("formattedMessage"));
       formattedMessagePreserved = true;
     }
     return formattedMessage;
@@ -156,7 +193,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public String getLoggerName() {
     if (!loggerNamePreserved) {
-      loggerName = LoggingUtil.stringOrNull(record.get("loggerName"));
+      loggerName = LoggingUtil.stringOrNull(getRecord().get("loggerName"));
       loggerNamePreserved = true;
     }
     return loggerName;
@@ -165,7 +202,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public LoggerContextVO getLoggerContextVO() {
     if (!loggerContextVOPreserved) {
-      loggerContextVO =  LoggerContextSerializer.decode((GenericRecord) record.get("loggerContextVO"));
+      loggerContextVO =  LoggerContextSerializer.decode((GenericRecord) getRecord().get("loggerContextVO"));
       loggerContextVOPreserved = true;
     }
     return loggerContextVO;
@@ -174,7 +211,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public IThrowableProxy getThrowableProxy() {
     if (!throwableProxyPreserved) {
-      throwableProxy = ThrowableProxySerializer.decode((GenericRecord) record.get("throwableProxy"));
+      throwableProxy = ThrowableProxySerializer.decode((GenericRecord) getRecord().get("throwableProxy"));
       throwableProxyPreserved = true;
     }
     return throwableProxy;
@@ -184,7 +221,7 @@ public final class LoggingEvent implements ILoggingEvent {
   public StackTraceElement[] getCallerData() {
     if (!callerDataPreserved) {
       //noinspection unchecked
-      callerData = CallerDataSerializer.decode((GenericArray<GenericRecord>) record.get("callerData"));
+      callerData = CallerDataSerializer.decode((GenericArray<GenericRecord>) getRecord().get("callerData"));
       callerDataPreserved = true;
     }
     return callerData;
@@ -193,7 +230,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public boolean hasCallerData() {
     if (!hasCallerDataPreserved) {
-      hasCallerData = (Boolean) record.get("hasCallerData");
+      hasCallerData = (Boolean) getRecord().get("hasCallerData");
       hasCallerDataPreserved = true;
     }
     return hasCallerData;
@@ -208,7 +245,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public Map<String, String> getMDCPropertyMap() {
     if (!mdcPreserved) {
-      mdc = LoggingUtil.decodeMDC((Map<?, ?>) record.get("mdc"));
+      mdc = LoggingUtil.decodeMDC((Map<?, ?>) getRecord().get("mdc"));
       mdcPreserved = true;
     }
     return mdc;
@@ -222,7 +259,7 @@ public final class LoggingEvent implements ILoggingEvent {
   @Override
   public long getTimeStamp() {
     if (!timestampPreserved) {
-      timestamp = (Long) record.get("timestamp");
+      timestamp = (Long) getRecord().get("timestamp");
       timestampPreserved = true;
     }
     return timestamp;
@@ -24,28 +24,46 @@ import io.cdap.cdap.logging.LoggingUtil;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericArray;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericDatumReader;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.Decoder;
 import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
  * Avro serializer for ILoggingEvent.
  * Method of this class is not thread safe, hence cannot be called from multiple threads concurrently.
+ *
+ * Events are encoded directly with the Avro encoder into a buffer that is reused across calls, without going
+ * through a {@link GenericRecord}, except for the rarely present logger context, throwable and caller data.
+ * Decoding only reads the timestamp, level and MDC, which are needed for sorting and routing events. The rest
+ * of the event is decoded when it is first accessed.
  */
 @NotThreadSafe
 public final class LoggingEventSerializer {
 
-  private final GenericDatumReader<GenericRecord> datumReader = new GenericDatumReader<>(getAvroSchema());
+  // Don't hold on to the memory used by an unusually large event
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private final Schema loggerContextSchema = getAvroSchema().getField("loggerContextVO").schema();
+  private final Schema throwableProxySchema = getAvroSchema().getField("throwableProxy").schema();
+  private final Schema callerDataSchema = getAvroSchema().getField("callerData").schema();
+  private final GenericDatumWriter<Object> loggerContextWriter = new GenericDatumWriter<>(loggerContextSchema);
+  private final GenericDatumWriter<Object> throwableProxyWriter = new GenericDatumWriter<>(throwableProxySchema);
+  private final GenericDatumWriter<Object> callerDataWriter = new GenericDatumWriter<>(callerDataSchema);
+  private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+  private BinaryEncoder encoder;
   private BinaryDecoder decoder;
 
   /**
@@ -59,28 +77,38 @@ public final class LoggingEventSerializer {
    * Encodes a {@link ILoggingEvent} to byte array.
    */
   public byte[] toBytes(ILoggingEvent event) {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
-    GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<>(getAvroSchema());
+    outputStream.reset();
+    encoder = EncoderFactory.get().directBinaryEncoder(outputStream, encoder);
     try {
-      writer.write(toGenericRecord(event), encoder);
+      encode(event, encoder);
+      encoder.flush();
     } catch (IOException e) {
       // This shouldn't happen since we are writing to byte array output stream.
       throw Throwables.propagate(e);
     }
-    return out.toByteArray();
+    byte[] bytes = outputStream.toByteArray();
+    if (bytes.length > MAX_RETAINED_BUFFER_SIZE) {
+      outputStream = new ByteArrayOutputStream();
+    }
+    return bytes;
   }
 
   /**
    * Decodes the content of the given {@link ByteBuffer} into {@link ILoggingEvent}, based on the
-   * schema returned by the {@link #getAvroSchema()} method.
+   * schema returned by the {@link #getAvroSchema()} method. Only the timestamp, level and MDC are decoded
+   * by this method, the rest of the event is decoded on first access.
    *
    * @param buffer the buffer to decode
    * @return a new instance of {@link ILoggingEvent} decoded from the buffer
    * @throws IOException if fail to decode
    */
   public ILoggingEvent fromBytes(ByteBuffer buffer) throws IOException {
-    return new LoggingEvent(toGenericRecord(buffer), buffer);
+    BinaryDecoder decoder = getDecoder(buffer);
+    // The timestamp, level and mdc are the first three fields in the schema
+    long timestamp = decoder.readLong();
+    Level level = Level.toLevel(decoder.readInt());
+    Map<String, String> mdc = readMDC(decoder);
+    return new LoggingEvent(buffer, timestamp, level, mdc);
   }
 
   /**
@@ -118,18 +146,6 @@ public final class LoggingEventSerializer {
     return decoder;
   }
 
-  /**
-   * Decodes the content of the given {@link ByteBuffer} into {@link GenericRecord}, based on the schema
-   * returned by the {@link #getAvroSchema()} method.
-   *
-   * @param buffer the buffer to decode
-   * @return a {@link GenericRecord} representing the decoded content.
-   * @throws IOException if fail to decode
-   */
-  private GenericRecord toGenericRecord(ByteBuffer buffer) throws IOException {
-    return datumReader.read(null, getDecoder(buffer));
-  }
-
   /**
    * Creates a new {@link GenericRecord} that represents the given {@link ILoggingEvent}.
    */
@@ -168,6 +184,108 @@ public final class LoggingEventSerializer {
     return datum;
   }
 
+  /**
+   * Writes the given event in the same format as writing the result of {@link #toGenericRecord(ILoggingEvent)}
+   * with a {@link GenericDatumWriter}. Fields must be written in the same order as in the schema.
+   */
+  private void encode(ILoggingEvent event, Encoder encoder) throws IOException {
+    encoder.writeLong(event.getTimeStamp());
+    encoder.writeInt(event.getLevel() == null ? Level.ERROR_INT : event.getLevel().toInt());
+    writeMDC(event.getMDCPropertyMap(), encoder);
+    // Marker is not serialized
+    writeNull(encoder);
+    writeString(event.getThreadName(), encoder);
+    writeString(event.getMessage(), encoder);
+
+    Object[] arguments = event.getArgumentArray();
+    if (arguments == null) {
+      writeNull(encoder);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeArrayStart();
+      encoder.setItemCount(arguments.length);
+      for (Object argument : arguments) {
+        encoder.startItem();
+        writeString(argument == null ? null : argument.toString(), encoder);
+      }
+      encoder.writeArrayEnd();
+    }
+
+    writeString(event.getFormattedMessage(), encoder);
+    writeString(event.getLoggerName(), encoder);
+    loggerContextWriter.write(LoggerContextSerializer.encode(loggerContextSchema, event.getLoggerContextVO()),
+                              encoder);
+    throwableProxyWriter.write(ThrowableProxySerializer.encode(throwableProxySchema, event.getThrowableProxy()),
+                               encoder);
+    encoder.writeBoolean(event.hasCallerData());
+    callerDataWriter.write(event.hasCallerData()
+                             ? CallerDataSerializer.encode(callerDataSchema, event.getCallerData()) : null, encoder);
+  }
+
+  /**
+   * Writes a {@code [null, string]} union.
+   */
+  private void writeString(@Nullable String value, Encoder encoder) throws IOException {
+    if (value == null) {
+      writeNull(encoder);
+    } else {
+      encoder.writeIndex(1);
+      encoder.writeString(value);
+    }
+  }
+
+  /**
+   * Writes the null branch of a union with null as the first type.
+   */
+  private void writeNull(Encoder encoder) throws IOException {
+    encoder.writeIndex(0);
+    encoder.writeNull();
+  }
+
+  /**
+   * Writes the mdc as a {@code [null, map]} union, with the same key replacement as {@link LoggingUtil#encodeMDC}.
+   */
+  private void writeMDC(@Nullable Map<String, String> mdc, Encoder encoder) throws IOException {
+    if (mdc == null) {
+      writeNull(encoder);
+      return;
+    }
+    encoder.writeIndex(1);
+    encoder.writeMapStart();
+    encoder.setItemCount(mdc.size());
+    for (Map.Entry<String, String> entry : mdc.entrySet()) {
+      encoder.startItem();
+      encoder.writeString(LoggingUtil.encodeMDCKey(entry.getKey()));
+      writeString(entry.getValue(), encoder);
+    }
+    encoder.writeMapEnd();
+  }
+
+  /**
+   * Reads the mdc written by {@link #writeMDC(Map, Encoder)}.
+   */
+  private Map<String, String> readMDC(Decoder decoder) throws IOException {
+    // ILoggingEvent guarantees MDC never null
+    Map<String, String> mdc = new HashMap<>();
+    if (decoder.readIndex() == 0) {
+      decoder.readNull();
+      return mdc;
+    }
+    for (long i = decoder.readMapStart(); i != 0; i = decoder.mapNext()) {
+      for (long j = 0; j < i; j++) {
+        String key = LoggingUtil.decodeMDCKey(decoder.readString(null).toString());
+        String value = null;
+        if (decoder.readIndex() == 0) {
+          decoder.readNull();
+        } else {
+          value = decoder.readString(null).toString();
+        }
+        mdc.put(key, value);
+      }
+    }
+    return mdc;
+  }
+
   /**
    * Skips data from the decoder based on the schema.
    */
@@ -0,0 +1,450 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.write;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.cdap.cdap.common.io.Locations;
+import io.cdap.cdap.logging.filter.AndFilter;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.LogLevelExpression;
+import io.cdap.cdap.logging.filter.MdcExpression;
+import io.cdap.cdap.logging.filter.OrFilter;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * A compact summary of a log file, written next to the file when it is closed. It is used by readers to skip
+ * files, and segments of files, that cannot contain events matching a {@link Filter}.
+ *
+ * The summary has the min and max event timestamp, the number of events per level, and a bloom filter over the
+ * MDC entries, both for the whole file and for each segment. Segments are ranges of the file between
+ * positions returned by the Avro writer sync, so that readers can seek to the end of a segment.
+ */
+public final class LogFileSummary {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogFileSummary.class);
+
+  private static final String SUFFIX = ".summary";
+  private static final int VERSION = 1;
+  // Stop tracking MDC entries beyond this, in which case MDC filters are assumed to always match
+  private static final int MAX_MDC_ENTRIES = 10000;
+  private static final double BLOOM_FILTER_FPP = 0.01d;
+
+  private final Stats fileStats;
+  private final List<Segment> segments;
+
+  private LogFileSummary(Stats fileStats, List<Segment> segments) {
+    this.fileStats = fileStats;
+    this.segments = segments;
+  }
+
+  /**
+   * Returns the {@link Location} of the summary of the given log file.
+   */
+  public static Location getSummaryLocation(Location logFile) throws IOException {
+    Location parent = Locations.getParent(logFile);
+    if (parent == null) {
+      throw new IllegalArgumentException("Log file location has no parent: " + logFile);
+    }
+    return parent.append(logFile.getName() + SUFFIX);
+  }
+
+  /**
+   * Reads the summary of the given log file.
+   *
+   * @return the summary or {@code null} if the file has no summary, because it is still being written or was
+   *         written before summaries were introduced, or if the summary cannot be read
+   */
+  @Nullable
+  public static LogFileSummary read(Location logFile) {
+    try {
+      Location location = getSummaryLocation(logFile);
+      if (!location.exists()) {
+        return null;
+      }
+      try (DataInputStream input = new DataInputStream(location.getInputStream())) {
+        int version = input.readInt();
+        if (version != VERSION) {
+          LOG.debug("Ignoring log file summary {} with unsupported version {}", location, version);
+          return null;
+        }
+        Stats fileStats = Stats.read(input);
+        int size = input.readInt();
+        List<Segment> segments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          segments.add(new Segment(input.readLong(), input.readLong(), Stats.read(input)));
+        }
+        return new LogFileSummary(fileStats, segments);
+      }
+    } catch (Exception e) {
+      LOG.warn("Failed to read summary of log file {}. File will be read without it.", logFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * Returns {@code false} if the file cannot contain any event with timestamp in {@code [fromTimeMs, toTimeMs)}
+   * that matches the given filter.
+   */
+  public boolean mayMatch(Filter filter, long fromTimeMs, long toTimeMs) {
+    return fileStats.mayMatch(filter, fromTimeMs, toTimeMs);
+  }
+
+  /**
+   * Returns the segment that contains the given position of the file, or {@code null} if there is none.
+   */
+  @Nullable
+  public Segment findSegment(long position) {
+    int idx = Collections.binarySearch(segments, null, (segment, ignored) -> {
+      if (segment.getEnd() <= position) {
+        return -1;
+      }
+      return segment.getStart() > position ? 1 : 0;
+    });
+    return idx < 0 ? null : segments.get(idx);
+  }
+
+  @VisibleForTesting
+  List<Segment> getSegments() {
+    return segments;
+  }
+
+  /**
+   * A range of the log file, from a sync position (inclusive) to the next one (exclusive).
+   */
+  public static final class Segment {
+    private final long start;
+    private final long end;
+    private final Stats stats;
+
+    private Segment(long start, long end, Stats stats) {
+      this.start = start;
+      this.end = end;
+      this.stats = stats;
+    }
+
+    public long getStart() {
+      return start;
+    }
+
+    public long getEnd() {
+      return end;
+    }
+
+    /**
+     * Returns {@code false} if the segment cannot contain any event with timestamp in
+     * {@code [fromTimeMs, toTimeMs)} that matches the given filter.
+     */
+    public boolean mayMatch(Filter filter, long fromTimeMs, long toTimeMs) {
+      return stats.mayMatch(filter, fromTimeMs, toTimeMs);
+    }
+  }
+
+  /**
+   * Collects the summary of a log file while it is being written. This class is not thread safe.
+   */
+  public static final class Builder {
+    // Don't create segments smaller than this, to keep the summary small for frequently flushed files
+    private static final long MIN_SEGMENT_BYTES = 1024 * 1024;
+
+    private final long minSegmentBytes;
+    private final StatsBuilder fileStats = new StatsBuilder();
+    private final List<Segment> segments = new ArrayList<>();
+    private StatsBuilder segmentStats = new StatsBuilder();
+    private long segmentStart;
+
+    public Builder() {
+      this(MIN_SEGMENT_BYTES);
+    }
+
+    @VisibleForTesting
+    Builder(long minSegmentBytes) {
+      this.minSegmentBytes = minSegmentBytes;
+    }
+
+    /**
+     * Adds an event written to the file.
+     */
+    public void add(ILoggingEvent event) {
+      fileStats.add(event);
+      segmentStats.add(event);
+    }
+
+    /**
+     * Marks a sync position of the file. All events added so far are before this position.
+     */
+    public void sync(long position) {
+      if (segmentStats.count == 0 || position - segmentStart < minSegmentBytes) {
+        return;
+      }
+      segments.add(new Segment(segmentStart, position, segmentStats.build()));
+      segmentStats = new StatsBuilder();
+      segmentStart = position;
+    }
+
+    /**
+     * Writes the summary of the given log file. This should be called after the file is closed, with the last
+     * sync position of the file. Nothing is written if no event was added, since there is nothing to skip.
+     */
+    public void write(Location logFile, String filePermissions, long endPosition) throws IOException {
+      if (fileStats.count == 0) {
+        return;
+      }
+      if (segmentStats.count > 0) {
+        segments.add(new Segment(segmentStart, endPosition, segmentStats.build()));
+        segmentStats = new StatsBuilder();
+        segmentStart = endPosition;
+      }
+      Location location = getSummaryLocation(logFile);
+      OutputStream os = filePermissions.isEmpty() ? location.getOutputStream()
+        : location.getOutputStream(filePermissions);
+      try (DataOutputStream output = new DataOutputStream(os)) {
+        output.writeInt(VERSION);
+        fileStats.build().write(output);
+        output.writeInt(segments.size());
+        for (Segment segment : segments) {
+          output.writeLong(segment.getStart());
+          output.writeLong(segment.getEnd());
+          segment.stats.write(output);
+        }
+      }
+    }
+  }
+
+  /**
+   * Statistics of a range of events.
+   */
+  private static final class Stats {
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    // From level int to number of events
+    private final Map<Integer, Long> levelCounts;
+    @Nullable
+    private final MdcBloomFilter mdcFilter;
+
+    private Stats(long minTimestamp, long maxTimestamp, Map<Integer, Long> levelCounts,
+                  @Nullable MdcBloomFilter mdcFilter) {
+      this.minTimestamp = minTimestamp;
+      this.maxTimestamp = maxTimestamp;
+      this.levelCounts = levelCounts;
+      this.mdcFilter = mdcFilter;
+    }
+
+    boolean mayMatch(Filter filter, long fromTimeMs, long toTimeMs) {
+      return maxTimestamp >= fromTimeMs && minTimestamp < toTimeMs && mayMatch(filter);
+    }
+
+    private boolean mayMatch(Filter filter) {
+      if (filter instanceof AndFilter) {
+        for (Filter expression : ((AndFilter) filter).getExpressions()) {
+          if (!mayMatch(expression)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      if (filter instanceof OrFilter) {
+        for (Filter expression : ((OrFilter) filter).getExpressions()) {
+          if (mayMatch(expression)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      if (filter instanceof MdcExpression) {
+        MdcExpression expression = (MdcExpression) filter;
+        return mdcFilter == null || expression.getValue() != null
+          && mdcFilter.mightContain(mdcEntry(expression.getKey(), expression.getValue()));
+      }
+      if (filter instanceof LogLevelExpression) {
+        Level level = ((LogLevelExpression) filter).getLevel();
+        for (Map.Entry<Integer, Long> entry : levelCounts.entrySet()) {
+          if (entry.getValue() > 0 && Level.toLevel(entry.getKey()).isGreaterOrEqual(level)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      // Unknown filters may match anything
+      return true;
+    }
+
+    void write(DataOutputStream output) throws IOException {
+      output.writeLong(minTimestamp);
+      output.writeLong(maxTimestamp);
+      output.writeInt(levelCounts.size());
+      for (Map.Entry<Integer, Long> entry : levelCounts.entrySet()) {
+        output.writeInt(entry.getKey());
+        output.writeLong(entry.getValue());
+      }
+      output.writeBoolean(mdcFilter != null);
+      if (mdcFilter != null) {
+        mdcFilter.write(output);
+      }
+    }
+
+    static Stats read(DataInputStream input) throws IOException {
+      long minTimestamp = input.readLong();
+      long maxTimestamp = input.readLong();
+      int size = input.readInt();
+      Map<Integer, Long> levelCounts = new TreeMap<>();
+      for (int i = 0; i < size; i++) {
+        levelCounts.put(input.readInt(), input.readLong());
+      }
+      MdcBloomFilter mdcFilter = null;
+      if (input.readBoolean()) {
+        mdcFilter = MdcBloomFilter.read(input);
+      }
+      return new Stats(minTimestamp, maxTimestamp, levelCounts, mdcFilter);
+    }
+  }
+
+  /**
+   * Collects {@link Stats} of events.
+   */
+  private static final class StatsBuilder {
+    private final Map<Integer, Long> levelCounts = new TreeMap<>();
+    private Set<String> mdcEntries = new HashSet<>();
+    private long minTimestamp = Long.MAX_VALUE;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long count;
+
+    void add(ILoggingEvent event) {
+      count++;
+      minTimestamp = Math.min(minTimestamp, event.getTimeStamp());
+      maxTimestamp = Math.max(maxTimestamp, event.getTimeStamp());
+      int level = event.getLevel() == null ? Level.ERROR_INT : event.getLevel().toInt();
+      levelCounts.merge(level, 1L, Long::sum);
+
+      if (mdcEntries == null) {
+        return;
+      }
+      for (Map.Entry<String, String> entry : event.getMDCPropertyMap().entrySet()) {
+        if (entry.getKey() != null && entry.getValue() != null) {
+          mdcEntries.add(mdcEntry(entry.getKey(), entry.getValue()));
+        }
+      }
+      if (mdcEntries.size() > MAX_MDC_ENTRIES) {
+        mdcEntries = null;
+      }
+    }
+
+    Stats build() {
+      MdcBloomFilter mdcFilter = null;
+      if (mdcEntries != null) {
+        mdcFilter = MdcBloomFilter.create(mdcEntries.size(), BLOOM_FILTER_FPP);
+        for (String entry : mdcEntries) {
+          mdcFilter.put(entry);
+        }
+      }
+      return new Stats(minTimestamp, maxTimestamp, new TreeMap<>(levelCounts), mdcFilter);
+    }
+  }
+
+  /**
+   * A bloom filter of strings that can be written to and read from a stream.
+   */
+  private static final class MdcBloomFilter {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final long[] bits;
+    private final int numHashes;
+
+    private MdcBloomFilter(long[] bits, int numHashes) {
+      this.bits = bits;
+      this.numHashes = numHashes;
+    }
+
+    static MdcBloomFilter create(int expectedEntries, double fpp) {
+      int entries = Math.max(1, expectedEntries);
+      long numBits = Math.max(64L, (long) (-entries * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+      int numHashes = Math.max(1, (int) Math.round((double) numBits / entries * Math.log(2)));
+      return new MdcBloomFilter(new long[(int) ((numBits + 63) / 64)], numHashes);
+    }
+
+    static MdcBloomFilter read(DataInputStream input) throws IOException {
+      int numHashes = input.readInt();
+      long[] bits = new long[input.readInt()];
+      for (int i = 0; i < bits.length; i++) {
+        bits[i] = input.readLong();
+      }
+      return new MdcBloomFilter(bits, numHashes);
+    }
+
+    void write(DataOutputStream output) throws IOException {
+      output.writeInt(numHashes);
+      output.writeInt(bits.length);
+      for (long word : bits) {
+        output.writeLong(word);
+      }
+    }
+
+    void put(String entry) {
+      long hash = HASH_FUNCTION.hashString(entry, Charsets.UTF_8).asLong();
+      for (int i = 1; i <= numHashes; i++) {
+        long bit = getBit(hash, i);
+        bits[(int) (bit >>> 6)] |= 1L << bit;
+      }
+    }
+
+    boolean mightContain(String entry) {
+      long hash = HASH_FUNCTION.hashString(entry, Charsets.UTF_8).asLong();
+      for (int i = 1; i <= numHashes; i++) {
+        long bit = getBit(hash, i);
+        if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Computes the i-th bit position of a hash by combining its two halves, as described in
+     * "Less Hashing, Same Performance: Building a Better Bloom Filter".
+     */
+    private long getBit(long hash, int i) {
+      int combined = (int) hash + i * (int) (hash >>> 32);
+      if (combined < 0) {
+        combined = ~combined;
+      }
+      return combined % ((long) bits.length * 64);
+    }
+  }
+
+  private static String mdcEntry(String key, String value) {
+    return key + '=' + value;
+  }
+}
@@ -50,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -69,6 +70,8 @@ public class LogLocation {
   private final Location location;
   private final NamespaceId namespaceId;
   private final Impersonator impersonator;
+  private boolean summaryLoaded;
+  private LogFileSummary summary;
 
   public LogLocation(String frameworkVersion, long eventTimeMs, long fileCreationTimeMs, Location location,
                      String namespaceId, Impersonator impersonator) {
@@ -112,6 +115,29 @@ public class LogLocation {
     return fileCreationTimeMs;
   }
 
+  /**
+   * Returns {@code false} if the file is known to have no event with timestamp in {@code [fromTimeMs, toTimeMs)}
+   * that matches the given filter, based on the {@link LogFileSummary} of the file.
+   */
+  public boolean mayMatch(Filter logFilter, long fromTimeMs, long toTimeMs) {
+    LogFileSummary summary = getSummary();
+    return summary == null || summary.mayMatch(logFilter, fromTimeMs, toTimeMs);
+  }
+
+  /**
+   * Returns the summary of the file, or {@code null} if the file has no summary.
+   */
+  @Nullable
+  private LogFileSummary getSummary() {
+    // Summaries are only written by log saver using the current framework version. Files of that version are read
+    // without impersonation, so neither is the summary.
+    if (!summaryLoaded && VERSION_1.equals(frameworkVersion)) {
+      summary = LogFileSummary.read(location);
+    }
+    summaryLoaded = true;
+    return summary;
+  }
+
   /**
    * Return closeable iterator of {@link LogEvent}
    * @param logFilter filter for filtering log events
@@ -259,6 +285,7 @@ public class LogLocation {
     private final long maxEvents;
 
     private DataFileReader<GenericRecord> dataFileReader;
+    private LogFileSummary.Segment segment;
 
     private ILoggingEvent loggingEvent;
     private GenericRecord datum;
@@ -316,6 +343,9 @@ public class LogLocation {
       try {
         // read events from file
         while (next == null && dataFileReader.hasNext()) {
+          if (skipSegment()) {
+            continue;
+          }
           loggingEvent = new LoggingEvent(dataFileReader.next(datum));
           loggingEvent.prepareForDeferredProcessing();
 
@@ -338,6 +368,29 @@ public class LogLocation {
       }
     }
 
+    /**
+     * Skips to the end of the segment of the file that contains the next event, if the summary of the file shows
+     * that the segment has no matching event.
+     *
+     * @return {@code true} if the reader was moved
+     */
+    private boolean skipSegment() throws IOException {
+      LogFileSummary summary = getSummary();
+      if (summary == null) {
+        return false;
+      }
+      long position = dataFileReader.previousSync();
+      if (segment == null || position < segment.getStart() || position >= segment.getEnd()) {
+        segment = summary.findSegment(position);
+      }
+      if (segment == null || segment.mayMatch(logFilter, fromTimeMs, toTimeMs)) {
+        return false;
+      }
+      LOG.trace("Skipping segment from {} to {} of file {}", segment.getStart(), segment.getEnd(), location);
+      dataFileReader.seek(segment.getEnd());
+      return true;
+    }
+
     @Override
     public void close() {
       try {
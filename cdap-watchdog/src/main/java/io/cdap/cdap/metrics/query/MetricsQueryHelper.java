@@ -35,6 +35,8 @@ import io.cdap.cdap.api.metrics.MetricDataQuery;
 import io.cdap.cdap.api.metrics.MetricSearchQuery;
 import io.cdap.cdap.api.metrics.MetricStore;
 import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricsCollectionService;
+import io.cdap.cdap.api.metrics.MetricsContext;
 import io.cdap.cdap.api.metrics.TagValue;
 import io.cdap.cdap.common.conf.CConfiguration;
 import io.cdap.cdap.common.conf.Constants;
@@ -42,11 +44,13 @@ import io.cdap.cdap.common.utils.TimeMathParser;
 import io.cdap.cdap.proto.MetricQueryRequest;
 import io.cdap.cdap.proto.MetricQueryResult;
 import io.cdap.cdap.proto.MetricTagValue;
+import io.cdap.cdap.proto.id.NamespaceId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -72,10 +76,15 @@ public class MetricsQueryHelper {
   private static final String PARAM_MAX_INTERPOLATE_GAP = "maxInterpolateGap";
   private static final String PARAM_AGGREGATE = "aggregate";
   private static final String PARAM_AUTO_RESOLUTION = "auto";
+  private static final String PARAM_ROLLUP_RESOLUTION = "rollup";
+  // resolution of queries that are executed across resolutions by the RollupQueryExecutor
+  private static final int ROLLUP_RESOLUTION = 0;
   private static final String ANY_TAG_VALUE = "*";
 
   private final MetricStore metricStore;
   private final int minResolution;
+  private final RollupQueryExecutor rollupQueryExecutor;
+  private volatile MetricsContext metricsContext;
 
   private static final Map<String, String> tagNameToHuman;
   private static final Map<String, String> humanToTagName;
@@ -127,6 +136,26 @@ public class MetricsQueryHelper {
     this.metricStore = metricStore;
     int minimumResolution = cConf.getInt(Constants.Metrics.METRICS_MINIMUM_RESOLUTION_SECONDS);
     this.minResolution = minimumResolution < 60 ? minimumResolution : 60;
+
+    Map<Integer, Long> resolutionRetentions = new HashMap<>();
+    for (int resolution : new int[] { 60, 3600 }) {
+      resolutionRetentions.put(resolution, cConf.getLong(Constants.Metrics.RETENTION_SECONDS + resolution +
+                                                           Constants.Metrics.RETENTION_SECONDS_SUFFIX));
+    }
+    if (minResolution < 60) {
+      resolutionRetentions.put(minResolution, cConf.getLong(Constants.Metrics.MINIMUM_RESOLUTION_RETENTION_SECONDS));
+    }
+    this.rollupQueryExecutor = new RollupQueryExecutor(metricStore, resolutionRetentions);
+  }
+
+  /**
+   * Sets the {@link MetricsCollectionService} for emitting metrics about the queries.
+   */
+  @Inject(optional = true)
+  public void setMetricsCollectionService(MetricsCollectionService metricsCollectionService) {
+    this.metricsContext = metricsCollectionService.getContext(
+      ImmutableMap.of(Constants.Metrics.Tag.NAMESPACE, NamespaceId.SYSTEM.getNamespace(),
+                      Constants.Metrics.Tag.COMPONENT, Constants.Service.METRICS));
   }
 
   public List<MetricTagValue> searchTags(List<String> tags) {
@@ -263,7 +292,18 @@ public class MetricsQueryHelper {
       interpolator = getInterpolator(queryTimeParams.get(PARAM_INTERPOLATE).get(0), timeLimit);
     }
 
-    if (queryTimeParams.containsKey(PARAM_COUNT)) {
+    if (resolution == ROLLUP_RESOLUTION) {
+      if (interpolator != null) {
+        throw new IllegalArgumentException("Interpolation is not supported for resolution=" + PARAM_ROLLUP_RESOLUTION);
+      }
+      // the count is the maximum number of points to return
+      count = queryTimeParams.containsKey(PARAM_COUNT) ?
+        Integer.valueOf(queryTimeParams.get(PARAM_COUNT).get(0)) : Integer.MAX_VALUE;
+      if (count < 1) {
+        throw new IllegalArgumentException(String.format("Invalid count %d. The count must be at least 1 for " +
+                                                           "resolution=%s", count, PARAM_ROLLUP_RESOLUTION));
+      }
+    } else if (queryTimeParams.containsKey(PARAM_COUNT)) {
       count = Integer.valueOf(queryTimeParams.get(PARAM_COUNT).get(0));
       if (start == null && end != null) {
         start = end - count * resolution;
@@ -295,6 +335,8 @@ public class MetricsQueryHelper {
    * 3. If the resolution is null, i.e, not specified in the query, then if start and end timestamp are not null,
    * the logic will be same as the resolution is "auto". If any of the start or end timestamp is not specified,
    * minimum resolution will be used.
+   * 4. If the resolution is "rollup", then start and end timestamp must be specified. The query will be executed
+   * across resolutions by the {@link RollupQueryExecutor}.
    *
    * @param resolution the resolution string, can be specific resolution like 1s, 1m, etc, or can be auto or null.
    * @param start the start timestamp, null if not specified in the query
@@ -303,6 +345,16 @@ public class MetricsQueryHelper {
    */
   @VisibleForTesting
   Integer getResolution(@Nullable String resolution, @Nullable Long start, @Nullable Long end) {
+    if (PARAM_ROLLUP_RESOLUTION.equals(resolution)) {
+      if (start == null || end == null) {
+        throw new IllegalArgumentException("if resolution=rollup, start and end timestamp should be provided");
+      }
+      if (start > end) {
+        throw new IllegalArgumentException(String.format("The start time %d should not be " +
+                                                           "larger than the end time %d", start, end));
+      }
+      return ROLLUP_RESOLUTION;
+    }
     if (resolution == null || resolution.equals(PARAM_AUTO_RESOLUTION)) {
       if (start != null && end != null) {
         long difference = end - start;
@@ -340,6 +392,33 @@ public class MetricsQueryHelper {
     }
   }
 
+  private Collection<MetricTimeSeries> query(MetricDataQuery query) {
+    long startTime = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      Collection<MetricTimeSeries> result = query.getResolution() == ROLLUP_RESOLUTION ?
+        rollupQueryExecutor.execute(query) : metricStore.query(query);
+      succeeded = true;
+      emitMetric(Constants.Metrics.Query.QUERY_TIMESERIES_COUNT, result.size());
+      return result;
+    } finally {
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+      LOG.trace("Metrics query {} took {} ms", query, millis);
+      emitMetric(Constants.Metrics.Query.QUERY_COUNT, 1);
+      emitMetric(Constants.Metrics.Query.QUERY_MILLIS, millis);
+      if (!succeeded) {
+        emitMetric(Constants.Metrics.Query.QUERY_FAILURE_COUNT, 1);
+      }
+    }
+  }
+
+  private void emitMetric(String metricName, long value) {
+    MetricsContext context = metricsContext;
+    if (context != null) {
+      context.increment(metricName, value);
+    }
+  }
+
   private Interpolator getInterpolator(String interpolator, long timeLimit) {
     if (PARAM_STEP_INTERPOLATOR.equals(interpolator)) {
       return new Interpolators.Step(timeLimit);
@@ -367,7 +446,7 @@ public class MetricsQueryHelper {
                                                 timeRange.getCount(), toMetrics(queryRequest.getMetrics()),
                                                 tagsSliceBy, transformGroupByTags(queryRequest.getGroupBy()),
                                                 aggregation, timeRange.getInterpolate());
-    Collection<MetricTimeSeries> queryResult = metricStore.query(query);
+    Collection<MetricTimeSeries> queryResult = query(query);
 
     long endTime = timeRange.getEnd();
     if (timeRange.getResolutionInSeconds() == Integer.MAX_VALUE && endTime == 0) {
@@ -375,7 +454,13 @@ public class MetricsQueryHelper {
       endTime = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
     }
 
-    return decorate(queryResult, timeRange.getStart(), endTime, timeRange.getResolutionInSeconds());
+    int resolution = timeRange.getResolutionInSeconds();
+    if (resolution == ROLLUP_RESOLUTION) {
+      // report the length of the intervals the points are downsampled to
+      resolution = (int) Math.max(minResolution,
+                                  RollupQueryExecutor.getInterval(timeRange.getStart(), endTime, timeRange.getCount()));
+    }
+    return decorate(queryResult, timeRange.getStart(), endTime, resolution);
   }
 
   private Map<String, String> transformTagMap(Map<String, String> tags) {
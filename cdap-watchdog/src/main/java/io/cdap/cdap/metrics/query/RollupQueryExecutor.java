@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationOption;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes a {@link MetricDataQuery} across multiple resolutions. The bulk of the time range is read from the
+ * coarsest resolution that has whole buckets within the range, and the unaligned edges of the range are read from
+ * finer resolutions. The results are stitched into one time series per metric and tag values, which is downsampled
+ * to at most {@link MetricDataQuery#getLimit()} points.
+ *
+ * An edge of the range that is older than the retention of the finer resolution is read from the bucket of the
+ * coarser resolution that contains it, hence the first point can be before the start of the range.
+ */
+final class RollupQueryExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RollupQueryExecutor.class);
+
+  private final MetricStore metricStore;
+  // resolutions from the coarsest to the finest, mapped to their retention in seconds
+  private final NavigableMap<Integer, Long> resolutionRetentions;
+
+  /**
+   * Creates an instance.
+   *
+   * @param metricStore the {@link MetricStore} to query
+   * @param resolutionRetentions the resolutions to read from, mapped to their retention in seconds
+   */
+  RollupQueryExecutor(MetricStore metricStore, Map<Integer, Long> resolutionRetentions) {
+    this.metricStore = metricStore;
+    this.resolutionRetentions = new TreeMap<>(resolutionRetentions).descendingMap();
+  }
+
+  /**
+   * Executes the given query. The resolution of the query is ignored.
+   *
+   * @param query the query to execute
+   * @return the stitched and downsampled time series
+   */
+  Collection<MetricTimeSeries> execute(MetricDataQuery query) {
+    List<MetricDataQuery> plan = plan(query, TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+    LOG.trace("Executing query {} with plan {}", query, plan);
+
+    // {metric name, tag values} -> time values
+    Table<String, Map<String, String>, List<TimeValue>> stitched = HashBasedTable.create();
+    for (MetricDataQuery subQuery : plan) {
+      for (MetricTimeSeries timeSeries : metricStore.query(subQuery)) {
+        List<TimeValue> timeValues = stitched.get(timeSeries.getMetricName(), timeSeries.getTagValues());
+        if (timeValues == null) {
+          timeValues = new ArrayList<>();
+          stitched.put(timeSeries.getMetricName(), timeSeries.getTagValues(), timeValues);
+        }
+        timeValues.addAll(timeSeries.getTimeValues());
+      }
+    }
+
+    List<MetricTimeSeries> result = new ArrayList<>(stitched.size());
+    for (Table.Cell<String, Map<String, String>, List<TimeValue>> cell : stitched.cellSet()) {
+      List<TimeValue> timeValues = cell.getValue();
+      Collections.sort(timeValues);
+      AggregationFunction function = query.getMetrics().get(cell.getRowKey());
+      result.add(new MetricTimeSeries(cell.getRowKey(), cell.getColumnKey(),
+                                      downsample(timeValues, query.getStartTs(), query.getEndTs(),
+                                                 query.getLimit(), function)));
+    }
+    return result;
+  }
+
+  /**
+   * Plans the queries on the different resolutions for the given query.
+   *
+   * @param query the query to plan
+   * @param now the current time in seconds, for applying the retention of resolutions
+   * @return the queries, ordered by time
+   */
+  @VisibleForTesting
+  List<MetricDataQuery> plan(MetricDataQuery query, long now) {
+    List<MetricDataQuery> plan = new ArrayList<>();
+    plan(query, query.getStartTs(), query.getEndTs() + 1, resolutionRetentions.firstKey(), now, plan);
+    return plan;
+  }
+
+  /**
+   * Plans queries for the time range from the given start (inclusive) to the given end (exclusive), using the given
+   * resolution and the finer ones.
+   */
+  private void plan(MetricDataQuery query, long start, long end, int resolution, long now,
+                    List<MetricDataQuery> plan) {
+    if (start >= end) {
+      return;
+    }
+    Integer finerResolution = resolutionRetentions.higherKey(resolution);
+    if (finerResolution == null) {
+      plan.add(createQuery(query, start, end, resolution));
+      return;
+    }
+
+    long alignedStart = (start + resolution - 1) / resolution * resolution;
+    long alignedEnd = end / resolution * resolution;
+    if (alignedEnd - alignedStart < resolution) {
+      plan(query, start, end, finerResolution, now, plan);
+      return;
+    }
+
+    // the start edge is read from this resolution if the finer one doesn't retain it anymore
+    if (alignedStart > start && start < now - resolutionRetentions.get(finerResolution)) {
+      alignedStart -= resolution;
+    }
+    plan(query, start, alignedStart, finerResolution, now, plan);
+    plan.add(createQuery(query, alignedStart, alignedEnd, resolution));
+    plan(query, alignedEnd, end, finerResolution, now, plan);
+  }
+
+  private MetricDataQuery createQuery(MetricDataQuery query, long start, long end, int resolution) {
+    return new MetricDataQuery(start, end - 1, resolution, Integer.MAX_VALUE, query.getMetrics(),
+                               query.getSliceByTags(), query.getGroupByTags(), AggregationOption.FALSE, null);
+  }
+
+  /**
+   * Downsamples the given time values by aggregating them into at most the given number of intervals of equal
+   * length between the start and end time. The time values are returned as is if there are not more of them than
+   * the given number.
+   *
+   * @param timeValues the time values, ordered by time
+   * @param startTs the start time of the intervals
+   * @param endTs the end time of the intervals
+   * @param maxPoints the maximum number of time values to return
+   * @param function the function to aggregate the time values in the same interval
+   * @return the downsampled time values, each with the start time of its interval
+   */
+  @VisibleForTesting
+  static List<TimeValue> downsample(List<TimeValue> timeValues, long startTs, long endTs, int maxPoints,
+                                    AggregationFunction function) {
+    if (timeValues.size() <= maxPoints) {
+      return timeValues;
+    }
+
+    long interval = getInterval(startTs, endTs, maxPoints);
+    List<TimeValue> result = new ArrayList<>(maxPoints);
+    Long currentTs = null;
+    long currentValue = 0;
+    for (TimeValue timeValue : timeValues) {
+      // time values before the start time, read from a coarser resolution, belong to the first interval
+      long ts = startTs + Math.max(0, timeValue.getTimestamp() - startTs) / interval * interval;
+      if (currentTs == null || ts != currentTs) {
+        if (currentTs != null) {
+          result.add(new TimeValue(currentTs, currentValue));
+        }
+        currentTs = ts;
+        currentValue = timeValue.getValue();
+        continue;
+      }
+      switch (function) {
+        case SUM:
+          currentValue += timeValue.getValue();
+          break;
+        case MAX:
+          currentValue = Math.max(currentValue, timeValue.getValue());
+          break;
+        case MIN:
+          currentValue = Math.min(currentValue, timeValue.getValue());
+          break;
+        case LATEST:
+          currentValue = timeValue.getValue();
+          break;
+        default:
+          // should never happen: developer error
+          throw new IllegalArgumentException("Unknown aggregation function: " + function);
+      }
+    }
+    result.add(new TimeValue(currentTs, currentValue));
+    return result;
+  }
+
+  /**
+   * Returns the length of the intervals for downsampling the given time range into the given number of points.
+   */
+  static long getInterval(long startTs, long endTs, int maxPoints) {
+    return Math.max(1L, (endTs - startTs + maxPoints) / maxPoints);
+  }
+}
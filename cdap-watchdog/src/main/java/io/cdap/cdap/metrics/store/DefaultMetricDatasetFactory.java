@@ -60,7 +60,14 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
     this.entityTable = Suppliers.memoize(() -> {
       String tableName = cConf.get(Constants.Metrics.ENTITY_TABLE_NAME,
                                    Constants.Metrics.DEFAULT_ENTITY_TABLE_NAME);
-      return new EntityTable(getOrCreateMetricsTable(tableName, DatasetProperties.EMPTY));
+      int cacheSize = cConf.getInt(Constants.Metrics.ENTITY_TABLE_CACHE_SIZE);
+      EntityTable table = new EntityTable(getOrCreateMetricsTable(tableName, DatasetProperties.EMPTY),
+                                          EntityTable.MAX_ID_COUNT, cacheSize);
+      int warmUpSize = cConf.getInt(Constants.Metrics.ENTITY_TABLE_CACHE_WARMUP_SIZE);
+      if (warmUpSize > 0) {
+        table.warmUp(warmUpSize);
+      }
+      return table;
     });
   }
 
@@ -217,10 +217,12 @@ public class DefaultMetricStore implements MetricStore {
       // TODO: remove roll time from the supplier api, https://issues.cask.co/browse/CDAP-14730
       return dsFactory.getOrCreateFactTable(resolution);
     };
+    int queryScanThreads = cConf.getInt(Constants.Metrics.METRICS_QUERY_SCAN_THREADS);
     this.cube = Suppliers.memoize(new Supplier<Cube>() {
       @Override
       public Cube get() {
-        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS);
+        DefaultCube cube = new DefaultCube(resolutions, factTableSupplier, AGGREGATIONS, AGGREGATIONS_ALIAS_DIMENSIONS,
+                                           queryScanThreads);
         cube.setMetricsCollector(metricsContext);
         return cube;
       }
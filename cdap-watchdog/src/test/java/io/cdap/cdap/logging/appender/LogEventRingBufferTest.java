@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.appender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LogEventRingBuffer}.
+ */
+public class LogEventRingBufferTest {
+
+  @Test
+  public void testShedding() {
+    LogEventRingBuffer<ILoggingEvent> buffer = new LogEventRingBuffer<>(8);
+
+    // low priority events only take up to three quarters of the buffer
+    for (int i = 0; i < 8; i++) {
+      Assert.assertEquals(i < 6, buffer.offer(createEvent(i % 2 == 0 ? Level.DEBUG : Level.INFO, "low" + i)));
+    }
+    Assert.assertTrue(buffer.offer(createEvent(Level.WARN, "warn")));
+    Assert.assertTrue(buffer.offer(createEvent(Level.ERROR, "error")));
+    Assert.assertFalse(buffer.offer(createEvent(Level.ERROR, "dropped")));
+    Assert.assertEquals(ImmutableMap.of(Level.DEBUG, 1L, Level.INFO, 1L, Level.ERROR, 1L),
+                        buffer.getDroppedCounts());
+
+    // events are consumed in order, and space is available again after that
+    Assert.assertEquals("low0", buffer.poll().getMessage());
+    Assert.assertEquals("low1", buffer.poll().getMessage());
+    Assert.assertTrue(buffer.offer(createEvent(Level.ERROR, "error2")));
+    for (int i = 2; i < 6; i++) {
+      Assert.assertEquals("low" + i, buffer.poll().getMessage());
+    }
+    Assert.assertEquals("warn", buffer.poll().getMessage());
+    Assert.assertEquals("error", buffer.poll().getMessage());
+    Assert.assertEquals("error2", buffer.poll().getMessage());
+    Assert.assertNull(buffer.poll());
+    Assert.assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testConcurrentProducers() throws Exception {
+    int producers = 4;
+    int eventsPerProducer = 10000;
+    LogEventRingBuffer<ILoggingEvent> buffer = new LogEventRingBuffer<>(64);
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    CountDownLatch done = new CountDownLatch(producers);
+    try {
+      for (int p = 0; p < producers; p++) {
+        int producer = p;
+        executor.execute(() -> {
+          for (int i = 0; i < eventsPerProducer; i++) {
+            while (!buffer.offer(createEvent(Level.ERROR, producer + ":" + i))) {
+              Thread.yield();
+            }
+          }
+          done.countDown();
+        });
+      }
+
+      Set<String> received = new HashSet<>();
+      while (received.size() < producers * eventsPerProducer) {
+        ILoggingEvent event = buffer.poll(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(event);
+        Assert.assertTrue(received.add(event.getMessage()));
+      }
+      Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+      Assert.assertTrue(buffer.isEmpty());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private ILoggingEvent createEvent(Level level, String message) {
+    LoggingEvent event = new LoggingEvent();
+    event.setLevel(level);
+    event.setMessage(message);
+    return event;
+  }
+}
@@ -29,12 +29,19 @@ import io.cdap.cdap.common.logging.ServiceLoggingContext;
 import io.cdap.cdap.common.logging.logback.TestLoggingContext;
 import io.cdap.cdap.logging.appender.LogMessage;
 import io.cdap.cdap.logging.context.LoggingContextHelper;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -70,6 +77,43 @@ public class LoggingEventSerializerTest {
 
   @Test
   public void testSerialization() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = createLoggingEvent();
+
+    // Serialize
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+    byte [] serializedBytes = serializer.toBytes(event);
+
+    // De-serialize
+    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(serializedBytes));
+    System.out.println(actualEvent);
+    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+  }
+
+  @Test
+  public void testWireCompatibility() throws Exception {
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+    ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = createLoggingEvent();
+    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
+
+    // Events encoded with the generic Avro writer can be decoded
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(os, null);
+    new GenericDatumWriter<GenericRecord>(serializer.getAvroSchema())
+      .write(serializer.toGenericRecord(event), encoder);
+    assertLoggingEventEquals(iLoggingEvent, serializer.fromBytes(ByteBuffer.wrap(os.toByteArray())));
+
+    // Events encoded by the serializer can be decoded with the generic Avro reader
+    byte[] bytes = serializer.toBytes(event);
+    GenericRecord record = new GenericDatumReader<GenericRecord>(serializer.getAvroSchema())
+      .read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+    assertLoggingEventEquals(iLoggingEvent, new LoggingEvent(record));
+
+    // The buffer is reused across calls
+    Assert.assertArrayEquals(bytes, serializer.toBytes(event));
+  }
+
+  private ch.qos.logback.classic.spi.LoggingEvent createLoggingEvent() {
     Map<String, String> mdcMap = Maps.newHashMap();
     mdcMap.put("mdc1", "mdc-val1");
     mdcMap.put("mdc2", null);
@@ -80,7 +124,6 @@ public class LoggingEventSerializerTest {
     contextMap.put("p2", null);
     contextMap.put(null, null);
 
-    LoggingEventSerializer serializer = new LoggingEventSerializer();
     ch.qos.logback.classic.spi.LoggingEvent iLoggingEvent = new ch.qos.logback.classic.spi.LoggingEvent();
     iLoggingEvent.setThreadName("threadName1");
     iLoggingEvent.setLevel(Level.INFO);
@@ -108,17 +151,9 @@ public class LoggingEventSerializerTest {
     iLoggingEvent.getMDCPropertyMap().putAll(mdcMap);
     iLoggingEvent.setTimeStamp(1234567890L);
 
-    // Serialize
-    ILoggingEvent event = new LogMessage(iLoggingEvent, LoggingContextAccessor.getLoggingContext());
-    byte [] serializedBytes = serializer.toBytes(event);
-
-    // De-serialize
-    ILoggingEvent actualEvent = serializer.fromBytes(ByteBuffer.wrap(serializedBytes));
-    System.out.println(actualEvent);
-    assertLoggingEventEquals(iLoggingEvent, actualEvent);
+    return iLoggingEvent;
   }
 
-
   @Test
   public void testOldSystemLoggingContext() throws Exception {
     // see: CDAP-7482
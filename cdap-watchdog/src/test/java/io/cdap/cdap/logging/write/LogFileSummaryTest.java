@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.logging.write;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.CloseableIterator;
+import io.cdap.cdap.logging.filter.AndFilter;
+import io.cdap.cdap.logging.filter.Filter;
+import io.cdap.cdap.logging.filter.LogLevelExpression;
+import io.cdap.cdap.logging.filter.MdcExpression;
+import io.cdap.cdap.logging.read.LogEvent;
+import io.cdap.cdap.logging.serialize.LogSchema;
+import io.cdap.cdap.logging.serialize.LoggingEventSerializer;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link LogFileSummary}.
+ */
+public class LogFileSummaryTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testSkipping() throws IOException {
+    Location logFile = new LocalLocationFactory(TEMP_FOLDER.newFolder()).create("1234.avro");
+    LogFileSummary.Builder builder = new LogFileSummary.Builder(0L);
+    LoggingEventSerializer serializer = new LoggingEventSerializer();
+
+    // Write three segments: run1 with INFO, run2 with INFO, run2 with one ERROR
+    long endPosition;
+    try (DataFileWriter<GenericRecord> writer =
+           new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(LogSchema.LoggingEvent.SCHEMA))) {
+      writer.create(LogSchema.LoggingEvent.SCHEMA, logFile.getOutputStream());
+      for (int i = 0; i < 30; i++) {
+        Level level = i == 25 ? Level.ERROR : Level.INFO;
+        ILoggingEvent event = createEvent(1000L + i, level, i < 10 ? "run1" : "run2");
+        writer.append(serializer.toGenericRecord(event));
+        builder.add(event);
+        if (i % 10 == 9) {
+          builder.sync(writer.sync());
+        }
+      }
+      endPosition = writer.sync();
+    }
+    builder.write(logFile, "", endPosition);
+
+    LogFileSummary summary = LogFileSummary.read(logFile);
+    Assert.assertNotNull(summary);
+    Assert.assertEquals(3, summary.getSegments().size());
+
+    Filter run1 = new MdcExpression(".runId", "run1");
+    Filter run3 = new MdcExpression(".runId", "run3");
+    Filter error = new LogLevelExpression("ERROR");
+    Assert.assertTrue(summary.mayMatch(run1, 0L, Long.MAX_VALUE));
+    Assert.assertFalse(summary.mayMatch(run3, 0L, Long.MAX_VALUE));
+    Assert.assertFalse(summary.mayMatch(run1, 1030L, Long.MAX_VALUE));
+    Assert.assertFalse(summary.mayMatch(run1, 0L, 1000L));
+    Assert.assertTrue(summary.mayMatch(error, 0L, Long.MAX_VALUE));
+    // The file has both, but no segment has both
+    Filter run1Error = new AndFilter(ImmutableList.of(run1, error));
+    Assert.assertTrue(summary.mayMatch(run1Error, 0L, Long.MAX_VALUE));
+    for (LogFileSummary.Segment segment : summary.getSegments()) {
+      Assert.assertFalse(segment.mayMatch(run1Error, 0L, Long.MAX_VALUE));
+    }
+    Assert.assertFalse(summary.getSegments().get(0).mayMatch(error, 0L, Long.MAX_VALUE));
+    Assert.assertTrue(summary.getSegments().get(2).mayMatch(error, 0L, Long.MAX_VALUE));
+
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, logFile, "default", null);
+    Assert.assertFalse(logLocation.mayMatch(run3, 0L, Long.MAX_VALUE));
+
+    // Reading skips segments without matches, and still returns all matching events
+    Assert.assertEquals(ImmutableList.of(1025L), readTimestamps(logLocation, error));
+    Assert.assertTrue(readTimestamps(logLocation, run1Error).isEmpty());
+    Assert.assertEquals(10, readTimestamps(logLocation, run1).size());
+    Assert.assertEquals(20, readTimestamps(logLocation, new MdcExpression(".runId", "run2")).size());
+    Assert.assertEquals(30, readTimestamps(logLocation, Filter.EMPTY_FILTER).size());
+
+    // Files without summary are read fully
+    LogFileSummary.getSummaryLocation(logFile).delete();
+    Assert.assertNull(LogFileSummary.read(logFile));
+    logLocation = new LogLocation(LogLocation.VERSION_1, 1000L, 1000L, logFile, "default", null);
+    Assert.assertTrue(logLocation.mayMatch(run3, 0L, Long.MAX_VALUE));
+    Assert.assertEquals(ImmutableList.of(1025L), readTimestamps(logLocation, error));
+  }
+
+  private List<Long> readTimestamps(LogLocation logLocation, Filter filter) {
+    List<Long> timestamps = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = logLocation.readLog(filter, 0L, Long.MAX_VALUE, Integer.MAX_VALUE)) {
+      while (iterator.hasNext()) {
+        timestamps.add(iterator.next().getLoggingEvent().getTimeStamp());
+      }
+    }
+    return timestamps;
+  }
+
+  private ILoggingEvent createEvent(long timestamp, Level level, String runId) {
+    LoggingEvent event = new LoggingEvent();
+    event.setTimeStamp(timestamp);
+    event.setLevel(level);
+    event.setLoggerName("test.logger");
+    event.setMessage("message " + timestamp);
+    event.setMDCPropertyMap(ImmutableMap.of(".runId", runId));
+    return event;
+  }
+}
@@ -16,10 +16,15 @@
 
 package io.cdap.cdap.metrics.query;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.cdap.cdap.common.conf.CConfiguration;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.Map;
+
 public class MetricsQueryHelperTest {
 
   @Test
@@ -95,5 +100,32 @@ public class MetricsQueryHelperTest {
     // if resolution is null, and either timestamp is not specified, minimum resolution will be used
     Assert.assertEquals(1, helper.getResolution(null, 0L, null).intValue());
     Assert.assertEquals(1, helper.getResolution(null, null, 10000000L).intValue());
+
+    // test resolution is rollup, which requires both start and end time
+    Assert.assertEquals(0, helper.getResolution("rollup", 0L, 10000000L).intValue());
+    try {
+      helper.getResolution("rollup", null, 10000000L);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRollupCount() throws Exception {
+    MetricsQueryHelper helper = new MetricsQueryHelper(null, CConfiguration.create());
+    for (String count : new String[] { "0", "-1" }) {
+      Map<String, List<String>> queryTimeParams = ImmutableMap.of(
+        "start", ImmutableList.of("0"), "end", ImmutableList.of("10000"),
+        "resolution", ImmutableList.of("rollup"), "count", ImmutableList.of(count));
+      try {
+        // the count is the number of points to return, so it must be positive for a rollup
+        helper.executeTagQuery(ImmutableList.of(), ImmutableList.of("system.metric"), ImmutableList.of(),
+                               queryTimeParams);
+        Assert.fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
   }
 }
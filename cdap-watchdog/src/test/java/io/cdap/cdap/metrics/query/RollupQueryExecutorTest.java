@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.cdap.metrics.query;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.cdap.cdap.api.dataset.lib.cube.AggregationFunction;
+import io.cdap.cdap.api.dataset.lib.cube.TimeValue;
+import io.cdap.cdap.api.metrics.MetricDataQuery;
+import io.cdap.cdap.api.metrics.MetricDeleteQuery;
+import io.cdap.cdap.api.metrics.MetricSearchQuery;
+import io.cdap.cdap.api.metrics.MetricStore;
+import io.cdap.cdap.api.metrics.MetricTimeSeries;
+import io.cdap.cdap.api.metrics.MetricValues;
+import io.cdap.cdap.api.metrics.MetricsContext;
+import io.cdap.cdap.api.metrics.MetricsProcessorStatus;
+import io.cdap.cdap.api.metrics.TagValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link RollupQueryExecutor}.
+ */
+public class RollupQueryExecutorTest {
+
+  @Test
+  public void testPlan() {
+    RollupQueryExecutor executor = new RollupQueryExecutor(new BucketMetricStore(),
+                                                           ImmutableMap.of(1, 100000L, 60, 1000000L, 3600, 1000000L));
+    MetricDataQuery query = createQuery(5 * 3600 - 125, 8 * 3600 + 130, Integer.MAX_VALUE);
+
+    // hours for the bulk of the range, minutes and seconds for the edges
+    assertPlan(executor.plan(query, 8 * 3600 + 200),
+               17875, 17879, 1,
+               17880, 17999, 60,
+               18000, 28799, 3600,
+               28800, 28919, 60,
+               28920, 28930, 1);
+
+    // the start edge is read from the minute resolution if it is no longer retained in the second resolution
+    executor = new RollupQueryExecutor(new BucketMetricStore(),
+                                       ImmutableMap.of(1, 1000L, 60, 1000000L, 3600, 1000000L));
+    assertPlan(executor.plan(query, 8 * 3600 + 200),
+               17820, 17999, 60,
+               18000, 28799, 3600,
+               28800, 28919, 60,
+               28920, 28930, 1);
+
+    // ranges shorter than an hour are read from minutes and seconds only
+    assertPlan(executor.plan(createQuery(3590, 3725, Integer.MAX_VALUE), 4000),
+               3590, 3599, 1,
+               3600, 3719, 60,
+               3720, 3725, 1);
+  }
+
+  @Test
+  public void testExecute() {
+    BucketMetricStore metricStore = new BucketMetricStore();
+    RollupQueryExecutor executor = new RollupQueryExecutor(metricStore,
+                                                           ImmutableMap.of(1, 100000L, 60, 1000000L, 3600, 1000000L));
+
+    long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) / 3600 * 3600;
+    long startTs = now - 10 * 3600 - 125;
+    long endTs = now - 130;
+
+    // the store has a value of one for each second, so the stitched values sum up to the number of seconds
+    Collection<MetricTimeSeries> result = executor.execute(createQuery(startTs, endTs, Integer.MAX_VALUE));
+    Assert.assertEquals(5, metricStore.getQueries().size());
+    Assert.assertEquals(1, result.size());
+    List<TimeValue> timeValues = result.iterator().next().getTimeValues();
+    Assert.assertEquals(startTs, timeValues.get(0).getTimestamp());
+    Assert.assertEquals(endTs - startTs + 1, sum(timeValues));
+
+    // downsampled to at most ten points
+    result = executor.execute(createQuery(startTs, endTs, 10));
+    timeValues = result.iterator().next().getTimeValues();
+    Assert.assertEquals(10, timeValues.size());
+    Assert.assertEquals(endTs - startTs + 1, sum(timeValues));
+    long interval = RollupQueryExecutor.getInterval(startTs, endTs, 10);
+    for (int i = 0; i < timeValues.size(); i++) {
+      Assert.assertEquals(startTs + i * interval, timeValues.get(i).getTimestamp());
+    }
+  }
+
+  @Test
+  public void testDownsample() {
+    List<TimeValue> timeValues = ImmutableList.of(new TimeValue(0, 3), new TimeValue(1, 1), new TimeValue(2, 4),
+                                                  new TimeValue(3, 1), new TimeValue(4, 5), new TimeValue(5, 9));
+
+    Assert.assertSame(timeValues, RollupQueryExecutor.downsample(timeValues, 0, 5, 6, AggregationFunction.SUM));
+    Assert.assertEquals(ImmutableList.of(new TimeValue(0, 4), new TimeValue(2, 5), new TimeValue(4, 14)),
+                        RollupQueryExecutor.downsample(timeValues, 0, 5, 3, AggregationFunction.SUM));
+    Assert.assertEquals(ImmutableList.of(new TimeValue(0, 4), new TimeValue(3, 9)),
+                        RollupQueryExecutor.downsample(timeValues, 0, 5, 2, AggregationFunction.MAX));
+    Assert.assertEquals(ImmutableList.of(new TimeValue(0, 1), new TimeValue(3, 1)),
+                        RollupQueryExecutor.downsample(timeValues, 0, 5, 2, AggregationFunction.MIN));
+    Assert.assertEquals(ImmutableList.of(new TimeValue(0, 4), new TimeValue(3, 9)),
+                        RollupQueryExecutor.downsample(timeValues, 0, 5, 2, AggregationFunction.LATEST));
+  }
+
+  private MetricDataQuery createQuery(long startTs, long endTs, int limit) {
+    return new MetricDataQuery(startTs, endTs, 0, limit, Collections.singletonMap("metric", AggregationFunction.SUM),
+                               Collections.emptyMap(), Collections.emptyList(), null);
+  }
+
+  private void assertPlan(List<MetricDataQuery> plan, long... expected) {
+    Assert.assertEquals(expected.length / 3, plan.size());
+    for (int i = 0; i < plan.size(); i++) {
+      MetricDataQuery query = plan.get(i);
+      Assert.assertEquals(expected[i * 3], query.getStartTs());
+      Assert.assertEquals(expected[i * 3 + 1], query.getEndTs());
+      Assert.assertEquals(expected[i * 3 + 2], query.getResolution());
+    }
+  }
+
+  private long sum(List<TimeValue> timeValues) {
+    long sum = 0;
+    for (TimeValue timeValue : timeValues) {
+      sum += timeValue.getValue();
+    }
+    return sum;
+  }
+
+  /**
+   * A {@link MetricStore} that returns a point for every bucket of the query resolution, with a value of one for
+   * each second of the bucket.
+   */
+  private static final class BucketMetricStore implements MetricStore {
+
+    private final List<MetricDataQuery> queries = new ArrayList<>();
+
+    List<MetricDataQuery> getQueries() {
+      return queries;
+    }
+
+    @Override
+    public Collection<MetricTimeSeries> query(MetricDataQuery query) {
+      queries.add(query);
+      int resolution = query.getResolution();
+      List<TimeValue> timeValues = new ArrayList<>();
+      for (long ts = query.getStartTs(); ts <= query.getEndTs(); ts += resolution) {
+        timeValues.add(new TimeValue(ts, resolution));
+      }
+      return Collections.singletonList(new MetricTimeSeries("metric", Collections.emptyMap(), timeValues));
+    }
+
+    @Override
+    public void setMetricsContext(MetricsContext metricsContext) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(MetricValues metricValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void add(Collection<? extends MetricValues> metricValues) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteBefore(long timestamp) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteTTLExpired() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(MetricDeleteQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deleteAll() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<TagValue> findNextAvailableTags(MetricSearchQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Collection<String> findMetricNames(MetricSearchQuery query) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, MetricsProcessorStatus> getMetricsProcessorStats() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}